@@ -0,0 +1,21 @@
+package cn.alotus.mqtt.annotation;
+
+/**
+ * 监听方法的消息确认方式，MANUAL 需要开启 emqx.mqtt.subscription.manual-acks
+ * 
+ * @author alotuser
+ * @since 2026/10/16
+ */
+public enum AckMode {
+
+	/**
+	 * 消息在回调线程上交给监听方法或放入分发队列后即确认
+	 */
+	AUTO,
+
+	/**
+	 * 方法声明 Acknowledgment 参数时由方法自行确认；返回 CompletableFuture 时在其完成后确认；
+	 * 否则在方法返回后确认。处理失败的消息在重试结束或转入死信后确认
+	 */
+	MANUAL
+}
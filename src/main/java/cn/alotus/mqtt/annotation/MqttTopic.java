@@ -13,4 +13,64 @@ import java.lang.annotation.Target;
 public @interface MqttTopic {
     String value();
     int qos() default 1;
+
+    /**
+     * 处理该方法消息的线程数：-1 使用全局分发线程池，0 在 Paho 回调线程上直接执行，大于 0 时为该方法创建独立线程池，1 可保证消息按到达顺序处理
+     */
+    int concurrency() default -1;
+
+    /**
+     * 处理该方法消息的 Executor Bean 名称，设置后优先于 concurrency
+     */
+    String executor() default "";
+
+    /**
+     * 顺序键占位符名称，对应主题中的 {name} 层级，如 value 为 "devices/{deviceId}/telemetry" 时填写 "deviceId"；
+     * 设置后相同键的消息按到达顺序处理，不同键的消息在多个通道间并行
+     */
+    String orderKey() default "";
+
+    /**
+     * 顺序键提取器 MqttOrderKeyExtractor 的 Bean 名称，用于无法从主题中提取顺序键的场景
+     */
+    String keyExtractor() default "";
+
+    /**
+     * 按顺序键分发时的通道数，0 表示使用 CPU 核数
+     */
+    int lanes() default 0;
+
+    /**
+     * 共享订阅组名，设置后以 $share/{group}/{topic} 订阅，同组的多个实例分摊该主题的消息
+     */
+    String group() default "";
+
+    /**
+     * 是否在分发前过滤重复消息，包括 QoS 1 重发和重连后的重复投递，窗口和容量由 emqx.mqtt.deduplication 配置，需同时指定 {@link #idExtractor()}
+     * <p>
+     * 处理失败的消息不计入去重，Broker 重发时会再次处理
+     */
+    boolean deduplicate() default false;
+
+    /**
+     * 去重使用的消息标识提取器 MqttMessageIdExtractor 的 Bean 名称，开启去重时必须指定。
+     * 按主题和负载的哈希去重会把内容相同的合法消息视为重复，需要时显式注册 PayloadHashIdExtractor
+     */
+    String idExtractor() default "";
+
+    /**
+     * 批处理条数，大于 0 时方法参数须为单个 List，如 List&lt;MqttMessageContext&gt;、List&lt;byte[]&gt; 或 List&lt;POJO&gt;，
+     * 消息累积到该条数或等待 batchTimeoutMs 后调用一次方法
+     */
+    int batchSize() default 0;
+
+    /**
+     * 批次从第一条消息起的最长等待时间（毫秒），超时后即使未攒满也会调用方法
+     */
+    long batchTimeoutMs() default 1000;
+
+    /**
+     * 消息确认方式，MANUAL 时消息在方法处理完成后才向 Broker 确认，分发到线程池异步处理时也能保证至少一次投递
+     */
+    AckMode ackMode() default AckMode.AUTO;
 }
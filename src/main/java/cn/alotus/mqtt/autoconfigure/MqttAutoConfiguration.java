@@ -4,6 +4,9 @@ import java.io.FileInputStream;
 import java.io.InputStream;
 import java.security.KeyStore;
 import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
 
 import javax.net.ssl.KeyManager;
 import javax.net.ssl.KeyManagerFactory;
@@ -15,6 +18,7 @@ import org.eclipse.paho.client.mqttv3.MqttClient;
 import org.eclipse.paho.client.mqttv3.MqttConnectOptions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
@@ -22,18 +26,42 @@ import org.springframework.boot.context.properties.EnableConfigurationProperties
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.core.env.Environment;
 import org.springframework.util.StringUtils;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import cn.alotus.mqtt.circuit.MqttCircuitBreaker;
+import cn.alotus.mqtt.circuit.MqttPublishFallback;
+import cn.alotus.mqtt.codec.ByteArrayPayloadCodec;
+import cn.alotus.mqtt.codec.JacksonPayloadCodec;
+import cn.alotus.mqtt.codec.MqttPayloadCodec;
+import cn.alotus.mqtt.codec.MqttPayloadCodecs;
+import cn.alotus.mqtt.compress.CompressionPolicy;
+import cn.alotus.mqtt.compress.PayloadCompressor;
 import cn.alotus.mqtt.config.MqttProperties;
+import cn.alotus.mqtt.core.ConflatingPublisher;
 import cn.alotus.mqtt.core.DefaultMqttClientFactory;
 import cn.alotus.mqtt.core.MqttClientFactory;
+import cn.alotus.mqtt.core.MqttClockInitializer;
+import cn.alotus.mqtt.core.MqttRetryPolicy;
 import cn.alotus.mqtt.core.MqttTemplate;
+import cn.alotus.mqtt.core.PooledMqttClientFactory;
 import cn.alotus.mqtt.core.SubscriptionManager;
+import cn.alotus.mqtt.deadletter.DeadLetterSink;
+import cn.alotus.mqtt.deadletter.JournalDeadLetterSink;
+import cn.alotus.mqtt.deadletter.TopicDeadLetterSink;
+import cn.alotus.mqtt.listener.ListenerRetryHandler;
+import cn.alotus.mqtt.listener.MqttListenerAnnotationBeanPostProcessor;
+import cn.alotus.mqtt.listener.MqttMessageDispatcher;
 import cn.alotus.mqtt.listener.MqttMessageListenerProcessor;
+import cn.alotus.mqtt.offline.OfflinePublishBuffer;
+import cn.alotus.mqtt.ratelimit.PublishRateLimiter;
+import cn.alotus.mqtt.retry.RetryPolicyType;
 
 /**
  * MQTT 自动配置类
- *
+ * 
  * @author  alotuser
  * @since 2025/5/10
  */
@@ -61,6 +89,7 @@ public class MqttAutoConfiguration {
 		options.setKeepAliveInterval(properties.getKeepAliveInterval());
 		options.setAutomaticReconnect(properties.isAutomaticReconnect());
 		options.setCleanSession(properties.isCleanSession());
+		options.setMaxInflight(properties.getMaxInflight());
 
 		// 配置 SSL
 		if (properties.getSsl().isEnabled()) {
@@ -110,23 +139,144 @@ public class MqttAutoConfiguration {
 
 	@Bean
 	@ConditionalOnMissingBean
-	public SubscriptionManager subscriptionManager(@Lazy MqttClientFactory clientFactory) {
-		return new SubscriptionManager(clientFactory);
+	public SubscriptionManager subscriptionManager(@Lazy MqttClientFactory clientFactory, MqttProperties properties) {
+		SubscriptionManager subscriptionManager = new SubscriptionManager(clientFactory);
+		subscriptionManager.setLocalRouting(properties.getSubscription().isLocalRouting());
+		subscriptionManager.setBrokerFilters(properties.getSubscription().getBrokerFilters());
+		subscriptionManager.setManualAcks(properties.getSubscription().isManualAcks());
+		return subscriptionManager;
 	}
 
 	@Bean
 	@ConditionalOnMissingBean
 	public MqttClientFactory mqttClientFactory(MqttProperties properties, MqttConnectOptions connectOptions, @Lazy SubscriptionManager subscriptionManager) {
+		if (properties.getConnectionPoolSize() > 1) {
+			return new PooledMqttClientFactory(properties, connectOptions, subscriptionManager);
+		}
 		return new DefaultMqttClientFactory(properties, connectOptions, subscriptionManager);
 	}
 
 	@Bean
-	public MqttMessageListenerProcessor mqttMessageListenerProcessor(@Lazy SubscriptionManager subscriptionManager) {
-		return new MqttMessageListenerProcessor(subscriptionManager);
+	@ConditionalOnMissingBean
+	public MqttPayloadCodecs mqttPayloadCodecs(ObjectProvider<MqttPayloadCodec> codecs) {
+		// 原始二进制编解码器始终优先，保证 byte[] 和 ByteBuffer 不被其他编解码器处理
+		List<MqttPayloadCodec> list = new ArrayList<>();
+		list.add(new ByteArrayPayloadCodec());
+		list.addAll(codecs.orderedStream().collect(Collectors.toList()));
+		return new MqttPayloadCodecs(list);
+	}
+
+	@Bean(destroyMethod = "destroy")
+	@ConditionalOnMissingBean
+	public PayloadCompressor payloadCompressor() {
+		return new PayloadCompressor();
+	}
+
+	/**
+	 * 压缩策略，发布时按规则压缩，接收时只解压命中规则的主题
+	 */
+	@Bean
+	@ConditionalOnMissingBean
+	@ConditionalOnProperty(prefix = MqttProperties.PREFIX, name = "compression.enabled", havingValue = "true")
+	public CompressionPolicy compressionPolicy(MqttProperties properties, PayloadCompressor payloadCompressor) {
+		return new CompressionPolicy(properties.getCompression(), payloadCompressor);
+	}
+
+	/**
+	 * 开启粗粒度时钟，上下文关闭时恢复
+	 */
+	@Bean
+	@ConditionalOnProperty(prefix = MqttProperties.PREFIX, name = "coarse-clock", havingValue = "true")
+	public MqttClockInitializer mqttClockInitializer() {
+		return new MqttClockInitializer();
+	}
+
+	@Bean
+	@ConditionalOnMissingBean
+	public MqttMessageDispatcher mqttMessageDispatcher(MqttProperties properties) {
+		return new MqttMessageDispatcher(properties.getExecutor());
+	}
+
+	@Bean(destroyMethod = "destroy")
+	@ConditionalOnMissingBean(DeadLetterSink.class)
+	@ConditionalOnProperty(prefix = MqttProperties.PREFIX, name = "dead-letter.type", havingValue = "JOURNAL")
+	public JournalDeadLetterSink journalDeadLetterSink(MqttProperties properties) {
+		return new JournalDeadLetterSink(properties.getDeadLetter());
+	}
+
+	@Bean
+	@ConditionalOnMissingBean(DeadLetterSink.class)
+	@ConditionalOnProperty(prefix = MqttProperties.PREFIX, name = "dead-letter.type", havingValue = "TOPIC")
+	public TopicDeadLetterSink topicDeadLetterSink(@Lazy MqttTemplate mqttTemplate, MqttProperties properties) {
+		return new TopicDeadLetterSink(mqttTemplate, properties.getDeadLetter().getTopic());
 	}
 
 	@Bean
-	public MqttTemplate mqttTemplate(@Lazy MqttClientFactory clientFactory, MqttProperties properties) {
-		return new MqttTemplate(clientFactory, properties);
+	@ConditionalOnMissingBean
+	public ListenerRetryHandler listenerRetryHandler(MqttProperties properties, ObjectProvider<DeadLetterSink> deadLetterSink) {
+		MqttRetryPolicy retryPolicy = properties.getRetry().isEnableConsumeRetry() ? new MqttRetryPolicy(properties.getRetry(), RetryPolicyType.CONSUME) : null;
+		ListenerRetryHandler retryHandler = new ListenerRetryHandler(retryPolicy, deadLetterSink.getIfAvailable());
+		retryHandler.setReplayRate(properties.getDeadLetter().getReplayRate());
+		return retryHandler;
+	}
+
+	/**
+	 * 后处理器需要在其他 Bean 之前创建，使用静态方法且不依赖其他 Bean，配置属性此时尚未绑定，直接从环境中读取
+	 */
+	@Bean
+	public static MqttListenerAnnotationBeanPostProcessor mqttListenerAnnotationBeanPostProcessor(Environment environment) {
+		return new MqttListenerAnnotationBeanPostProcessor(environment.getProperty(MqttProperties.PREFIX + ".listener-index", Boolean.class, true));
+	}
+
+	@Bean
+	public MqttMessageListenerProcessor mqttMessageListenerProcessor(@Lazy SubscriptionManager subscriptionManager, MqttProperties properties, MqttPayloadCodecs payloadCodecs, ObjectProvider<CompressionPolicy> compressionPolicy, MqttMessageDispatcher dispatcher, ListenerRetryHandler retryHandler, MqttListenerAnnotationBeanPostProcessor annotationBeanPostProcessor) {
+		MqttMessageListenerProcessor processor = new MqttMessageListenerProcessor(subscriptionManager);
+		processor.setAnnotationBeanPostProcessor(annotationBeanPostProcessor);
+		processor.setPayloadCodecs(payloadCodecs);
+		processor.setCompressionPolicy(compressionPolicy.getIfAvailable());
+		processor.setDispatcher(dispatcher);
+		processor.setRetryHandler(retryHandler);
+		processor.setDeduplication(properties.getDeduplication());
+		return processor;
+	}
+
+	@Bean
+	@ConditionalOnMissingBean
+	@ConditionalOnProperty(prefix = MqttProperties.PREFIX, name = "offline-buffer.enabled", havingValue = "true")
+	public OfflinePublishBuffer offlinePublishBuffer(MqttProperties properties) {
+		return new OfflinePublishBuffer(properties.getOfflineBuffer());
+	}
+
+	@Bean
+	public MqttTemplate mqttTemplate(@Lazy MqttClientFactory clientFactory, MqttProperties properties, ObjectProvider<OfflinePublishBuffer> offlineBuffer, MqttPayloadCodecs payloadCodecs, ObjectProvider<CompressionPolicy> compressionPolicy, ObjectProvider<MqttPublishFallback> publishFallback) {
+		MqttTemplate template = new MqttTemplate(clientFactory, properties);
+		template.setOfflineBuffer(offlineBuffer.getIfAvailable());
+		template.setPayloadCodecs(payloadCodecs);
+		template.setCompressionPolicy(compressionPolicy.getIfAvailable());
+		if (properties.getRateLimit().isEnabled()) {
+			template.setRateLimiter(new PublishRateLimiter(properties.getRateLimit()));
+		}
+		if (properties.getCircuitBreaker().isEnabled()) {
+			template.setCircuitBreaker(new MqttCircuitBreaker(properties.getCircuitBreaker()));
+			template.setPublishFallback(publishFallback.getIfAvailable());
+		}
+		if (!properties.getConflation().getTopics().isEmpty()) {
+			template.setConflatingPublisher(new ConflatingPublisher(template, properties.getConflation().getTopics()));
+		}
+		return template;
+	}
+
+	/**
+	 * 类路径存在 Jackson 时注册 JSON 编解码器，优先使用容器中的 ObjectMapper
+	 */
+	@Configuration(proxyBeanMethods = false)
+	@ConditionalOnClass(ObjectMapper.class)
+	static class JacksonCodecConfiguration {
+
+		@Bean
+		@ConditionalOnMissingBean(JacksonPayloadCodec.class)
+		public JacksonPayloadCodec jacksonPayloadCodec(ObjectProvider<ObjectMapper> objectMapper) {
+			return new JacksonPayloadCodec(objectMapper.getIfAvailable(ObjectMapper::new));
+		}
 	}
 }
@@ -0,0 +1,19 @@
+package cn.alotus.mqtt.circuit;
+
+/**
+ * 熔断器打开时拒绝请求抛出的异常
+ * 
+ * @author alotuser
+ * @since 2026/10/16
+ */
+public class CircuitBreakerOpenException extends RuntimeException {
+
+	/**
+	 * 
+	 */
+	private static final long serialVersionUID = 1L;
+
+	public CircuitBreakerOpenException(String message) {
+		super(message);
+	}
+}
@@ -0,0 +1,25 @@
+package cn.alotus.mqtt.circuit;
+
+/**
+ * 熔断器状态
+ * 
+ * @author alotuser
+ * @since 2026/10/16
+ */
+public enum CircuitState {
+
+	/**
+	 * 关闭，请求正常通过
+	 */
+	CLOSED,
+
+	/**
+	 * 打开，请求立即被拒绝
+	 */
+	OPEN,
+
+	/**
+	 * 半开，只允许一个探测请求通过
+	 */
+	HALF_OPEN
+}
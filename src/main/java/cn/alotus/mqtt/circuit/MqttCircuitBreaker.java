@@ -0,0 +1,219 @@
+package cn.alotus.mqtt.circuit;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import cn.alotus.mqtt.config.MqttProperties;
+import cn.alotus.mqtt.core.MqttConnectionListener;
+
+/**
+ * 发布熔断器，由连接事件和发布失败率共同驱动
+ * <p>
+ * 连接断开或连接失败时立即打开；关闭状态下统计窗口内的发布失败率，达到阈值时打开。打开状态持续指定时长后进入半开状态，
+ * 只放行一个探测请求，探测成功则关闭，失败则重新打开；连接恢复时直接关闭。状态切换均通过 CAS 完成，不使用锁。
+ * 每次状态切换产生新的代号，请求获得的许可记录其放行时的代号，结果只计入同一代：熔断前放行的请求在之后完成时不会被当作探测结果
+ * 
+ * @author alotuser
+ * @since 2026/10/16
+ */
+public class MqttCircuitBreaker implements MqttConnectionListener {
+
+	private static final Logger logger = LoggerFactory.getLogger(MqttCircuitBreaker.class);
+
+	/**
+	 * 请求被拒绝时返回的许可
+	 */
+	public static final long REJECTED = -1L;
+
+	private final int failureRateThreshold;
+	private final int minimumCalls;
+	private final long windowNanos;
+	private final long openNanos;
+
+	private final AtomicReference<Status> status = new AtomicReference<>(new Status(CircuitState.CLOSED, 0, System.nanoTime()));
+	private final AtomicLong windowStart = new AtomicLong(System.nanoTime());
+	private final LongAdder windowCalls = new LongAdder();
+	private final LongAdder windowFailures = new LongAdder();
+	private final AtomicLong rejectedCount = new AtomicLong();
+
+	public MqttCircuitBreaker(MqttProperties.CircuitBreaker config) {
+		this.failureRateThreshold = config.getFailureRateThreshold();
+		this.minimumCalls = config.getMinimumCalls();
+		this.windowNanos = TimeUnit.MILLISECONDS.toNanos(config.getWindowDuration());
+		this.openNanos = TimeUnit.MILLISECONDS.toNanos(config.getOpenDuration());
+	}
+
+	/**
+	 * 申请执行一次请求，打开状态超过持续时长时由本次请求作为半开探测
+	 * 
+	 * @return 许可，执行完成后传给 {@link #onSuccess(long)} 或 {@link #onError(long, Throwable)}；不允许执行时返回 {@link #REJECTED}
+	 */
+	public long tryAcquirePermission() {
+		Status current = status.get();
+		if (current.state == CircuitState.CLOSED) {
+			return current.generation;
+		}
+		if (current.state == CircuitState.OPEN && System.nanoTime() - current.since >= openNanos) {
+			Status probe = current.next(CircuitState.HALF_OPEN);
+			if (status.compareAndSet(current, probe)) {
+				logger.info("MQTT circuit breaker half-open, allowing probe request");
+				return probe.generation;
+			}
+		}
+		rejectedCount.incrementAndGet();
+		return REJECTED;
+	}
+
+	/**
+	 * 仅在关闭状态下申请许可，不触发半开探测，也不计入拒绝数
+	 * 
+	 * @return 许可，非关闭状态时返回 {@link #REJECTED}
+	 */
+	public long tryAcquireIfClosed() {
+		Status current = status.get();
+		return current.state == CircuitState.CLOSED ? current.generation : REJECTED;
+	}
+
+	/**
+	 * 记录一次成功的请求，许可不属于当前代时忽略
+	 */
+	public void onSuccess(long permit) {
+		Status current = status.get();
+		if (current.generation != permit) {
+			return;
+		}
+		if (current.state == CircuitState.HALF_OPEN) {
+			transition(current, CircuitState.CLOSED, null);
+		} else if (current.state == CircuitState.CLOSED) {
+			record(false);
+		}
+	}
+
+	/**
+	 * 记录一次失败的请求，许可不属于当前代时忽略
+	 */
+	public void onError(long permit, Throwable error) {
+		Status current = status.get();
+		if (current.generation != permit) {
+			return;
+		}
+		if (current.state == CircuitState.HALF_OPEN) {
+			transition(current, CircuitState.OPEN, error);
+		} else if (current.state == CircuitState.CLOSED && record(true)) {
+			transition(current, CircuitState.OPEN, error);
+		}
+	}
+
+	/**
+	 * 在当前窗口中记录请求结果，计数使用 LongAdder 避免高并发发布时的竞争
+	 * 
+	 * @return 失败率是否达到阈值
+	 */
+	private boolean record(boolean failure) {
+		long now = System.nanoTime();
+		long start = windowStart.get();
+		if (now - start >= windowNanos && windowStart.compareAndSet(start, now)) {
+			windowCalls.reset();
+			windowFailures.reset();
+		}
+
+		windowCalls.increment();
+		if (!failure) {
+			return false;
+		}
+		windowFailures.increment();
+		long calls = windowCalls.sum();
+		return calls >= minimumCalls && windowFailures.sum() * 100 >= (long) failureRateThreshold * calls;
+	}
+
+	@Override
+	public void onConnected(boolean reconnect, String serverURI) {
+		Status current = status.get();
+		while (current.state != CircuitState.CLOSED && !transition(current, CircuitState.CLOSED, null)) {
+			current = status.get();
+		}
+	}
+
+	@Override
+	public void onDisconnected(Throwable cause) {
+		open(cause);
+	}
+
+	@Override
+	public void onConnectFailed(Throwable cause) {
+		open(cause);
+	}
+
+	private void open(Throwable cause) {
+		Status current = status.get();
+		while (current.state != CircuitState.OPEN && !transition(current, CircuitState.OPEN, cause)) {
+			current = status.get();
+		}
+	}
+
+	/**
+	 * 从 from 切换到新状态并开始新的一代
+	 * 
+	 * @return 是否切换成功
+	 */
+	private boolean transition(Status from, CircuitState to, Throwable cause) {
+		if (!status.compareAndSet(from, from.next(to))) {
+			return false;
+		}
+		if (to == CircuitState.CLOSED) {
+			windowStart.set(System.nanoTime());
+			windowCalls.reset();
+			windowFailures.reset();
+			logger.info("MQTT circuit breaker closed");
+		} else if (to == CircuitState.OPEN) {
+			logger.warn("MQTT circuit breaker opened from state {}: {}", from.state, cause != null ? cause.toString() : "unknown cause");
+		}
+		return true;
+	}
+
+	/**
+	 * 当前状态，调用方可据此提前降载
+	 */
+	public CircuitState getState() {
+		return status.get().state;
+	}
+
+	/**
+	 * 当前是否会放行请求，不改变熔断器状态
+	 */
+	public boolean isCallPermitted() {
+		Status current = status.get();
+		return current.state == CircuitState.CLOSED || (current.state == CircuitState.OPEN && System.nanoTime() - current.since >= openNanos);
+	}
+
+	/**
+	 * 被拒绝的请求总数
+	 */
+	public long getRejectedCount() {
+		return rejectedCount.get();
+	}
+
+	/**
+	 * 不可变的状态快照，每次切换替换整个对象
+	 */
+	private static final class Status {
+		private final CircuitState state;
+		private final long generation;
+		private final long since;
+
+		Status(CircuitState state, long generation, long since) {
+			this.state = state;
+			this.generation = generation;
+			this.since = since;
+		}
+
+		Status next(CircuitState to) {
+			return new Status(to, generation + 1, System.nanoTime());
+		}
+	}
+}
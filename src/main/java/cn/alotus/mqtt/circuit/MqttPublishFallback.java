@@ -0,0 +1,18 @@
+package cn.alotus.mqtt.circuit;
+
+/**
+ * 熔断器打开时被拒绝消息的降级处理
+ * 
+ * @author alotuser
+ * @since 2026/10/16
+ */
+@FunctionalInterface
+public interface MqttPublishFallback {
+
+	/**
+	 * 处理被拒绝的消息
+	 * 
+	 * @return 是否已处理，返回 false 时发布方法抛出 {@link CircuitBreakerOpenException}
+	 */
+	boolean handle(String topic, byte[] payload, int qos, boolean retained);
+}
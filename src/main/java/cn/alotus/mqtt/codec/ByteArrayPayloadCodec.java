@@ -0,0 +1,48 @@
+package cn.alotus.mqtt.codec;
+
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+
+/**
+ * 原始二进制编解码器，支持 byte[] 与 ByteBuffer，解码为 ByteBuffer 时直接包装负载数组而不复制
+ * 
+ * @author alotuser
+ * @since 2026/10/16
+ */
+public class ByteArrayPayloadCodec implements MqttPayloadCodec {
+
+	@Override
+	public boolean supports(Type type) {
+		return type == byte[].class || (type instanceof Class && ByteBuffer.class.isAssignableFrom((Class<?>) type));
+	}
+
+	@Override
+	public byte[] encode(Object value) {
+		if (value instanceof byte[]) {
+			return (byte[]) value;
+		}
+		if (value instanceof ByteBuffer) {
+			ByteBuffer buffer = ((ByteBuffer) value).duplicate();
+			if (buffer.hasArray() && buffer.arrayOffset() == 0 && buffer.position() == 0 && buffer.remaining() == buffer.array().length) {
+				return buffer.array();
+			}
+			byte[] bytes = new byte[buffer.remaining()];
+			buffer.get(bytes);
+			return bytes;
+		}
+		throw new MqttCodecException("Unsupported payload type: " + (value == null ? "null" : value.getClass().getName()));
+	}
+
+	@Override
+	public Object decode(byte[] payload, int offset, int length, Type type) {
+		if (type == byte[].class) {
+			if (offset == 0 && length == payload.length) {
+				return payload;
+			}
+			byte[] bytes = new byte[length];
+			System.arraycopy(payload, offset, bytes, 0, length);
+			return bytes;
+		}
+		return ByteBuffer.wrap(payload, offset, length).slice().asReadOnlyBuffer();
+	}
+}
@@ -0,0 +1,69 @@
+package cn.alotus.mqtt.codec;
+
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+/**
+ * 基于 Jackson 的 JSON 编解码器
+ * <p>
+ * 编码时写入线程本地的可复用缓冲区，只在最后复制一次得到消息负载；解码时直接读取负载数组，不产生中间字符串。 每个目标类型对应的 JavaType 在首次使用后缓存
+ * 
+ * @author alotuser
+ * @since 2026/10/16
+ */
+public class JacksonPayloadCodec implements MqttPayloadCodec {
+
+	private final ObjectMapper objectMapper;
+	private final ObjectWriter writer;
+	private final Map<Type, JavaType> javaTypeCache = new ConcurrentHashMap<>();
+
+	public JacksonPayloadCodec() {
+		this(new ObjectMapper());
+	}
+
+	public JacksonPayloadCodec(ObjectMapper objectMapper) {
+		this.objectMapper = objectMapper;
+		this.writer = objectMapper.writer();
+	}
+
+	@Override
+	public boolean supports(Type type) {
+		return type != byte[].class && !(type instanceof Class && ByteBuffer.class.isAssignableFrom((Class<?>) type));
+	}
+
+	@Override
+	public byte[] encode(Object value) {
+		PooledByteArrayOutputStream out = PooledByteArrayOutputStream.acquire();
+		try {
+			writer.writeValue(out, value);
+			return out.toByteArray();
+		} catch (Exception e) {
+			throw new MqttCodecException("Failed to encode payload of type " + (value == null ? "null" : value.getClass().getName()), e);
+		} finally {
+			out.release();
+		}
+	}
+
+	@Override
+	public Object decode(byte[] payload, int offset, int length, Type type) {
+		try {
+			return objectMapper.readValue(payload, offset, length, getJavaType(type));
+		} catch (Exception e) {
+			throw new MqttCodecException("Failed to decode payload as " + type.getTypeName(), e);
+		}
+	}
+
+	private JavaType getJavaType(Type type) {
+		return javaTypeCache.computeIfAbsent(type, t -> objectMapper.getTypeFactory().constructType(t));
+	}
+
+	public ObjectMapper getObjectMapper() {
+		return objectMapper;
+	}
+}
@@ -0,0 +1,23 @@
+package cn.alotus.mqtt.codec;
+
+/**
+ * 消息负载编解码异常
+ * 
+ * @author alotuser
+ * @since 2026/10/16
+ */
+public class MqttCodecException extends RuntimeException {
+
+	/**
+	 * 
+	 */
+	private static final long serialVersionUID = 1L;
+
+	public MqttCodecException(String message) {
+		super(message);
+	}
+
+	public MqttCodecException(String message, Throwable cause) {
+		super(message, cause);
+	}
+}
@@ -0,0 +1,29 @@
+package cn.alotus.mqtt.codec;
+
+import java.lang.reflect.Type;
+
+/**
+ * MQTT 消息负载编解码器 SPI，负责对象与消息负载字节之间的转换
+ * <p>
+ * 实现需保证线程安全。多个编解码器同时存在时按 Spring 的 Order 顺序选择第一个支持目标类型的实现
+ * 
+ * @author alotuser
+ * @since 2026/10/16
+ */
+public interface MqttPayloadCodec {
+
+	/**
+	 * 是否支持指定类型的编码和解码
+	 */
+	boolean supports(Type type);
+
+	/**
+	 * 将对象编码为消息负载
+	 */
+	byte[] encode(Object value);
+
+	/**
+	 * 将消息负载的指定区间解码为目标类型，实现应直接读取数组而不是复制或先转为字符串
+	 */
+	Object decode(byte[] payload, int offset, int length, Type type);
+}
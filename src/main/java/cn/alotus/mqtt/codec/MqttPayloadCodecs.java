@@ -0,0 +1,75 @@
+package cn.alotus.mqtt.codec;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 编解码器集合，按注册顺序选择第一个支持目标类型的编解码器，并按类型缓存选择结果
+ * 
+ * @author alotuser
+ * @since 2026/10/16
+ */
+public class MqttPayloadCodecs {
+
+	private final List<MqttPayloadCodec> codecs;
+	private final Map<Type, MqttPayloadCodec> codecCache = new ConcurrentHashMap<>();
+
+	public MqttPayloadCodecs(List<MqttPayloadCodec> codecs) {
+		this.codecs = Collections.unmodifiableList(new ArrayList<>(codecs));
+	}
+
+	/**
+	 * 查找支持指定类型的编解码器
+	 * 
+	 * @return 编解码器，不存在时返回 null
+	 */
+	public MqttPayloadCodec getCodec(Type type) {
+		MqttPayloadCodec codec = codecCache.get(type);
+		if (codec != null) {
+			return codec;
+		}
+		for (MqttPayloadCodec candidate : codecs) {
+			if (candidate.supports(type)) {
+				codecCache.put(type, candidate);
+				return candidate;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * 查找支持指定类型的编解码器，不存在时抛出异常
+	 */
+	public MqttPayloadCodec getRequiredCodec(Type type) {
+		MqttPayloadCodec codec = getCodec(type);
+		if (codec == null) {
+			throw new MqttCodecException("No MQTT payload codec found for type " + type.getTypeName());
+		}
+		return codec;
+	}
+
+	/**
+	 * 按对象的运行时类型编码
+	 */
+	public byte[] encode(Object value) {
+		if (value == null) {
+			throw new MqttCodecException("Cannot encode null payload");
+		}
+		return getRequiredCodec(value.getClass()).encode(value);
+	}
+
+	/**
+	 * 将整个负载解码为目标类型
+	 */
+	public Object decode(byte[] payload, Type type) {
+		return getRequiredCodec(type).decode(payload, 0, payload.length, type);
+	}
+
+	public List<MqttPayloadCodec> getCodecs() {
+		return codecs;
+	}
+}
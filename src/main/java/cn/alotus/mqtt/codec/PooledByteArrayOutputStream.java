@@ -0,0 +1,65 @@
+package cn.alotus.mqtt.codec;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+/**
+ * 可复用的字节输出流，每个线程持有一个实例，编码时复用其内部缓冲区以减少临时对象分配
+ * <p>
+ * 缓冲区增长超过 {@link #MAX_RETAINED_CAPACITY} 时不再缓存，避免偶发的大消息长期占用内存
+ * 
+ * @author alotuser
+ * @since 2026/10/16
+ */
+public final class PooledByteArrayOutputStream extends ByteArrayOutputStream {
+
+	/**
+	 * 线程本地缓存保留的最大缓冲区容量
+	 */
+	public static final int MAX_RETAINED_CAPACITY = 64 * 1024;
+
+	private static final ThreadLocal<PooledByteArrayOutputStream> LOCAL = ThreadLocal.withInitial(() -> new PooledByteArrayOutputStream(1024));
+
+	private boolean inUse;
+
+	private PooledByteArrayOutputStream(int size) {
+		super(size);
+	}
+
+	/**
+	 * 获取当前线程的输出流，使用完毕后必须调用 {@link #release()}；重入时返回新的临时实例
+	 */
+	public static PooledByteArrayOutputStream acquire() {
+		PooledByteArrayOutputStream out = LOCAL.get();
+		if (out.inUse) {
+			PooledByteArrayOutputStream temporary = new PooledByteArrayOutputStream(256);
+			temporary.inUse = true;
+			return temporary;
+		}
+		out.inUse = true;
+		out.reset();
+		return out;
+	}
+
+	/**
+	 * 归还输出流
+	 */
+	public void release() {
+		inUse = false;
+		if (buf.length > MAX_RETAINED_CAPACITY && LOCAL.get() == this) {
+			LOCAL.remove();
+		}
+	}
+
+	/**
+	 * 内部缓冲区，有效数据长度为 {@link #size()}
+	 */
+	public byte[] buffer() {
+		return buf;
+	}
+
+	@Override
+	public synchronized byte[] toByteArray() {
+		return Arrays.copyOf(buf, count);
+	}
+}
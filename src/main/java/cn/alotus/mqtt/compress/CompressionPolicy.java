@@ -0,0 +1,146 @@
+package cn.alotus.mqtt.compress;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.DataFormatException;
+
+import org.eclipse.paho.client.mqttv3.MqttMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import cn.alotus.mqtt.config.MqttProperties;
+
+/**
+ * 按主题过滤器决定发布消息是否压缩，以及接收的消息是否需要解压
+ * <p>
+ * 规则按配置顺序匹配，命中第一条规则后使用其阈值和压缩级别；未配置任何规则时对所有主题生效。 主题的匹配结果会被缓存，避免每条消息重复匹配通配符。
+ * 只有命中规则的主题才会识别并解压压缩帧，其他主题上以相同魔数开头的二进制负载原样交给监听器
+ * 
+ * @author alotuser
+ * @since 2026/10/16
+ */
+public class CompressionPolicy {
+
+	private static final Logger logger = LoggerFactory.getLogger(CompressionPolicy.class);
+
+	/**
+	 * 主题匹配结果缓存上限，超过后清空重建，防止动态主题导致缓存无限增长
+	 */
+	private static final int MAX_CACHED_TOPICS = 10000;
+
+	private static final Rule NO_MATCH = new Rule(null, Integer.MAX_VALUE, 0);
+
+	private final PayloadCompressor compressor;
+	private final List<Rule> rules = new ArrayList<>();
+	private final Map<String, Rule> topicCache = new ConcurrentHashMap<>();
+
+	public CompressionPolicy(MqttProperties.Compression config, PayloadCompressor compressor) {
+		this.compressor = compressor;
+		for (MqttProperties.CompressionRule rule : config.getRules()) {
+			org.eclipse.paho.client.mqttv3.MqttTopic.validate(rule.getTopic(), true);
+			rules.add(new Rule(rule.getTopic(), rule.getMinSize() != null ? rule.getMinSize() : config.getMinSize(), rule.getLevel() != null ? rule.getLevel() : config.getLevel()));
+		}
+		if (rules.isEmpty()) {
+			rules.add(new Rule("#", config.getMinSize(), config.getLevel()));
+		}
+	}
+
+	/**
+	 * 按主题规则压缩负载，不满足规则或阈值时返回原始负载
+	 */
+	public byte[] compressIfNeeded(String topic, byte[] payload) {
+		Rule rule = resolve(topic);
+		if (payload.length < rule.minSize) {
+			return payload;
+		}
+		byte[] compressed = compressor.compress(payload, rule.level);
+		if (logger.isTraceEnabled() && compressed != payload) {
+			logger.trace("Compressed payload for topic: {}, {} -> {} bytes", topic, payload.length, compressed.length);
+		}
+		return compressed;
+	}
+
+	/**
+	 * 主题是否命中压缩规则
+	 */
+	public boolean matches(String topic) {
+		return resolve(topic) != NO_MATCH;
+	}
+
+	/**
+	 * 主题命中压缩规则且负载为压缩帧时解压，返回的新消息保留原消息的 QoS、保留、重复标志和消息 ID；否则返回原消息
+	 * 
+	 * @throws DataFormatException 压缩数据损坏
+	 */
+	public MqttMessage decompressIfNeeded(String topic, MqttMessage message) throws DataFormatException {
+		if (!PayloadCompressor.isCompressed(message.getPayload()) || !matches(topic)) {
+			return message;
+		}
+		return new DecompressedMessage(compressor.decompress(message.getPayload()), message);
+	}
+
+	/**
+	 * 返回解压前的原始消息，message 不是由 {@link #decompressIfNeeded} 解压得到时原样返回
+	 */
+	public static MqttMessage originalOf(MqttMessage message) {
+		return message instanceof DecompressedMessage ? ((DecompressedMessage) message).original : message;
+	}
+
+	/**
+	 * 查找主题对应的规则
+	 */
+	private Rule resolve(String topic) {
+		Rule rule = topicCache.get(topic);
+		if (rule != null) {
+			return rule;
+		}
+
+		rule = NO_MATCH;
+		for (Rule candidate : rules) {
+			if (org.eclipse.paho.client.mqttv3.MqttTopic.isMatched(candidate.filter, topic)) {
+				rule = candidate;
+				break;
+			}
+		}
+
+		if (topicCache.size() >= MAX_CACHED_TOPICS) {
+			topicCache.clear();
+		}
+		topicCache.put(topic, rule);
+		return rule;
+	}
+
+	public PayloadCompressor getCompressor() {
+		return compressor;
+	}
+
+	/**
+	 * 解压后的消息，重复标志只能由子类设置；保留原始消息，处理失败时按原始消息移除去重标识
+	 */
+	private static class DecompressedMessage extends MqttMessage {
+		private final MqttMessage original;
+
+		DecompressedMessage(byte[] payload, MqttMessage original) {
+			super(payload);
+			this.original = original;
+			setQos(original.getQos());
+			setRetained(original.isRetained());
+			setDuplicate(original.isDuplicate());
+			setId(original.getId());
+		}
+	}
+
+	private static class Rule {
+		private final String filter;
+		private final int minSize;
+		private final int level;
+
+		Rule(String filter, int minSize, int level) {
+			this.filter = filter;
+			this.minSize = minSize;
+			this.level = level;
+		}
+	}
+}
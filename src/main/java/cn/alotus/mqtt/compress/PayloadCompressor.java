@@ -0,0 +1,159 @@
+package cn.alotus.mqtt.compress;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import cn.alotus.mqtt.codec.PooledByteArrayOutputStream;
+
+/**
+ * 负载压缩器，使用 JDK Deflater/Inflater 压缩和解压消息负载
+ * <p>
+ * 压缩后的负载带有帧头：3 字节魔数 {@code 0x00 'M' 'Z'}、1 字节算法标识和 4 字节原始长度，接收端据此区分压缩消息和普通消息，
+ * 因此同一主题上可以混合发送两种消息。Deflater 和 Inflater 实例池化复用，避免每条消息创建本地 zlib 资源
+ * 
+ * @author alotuser
+ * @since 2026/10/16
+ */
+public class PayloadCompressor {
+
+	private static final byte[] MAGIC = { 0x00, 'M', 'Z' };
+	private static final byte ALGORITHM_DEFLATE = 0x01;
+
+	/**
+	 * 帧头长度
+	 */
+	public static final int HEADER_LENGTH = MAGIC.length + 1 + 4;
+
+	/**
+	 * 允许的最大解压长度，与 MQTT 协议的最大报文长度一致
+	 */
+	private static final int MAX_UNCOMPRESSED_LENGTH = 268435455;
+
+	private static final ThreadLocal<byte[]> CHUNK = ThreadLocal.withInitial(() -> new byte[8192]);
+
+	private final BlockingQueue<Deflater> deflaters;
+	private final BlockingQueue<Inflater> inflaters;
+
+	public PayloadCompressor() {
+		this(Math.max(4, Runtime.getRuntime().availableProcessors() * 2));
+	}
+
+	/**
+	 * @param poolSize Deflater 和 Inflater 池各自保留的最大实例数
+	 */
+	public PayloadCompressor(int poolSize) {
+		this.deflaters = new ArrayBlockingQueue<>(poolSize);
+		this.inflaters = new ArrayBlockingQueue<>(poolSize);
+	}
+
+	/**
+	 * 判断负载是否为压缩帧
+	 */
+	public static boolean isCompressed(byte[] payload) {
+		return payload != null && payload.length >= HEADER_LENGTH && payload[0] == MAGIC[0] && payload[1] == MAGIC[1] && payload[2] == MAGIC[2] && payload[3] == ALGORITHM_DEFLATE;
+	}
+
+	/**
+	 * 压缩负载
+	 * 
+	 * @param payload 原始负载
+	 * @param level   压缩级别（1-9）
+	 * @return 压缩帧；压缩后不比原始数据更小时返回原始负载
+	 */
+	public byte[] compress(byte[] payload, int level) {
+		Deflater deflater = deflaters.poll();
+		if (deflater == null) {
+			deflater = new Deflater(level, true);
+		} else {
+			deflater.setLevel(level);
+		}
+
+		PooledByteArrayOutputStream out = PooledByteArrayOutputStream.acquire();
+		try {
+			out.write(MAGIC, 0, MAGIC.length);
+			out.write(ALGORITHM_DEFLATE);
+			out.write(payload.length >>> 24);
+			out.write(payload.length >>> 16);
+			out.write(payload.length >>> 8);
+			out.write(payload.length);
+
+			deflater.setInput(payload);
+			deflater.finish();
+			byte[] chunk = CHUNK.get();
+			while (!deflater.finished()) {
+				int n = deflater.deflate(chunk);
+				out.write(chunk, 0, n);
+				if (out.size() >= payload.length) {
+					return payload;
+				}
+			}
+			return out.toByteArray();
+		} finally {
+			out.release();
+			deflater.reset();
+			if (!deflaters.offer(deflater)) {
+				deflater.end();
+			}
+		}
+	}
+
+	/**
+	 * 解压负载，非压缩帧原样返回
+	 * 
+	 * @throws DataFormatException 压缩数据损坏或长度与帧头不符
+	 */
+	public byte[] decompress(byte[] payload) throws DataFormatException {
+		if (!isCompressed(payload)) {
+			return payload;
+		}
+
+		int length = ((payload[4] & 0xFF) << 24) | ((payload[5] & 0xFF) << 16) | ((payload[6] & 0xFF) << 8) | (payload[7] & 0xFF);
+		if (length < 0 || length > MAX_UNCOMPRESSED_LENGTH) {
+			throw new DataFormatException("Invalid uncompressed length: " + length);
+		}
+
+		Inflater inflater = inflaters.poll();
+		if (inflater == null) {
+			inflater = new Inflater(true);
+		}
+
+		try {
+			byte[] result = new byte[length];
+			inflater.setInput(payload, HEADER_LENGTH, payload.length - HEADER_LENGTH);
+			int offset = 0;
+			while (offset < length) {
+				int n = inflater.inflate(result, offset, length - offset);
+				if (n == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+					break;
+				}
+				offset += n;
+			}
+			if (offset != length) {
+				throw new DataFormatException("Truncated compressed payload, expected " + length + " bytes but got " + offset);
+			}
+			return result;
+		} finally {
+			inflater.reset();
+			if (!inflaters.offer(inflater)) {
+				inflater.end();
+			}
+		}
+	}
+
+	/**
+	 * 释放池中的本地资源
+	 */
+	public void destroy() {
+		Deflater deflater;
+		while ((deflater = deflaters.poll()) != null) {
+			deflater.end();
+		}
+		Inflater inflater;
+		while ((inflater = inflaters.poll()) != null) {
+			inflater.end();
+		}
+	}
+}
@@ -1,5 +1,8 @@
 package cn.alotus.mqtt.config;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.springframework.boot.context.properties.ConfigurationProperties;
 /**
  * MQTT 配置属性类
@@ -28,6 +31,22 @@ public class MqttProperties {
 	private int keepAliveInterval = 60;
 	private boolean automaticReconnect = true;
 	private boolean cleanSession = true;
+	/**
+	 * 最大在途消息数（未收到确认的 QoS 1/2 消息），同时作为批量发布的默认窗口大小，默认：10
+	 */
+	private int maxInflight = 10;
+	/**
+	 * 连接池大小，大于 1 时按主题哈希将发布分片到多条连接，订阅仅使用第一条连接，默认：1
+	 */
+	private int connectionPoolSize = 1;
+	/**
+	 * 是否使用编译期生成的监听器索引 META-INF/mqtt-listeners.index，存在索引时只检查索引中列出的类，默认：true
+	 */
+	private boolean listenerIndex = true;
+	/**
+	 * 是否使用每毫秒刷新一次的粗粒度时钟生成消息时间戳，适用于读取系统时间代价较高的环境，默认：false
+	 */
+	private boolean coarseClock = false;
 
 	// SSL 配置
 	private Ssl ssl = new Ssl();
@@ -117,6 +136,13 @@ public class MqttProperties {
 		private long maxPublishRetryInterval = 5000; // ms
 		private double publishRetryMultiplier = 1.2;
 
+		// 消息消费重试配置，监听方法抛出异常后在定时器上等待，再回到分发线程池重新执行
+		private boolean enableConsumeRetry = false;
+		private int maxConsumeAttempts = 3;
+		private long consumeRetryInterval = 1000; // ms
+		private long maxConsumeRetryInterval = 30000; // ms
+		private double consumeRetryMultiplier = 2.0;
+
 		// 退避策略
 		private BackoffStrategy backoffStrategy = BackoffStrategy.EXPONENTIAL;
 
@@ -207,6 +233,46 @@ public class MqttProperties {
 			this.publishRetryMultiplier = publishRetryMultiplier;
 		}
 
+		public boolean isEnableConsumeRetry() {
+			return enableConsumeRetry;
+		}
+
+		public void setEnableConsumeRetry(boolean enableConsumeRetry) {
+			this.enableConsumeRetry = enableConsumeRetry;
+		}
+
+		public int getMaxConsumeAttempts() {
+			return maxConsumeAttempts;
+		}
+
+		public void setMaxConsumeAttempts(int maxConsumeAttempts) {
+			this.maxConsumeAttempts = maxConsumeAttempts;
+		}
+
+		public long getConsumeRetryInterval() {
+			return consumeRetryInterval;
+		}
+
+		public void setConsumeRetryInterval(long consumeRetryInterval) {
+			this.consumeRetryInterval = consumeRetryInterval;
+		}
+
+		public long getMaxConsumeRetryInterval() {
+			return maxConsumeRetryInterval;
+		}
+
+		public void setMaxConsumeRetryInterval(long maxConsumeRetryInterval) {
+			this.maxConsumeRetryInterval = maxConsumeRetryInterval;
+		}
+
+		public double getConsumeRetryMultiplier() {
+			return consumeRetryMultiplier;
+		}
+
+		public void setConsumeRetryMultiplier(double consumeRetryMultiplier) {
+			this.consumeRetryMultiplier = consumeRetryMultiplier;
+		}
+
 		public BackoffStrategy getBackoffStrategy() {
 			return backoffStrategy;
 		}
@@ -216,6 +282,712 @@ public class MqttProperties {
 		}
 	}
 
+	// 客户端持久化配置
+	private Persistence persistence = new Persistence();
+
+	public static class Persistence {
+		private PersistenceType type = PersistenceType.MEMORY;
+		private String directory = "mqtt-persistence";
+		private long syncInterval = 100; // ms，小于等于 0 表示每次写入都刷盘
+		private int initialSize = 4 * 1024 * 1024; // bytes
+		private long compactThreshold = 64L * 1024 * 1024; // bytes
+
+		public enum PersistenceType {
+			MEMORY, // 内存，进程重启后丢失
+			FILE, // Paho 文件持久化，每条消息一个文件
+			MAPPED_LOG // 内存映射日志，批量刷盘并自动压缩
+		}
+
+		// getters and setters
+		public PersistenceType getType() {
+			return type;
+		}
+
+		public void setType(PersistenceType type) {
+			this.type = type;
+		}
+
+		public String getDirectory() {
+			return directory;
+		}
+
+		public void setDirectory(String directory) {
+			this.directory = directory;
+		}
+
+		public long getSyncInterval() {
+			return syncInterval;
+		}
+
+		public void setSyncInterval(long syncInterval) {
+			this.syncInterval = syncInterval;
+		}
+
+		public int getInitialSize() {
+			return initialSize;
+		}
+
+		public void setInitialSize(int initialSize) {
+			this.initialSize = initialSize;
+		}
+
+		public long getCompactThreshold() {
+			return compactThreshold;
+		}
+
+		public void setCompactThreshold(long compactThreshold) {
+			this.compactThreshold = compactThreshold;
+		}
+	}
+
+	public Persistence getPersistence() {
+		return persistence;
+	}
+
+	public void setPersistence(Persistence persistence) {
+		this.persistence = persistence;
+	}
+
+	// 离线发布缓冲配置
+	private OfflineBuffer offlineBuffer = new OfflineBuffer();
+
+	public static class OfflineBuffer {
+		private boolean enabled = false;
+		private String directory = "mqtt-offline-buffer";
+		private int segmentSize = 16 * 1024 * 1024; // bytes
+		private long maxSize = 512L * 1024 * 1024; // bytes
+		private long maxAge = 24 * 60 * 60 * 1000L; // ms
+		private int drainRate = 500; // 条/秒
+
+		// getters and setters
+		public boolean isEnabled() {
+			return enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public String getDirectory() {
+			return directory;
+		}
+
+		public void setDirectory(String directory) {
+			this.directory = directory;
+		}
+
+		public int getSegmentSize() {
+			return segmentSize;
+		}
+
+		public void setSegmentSize(int segmentSize) {
+			this.segmentSize = segmentSize;
+		}
+
+		public long getMaxSize() {
+			return maxSize;
+		}
+
+		public void setMaxSize(long maxSize) {
+			this.maxSize = maxSize;
+		}
+
+		public long getMaxAge() {
+			return maxAge;
+		}
+
+		public void setMaxAge(long maxAge) {
+			this.maxAge = maxAge;
+		}
+
+		public int getDrainRate() {
+			return drainRate;
+		}
+
+		public void setDrainRate(int drainRate) {
+			this.drainRate = drainRate;
+		}
+	}
+
+	public OfflineBuffer getOfflineBuffer() {
+		return offlineBuffer;
+	}
+
+	public void setOfflineBuffer(OfflineBuffer offlineBuffer) {
+		this.offlineBuffer = offlineBuffer;
+	}
+
+	// 负载压缩配置
+	private Compression compression = new Compression();
+
+	public static class Compression {
+		private boolean enabled = false;
+		private int level = 6; // 1-9
+		private int minSize = 512; // bytes
+		private List<CompressionRule> rules = new ArrayList<>();
+
+		// getters and setters
+		public boolean isEnabled() {
+			return enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public int getLevel() {
+			return level;
+		}
+
+		public void setLevel(int level) {
+			this.level = level;
+		}
+
+		public int getMinSize() {
+			return minSize;
+		}
+
+		public void setMinSize(int minSize) {
+			this.minSize = minSize;
+		}
+
+		public List<CompressionRule> getRules() {
+			return rules;
+		}
+
+		public void setRules(List<CompressionRule> rules) {
+			this.rules = rules;
+		}
+	}
+
+	/**
+	 * 按主题过滤器配置的压缩规则，未设置的阈值和级别使用全局配置
+	 */
+	public static class CompressionRule {
+		private String topic;
+		private Integer minSize;
+		private Integer level;
+
+		// getters and setters
+		public String getTopic() {
+			return topic;
+		}
+
+		public void setTopic(String topic) {
+			this.topic = topic;
+		}
+
+		public Integer getMinSize() {
+			return minSize;
+		}
+
+		public void setMinSize(Integer minSize) {
+			this.minSize = minSize;
+		}
+
+		public Integer getLevel() {
+			return level;
+		}
+
+		public void setLevel(Integer level) {
+			this.level = level;
+		}
+	}
+
+	public Compression getCompression() {
+		return compression;
+	}
+
+	public void setCompression(Compression compression) {
+		this.compression = compression;
+	}
+
+	// 发布限流配置
+	private RateLimit rateLimit = new RateLimit();
+
+	public static class RateLimit {
+		private boolean enabled = false;
+		private RateLimitMode mode = RateLimitMode.BLOCK;
+		private double messagesPerSecond = 0; // 0 表示不限制
+		private long bytesPerSecond = 0; // 0 表示不限制
+		private long burstDuration = 1000; // ms，令牌桶容量 = 速率 × 该时长
+		private long maxWait = 5000; // ms
+		private int maxQueued = 10000; // 条
+		private List<RateLimitRule> rules = new ArrayList<>();
+
+		public enum RateLimitMode {
+			BLOCK, // 阻塞调用线程直到获得令牌
+			FAIL_FAST, // 无可用令牌时立即抛出异常
+			ENQUEUE // 延迟到获得令牌时发送，调用线程立即返回
+		}
+
+		// getters and setters
+		public boolean isEnabled() {
+			return enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public RateLimitMode getMode() {
+			return mode;
+		}
+
+		public void setMode(RateLimitMode mode) {
+			this.mode = mode;
+		}
+
+		public double getMessagesPerSecond() {
+			return messagesPerSecond;
+		}
+
+		public void setMessagesPerSecond(double messagesPerSecond) {
+			this.messagesPerSecond = messagesPerSecond;
+		}
+
+		public long getBytesPerSecond() {
+			return bytesPerSecond;
+		}
+
+		public void setBytesPerSecond(long bytesPerSecond) {
+			this.bytesPerSecond = bytesPerSecond;
+		}
+
+		public long getBurstDuration() {
+			return burstDuration;
+		}
+
+		public void setBurstDuration(long burstDuration) {
+			this.burstDuration = burstDuration;
+		}
+
+		public long getMaxWait() {
+			return maxWait;
+		}
+
+		public void setMaxWait(long maxWait) {
+			this.maxWait = maxWait;
+		}
+
+		public int getMaxQueued() {
+			return maxQueued;
+		}
+
+		public void setMaxQueued(int maxQueued) {
+			this.maxQueued = maxQueued;
+		}
+
+		public List<RateLimitRule> getRules() {
+			return rules;
+		}
+
+		public void setRules(List<RateLimitRule> rules) {
+			this.rules = rules;
+		}
+	}
+
+	/**
+	 * 按主题过滤器配置的限流规则，匹配同一规则的所有主题共享令牌桶
+	 */
+	public static class RateLimitRule {
+		private String topic;
+		private double messagesPerSecond = 0; // 0 表示不限制
+		private long bytesPerSecond = 0; // 0 表示不限制
+
+		// getters and setters
+		public String getTopic() {
+			return topic;
+		}
+
+		public void setTopic(String topic) {
+			this.topic = topic;
+		}
+
+		public double getMessagesPerSecond() {
+			return messagesPerSecond;
+		}
+
+		public void setMessagesPerSecond(double messagesPerSecond) {
+			this.messagesPerSecond = messagesPerSecond;
+		}
+
+		public long getBytesPerSecond() {
+			return bytesPerSecond;
+		}
+
+		public void setBytesPerSecond(long bytesPerSecond) {
+			this.bytesPerSecond = bytesPerSecond;
+		}
+	}
+
+	public RateLimit getRateLimit() {
+		return rateLimit;
+	}
+
+	public void setRateLimit(RateLimit rateLimit) {
+		this.rateLimit = rateLimit;
+	}
+
+	// 最新值合并配置
+	private Conflation conflation = new Conflation();
+
+	public static class Conflation {
+		private List<String> topics = new ArrayList<>();
+
+		// getters and setters
+		public List<String> getTopics() {
+			return topics;
+		}
+
+		public void setTopics(List<String> topics) {
+			this.topics = topics;
+		}
+	}
+
+	public Conflation getConflation() {
+		return conflation;
+	}
+
+	public void setConflation(Conflation conflation) {
+		this.conflation = conflation;
+	}
+
+	// 发布熔断配置
+	private CircuitBreaker circuitBreaker = new CircuitBreaker();
+
+	public static class CircuitBreaker {
+		private boolean enabled = false;
+		private int failureRateThreshold = 50; // %
+		private int minimumCalls = 20; // 窗口内达到该请求数才计算失败率
+		private long windowDuration = 10000; // ms
+		private long openDuration = 5000; // ms
+
+		// getters and setters
+		public boolean isEnabled() {
+			return enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public int getFailureRateThreshold() {
+			return failureRateThreshold;
+		}
+
+		public void setFailureRateThreshold(int failureRateThreshold) {
+			this.failureRateThreshold = failureRateThreshold;
+		}
+
+		public int getMinimumCalls() {
+			return minimumCalls;
+		}
+
+		public void setMinimumCalls(int minimumCalls) {
+			this.minimumCalls = minimumCalls;
+		}
+
+		public long getWindowDuration() {
+			return windowDuration;
+		}
+
+		public void setWindowDuration(long windowDuration) {
+			this.windowDuration = windowDuration;
+		}
+
+		public long getOpenDuration() {
+			return openDuration;
+		}
+
+		public void setOpenDuration(long openDuration) {
+			this.openDuration = openDuration;
+		}
+	}
+
+	public CircuitBreaker getCircuitBreaker() {
+		return circuitBreaker;
+	}
+
+	public void setCircuitBreaker(CircuitBreaker circuitBreaker) {
+		this.circuitBreaker = circuitBreaker;
+	}
+
+	// 消息分发线程池配置
+	private Executor executor = new Executor();
+
+	public static class Executor {
+		private boolean enabled = true;
+		private int corePoolSize = 5;
+		private int maxPoolSize = 20;
+		private int queueCapacity = 100;
+		private long keepAlive = 60000; // ms
+		private boolean virtualThreads = false; // JDK 21+，每条消息一个虚拟线程
+		private OverflowPolicy overflowPolicy = OverflowPolicy.CALLER_RUNS;
+		private String spillDirectory = "mqtt-inbound-spill";
+		private int spillSegmentSize = 16 * 1024 * 1024; // 字节
+		private long spillMaxSize = 512L * 1024 * 1024; // 字节，超出时丢弃最旧的段
+
+		public enum OverflowPolicy {
+			CALLER_RUNS, // 在 Paho 回调线程上直接执行
+			BLOCK, // 阻塞 Paho 回调线程直到队列有空位，对 Broker 形成 TCP 背压
+			DROP_OLDEST, // 丢弃队列中最旧的消息
+			DROP_NEWEST, // 丢弃新到达的消息
+			SPILL // 写入磁盘日志，队列有空位时再取回执行
+		}
+
+		// getters and setters
+		public boolean isEnabled() {
+			return enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public int getCorePoolSize() {
+			return corePoolSize;
+		}
+
+		public void setCorePoolSize(int corePoolSize) {
+			this.corePoolSize = corePoolSize;
+		}
+
+		public int getMaxPoolSize() {
+			return maxPoolSize;
+		}
+
+		public void setMaxPoolSize(int maxPoolSize) {
+			this.maxPoolSize = maxPoolSize;
+		}
+
+		public int getQueueCapacity() {
+			return queueCapacity;
+		}
+
+		public void setQueueCapacity(int queueCapacity) {
+			this.queueCapacity = queueCapacity;
+		}
+
+		public long getKeepAlive() {
+			return keepAlive;
+		}
+
+		public void setKeepAlive(long keepAlive) {
+			this.keepAlive = keepAlive;
+		}
+
+		public boolean isVirtualThreads() {
+			return virtualThreads;
+		}
+
+		public void setVirtualThreads(boolean virtualThreads) {
+			this.virtualThreads = virtualThreads;
+		}
+
+		public OverflowPolicy getOverflowPolicy() {
+			return overflowPolicy;
+		}
+
+		public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+			this.overflowPolicy = overflowPolicy;
+		}
+
+		public String getSpillDirectory() {
+			return spillDirectory;
+		}
+
+		public void setSpillDirectory(String spillDirectory) {
+			this.spillDirectory = spillDirectory;
+		}
+
+		public int getSpillSegmentSize() {
+			return spillSegmentSize;
+		}
+
+		public void setSpillSegmentSize(int spillSegmentSize) {
+			this.spillSegmentSize = spillSegmentSize;
+		}
+
+		public long getSpillMaxSize() {
+			return spillMaxSize;
+		}
+
+		public void setSpillMaxSize(long spillMaxSize) {
+			this.spillMaxSize = spillMaxSize;
+		}
+	}
+
+	public Executor getExecutor() {
+		return executor;
+	}
+
+	public void setExecutor(Executor executor) {
+		this.executor = executor;
+	}
+
+	// 订阅路由配置
+	private Subscription subscription = new Subscription();
+
+	public static class Subscription {
+		private boolean localRouting = false;
+		private List<String> brokerFilters = new ArrayList<>();
+		/**
+		 * 是否开启手动确认，开启后 QoS 1/2 消息在监听器处理完成后才向 Broker 确认，所有订阅经本地路由分发，默认：false
+		 */
+		private boolean manualAcks = false;
+
+		// getters and setters
+		public boolean isLocalRouting() {
+			return localRouting;
+		}
+
+		public void setLocalRouting(boolean localRouting) {
+			this.localRouting = localRouting;
+		}
+
+		public List<String> getBrokerFilters() {
+			return brokerFilters;
+		}
+
+		public void setBrokerFilters(List<String> brokerFilters) {
+			this.brokerFilters = brokerFilters;
+		}
+
+		public boolean isManualAcks() {
+			return manualAcks;
+		}
+
+		public void setManualAcks(boolean manualAcks) {
+			this.manualAcks = manualAcks;
+		}
+	}
+
+	public Subscription getSubscription() {
+		return subscription;
+	}
+
+	public void setSubscription(Subscription subscription) {
+		this.subscription = subscription;
+	}
+
+	// 死信配置
+	private DeadLetter deadLetter = new DeadLetter();
+
+	public static class DeadLetter {
+		private DeadLetterType type = DeadLetterType.NONE;
+		private String directory = "mqtt-dead-letter";
+		private int segmentSize = 16 * 1024 * 1024; // 字节
+		private long maxSize = 512L * 1024 * 1024; // 字节，超出时丢弃最旧的段
+		private long maxAge = 7L * 24 * 60 * 60 * 1000; // ms
+		private String topic = "dlq/{topic}"; // {topic} 替换为原主题
+		private double replayRate = 100; // 条/秒
+
+		public enum DeadLetterType {
+			NONE, // 只记录日志
+			JOURNAL, // 写入本地磁盘日志，可按速率重放
+			TOPIC // 发布到死信主题
+		}
+
+		// getters and setters
+		public DeadLetterType getType() {
+			return type;
+		}
+
+		public void setType(DeadLetterType type) {
+			this.type = type;
+		}
+
+		public String getDirectory() {
+			return directory;
+		}
+
+		public void setDirectory(String directory) {
+			this.directory = directory;
+		}
+
+		public int getSegmentSize() {
+			return segmentSize;
+		}
+
+		public void setSegmentSize(int segmentSize) {
+			this.segmentSize = segmentSize;
+		}
+
+		public long getMaxSize() {
+			return maxSize;
+		}
+
+		public void setMaxSize(long maxSize) {
+			this.maxSize = maxSize;
+		}
+
+		public long getMaxAge() {
+			return maxAge;
+		}
+
+		public void setMaxAge(long maxAge) {
+			this.maxAge = maxAge;
+		}
+
+		public String getTopic() {
+			return topic;
+		}
+
+		public void setTopic(String topic) {
+			this.topic = topic;
+		}
+
+		public double getReplayRate() {
+			return replayRate;
+		}
+
+		public void setReplayRate(double replayRate) {
+			this.replayRate = replayRate;
+		}
+	}
+
+	public DeadLetter getDeadLetter() {
+		return deadLetter;
+	}
+
+	public void setDeadLetter(DeadLetter deadLetter) {
+		this.deadLetter = deadLetter;
+	}
+
+	// 消息去重配置
+	private Deduplication deduplication = new Deduplication();
+
+	public static class Deduplication {
+		private long window = 600000; // ms，消息标识至少保留的时长
+		private int maxEntries = 100000; // 每个监听方法每代最多保存的标识数
+
+		// getters and setters
+		public long getWindow() {
+			return window;
+		}
+
+		public void setWindow(long window) {
+			this.window = window;
+		}
+
+		public int getMaxEntries() {
+			return maxEntries;
+		}
+
+		public void setMaxEntries(int maxEntries) {
+			this.maxEntries = maxEntries;
+		}
+	}
+
+	public Deduplication getDeduplication() {
+		return deduplication;
+	}
+
+	public void setDeduplication(Deduplication deduplication) {
+		this.deduplication = deduplication;
+	}
+
 	public Retry getRetry() {
 		return retry;
 	}
@@ -289,6 +1061,38 @@ public class MqttProperties {
 		this.cleanSession = cleanSession;
 	}
 
+	public int getMaxInflight() {
+		return maxInflight;
+	}
+
+	public void setMaxInflight(int maxInflight) {
+		this.maxInflight = maxInflight;
+	}
+
+	public int getConnectionPoolSize() {
+		return connectionPoolSize;
+	}
+
+	public void setConnectionPoolSize(int connectionPoolSize) {
+		this.connectionPoolSize = connectionPoolSize;
+	}
+
+	public boolean isListenerIndex() {
+		return listenerIndex;
+	}
+
+	public void setListenerIndex(boolean listenerIndex) {
+		this.listenerIndex = listenerIndex;
+	}
+
+	public boolean isCoarseClock() {
+		return coarseClock;
+	}
+
+	public void setCoarseClock(boolean coarseClock) {
+		this.coarseClock = coarseClock;
+	}
+
 	public boolean isEnabled() {
 		return enabled;
 	}
@@ -0,0 +1,24 @@
+package cn.alotus.mqtt.core;
+
+/**
+ * 消息确认句柄，开启手动确认时由监听方法在处理完成后调用，向 Broker 发送 PUBACK/PUBCOMP
+ * <p>
+ * 可以在任意线程上调用，重复调用只生效一次。未确认的 QoS 1/2 消息会占用 Broker 的在途窗口，处理失败时也应确认或交给框架的重试处理
+ * 
+ * @author alotuser
+ * @since 2026/10/16
+ */
+@FunctionalInterface
+public interface Acknowledgment {
+
+	/**
+	 * 不需要确认时使用的空实现，如 QoS 0 消息或未开启手动确认
+	 */
+	Acknowledgment NOOP = () -> {
+	};
+
+	/**
+	 * 确认消息已处理完成
+	 */
+	void acknowledge();
+}
@@ -0,0 +1,26 @@
+package cn.alotus.mqtt.core;
+
+import org.eclipse.paho.client.mqttv3.IMqttAsyncClient;
+import org.eclipse.paho.client.mqttv3.MqttClient;
+import org.eclipse.paho.client.mqttv3.MqttClientPersistence;
+import org.eclipse.paho.client.mqttv3.MqttException;
+
+/**
+ * 同步 MQTT 客户端扩展，暴露其内部持有的 MqttAsyncClient， 使同一条连接既可以使用阻塞 API，也可以基于投递令牌回调进行非阻塞发布
+ * 
+ * @author alotuser
+ * @since 2026/10/16
+ */
+public class AsyncAwareMqttClient extends MqttClient {
+
+	public AsyncAwareMqttClient(String serverURI, String clientId, MqttClientPersistence persistence) throws MqttException {
+		super(serverURI, clientId, persistence);
+	}
+
+	/**
+	 * 获取底层异步客户端，与当前同步客户端共享同一条连接
+	 */
+	public IMqttAsyncClient getAsyncClient() {
+		return aClient;
+	}
+}
@@ -0,0 +1,79 @@
+package cn.alotus.mqtt.core;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 批量发布的汇总结果，包含成功数量以及每条失败消息的原因
+ * 
+ * @author alotuser
+ * @since 2026/10/16
+ */
+public class BatchPublishResult {
+
+	private final int total;
+	private final int succeeded;
+	private final List<Failure> failures;
+
+	public BatchPublishResult(int total, int succeeded, List<Failure> failures) {
+		this.total = total;
+		this.succeeded = succeeded;
+		this.failures = Collections.unmodifiableList(failures);
+	}
+
+	// getters
+	public int getTotal() {
+		return total;
+	}
+
+	public int getSucceeded() {
+		return succeeded;
+	}
+
+	public int getFailed() {
+		return failures.size();
+	}
+
+	public List<Failure> getFailures() {
+		return failures;
+	}
+
+	public boolean isAllSucceeded() {
+		return failures.isEmpty();
+	}
+
+	@Override
+	public String toString() {
+		return "BatchPublishResult[total=" + total + ", succeeded=" + succeeded + ", failed=" + failures.size() + "]";
+	}
+
+	/**
+	 * 单条消息的失败信息
+	 */
+	public static class Failure {
+		private final int index;
+		private final MqttPublishRequest request;
+		private final Throwable cause;
+
+		public Failure(int index, MqttPublishRequest request, Throwable cause) {
+			this.index = index;
+			this.request = request;
+			this.cause = cause;
+		}
+
+		/**
+		 * 消息在批次中的提交序号（从 0 开始）
+		 */
+		public int getIndex() {
+			return index;
+		}
+
+		public MqttPublishRequest getRequest() {
+			return request;
+		}
+
+		public Throwable getCause() {
+			return cause;
+		}
+	}
+}
@@ -0,0 +1,116 @@
+package cn.alotus.mqtt.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 流式批量发布器，以流水线方式在同一连接上连续发送消息，不等待单条消息的确认
+ * <p>
+ * 同时在途的消息数量受窗口大小限制，窗口已满时 {@link #publish} 会阻塞直到有消息被确认；
+ * {@link #flush()} 等待所有在途消息完成并返回汇总结果。每个实例只对应一个批次，且应由单个线程提交消息
+ * 
+ * @author alotuser
+ * @since 2026/10/16
+ */
+public class BatchPublisher implements AutoCloseable {
+
+	private static final Logger logger = LoggerFactory.getLogger(BatchPublisher.class);
+
+	private final MqttTemplate mqttTemplate;
+	private final int window;
+	private final Semaphore inflightPermits;
+	private final AtomicInteger succeeded = new AtomicInteger();
+	private final ConcurrentLinkedQueue<BatchPublishResult.Failure> failures = new ConcurrentLinkedQueue<>();
+	private int submitted = 0;
+	private BatchPublishResult result;
+
+	BatchPublisher(MqttTemplate mqttTemplate, int window) {
+		if (window <= 0) {
+			throw new IllegalArgumentException("Batch publish window must be positive: " + window);
+		}
+		this.mqttTemplate = mqttTemplate;
+		this.window = window;
+		this.inflightPermits = new Semaphore(window);
+	}
+
+	/**
+	 * 提交一条消息，窗口已满时阻塞等待
+	 */
+	public void publish(MqttPublishRequest request) {
+		if (result != null) {
+			throw new IllegalStateException("BatchPublisher has already been flushed");
+		}
+
+		try {
+			inflightPermits.acquire();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for batch publish window", e);
+		}
+
+		final int index = submitted++;
+		try {
+			mqttTemplate.publishAsync(request.getTopic(), request.getPayload(), request.getQos(), request.isRetained()).whenComplete((v, ex) -> {
+				try {
+					if (ex == null) {
+						succeeded.incrementAndGet();
+					} else {
+						Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+						failures.add(new BatchPublishResult.Failure(index, request, cause));
+					}
+				} finally {
+					inflightPermits.release();
+				}
+			});
+		} catch (RuntimeException e) {
+			failures.add(new BatchPublishResult.Failure(index, request, e));
+			inflightPermits.release();
+		}
+	}
+
+	/**
+	 * 提交一条消息，窗口已满时阻塞等待
+	 */
+	public void publish(String topic, byte[] payload, int qos, boolean retained) {
+		publish(new MqttPublishRequest(topic, payload, qos, retained));
+	}
+
+	/**
+	 * 等待所有在途消息完成，返回批次汇总结果
+	 */
+	public BatchPublishResult flush() {
+		if (result != null) {
+			return result;
+		}
+
+		inflightPermits.acquireUninterruptibly(window);
+		inflightPermits.release(window);
+
+		List<BatchPublishResult.Failure> failureList = new ArrayList<>(failures);
+		failureList.sort((a, b) -> Integer.compare(a.getIndex(), b.getIndex()));
+		result = new BatchPublishResult(submitted, succeeded.get(), failureList);
+
+		if (!failureList.isEmpty()) {
+			logger.warn("Batch publish completed with failures: {}", result);
+		} else {
+			logger.debug("Batch publish completed: {}", result);
+		}
+		return result;
+	}
+
+	public int getWindow() {
+		return window;
+	}
+
+	@Override
+	public void close() {
+		flush();
+	}
+}
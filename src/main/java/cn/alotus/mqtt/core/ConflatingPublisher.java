@@ -0,0 +1,210 @@
+package cn.alotus.mqtt.core;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import cn.alotus.mqtt.retry.RetryTemplate;
+
+/**
+ * 最新值合并发布器，同一主题在上一条消息发出前再次发布时，用新消息替换尚未发出的旧消息
+ * <p>
+ * 每个主题同一时刻最多有一条消息在途，在途期间的更新只保留最新一条，在途消息确认后立即发送。 待发送消息保存在每个主题的原子引用中，
+ * 有待发送消息的主题进入无锁队列，由单个排空任务依次发出，整个过程不使用锁。 主题槽位创建后不会回收，适用于数量有限的固定主题
+ * 
+ * @author alotuser
+ * @since 2026/10/16
+ */
+public class ConflatingPublisher {
+
+	private static final Logger logger = LoggerFactory.getLogger(ConflatingPublisher.class);
+
+	private static final int IDLE = 0;
+	private static final int QUEUED = 1;
+	private static final int IN_FLIGHT = 2;
+
+	/**
+	 * 主题匹配结果缓存上限，超过后清空重建
+	 */
+	private static final int MAX_CACHED_TOPICS = 10000;
+
+	private final MqttTemplate template;
+	private final List<String> topicFilters;
+	private final Executor executor;
+	private final Map<String, Slot> slots = new ConcurrentHashMap<>();
+	private final Map<String, Boolean> matchCache = new ConcurrentHashMap<>();
+	private final Queue<Slot> dirtySlots = new ConcurrentLinkedQueue<>();
+	private final AtomicBoolean draining = new AtomicBoolean();
+	private final AtomicLong publishedCount = new AtomicLong();
+	private final AtomicLong conflatedCount = new AtomicLong();
+	private final AtomicLong failedCount = new AtomicLong();
+
+	public ConflatingPublisher(MqttTemplate template) {
+		this(template, Collections.emptyList());
+	}
+
+	/**
+	 * @param template     用于实际发送的模板
+	 * @param topicFilters 自动启用合并的主题过滤器
+	 */
+	public ConflatingPublisher(MqttTemplate template, Collection<String> topicFilters) {
+		this(template, topicFilters, RetryTemplate.getScheduler());
+	}
+
+	public ConflatingPublisher(MqttTemplate template, Collection<String> topicFilters, Executor executor) {
+		this.template = template;
+		this.topicFilters = new ArrayList<>(topicFilters);
+		this.executor = executor;
+		for (String filter : this.topicFilters) {
+			org.eclipse.paho.client.mqttv3.MqttTopic.validate(filter, true);
+		}
+	}
+
+	/**
+	 * 主题是否匹配配置的合并过滤器
+	 */
+	public boolean matches(String topic) {
+		if (topicFilters.isEmpty()) {
+			return false;
+		}
+		Boolean matched = matchCache.get(topic);
+		if (matched == null) {
+			matched = Boolean.FALSE;
+			for (String filter : topicFilters) {
+				if (org.eclipse.paho.client.mqttv3.MqttTopic.isMatched(filter, topic)) {
+					matched = Boolean.TRUE;
+					break;
+				}
+			}
+			if (matchCache.size() >= MAX_CACHED_TOPICS) {
+				matchCache.clear();
+			}
+			matchCache.put(topic, matched);
+		}
+		return matched;
+	}
+
+	/**
+	 * 提交主题的最新值，立即返回；若该主题已有待发送消息则被替换
+	 */
+	public void publish(String topic, byte[] payload, int qos, boolean retained) {
+		Slot slot = slots.computeIfAbsent(topic, k -> new Slot());
+		if (slot.pending.getAndSet(new MqttPublishRequest(topic, payload, qos, retained)) != null) {
+			conflatedCount.incrementAndGet();
+		}
+		if (slot.state.compareAndSet(IDLE, QUEUED)) {
+			dirtySlots.offer(slot);
+			scheduleDrain();
+		}
+	}
+
+	private void scheduleDrain() {
+		if (draining.compareAndSet(false, true)) {
+			try {
+				executor.execute(this::drain);
+			} catch (Exception e) {
+				draining.set(false);
+				logger.error("Failed to schedule conflated publish drain", e);
+			}
+		}
+	}
+
+	/**
+	 * 依次发出有待发送消息的主题，每个主题发出一条后进入在途状态
+	 */
+	private void drain() {
+		Slot slot;
+		while ((slot = dirtySlots.poll()) != null) {
+			MqttPublishRequest request = slot.pending.getAndSet(null);
+			if (request == null) {
+				release(slot);
+				continue;
+			}
+
+			slot.state.set(IN_FLIGHT);
+			Slot current = slot;
+			send(request).whenComplete((v, ex) -> {
+				if (ex == null) {
+					publishedCount.incrementAndGet();
+				} else {
+					failedCount.incrementAndGet();
+					logger.warn("Conflated publish failed for topic: {}", request.getTopic(), ex);
+				}
+				release(current);
+			});
+		}
+
+		draining.set(false);
+		if (!dirtySlots.isEmpty()) {
+			scheduleDrain();
+		}
+	}
+
+	private CompletableFuture<Void> send(MqttPublishRequest request) {
+		try {
+			return template.publishAsync(request.getTopic(), request.getPayload(), request.getQos(), request.isRetained());
+		} catch (Exception e) {
+			CompletableFuture<Void> failed = new CompletableFuture<>();
+			failed.completeExceptionally(e);
+			return failed;
+		}
+	}
+
+	/**
+	 * 槽位回到空闲状态，期间有新值写入时重新入队
+	 */
+	private void release(Slot slot) {
+		slot.state.set(IDLE);
+		if (slot.pending.get() != null && slot.state.compareAndSet(IDLE, QUEUED)) {
+			dirtySlots.offer(slot);
+			scheduleDrain();
+		}
+	}
+
+	/**
+	 * 当前有待发送消息的主题数
+	 */
+	public int getPendingCount() {
+		int count = 0;
+		for (Slot slot : slots.values()) {
+			if (slot.pending.get() != null) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	public long getPublishedCount() {
+		return publishedCount.get();
+	}
+
+	/**
+	 * 被新值替换而未发送的消息数
+	 */
+	public long getConflatedCount() {
+		return conflatedCount.get();
+	}
+
+	public long getFailedCount() {
+		return failedCount.get();
+	}
+
+	private static class Slot {
+		private final AtomicReference<MqttPublishRequest> pending = new AtomicReference<>();
+		private final AtomicInteger state = new AtomicInteger(IDLE);
+	}
+}
@@ -1,29 +1,35 @@
 package cn.alotus.mqtt.core;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.annotation.PreDestroy;
 
 import org.eclipse.paho.client.mqttv3.IMqttDeliveryToken;
 import org.eclipse.paho.client.mqttv3.MqttCallbackExtended;
 import org.eclipse.paho.client.mqttv3.MqttClient;
+import org.eclipse.paho.client.mqttv3.MqttClientPersistence;
 import org.eclipse.paho.client.mqttv3.MqttConnectOptions;
 import org.eclipse.paho.client.mqttv3.MqttException;
 import org.eclipse.paho.client.mqttv3.MqttMessage;
 import org.eclipse.paho.client.mqttv3.MqttSecurityException;
 import org.eclipse.paho.client.mqttv3.persist.MemoryPersistence;
+import org.eclipse.paho.client.mqttv3.persist.MqttDefaultFilePersistence;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import cn.alotus.mqtt.config.MqttProperties;
 import cn.alotus.mqtt.retry.RetryCallback;
 import cn.alotus.mqtt.retry.RetryContext;
-import cn.alotus.mqtt.retry.RetryExhaustedException;
 import cn.alotus.mqtt.retry.RetryPolicy;
 import cn.alotus.mqtt.retry.RetryPolicyType;
 import cn.alotus.mqtt.retry.RetryTemplate;
+import cn.alotus.mqtt.store.MappedLogPersistence;
 
 /**
  * 默认的 MQTT 客户端工厂实现，负责创建和管理 MQTT 客户端实例 包括连接管理、重连机制和订阅管理
@@ -39,16 +45,33 @@ public class DefaultMqttClientFactory implements MqttClientFactory {
 	private final MqttConnectOptions connectOptions;
 	private final RetryPolicy connectRetryPolicy;
 	private final SubscriptionManager subscriptionManager;
+	private final String clientId;
 
 	private MqttClient mqttClient;
 	private volatile boolean connected = false;
 	private ScheduledExecutorService reconnectExecutor;
 	private final Object connectionLock = new Object();
+	private final List<MqttConnectionListener> connectionListeners = new CopyOnWriteArrayList<>();
+	private final AtomicInteger connectionEpoch = new AtomicInteger();
+	private boolean manualAcks;
 
 	public DefaultMqttClientFactory(MqttProperties properties, MqttConnectOptions connectOptions, SubscriptionManager subscriptionManager) {
+		this(properties, connectOptions, subscriptionManager, properties.getClientId());
+	}
+
+	/**
+	 * 使用指定的客户端 ID 创建工厂，订阅管理器为 null 时该连接仅用于发布，重连后不会重新订阅
+	 * 
+	 * @param properties          MQTT 配置属性
+	 * @param connectOptions      连接选项
+	 * @param subscriptionManager 订阅管理器，可为 null
+	 * @param clientId            客户端 ID，为空时自动生成
+	 */
+	public DefaultMqttClientFactory(MqttProperties properties, MqttConnectOptions connectOptions, SubscriptionManager subscriptionManager, String clientId) {
 		this.properties = properties;
 		this.connectOptions = connectOptions;
 		this.subscriptionManager = subscriptionManager;
+		this.clientId = clientId;
 		this.connectRetryPolicy = new MqttRetryPolicy(properties.getRetry(), RetryPolicyType.CONNECT);
 		this.reconnectExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
 			Thread t = new Thread(r, "mqtt-reconnect-thread");
@@ -62,12 +85,15 @@ public class DefaultMqttClientFactory implements MqttClientFactory {
 	private void initializeClient() {
 		synchronized (connectionLock) {
 			try {
-				String clientId = properties.getClientId();
+				String clientId = this.clientId;
 				if (clientId == null || clientId.trim().isEmpty()) {
 					clientId = "mqtt-client-" + System.currentTimeMillis();
 				}
 
-				mqttClient = new MqttClient(properties.getServerUri(), clientId, new MemoryPersistence());
+				mqttClient = new AsyncAwareMqttClient(properties.getServerUri(), clientId, createPersistence());
+				// 只有订阅连接接收消息，手动确认时由监听器处理完成后确认
+				manualAcks = subscriptionManager != null && properties.getSubscription().isManualAcks();
+				mqttClient.setManualAcks(manualAcks);
 
 				// 设置回调，处理连接状态变化
 				mqttClient.setCallback(new MqttCallbackExtended() {
@@ -77,27 +103,40 @@ public class DefaultMqttClientFactory implements MqttClientFactory {
 							connected = true;
 							logger.info("MQTT connection {} established to {}", reconnect ? "reconnected" : "connected", serverURI);
 
-							// 如果是重连，重新订阅所有主题
-							if (reconnect) {
-								logger.info("Reconnection detected, resubscribing to topics...");
+							// 连接建立后重新订阅所有主题，首次连接为异步完成，此前注册的订阅也需要在此补订
+							if (subscriptionManager != null) {
+								if (reconnect) {
+									logger.info("Reconnection detected, resubscribing to topics...");
+								}
 								resubscribeAfterReconnect();
 							}
 						}
+						notifyConnected(reconnect, serverURI);
 					}
 
 					@Override
 					public void connectionLost(Throwable cause) {
 						synchronized (connectionLock) {
 							connected = false;
+							connectionEpoch.incrementAndGet();
 							logger.warn("MQTT connection lost", cause);
 							scheduleReconnect();
 						}
+						notifyDisconnected(cause);
 					}
 
 					@Override
-					public void messageArrived(String topic, MqttMessage message) {
-						// 消息分发由专门的监听器处理
+					public void messageArrived(String topic, MqttMessage message) throws Exception {
+						// 消息分发由专门的监听器处理，开启本地路由时由订阅管理器按主题查找监听器
 						logger.trace("Message arrived on topic: {}", topic);
+						if (subscriptionManager == null) {
+							return;
+						}
+						if (manualAcks) {
+							MqttAckTracker.deliver(mqttClient, connectionEpoch, topic, message, subscriptionManager::route);
+						} else {
+							subscriptionManager.route(topic, message);
+						}
 					}
 
 					@Override
@@ -116,6 +155,61 @@ public class DefaultMqttClientFactory implements MqttClientFactory {
 		}
 	}
 
+	/**
+	 * 根据配置创建客户端持久化实现
+	 */
+	private MqttClientPersistence createPersistence() {
+		MqttProperties.Persistence config = properties.getPersistence();
+		switch (config.getType()) {
+		case FILE:
+			return new MqttDefaultFilePersistence(config.getDirectory());
+		case MAPPED_LOG:
+			return new MappedLogPersistence(config.getDirectory(), config.getSyncInterval(), config.getInitialSize(), config.getCompactThreshold());
+		case MEMORY:
+		default:
+			return new MemoryPersistence();
+		}
+	}
+
+	/**
+	 * 通知连接监听器连接已建立
+	 */
+	private void notifyConnected(boolean reconnect, String serverURI) {
+		for (MqttConnectionListener listener : connectionListeners) {
+			try {
+				listener.onConnected(reconnect, serverURI);
+			} catch (Exception e) {
+				logger.error("Error notifying MQTT connection listener", e);
+			}
+		}
+	}
+
+	/**
+	 * 通知连接监听器连接已断开
+	 */
+	private void notifyDisconnected(Throwable cause) {
+		for (MqttConnectionListener listener : connectionListeners) {
+			try {
+				listener.onDisconnected(cause);
+			} catch (Exception e) {
+				logger.error("Error notifying MQTT connection listener", e);
+			}
+		}
+	}
+
+	/**
+	 * 通知连接监听器连接尝试失败
+	 */
+	private void notifyConnectFailed(Throwable cause) {
+		for (MqttConnectionListener listener : connectionListeners) {
+			try {
+				listener.onConnectFailed(cause);
+			} catch (Exception e) {
+				logger.error("Error notifying MQTT connection listener", e);
+			}
+		}
+	}
+
 	/**
 	 * 重连后重新订阅
 	 */
@@ -132,41 +226,44 @@ public class DefaultMqttClientFactory implements MqttClientFactory {
 		}, 2, TimeUnit.SECONDS); // 延迟2秒确保连接稳定
 	}
 
-	private void connectWithRetry() {
-		try {
-			RetryTemplate.execute(connectRetryPolicy, new RetryCallback<Boolean>() {
-				@Override
-				public Boolean doWithRetry() throws Exception {
-					logger.info("Attempting to connect to MQTT broker...");
-					synchronized (connectionLock) {
-
-						try {
-							mqttClient.connect(connectOptions);
+	/**
+	 * 异步连接 Broker，连接尝试在重连线程上执行，重试退避由调度器定时触发而不是阻塞等待
+	 */
+	private CompletableFuture<Boolean> connectWithRetry() {
+		return RetryTemplate.executeAsync(connectRetryPolicy, new RetryCallback<Boolean>() {
+			@Override
+			public Boolean doWithRetry() throws Exception {
+				logger.info("Attempting to connect to MQTT broker...");
+				synchronized (connectionLock) {
 
-						} catch (MqttException e) {
+					try {
+						mqttClient.connect(connectOptions);
 
-							// 对于某些不可重试的错误，直接抛出异常
-							if (e.getReasonCode() != MqttException.REASON_CODE_CLIENT_CONNECTED) {
-								throw e;
-							}
+					} catch (MqttException e) {
 
+						// 对于某些不可重试的错误，直接抛出异常
+						if (e.getReasonCode() != MqttException.REASON_CODE_CLIENT_CONNECTED) {
+							notifyConnectFailed(e);
+							throw e;
 						}
-						connected = true;
 
 					}
-					return true;
-				}
+					connected = true;
 
-				@Override
-				public Object getContextData() {
-					return properties.getServerUri();
 				}
-			});
+				return true;
+			}
 
-		} catch (RetryExhaustedException e) {
-			logger.error("Failed to connect to MQTT broker after all retry attempts", e);
-			scheduleReconnect();
-		}
+			@Override
+			public Object getContextData() {
+				return properties.getServerUri();
+			}
+		}, reconnectExecutor).whenComplete((result, ex) -> {
+			if (ex != null) {
+				logger.error("Failed to connect to MQTT broker after all retry attempts", ex);
+				scheduleReconnect();
+			}
+		});
 	}
 
 	private void scheduleReconnect() {
@@ -182,6 +279,11 @@ public class DefaultMqttClientFactory implements MqttClientFactory {
 		reconnectExecutor.schedule(this::connectWithRetry, delay, TimeUnit.MILLISECONDS);
 	}
 
+	@Override
+	public void addConnectionListener(MqttConnectionListener listener) {
+		connectionListeners.add(listener);
+	}
+
 	@Override
 	public MqttClient getClient() {
 		return mqttClient;
@@ -0,0 +1,98 @@
+package cn.alotus.mqtt.core;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.paho.client.mqttv3.IMqttClient;
+import org.eclipse.paho.client.mqttv3.IMqttMessageListener;
+import org.eclipse.paho.client.mqttv3.MqttException;
+import org.eclipse.paho.client.mqttv3.MqttMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 手动确认模式下一条入站消息的确认计数
+ * <p>
+ * 消息在回调线程上分发期间，监听器可以通过 {@link #retainCurrent()} 取得确认句柄以推迟确认；分发结束且所有句柄都已确认后，
+ * 才调用 {@link IMqttClient#messageArrivedComplete(int, int)} 向 Broker 确认。同一条消息可能被多个监听器接收，任一监听器未完成都不会确认。
+ * 连接断开后消息 ID 可能被新消息复用，断开前取得的句柄不再发送确认，由 Broker 在重连后重发
+ * 
+ * @author alotuser
+ * @since 2026/10/16
+ */
+public final class MqttAckTracker {
+
+	private static final Logger logger = LoggerFactory.getLogger(MqttAckTracker.class);
+
+	private static final ThreadLocal<MqttAckTracker> CURRENT = new ThreadLocal<>();
+
+	private final IMqttClient client;
+	private final int messageId;
+	private final int qos;
+	private final AtomicInteger connectionEpoch;
+	private final int epoch;
+	private final AtomicInteger pending = new AtomicInteger(1);
+
+	private MqttAckTracker(IMqttClient client, MqttMessage message, AtomicInteger connectionEpoch) {
+		this.client = client;
+		this.messageId = message.getId();
+		this.qos = message.getQos();
+		this.connectionEpoch = connectionEpoch;
+		this.epoch = connectionEpoch != null ? connectionEpoch.get() : 0;
+	}
+
+	/**
+	 * 在当前线程上将消息交给监听器，监听器正常返回且没有推迟的确认时立即确认；监听器抛出异常时不确认
+	 * 
+	 * @param connectionEpoch 连接断开时递增的计数，为 null 时不检查
+	 */
+	public static void deliver(IMqttClient client, AtomicInteger connectionEpoch, String topic, MqttMessage message, IMqttMessageListener listener) throws Exception {
+		if (message.getQos() == 0) {
+			listener.messageArrived(topic, message);
+			return;
+		}
+		MqttAckTracker tracker = new MqttAckTracker(client, message, connectionEpoch);
+		MqttAckTracker previous = CURRENT.get();
+		CURRENT.set(tracker);
+		try {
+			listener.messageArrived(topic, message);
+		} finally {
+			CURRENT.set(previous);
+		}
+		tracker.release();
+	}
+
+	/**
+	 * 推迟当前线程上正在分发的消息的确认，须在监听器返回前于回调线程上调用
+	 * 
+	 * @return 确认句柄，当前没有需要确认的消息时返回 {@link Acknowledgment#NOOP}
+	 */
+	public static Acknowledgment retainCurrent() {
+		MqttAckTracker tracker = CURRENT.get();
+		if (tracker == null) {
+			return Acknowledgment.NOOP;
+		}
+		tracker.pending.incrementAndGet();
+		AtomicBoolean acknowledged = new AtomicBoolean();
+		return () -> {
+			if (acknowledged.compareAndSet(false, true)) {
+				tracker.release();
+			}
+		};
+	}
+
+	private void release() {
+		if (pending.decrementAndGet() != 0) {
+			return;
+		}
+		if (connectionEpoch != null && connectionEpoch.get() != epoch) {
+			logger.debug("Skipped ack for MQTT message {} received on a previous connection", messageId);
+			return;
+		}
+		try {
+			client.messageArrivedComplete(messageId, qos);
+		} catch (MqttException e) {
+			logger.warn("Failed to acknowledge MQTT message {}, it will be redelivered by the broker", messageId, e);
+		}
+	}
+}
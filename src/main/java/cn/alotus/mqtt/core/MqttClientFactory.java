@@ -1,5 +1,6 @@
 package cn.alotus.mqtt.core;
 
+import org.eclipse.paho.client.mqttv3.IMqttAsyncClient;
 import org.eclipse.paho.client.mqttv3.MqttClient;
 
 import cn.alotus.mqtt.config.MqttProperties;
@@ -16,4 +17,46 @@ public interface MqttClientFactory {
 	boolean isConnected();
 	
 	MqttProperties getProperties(); 
+
+	/**
+	 * 获取与 {@link #getClient()} 共享连接的异步客户端，用于非阻塞发布；不支持时返回 null
+	 */
+	default IMqttAsyncClient getAsyncClient() {
+		MqttClient client = getClient();
+		return client instanceof AsyncAwareMqttClient ? ((AsyncAwareMqttClient) client).getAsyncClient() : null;
+	}
+
+	/**
+	 * 承载订阅的连接（即 {@link #getClient()} 返回的客户端）是否可用，单连接实现与 {@link #isConnected()} 相同
+	 */
+	default boolean isSubscriberConnected() {
+		return isConnected();
+	}
+
+	/**
+	 * 获取用于发布指定主题的客户端，多连接实现可按主题分片
+	 */
+	default MqttClient getClient(String topic) {
+		return getClient();
+	}
+
+	/**
+	 * 获取用于发布指定主题的异步客户端，多连接实现可按主题分片
+	 */
+	default IMqttAsyncClient getAsyncClient(String topic) {
+		return getAsyncClient();
+	}
+
+	/**
+	 * 发布指定主题所使用的连接是否可用
+	 */
+	default boolean isConnected(String topic) {
+		return isConnected();
+	}
+
+	/**
+	 * 注册连接事件监听器，不支持连接事件的实现可忽略
+	 */
+	default void addConnectionListener(MqttConnectionListener listener) {
+	}
 }
@@ -0,0 +1,67 @@
+package cn.alotus.mqtt.core;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import cn.alotus.mqtt.retry.RetryTemplate;
+
+/**
+ * 消息时间戳使用的时钟
+ * <p>
+ * 默认直接调用 System.currentTimeMillis()。开启粗粒度时钟后由共享调度器每毫秒刷新一次缓存的时间，读取只是一次 volatile 读，
+ * 适用于读取系统时间代价较高的虚拟化环境；代价是时间戳最多滞后一个刷新周期。
+ * 粗粒度时钟是进程级的，按引用计数开启，同一进程中的多个应用上下文各自通过 {@link MqttClockInitializer} 持有和释放
+ * 
+ * @author alotuser
+ * @since 2026/10/16
+ */
+public final class MqttClock {
+
+	/**
+	 * 粗粒度时钟的刷新周期（毫秒）
+	 */
+	public static final long RESOLUTION_MS = 1;
+
+	private static volatile boolean coarse;
+	private static volatile long coarseMillis;
+	private static ScheduledFuture<?> ticker;
+	private static int holders;
+
+	private MqttClock() {
+	}
+
+	/**
+	 * 当前时间（毫秒）
+	 */
+	public static long currentTimeMillis() {
+		return coarse ? coarseMillis : System.currentTimeMillis();
+	}
+
+	/**
+	 * 持有粗粒度时钟，第一个持有者开启刷新
+	 */
+	public static synchronized void retainCoarse() {
+		if (holders++ > 0) {
+			return;
+		}
+		coarseMillis = System.currentTimeMillis();
+		ticker = RetryTemplate.getScheduler().scheduleAtFixedRate(() -> coarseMillis = System.currentTimeMillis(), RESOLUTION_MS, RESOLUTION_MS, TimeUnit.MILLISECONDS);
+		coarse = true;
+	}
+
+	/**
+	 * 释放粗粒度时钟，最后一个持有者释放后恢复直接读取系统时间
+	 */
+	public static synchronized void releaseCoarse() {
+		if (holders == 0 || --holders > 0) {
+			return;
+		}
+		coarse = false;
+		ticker.cancel(false);
+		ticker = null;
+	}
+
+	public static boolean isCoarse() {
+		return coarse;
+	}
+}
@@ -0,0 +1,27 @@
+package cn.alotus.mqtt.core;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.annotation.PreDestroy;
+
+/**
+ * 在应用上下文中开启粗粒度时钟，上下文关闭时释放，不影响同一进程中的其他上下文
+ * 
+ * @author alotuser
+ * @since 2026/10/16
+ */
+public class MqttClockInitializer {
+
+	private final AtomicBoolean retained = new AtomicBoolean(true);
+
+	public MqttClockInitializer() {
+		MqttClock.retainCoarse();
+	}
+
+	@PreDestroy
+	public void destroy() {
+		if (retained.compareAndSet(true, false)) {
+			MqttClock.releaseCoarse();
+		}
+	}
+}
@@ -0,0 +1,30 @@
+package cn.alotus.mqtt.core;
+
+/**
+ * MQTT 连接事件监听器，在客户端工厂的连接建立或断开时回调
+ * <p>
+ * 回调在 Paho 的回调线程上执行，实现中不应进行阻塞操作
+ * 
+ * @author alotuser
+ * @since 2026/10/16
+ */
+public interface MqttConnectionListener {
+
+	/**
+	 * 连接建立（包括首次连接和重连）
+	 */
+	default void onConnected(boolean reconnect, String serverURI) {
+	}
+
+	/**
+	 * 连接断开
+	 */
+	default void onDisconnected(Throwable cause) {
+	}
+
+	/**
+	 * 连接尝试失败
+	 */
+	default void onConnectFailed(Throwable cause) {
+	}
+}
@@ -44,7 +44,7 @@ public class MqttConnectionMonitor {
 	private void startMonitoring() {
 		monitorExecutor.scheduleAtFixedRate(() -> {
 			try {
-				boolean currentState = clientFactory.isConnected();
+				boolean currentState = clientFactory.isSubscriberConnected();
 
 				// 检测连接状态变化：从断开到连接
 				if (currentState && !lastConnectionState) {
@@ -1,11 +1,21 @@
 package cn.alotus.mqtt.core;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 
 import org.eclipse.paho.client.mqttv3.MqttMessage;
 
+import cn.alotus.mqtt.codec.MqttPayloadCodec;
+import cn.alotus.mqtt.codec.MqttPayloadCodecs;
+
 /**
  * MQTT 消息上下文，封装了接收到的 MQTT 消息及其相关信息
+ * <p>
+ * 负载的 ByteBuffer、InputStream 视图直接引用消息中的数组，不复制数据；字符串和解码后的对象在首次访问时生成并缓存，
+ * 同一上下文重复访问不再解码。上下文可以在线程之间传递，但缓存的解码对象由各线程共享，调用方不应修改
  * 
  * @author alotuser
  * @since 2025/5/10
@@ -14,12 +24,33 @@ public class MqttMessageContext {
 
 	private final String topic;
 	private final MqttMessage message;
+	private final byte[] payload;
 	private final long timestamp;
+	private final Acknowledgment acknowledgment;
+	private final MqttPayloadCodecs payloadCodecs;
+
+	private String payloadString;
+	private CharSequence payloadChars;
+	private volatile Decoded decoded;
 
 	public MqttMessageContext(String topic, MqttMessage message) {
+		this(topic, message, Acknowledgment.NOOP);
+	}
+
+	public MqttMessageContext(String topic, MqttMessage message, Acknowledgment acknowledgment) {
+		this(topic, message, acknowledgment, null);
+	}
+
+	/**
+	 * @param payloadCodecs 负载编解码器，用于 {@link #getPayloadAs(Type)}，可为 null
+	 */
+	public MqttMessageContext(String topic, MqttMessage message, Acknowledgment acknowledgment, MqttPayloadCodecs payloadCodecs) {
 		this.topic = topic;
 		this.message = message;
-		this.timestamp = System.currentTimeMillis();
+		this.payload = message.getPayload();
+		this.timestamp = MqttClock.currentTimeMillis();
+		this.acknowledgment = acknowledgment;
+		this.payloadCodecs = payloadCodecs;
 	}
 
 	// getters
@@ -31,16 +62,91 @@ public class MqttMessageContext {
 		return message;
 	}
 
+	/**
+	 * 上下文创建时间（毫秒），取自 {@link MqttClock}
+	 */
 	public long getTimestamp() {
 		return timestamp;
 	}
 
 	public byte[] getPayload() {
-		return message.getPayload();
+		return payload;
+	}
+
+	public int getPayloadLength() {
+		return payload.length;
 	}
 
+	/**
+	 * 负载的只读视图，不复制数据
+	 */
+	public ByteBuffer getPayloadBuffer() {
+		return ByteBuffer.wrap(payload).asReadOnlyBuffer();
+	}
+
+	/**
+	 * 负载的输入流，用于流式解析，不复制数据
+	 */
+	public InputStream getPayloadStream() {
+		return new ByteArrayInputStream(payload);
+	}
+
+	/**
+	 * 按 UTF-8 解码的负载，首次调用时解码并缓存
+	 */
 	public String getPayloadAsString() {
-		return new String(message.getPayload(), StandardCharsets.UTF_8);
+		String value = payloadString;
+		if (value == null) {
+			value = new String(payload, StandardCharsets.UTF_8);
+			payloadString = value;
+		}
+		return value;
+	}
+
+	/**
+	 * 负载的字符序列视图，纯 ASCII 负载直接按字节读取，不创建字符串；其他负载返回解码后的字符串
+	 */
+	public CharSequence getPayloadAsCharSequence() {
+		CharSequence value = payloadChars;
+		if (value == null) {
+			value = payloadString != null || !isAscii(payload) ? getPayloadAsString() : new AsciiCharSequence(payload, 0, payload.length);
+			payloadChars = value;
+		}
+		return value;
+	}
+
+	/**
+	 * 使用容器中的编解码器将负载解码为目标类型，首次调用时解码并缓存，再次以相同类型调用时返回同一对象
+	 * 
+	 * @throws IllegalStateException 上下文没有关联编解码器
+	 */
+	public <T> T getPayloadAs(Class<T> type) {
+		return type.cast(getPayloadAs((Type) type));
+	}
+
+	/**
+	 * 使用容器中的编解码器将负载解码为目标类型，支持泛型类型
+	 * 
+	 * @throws IllegalStateException 上下文没有关联编解码器
+	 */
+	public Object getPayloadAs(Type type) {
+		if (payloadCodecs == null) {
+			throw new IllegalStateException("No MQTT payload codecs available for message on topic: " + topic);
+		}
+		return decodePayload(payloadCodecs.getRequiredCodec(type), type);
+	}
+
+	/**
+	 * 使用指定编解码器直接从负载数组解码，结果按类型缓存
+	 */
+	public Object decodePayload(MqttPayloadCodec codec, Type type) {
+		Decoded current = decoded;
+		if (current != null && current.type.equals(type)) {
+			return current.value;
+		}
+		Object value = codec.decode(payload, 0, payload.length, type);
+		decoded = new Decoded(type, value);
+		return value;
 	}
 
 	public int getQos() {
@@ -54,4 +160,74 @@ public class MqttMessageContext {
 	public boolean isDuplicate() {
 		return message.isDuplicate();
 	}
+
+	/**
+	 * 消息的确认句柄，未开启手动确认时为 {@link Acknowledgment#NOOP}
+	 */
+	public Acknowledgment getAcknowledgment() {
+		return acknowledgment;
+	}
+
+	private static boolean isAscii(byte[] bytes) {
+		for (byte b : bytes) {
+			if (b < 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * 最近一次解码的类型和结果
+	 */
+	private static final class Decoded {
+		private final Type type;
+		private final Object value;
+
+		Decoded(Type type, Object value) {
+			this.type = type;
+			this.value = value;
+		}
+	}
+
+	/**
+	 * 直接读取 ASCII 字节数组的字符序列
+	 */
+	private static final class AsciiCharSequence implements CharSequence {
+		private final byte[] bytes;
+		private final int offset;
+		private final int length;
+
+		AsciiCharSequence(byte[] bytes, int offset, int length) {
+			this.bytes = bytes;
+			this.offset = offset;
+			this.length = length;
+		}
+
+		@Override
+		public int length() {
+			return length;
+		}
+
+		@Override
+		public char charAt(int index) {
+			if (index < 0 || index >= length) {
+				throw new IndexOutOfBoundsException("index: " + index + ", length: " + length);
+			}
+			return (char) bytes[offset + index];
+		}
+
+		@Override
+		public CharSequence subSequence(int start, int end) {
+			if (start < 0 || end > length || start > end) {
+				throw new IndexOutOfBoundsException("start: " + start + ", end: " + end + ", length: " + length);
+			}
+			return new AsciiCharSequence(bytes, offset + start, end - start);
+		}
+
+		@Override
+		public String toString() {
+			return new String(bytes, offset, length, StandardCharsets.US_ASCII);
+		}
+	}
 }
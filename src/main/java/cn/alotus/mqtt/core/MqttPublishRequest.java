@@ -0,0 +1,53 @@
+package cn.alotus.mqtt.core;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 待发布的 MQTT 消息，用于批量发布等需要一次性描述多条消息的场景
+ * 
+ * @author alotuser
+ * @since 2026/10/16
+ */
+public class MqttPublishRequest {
+
+	private final String topic;
+	private final byte[] payload;
+	private final int qos;
+	private final boolean retained;
+
+	public MqttPublishRequest(String topic, byte[] payload, int qos, boolean retained) {
+		this.topic = topic;
+		this.payload = payload;
+		this.qos = qos;
+		this.retained = retained;
+	}
+
+	public MqttPublishRequest(String topic, byte[] payload) {
+		this(topic, payload, 1, false);
+	}
+
+	public MqttPublishRequest(String topic, String payload, int qos, boolean retained) {
+		this(topic, payload.getBytes(StandardCharsets.UTF_8), qos, retained);
+	}
+
+	public MqttPublishRequest(String topic, String payload) {
+		this(topic, payload, 1, false);
+	}
+
+	// getters
+	public String getTopic() {
+		return topic;
+	}
+
+	public byte[] getPayload() {
+		return payload;
+	}
+
+	public int getQos() {
+		return qos;
+	}
+
+	public boolean isRetained() {
+		return retained;
+	}
+}
@@ -4,6 +4,7 @@ import org.eclipse.paho.client.mqttv3.MqttException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import cn.alotus.mqtt.circuit.CircuitBreakerOpenException;
 import cn.alotus.mqtt.config.MqttProperties;
 import cn.alotus.mqtt.retry.RetryContext;
 import cn.alotus.mqtt.retry.RetryPolicy;
@@ -20,7 +21,7 @@ public class MqttRetryPolicy implements RetryPolicy {
 	private static final Logger logger = LoggerFactory.getLogger(MqttRetryPolicy.class);
 
 	private final MqttProperties.Retry retryConfig;
-	private final RetryPolicyType operationType; // "connect" or "publish"
+	private final RetryPolicyType operationType; // "connect", "publish" or "consume"
 
 	public MqttRetryPolicy(MqttProperties.Retry retryConfig, RetryPolicyType operationType) {
 		this.retryConfig = retryConfig;
@@ -76,26 +77,46 @@ public class MqttRetryPolicy implements RetryPolicy {
 	}
 
 	private boolean isRetryEnabled() {
+		if (operationType.isConsume()) {
+			return retryConfig.isEnableConsumeRetry();
+		}
 		return operationType.isConnect() ? retryConfig.isEnableConnectRetry() : retryConfig.isEnablePublishRetry();
 	}
 
 	private int getMaxAttempts() {
+		if (operationType.isConsume()) {
+			return retryConfig.getMaxConsumeAttempts();
+		}
 		return operationType.isConnect() ? retryConfig.getMaxConnectAttempts() : retryConfig.getMaxPublishAttempts();
 	}
 
 	private long getBaseInterval() {
+		if (operationType.isConsume()) {
+			return retryConfig.getConsumeRetryInterval();
+		}
 		return operationType.isConnect() ? retryConfig.getConnectRetryInterval() : retryConfig.getPublishRetryInterval();
 	}
 
 	private long getMaxInterval() {
+		if (operationType.isConsume()) {
+			return retryConfig.getMaxConsumeRetryInterval();
+		}
 		return operationType.isConnect() ? retryConfig.getMaxConnectRetryInterval() : retryConfig.getMaxPublishRetryInterval();
 	}
 
 	private double getMultiplier() {
+		if (operationType.isConsume()) {
+			return retryConfig.getConsumeRetryMultiplier();
+		}
 		return operationType.isConnect() ? retryConfig.getConnectRetryMultiplier() : retryConfig.getPublishRetryMultiplier();
 	}
 
 	private boolean shouldRetryForException(Exception exception) {
+		// 熔断器已打开，继续重试没有意义
+		if (exception instanceof CircuitBreakerOpenException) {
+			return false;
+		}
+
 		if (exception instanceof MqttException) {
 			MqttException mqttException = (MqttException) exception;
 			int reasonCode = mqttException.getReasonCode();
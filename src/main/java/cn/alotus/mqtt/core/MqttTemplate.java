@@ -1,15 +1,33 @@
 package cn.alotus.mqtt.core;
 
 import java.nio.charset.StandardCharsets;
+import java.util.Collection;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
+import org.eclipse.paho.client.mqttv3.IMqttActionListener;
+import org.eclipse.paho.client.mqttv3.IMqttAsyncClient;
 import org.eclipse.paho.client.mqttv3.IMqttMessageListener;
+import org.eclipse.paho.client.mqttv3.IMqttToken;
+import org.eclipse.paho.client.mqttv3.MqttClient;
 import org.eclipse.paho.client.mqttv3.MqttException;
 import org.eclipse.paho.client.mqttv3.MqttMessage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import cn.alotus.mqtt.circuit.CircuitBreakerOpenException;
+import cn.alotus.mqtt.circuit.CircuitState;
+import cn.alotus.mqtt.circuit.MqttCircuitBreaker;
+import cn.alotus.mqtt.circuit.MqttPublishFallback;
+import cn.alotus.mqtt.codec.MqttPayloadCodecs;
+import cn.alotus.mqtt.compress.CompressionPolicy;
 import cn.alotus.mqtt.config.MqttProperties;
+import cn.alotus.mqtt.config.MqttProperties.RateLimit.RateLimitMode;
+import cn.alotus.mqtt.offline.OfflineMessageSender;
+import cn.alotus.mqtt.offline.OfflinePublishBuffer;
+import cn.alotus.mqtt.ratelimit.PublishRateLimiter;
+import cn.alotus.mqtt.ratelimit.RateLimitExceededException;
+import cn.alotus.mqtt.retry.AsyncRetryCallback;
 import cn.alotus.mqtt.retry.RetryCallback;
 import cn.alotus.mqtt.retry.RetryExhaustedException;
 import cn.alotus.mqtt.retry.RetryPolicy;
@@ -29,6 +47,13 @@ public class MqttTemplate {
 	private final MqttClientFactory clientFactory;
 	private final RetryPolicy publishRetryPolicy;
 	private final MqttProperties properties;
+	private volatile OfflinePublishBuffer offlineBuffer;
+	private volatile MqttPayloadCodecs payloadCodecs;
+	private volatile CompressionPolicy compressionPolicy;
+	private volatile PublishRateLimiter rateLimiter;
+	private volatile ConflatingPublisher conflatingPublisher;
+	private volatile MqttCircuitBreaker circuitBreaker;
+	private volatile MqttPublishFallback publishFallback;
 
 	
 	/**
@@ -74,12 +99,126 @@ public class MqttTemplate {
 	 * @param retained 是否保留消息
 	 */
 	public void publish(String topic, byte[] payload, int qos, boolean retained) {
+		ConflatingPublisher conflater = this.conflatingPublisher;
+		if (conflater != null && conflater.matches(topic)) {
+			conflater.publish(topic, payload, qos, retained);
+			return;
+		}
+
+		payload = compressIfNeeded(topic, payload);
+		if (deferIfRateLimited(topic, payload, qos, retained)) {
+			return;
+		}
+		publishWithRetry(topic, payload, qos, retained);
+	}
+
+	/**
+	 * 以最新值合并模式发布消息，立即返回
+	 * <p>
+	 * 同一主题的上一条消息尚未发出时，新消息替换旧消息而不是排队，适用于只关心最新值的高频指标。 发送失败只记录日志，不向调用方抛出
+	 * 
+	 * @param topic    主题
+	 * @param payload  消息负载
+	 * @param qos      服务质量等级
+	 * @param retained 是否保留消息
+	 */
+	public void publishLatest(String topic, byte[] payload, int qos, boolean retained) {
+		getConflatingPublisher().publish(topic, payload, qos, retained);
+	}
+
+	/**
+	 * 设置最新值合并发布器，匹配其主题过滤器的同步发布自动使用合并模式
+	 */
+	public void setConflatingPublisher(ConflatingPublisher conflatingPublisher) {
+		this.conflatingPublisher = conflatingPublisher;
+	}
+
+	public ConflatingPublisher getConflatingPublisher() {
+		ConflatingPublisher conflater = this.conflatingPublisher;
+		if (conflater == null) {
+			synchronized (this) {
+				conflater = this.conflatingPublisher;
+				if (conflater == null) {
+					conflater = new ConflatingPublisher(this);
+					this.conflatingPublisher = conflater;
+				}
+			}
+		}
+		return conflater;
+	}
+
+	/**
+	 * 为固定主题创建可复用的发布器，主题和 QoS 在此处校验一次
+	 * 
+	 * @param topic    主题
+	 * @param qos      服务质量等级
+	 * @param retained 是否保留消息
+	 * @return 线程安全的主题发布器
+	 * @throws IllegalArgumentException 主题或 QoS 不合法
+	 */
+	public TopicPublisher prepare(String topic, int qos, boolean retained) {
+		org.eclipse.paho.client.mqttv3.MqttTopic.validate(topic, false);
+		MqttMessage.validateQos(qos);
+		return new TopicPublisher(this, topic, qos, retained);
+	}
+
+	/**
+	 * 预备发布器的发布入口：已连接时直接发送一次，不创建上下文和重试回调；失败或未连接时交由常规重试流程处理
+	 */
+	void publishPrepared(String topic, byte[] payload, int qos, boolean retained) {
+		ConflatingPublisher conflater = this.conflatingPublisher;
+		if (conflater != null && conflater.matches(topic)) {
+			conflater.publish(topic, payload, qos, retained);
+			return;
+		}
+
+		payload = compressIfNeeded(topic, payload);
+		if (deferIfRateLimited(topic, payload, qos, retained)) {
+			return;
+		}
+		MqttCircuitBreaker breaker = this.circuitBreaker;
+		long permit = breaker == null ? 0 : breaker.tryAcquireIfClosed();
+		if (clientFactory.isConnected(topic) && permit != MqttCircuitBreaker.REJECTED) {
+			try {
+				sendMessage(topic, payload, qos, retained);
+				if (breaker != null) {
+					breaker.onSuccess(permit);
+				}
+				return;
+			} catch (MqttException e) {
+				logger.debug("Fast path publish failed for topic: {}, falling back to retry", topic);
+			}
+		}
+		publishWithRetry(topic, payload, qos, retained);
+	}
+
+	/**
+	 * 带重试的同步发布，负载已完成压缩处理
+	 */
+	private void publishWithRetry(String topic, byte[] payload, int qos, boolean retained) {
+		if (bufferIfOffline(topic, payload, qos, retained)) {
+			return;
+		}
+
+		MqttCircuitBreaker breaker = this.circuitBreaker;
+		long permit = breaker == null ? 0 : breaker.tryAcquirePermission();
+		if (permit == MqttCircuitBreaker.REJECTED) {
+			if (fallback(topic, payload, qos, retained)) {
+				return;
+			}
+			throw circuitOpen(topic);
+		}
+
 		PublishContext context = new PublishContext(topic, payload, qos, retained);
 
 		try {
 			RetryTemplate.execute(publishRetryPolicy, new RetryCallback<Boolean>() {
 				@Override
 				public Boolean doWithRetry() throws Exception {
+					// 重试期间熔断器打开时放弃剩余重试
+					if (breaker != null && breaker.getState() == CircuitState.OPEN) {
+						throw circuitOpen(topic);
+					}
 					return doPublish(context);
 				}
 
@@ -88,13 +227,209 @@ public class MqttTemplate {
 					return context;
 				}
 			});
+			if (breaker != null) {
+				breaker.onSuccess(permit);
+			}
 
 		} catch (RetryExhaustedException e) {
+			if (breaker != null) {
+				breaker.onError(permit, e.getCause());
+			}
+			if (bufferIfOffline(topic, payload, qos, retained)) {
+				return;
+			}
 			logger.error("Failed to publish message after all retry attempts. Topic: {}", topic, e);
 			throw new RuntimeException("MQTT publish failed after retries", e);
 		}
 	}
 
+	/**
+	 * 按主题压缩规则压缩负载，未启用压缩时返回原始负载
+	 */
+	private byte[] compressIfNeeded(String topic, byte[] payload) {
+		CompressionPolicy policy = this.compressionPolicy;
+		return policy == null ? payload : policy.compressIfNeeded(topic, payload);
+	}
+
+	/**
+	 * 设置负载压缩策略，为 null 时不压缩
+	 */
+	public void setCompressionPolicy(CompressionPolicy compressionPolicy) {
+		this.compressionPolicy = compressionPolicy;
+	}
+
+	public CompressionPolicy getCompressionPolicy() {
+		return compressionPolicy;
+	}
+
+	/**
+	 * 同步发布的限流处理：阻塞模式等待令牌，排队模式将消息交给限流器延迟发送
+	 * 
+	 * @return 消息是否已被排队延迟发送
+	 * @throws RateLimitExceededException 超出限流配额
+	 */
+	private boolean deferIfRateLimited(String topic, byte[] payload, int qos, boolean retained) {
+		PublishRateLimiter limiter = this.rateLimiter;
+		if (limiter == null) {
+			return false;
+		}
+
+		long delay = limiter.reserve(topic, payload.length);
+		if (delay <= 0) {
+			return false;
+		}
+		if (limiter.getMode() == RateLimitMode.ENQUEUE) {
+			// 延迟任务在共享定时器上执行，使用非阻塞发布，不占用定时器线程等待确认或重试退避
+			limiter.enqueue(topic, payload.length, delay, () -> publishAsyncWithRetry(topic, payload, qos, retained).whenComplete((v, ex) -> {
+				if (ex != null) {
+					logger.error("Failed to publish rate limited message to topic: {}", topic, ex);
+				}
+			}));
+			return true;
+		}
+		limiter.await(delay);
+		return false;
+	}
+
+	/**
+	 * 熔断器拒绝消息时交给降级处理
+	 * 
+	 * @return 消息是否已被降级处理
+	 */
+	private boolean fallback(String topic, byte[] payload, int qos, boolean retained) {
+		MqttPublishFallback handler = this.publishFallback;
+		return handler != null && handler.handle(topic, payload, qos, retained);
+	}
+
+	private CircuitBreakerOpenException circuitOpen(String topic) {
+		return new CircuitBreakerOpenException("MQTT circuit breaker is open, publish rejected for topic: " + topic);
+	}
+
+	/**
+	 * 设置发布熔断器，为 null 时不熔断
+	 */
+	public void setCircuitBreaker(MqttCircuitBreaker circuitBreaker) {
+		this.circuitBreaker = circuitBreaker;
+		if (circuitBreaker != null) {
+			clientFactory.addConnectionListener(circuitBreaker);
+		}
+	}
+
+	public MqttCircuitBreaker getCircuitBreaker() {
+		return circuitBreaker;
+	}
+
+	/**
+	 * 设置熔断器打开时的降级处理，未设置时直接抛出 {@link CircuitBreakerOpenException}
+	 */
+	public void setPublishFallback(MqttPublishFallback publishFallback) {
+		this.publishFallback = publishFallback;
+	}
+
+	/**
+	 * 熔断器当前状态，未启用熔断时始终为 CLOSED，调用方可据此提前降载
+	 */
+	public CircuitState getCircuitState() {
+		MqttCircuitBreaker breaker = this.circuitBreaker;
+		return breaker == null ? CircuitState.CLOSED : breaker.getState();
+	}
+
+	/**
+	 * 设置发布限流器，为 null 时不限流
+	 */
+	public void setRateLimiter(PublishRateLimiter rateLimiter) {
+		this.rateLimiter = rateLimiter;
+	}
+
+	public PublishRateLimiter getRateLimiter() {
+		return rateLimiter;
+	}
+
+	/**
+	 * 客户端未连接且启用了离线缓冲时，将消息写入缓冲区
+	 * 
+	 * @return 消息是否已被缓冲
+	 */
+	private boolean bufferIfOffline(String topic, byte[] payload, int qos, boolean retained) {
+		OfflinePublishBuffer buffer = this.offlineBuffer;
+		return buffer != null && !clientFactory.isConnected(topic) && buffer.offer(topic, payload, qos, retained);
+	}
+
+	/**
+	 * 设置离线发布缓冲区，客户端断开期间发布的消息将写入缓冲区，并在连接恢复后补发
+	 * 
+	 * @param offlineBuffer 离线发布缓冲区，为 null 时不缓冲
+	 */
+	public void setOfflineBuffer(OfflinePublishBuffer offlineBuffer) {
+		this.offlineBuffer = offlineBuffer;
+		if (offlineBuffer == null) {
+			return;
+		}
+
+		clientFactory.addConnectionListener(offlineBuffer);
+		offlineBuffer.setSender(new OfflineMessageSender() {
+			@Override
+			public void send(String topic, byte[] payload, int qos, boolean retained) throws Exception {
+				publishBuffered(topic, payload, qos, retained);
+			}
+
+			@Override
+			public boolean isConnected() {
+				return clientFactory.isConnected();
+			}
+
+			@Override
+			public boolean isConnected(String topic) {
+				return clientFactory.isConnected(topic);
+			}
+		});
+	}
+
+	public OfflinePublishBuffer getOfflineBuffer() {
+		return offlineBuffer;
+	}
+
+	/**
+	 * 补发一条离线缓冲的消息，与正常发布一样经过限流器和熔断器
+	 * <p>
+	 * 在补发专用线程上执行，限流等待在该线程上完成；超出限流配额或熔断器拒绝时抛出异常，由缓冲区退避后重试。
+	 * 主题所在连接未恢复时直接失败，不计入熔断器，避免连接池中单条连接断开使所有主题熔断
+	 * 
+	 * @throws RateLimitExceededException  超出限流配额
+	 * @throws CircuitBreakerOpenException 熔断器拒绝发布
+	 */
+	private void publishBuffered(String topic, byte[] payload, int qos, boolean retained) throws MqttException {
+		if (!clientFactory.isConnected(topic)) {
+			throw new MqttException(MqttException.REASON_CODE_CLIENT_NOT_CONNECTED);
+		}
+
+		// 先预留令牌再申请熔断许可，避免半开状态的探测许可因限流而无法完成
+		PublishRateLimiter limiter = this.rateLimiter;
+		if (limiter != null) {
+			long delay = limiter.reserve(topic, payload.length);
+			if (delay > 0) {
+				limiter.await(delay);
+			}
+		}
+
+		MqttCircuitBreaker breaker = this.circuitBreaker;
+		long permit = breaker == null ? 0 : breaker.tryAcquirePermission();
+		if (permit == MqttCircuitBreaker.REJECTED) {
+			throw circuitOpen(topic);
+		}
+		try {
+			doPublish(new PublishContext(topic, payload, qos, retained));
+		} catch (MqttException | RuntimeException e) {
+			if (breaker != null) {
+				breaker.onError(permit, e);
+			}
+			throw e;
+		}
+		if (breaker != null) {
+			breaker.onSuccess(permit);
+		}
+	}
+
 	/**
 	 * 执行实际的消息发布操作
 	 * 
@@ -103,17 +438,12 @@ public class MqttTemplate {
 	 * @throws MqttException 如果发布过程中发生错误
 	 */
 	private boolean doPublish(PublishContext context) throws MqttException {
-		if (!clientFactory.isConnected()) {
+		if (!clientFactory.isConnected(context.getTopic())) {
 			throw new MqttException(MqttException.REASON_CODE_CLIENT_NOT_CONNECTED);
 		}
 
 		try {
-			MqttMessage message = new MqttMessage(context.getPayload());
-			message.setQos(context.getQos());
-			message.setRetained(context.isRetained());
-
-			clientFactory.getClient().publish(context.getTopic(), message);
-			logger.debug("Message published successfully to topic: {}", context.getTopic());
+			sendMessage(context.getTopic(), context.getPayload(), context.getQos(), context.isRetained());
 			return true;
 
 		} catch (MqttException e) {
@@ -122,8 +452,26 @@ public class MqttTemplate {
 		}
 	}
 
+	/**
+	 * 构造消息并通过主题对应的客户端同步发送
+	 */
+	private void sendMessage(String topic, byte[] payload, int qos, boolean retained) throws MqttException {
+		MqttMessage message = new MqttMessage(payload);
+		message.setQos(qos);
+		message.setRetained(retained);
+
+		clientFactory.getClient(topic).publish(topic, message);
+		if (logger.isDebugEnabled()) {
+			logger.debug("Message published successfully to topic: {}", topic);
+		}
+	}
+
 	/**
 	 * 异步发布消息到指定主题
+	 * <p>
+	 * 基于 MqttAsyncClient 的投递令牌回调实现，返回的 Future 在 Broker 确认（QoS 0 为发送完成，QoS 1 为 PUBACK，QoS 2 为 PUBCOMP）后完成，
+	 * 调用线程不会被阻塞，重试退避由 {@link RetryTemplate} 的共享定时器调度，不占用任何线程。
+	 * 启用离线缓冲时，客户端断开期间的消息写入缓冲区后 Future 即完成
 	 * 
 	 * @param topic    主题
 	 * @param payload  消息负载
@@ -132,7 +480,176 @@ public class MqttTemplate {
 	 * @return CompletableFuture 表示异步发布操作的结果
 	 */
 	public CompletableFuture<Void> publishAsync(String topic, byte[] payload, int qos, boolean retained) {
-		return CompletableFuture.runAsync(() -> publish(topic, payload, qos, retained));
+		byte[] body = compressIfNeeded(topic, payload);
+		PublishRateLimiter limiter = this.rateLimiter;
+		if (limiter == null) {
+			return publishAsyncWithRetry(topic, body, qos, retained);
+		}
+
+		// 异步发布不阻塞调用线程，阻塞模式与排队模式一样延迟到获得令牌时发送
+		CompletableFuture<Void> result = new CompletableFuture<>();
+		try {
+			long delay = limiter.reserve(topic, body.length);
+			if (delay <= 0) {
+				return publishAsyncWithRetry(topic, body, qos, retained);
+			}
+			limiter.enqueue(topic, body.length, delay, () -> publishAsyncWithRetry(topic, body, qos, retained).whenComplete((v, ex) -> {
+				if (ex == null) {
+					result.complete(null);
+				} else {
+					result.completeExceptionally(ex);
+				}
+			}));
+		} catch (RateLimitExceededException e) {
+			result.completeExceptionally(e);
+		}
+		return result;
+	}
+
+	/**
+	 * 带重试的异步发布，负载已完成压缩和限流处理
+	 */
+	private CompletableFuture<Void> publishAsyncWithRetry(String topic, byte[] body, int qos, boolean retained) {
+		if (bufferIfOffline(topic, body, qos, retained)) {
+			return CompletableFuture.completedFuture(null);
+		}
+
+		CompletableFuture<Void> result = new CompletableFuture<>();
+		MqttCircuitBreaker breaker = this.circuitBreaker;
+		long permit = breaker == null ? 0 : breaker.tryAcquirePermission();
+		if (permit == MqttCircuitBreaker.REJECTED) {
+			if (fallback(topic, body, qos, retained)) {
+				result.complete(null);
+			} else {
+				result.completeExceptionally(circuitOpen(topic));
+			}
+			return result;
+		}
+
+		PublishContext context = new PublishContext(topic, body, qos, retained);
+
+		RetryTemplate.executeAsync(publishRetryPolicy, new AsyncRetryCallback<Void>() {
+			@Override
+			public CompletableFuture<Void> doWithRetryAsync() {
+				// 重试期间熔断器打开时放弃剩余重试
+				if (breaker != null && breaker.getState() == CircuitState.OPEN) {
+					CompletableFuture<Void> rejected = new CompletableFuture<>();
+					rejected.completeExceptionally(circuitOpen(topic));
+					return rejected;
+				}
+				return doPublishAsync(context);
+			}
+
+			@Override
+			public Object getContextData() {
+				return context;
+			}
+		}).whenComplete((v, ex) -> {
+			if (breaker != null) {
+				if (ex == null) {
+					breaker.onSuccess(permit);
+				} else {
+					breaker.onError(permit, ex.getCause() != null ? ex.getCause() : ex);
+				}
+			}
+			if (ex == null || bufferIfOffline(topic, body, qos, retained)) {
+				result.complete(null);
+			} else {
+				logger.error("Failed to publish message after all retry attempts. Topic: {}", topic, ex);
+				result.completeExceptionally(new RuntimeException("MQTT publish failed after retries", ex));
+			}
+		});
+		return result;
+	}
+
+	/**
+	 * 执行实际的异步发布操作，返回的 Future 由投递令牌回调完成
+	 * 
+	 * @param context 发布上下文
+	 * @return 在 Broker 确认后完成的 Future
+	 */
+	private CompletableFuture<Void> doPublishAsync(PublishContext context) {
+		IMqttAsyncClient asyncClient = clientFactory.getAsyncClient(context.getTopic());
+		if (asyncClient == null) {
+			// 自定义工厂未提供异步客户端时，退化为阻塞发布
+			return CompletableFuture.runAsync(() -> {
+				try {
+					doPublish(context);
+				} catch (MqttException e) {
+					throw new CompletionException(e);
+				}
+			});
+		}
+
+		CompletableFuture<Void> future = new CompletableFuture<>();
+		if (!clientFactory.isConnected(context.getTopic())) {
+			future.completeExceptionally(new MqttException(MqttException.REASON_CODE_CLIENT_NOT_CONNECTED));
+			return future;
+		}
+
+		try {
+			MqttMessage message = new MqttMessage(context.getPayload());
+			message.setQos(context.getQos());
+			message.setRetained(context.isRetained());
+
+			asyncClient.publish(context.getTopic(), message, context, new IMqttActionListener() {
+				@Override
+				public void onSuccess(IMqttToken asyncActionToken) {
+					future.complete(null);
+				}
+
+				@Override
+				public void onFailure(IMqttToken asyncActionToken, Throwable exception) {
+					future.completeExceptionally(exception);
+				}
+			});
+
+		} catch (MqttException e) {
+			future.completeExceptionally(e);
+		}
+		return future;
+	}
+
+	/**
+	 * 批量发布消息，以流水线方式发送并等待全部确认，窗口大小为 maxInflight
+	 * 
+	 * @param requests 待发布的消息集合
+	 * @return 包含每条失败消息原因的汇总结果
+	 */
+	public BatchPublishResult publishBatch(Collection<MqttPublishRequest> requests) {
+		return publishBatch(requests, properties.getMaxInflight());
+	}
+
+	/**
+	 * 批量发布消息，以流水线方式发送并等待全部确认
+	 * 
+	 * @param requests 待发布的消息集合
+	 * @param window   同时在途的最大消息数
+	 * @return 包含每条失败消息原因的汇总结果
+	 */
+	public BatchPublishResult publishBatch(Collection<MqttPublishRequest> requests, int window) {
+		try (BatchPublisher publisher = batchPublisher(window)) {
+			for (MqttPublishRequest request : requests) {
+				publisher.publish(request);
+			}
+			return publisher.flush();
+		}
+	}
+
+	/**
+	 * 创建流式批量发布器，窗口大小为 maxInflight
+	 */
+	public BatchPublisher batchPublisher() {
+		return batchPublisher(properties.getMaxInflight());
+	}
+
+	/**
+	 * 创建流式批量发布器
+	 * 
+	 * @param window 同时在途的最大消息数
+	 */
+	public BatchPublisher batchPublisher(int window) {
+		return new BatchPublisher(this, window);
 	}
 
 	/**
@@ -167,6 +684,60 @@ public class MqttTemplate {
 		publish(topic, payload, 1, false);
 	}
 
+	/**
+	 * 发布对象消息，使用已配置的编解码器编码负载
+	 * 
+	 * @param topic    主题
+	 * @param payload  消息对象
+	 * @param qos      服务质量等级
+	 * @param retained 是否保留消息
+	 */
+	public void publish(String topic, Object payload, int qos, boolean retained) {
+		publish(topic, encodePayload(payload), qos, retained);
+	}
+
+	/**
+	 * 发布对象消息，使用默认的 QoS 和不保留消息
+	 * 
+	 * @param topic   主题
+	 * @param payload 消息对象
+	 */
+	public void publish(String topic, Object payload) {
+		publish(topic, payload, 1, false);
+	}
+
+	/**
+	 * 异步发布对象消息
+	 */
+	public CompletableFuture<Void> publishAsync(String topic, Object payload, int qos, boolean retained) {
+		return publishAsync(topic, encodePayload(payload), qos, retained);
+	}
+
+	/**
+	 * 将对象编码为消息负载，字符串和字节数组保持原有语义
+	 */
+	private byte[] encodePayload(Object payload) {
+		if (payload instanceof byte[]) {
+			return (byte[]) payload;
+		}
+		if (payload instanceof String) {
+			return ((String) payload).getBytes(StandardCharsets.UTF_8);
+		}
+		MqttPayloadCodecs codecs = payloadCodecs;
+		if (codecs == null) {
+			throw new IllegalStateException("No MQTT payload codecs configured, cannot publish " + (payload == null ? "null" : payload.getClass().getName()));
+		}
+		return codecs.encode(payload);
+	}
+
+	public void setPayloadCodecs(MqttPayloadCodecs payloadCodecs) {
+		this.payloadCodecs = payloadCodecs;
+	}
+
+	public MqttPayloadCodecs getPayloadCodecs() {
+		return payloadCodecs;
+	}
+
 	/**
 	 * 订阅指定主题，使用消息监听器处理接收到的消息
 	 * 
@@ -175,12 +746,18 @@ public class MqttTemplate {
 	 * @param messageListener 消息监听器
 	 */
 	public void subscribe(String topic, int qos, IMqttMessageListener messageListener) {
-		if (!clientFactory.isConnected()) {
+		if (!clientFactory.isSubscriberConnected()) {
 			throw new IllegalStateException("MQTT client is not connected");
 		}
 
 		try {
-			clientFactory.getClient().subscribe(topic, qos, messageListener);
+			MqttClient client = clientFactory.getClient();
+			if (properties.getSubscription().isManualAcks()) {
+				// 手动确认模式下 Paho 不再自动确认，监听器返回后确认
+				client.subscribe(topic, qos, (topicName, message) -> MqttAckTracker.deliver(client, null, topicName, message, messageListener));
+			} else {
+				client.subscribe(topic, qos, messageListener);
+			}
 			logger.info("Subscribed to topic: {} with QoS: {}", topic, qos);
 		} catch (MqttException e) {
 			logger.error("Failed to subscribe to topic: {}", topic, e);
@@ -194,7 +771,7 @@ public class MqttTemplate {
 	 * @param topic 主题
 	 */
 	public void unsubscribe(String topic) {
-		if (!clientFactory.isConnected()) {
+		if (!clientFactory.isSubscriberConnected()) {
 			return;
 		}
 
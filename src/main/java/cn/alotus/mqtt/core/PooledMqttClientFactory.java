@@ -0,0 +1,238 @@
+package cn.alotus.mqtt.core;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.annotation.PreDestroy;
+
+import org.eclipse.paho.client.mqttv3.IMqttAsyncClient;
+import org.eclipse.paho.client.mqttv3.MqttClient;
+import org.eclipse.paho.client.mqttv3.MqttConnectOptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import cn.alotus.mqtt.config.MqttProperties;
+
+/**
+ * 多连接 MQTT 客户端工厂，维护 N 条独立连接，发布按主题哈希分片到固定连接以保持单主题内的消息顺序
+ * <p>
+ * 第一条连接使用配置的客户端 ID 并承载所有订阅，其余连接的客户端 ID 为 {@code clientId-序号}，仅用于发布。
+ * 每条连接各自负责重连，只有订阅连接在重连后重新订阅。
+ * 连接池整体对外报告连接状态：第一条连接建立时通知连接建立，所有连接都断开后才通知连接断开，{@link #isConnected()} 同样只要求任一连接可用。
+ * 单条连接断开不会作为连接池断开转发给熔断器和离线缓存，发布和补发按 {@link #isConnected(String)} 判断主题所在连接是否可用
+ * 
+ * @author alotuser
+ * @since 2026/10/16
+ */
+public class PooledMqttClientFactory implements MqttClientFactory {
+
+	private static final Logger logger = LoggerFactory.getLogger(PooledMqttClientFactory.class);
+
+	private final MqttProperties properties;
+	private final DefaultMqttClientFactory[] connections;
+	private final boolean[] connectedShards;
+	private final List<MqttConnectionListener> connectionListeners = new CopyOnWriteArrayList<>();
+	private boolean poolConnected;
+
+	public PooledMqttClientFactory(MqttProperties properties, MqttConnectOptions connectOptions, SubscriptionManager subscriptionManager) {
+		this.properties = properties;
+
+		int size = Math.max(1, properties.getConnectionPoolSize());
+		String baseClientId = properties.getClientId();
+		if (baseClientId == null || baseClientId.trim().isEmpty()) {
+			baseClientId = "mqtt-client-" + System.currentTimeMillis();
+		}
+
+		this.connections = new DefaultMqttClientFactory[size];
+		this.connections[0] = new DefaultMqttClientFactory(properties, connectOptions, subscriptionManager, baseClientId);
+		for (int i = 1; i < size; i++) {
+			this.connections[i] = new DefaultMqttClientFactory(properties, connectOptions, null, baseClientId + "-" + i);
+		}
+
+		this.connectedShards = new boolean[size];
+		synchronized (this) {
+			for (int i = 0; i < size; i++) {
+				connections[i].addConnectionListener(new ShardListener(i));
+				connectedShards[i] = connections[i].isConnected();
+			}
+			poolConnected = anyShardConnected();
+		}
+
+		logger.info("MQTT client pool initialized with {} connections", size);
+	}
+
+	/**
+	 * 根据主题选择连接，同一主题总是映射到同一条连接
+	 */
+	private DefaultMqttClientFactory select(String topic) {
+		if (connections.length == 1 || topic == null) {
+			return connections[0];
+		}
+		return connections[(topic.hashCode() & Integer.MAX_VALUE) % connections.length];
+	}
+
+	@Override
+	public MqttClient getClient() {
+		return connections[0].getClient();
+	}
+
+	/**
+	 * 是否有任一连接可用，具体主题是否可发布由 {@link #isConnected(String)} 判断
+	 */
+	@Override
+	public boolean isConnected() {
+		for (DefaultMqttClientFactory connection : connections) {
+			if (connection.isConnected()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public boolean isSubscriberConnected() {
+		return connections[0].isConnected();
+	}
+
+	@Override
+	public MqttClient getClient(String topic) {
+		return select(topic).getClient();
+	}
+
+	@Override
+	public IMqttAsyncClient getAsyncClient(String topic) {
+		return select(topic).getAsyncClient();
+	}
+
+	@Override
+	public boolean isConnected(String topic) {
+		return select(topic).isConnected();
+	}
+
+	@Override
+	public void addConnectionListener(MqttConnectionListener listener) {
+		connectionListeners.add(listener);
+	}
+
+	private boolean anyShardConnected() {
+		for (boolean shard : connectedShards) {
+			if (shard) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * 单条连接建立，连接池由不可用变为可用时通知监听器
+	 */
+	private void shardConnected(int index, boolean reconnect, String serverURI) {
+		synchronized (this) {
+			connectedShards[index] = true;
+			if (poolConnected) {
+				logger.info("Pooled MQTT connection {} restored", index);
+				return;
+			}
+			poolConnected = true;
+		}
+		logger.info("Pooled MQTT connection {} established, pool is available", index);
+		for (MqttConnectionListener listener : connectionListeners) {
+			try {
+				listener.onConnected(reconnect, serverURI);
+			} catch (Exception e) {
+				logger.error("Error notifying MQTT connection listener", e);
+			}
+		}
+	}
+
+	/**
+	 * 单条连接断开，所有连接都断开后才通知监听器，其余连接上的主题继续发布
+	 */
+	private void shardDisconnected(int index, Throwable cause) {
+		synchronized (this) {
+			connectedShards[index] = false;
+			if (!poolConnected) {
+				return;
+			}
+			if (anyShardConnected()) {
+				logger.warn("Pooled MQTT connection {} lost, pool is degraded", index);
+				return;
+			}
+			poolConnected = false;
+		}
+		logger.warn("All {} pooled MQTT connections lost", connections.length);
+		for (MqttConnectionListener listener : connectionListeners) {
+			try {
+				listener.onDisconnected(cause);
+			} catch (Exception e) {
+				logger.error("Error notifying MQTT connection listener", e);
+			}
+		}
+	}
+
+	private void shardConnectFailed(Throwable cause) {
+		for (MqttConnectionListener listener : connectionListeners) {
+			try {
+				listener.onConnectFailed(cause);
+			} catch (Exception e) {
+				logger.error("Error notifying MQTT connection listener", e);
+			}
+		}
+	}
+
+	/**
+	 * 获取连接数量
+	 */
+	public int getConnectionCount() {
+		return connections.length;
+	}
+
+	/**
+	 * 获取指定序号的连接
+	 */
+	public MqttClientFactory getConnection(int index) {
+		return connections[index];
+	}
+
+	@PreDestroy
+	public void destroy() {
+		for (DefaultMqttClientFactory connection : connections) {
+			try {
+				connection.destroy();
+			} catch (Exception e) {
+				logger.error("Error shutting down pooled MQTT connection", e);
+			}
+		}
+	}
+
+	@Override
+	public MqttProperties getProperties() {
+		return properties;
+	}
+
+	/**
+	 * 单条连接的事件，汇总为连接池的状态
+	 */
+	private class ShardListener implements MqttConnectionListener {
+		private final int index;
+
+		ShardListener(int index) {
+			this.index = index;
+		}
+
+		@Override
+		public void onConnected(boolean reconnect, String serverURI) {
+			shardConnected(index, reconnect, serverURI);
+		}
+
+		@Override
+		public void onDisconnected(Throwable cause) {
+			shardDisconnected(index, cause);
+		}
+
+		@Override
+		public void onConnectFailed(Throwable cause) {
+			shardConnectFailed(cause);
+		}
+	}
+}
@@ -1,17 +1,25 @@
 package cn.alotus.mqtt.core;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
 import org.eclipse.paho.client.mqttv3.IMqttMessageListener;
 import org.eclipse.paho.client.mqttv3.MqttException;
+import org.eclipse.paho.client.mqttv3.MqttMessage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
 /**
  * 订阅管理器，负责管理 MQTT 主题的订阅信息 包括注册订阅、取消订阅和重新订阅等功能
+ * <p>
+ * 开启本地路由后，监听器保存在本地主题前缀树中，Broker 上只订阅去重后的过滤器或配置的合并过滤器，
+ * 消息由客户端回调交给 {@link #route(String, MqttMessage)} 按主题层级查找监听器。
+ * 共享订阅以 $share/{group}/{topic} 向 Broker 订阅，Broker 投递时使用不带前缀的主题名，因此共享订阅始终经本地路由分发
  * 
  * @author alotuser
  * @since 2025/5/10
@@ -25,24 +33,184 @@ public class SubscriptionManager {
 	private final Map<String, SubscriptionInfo> subscriptionMap = new ConcurrentHashMap<>();
 	private volatile boolean reconnecting = false;
 
+	/**
+	 * 本地路由模式下每次订阅请求携带的最大过滤器数
+	 */
+	private static final int SUBSCRIBE_BATCH_SIZE = 100;
+
+	private final TopicTrie<SubscriptionInfo> router = new TopicTrie<>();
+	private final Map<String, Integer> brokerSubscriptions = new ConcurrentHashMap<>();
+	private volatile boolean localRouting = false;
+	private volatile boolean manualAcks = false;
+	private volatile List<String> brokerFilters = Collections.emptyList();
+
 	public SubscriptionManager(MqttClientFactory clientFactory) {
 		this.clientFactory = clientFactory;
 	}
 
+	/**
+	 * 设置是否开启本地路由，需在注册订阅前设置
+	 */
+	public void setLocalRouting(boolean localRouting) {
+		this.localRouting = localRouting;
+	}
+
+	/**
+	 * 设置是否开启手动确认，需在注册订阅前设置。Paho 只在客户端回调中提供确认的时机，开启后所有订阅经本地路由分发
+	 */
+	public void setManualAcks(boolean manualAcks) {
+		this.manualAcks = manualAcks;
+	}
+
+	/**
+	 * 设置本地路由模式下在 Broker 上订阅的合并过滤器，被其覆盖的订阅不再单独向 Broker 订阅，合并过滤器之间不应相互重叠
+	 */
+	public void setBrokerFilters(List<String> brokerFilters) {
+		for (String filter : brokerFilters) {
+			org.eclipse.paho.client.mqttv3.MqttTopic.validate(filter, true);
+		}
+		this.brokerFilters = new ArrayList<>(brokerFilters);
+	}
+
 	/**
 	 * 注册订阅
 	 */
 	public void registerSubscription(String topic, int qos, IMqttMessageListener listener) {
-		String key = generateKey(topic, qos);
-		subscriptionMap.put(key, new SubscriptionInfo(topic, qos, listener));
+		registerSubscription(topic, qos, listener, null);
+	}
+
+	/**
+	 * 注册订阅，group 不为空时以共享订阅方式订阅，同组的多个客户端分摊该主题的消息
+	 */
+	public void registerSubscription(String topic, int qos, IMqttMessageListener listener, String group) {
+		validateGroup(group);
+		SubscriptionInfo info = new SubscriptionInfo(topic, qos, listener, group);
+		String key = generateKey(info.getSubscriptionTopic(), qos);
+		SubscriptionInfo previous = subscriptionMap.put(key, info);
+
+		if (isRouted(info)) {
+			registerLocalRoute(info, previous);
+			return;
+		}
 
 		// 如果当前已连接，立即订阅
-		if (clientFactory.isConnected() && !reconnecting) {
+		if (clientFactory.isSubscriberConnected() && !reconnecting) {
 			subscribeImmediately(topic, qos, listener);
 		}
 		
 	}
 
+	/**
+	 * 将订阅加入本地路由，所属的 Broker 过滤器尚未订阅或 QoS 更低时向 Broker 订阅
+	 */
+	private void registerLocalRoute(SubscriptionInfo info, SubscriptionInfo previous) {
+		if (previous != null) {
+			router.remove(previous.getTopic(), previous);
+		}
+		router.add(info.getTopic(), info);
+
+		String brokerFilter = brokerFilterOf(info);
+		Integer current = brokerSubscriptions.get(brokerFilter);
+		if (current != null && current >= info.getQos()) {
+			return;
+		}
+		int qos = brokerSubscriptions.merge(brokerFilter, info.getQos(), Math::max);
+		if (clientFactory.isSubscriberConnected() && !reconnecting) {
+			try {
+				clientFactory.getClient().subscribe(brokerFilter, qos);
+				logger.debug("Subscribed to broker filter: {} with QoS: {}", brokerFilter, qos);
+			} catch (MqttException e) {
+				logger.error("Failed to subscribe to broker filter: {}", brokerFilter, e);
+			}
+		}
+	}
+
+	/**
+	 * 校验共享订阅组名，组名不能包含主题分隔符和通配符
+	 */
+	private static void validateGroup(String group) {
+		if (group != null && !group.isEmpty() && (group.indexOf('/') >= 0 || group.indexOf('+') >= 0 || group.indexOf('#') >= 0)) {
+			throw new IllegalArgumentException("Invalid shared subscription group: " + group);
+		}
+	}
+
+	/**
+	 * 订阅是否经本地路由分发
+	 */
+	private boolean isRouted(SubscriptionInfo info) {
+		return localRouting || manualAcks || info.isShared();
+	}
+
+	/**
+	 * 订阅在 Broker 上对应的过滤器，共享订阅不与其他订阅合并
+	 */
+	private String brokerFilterOf(SubscriptionInfo info) {
+		return info.isShared() ? info.getSubscriptionTopic() : resolveBrokerFilter(info.getTopic());
+	}
+
+	/**
+	 * 查找覆盖该过滤器的合并过滤器，没有则使用过滤器本身
+	 */
+	private String resolveBrokerFilter(String topic) {
+		for (String filter : brokerFilters) {
+			if (covers(filter, topic)) {
+				return filter;
+			}
+		}
+		return topic;
+	}
+
+	/**
+	 * 判断过滤器 outer 能匹配的主题是否包含过滤器 inner 能匹配的所有主题
+	 */
+	static boolean covers(String outer, String inner) {
+		String[] outerLevels = outer.split("/", -1);
+		String[] innerLevels = inner.split("/", -1);
+
+		for (int i = 0; i < outerLevels.length; i++) {
+			String level = outerLevels[i];
+			if ("#".equals(level)) {
+				return i > 0 || !inner.startsWith("$");
+			}
+			if (i >= innerLevels.length) {
+				return false;
+			}
+			String innerLevel = innerLevels[i];
+			if ("+".equals(level)) {
+				if ("#".equals(innerLevel) || i == 0 && innerLevel.startsWith("$")) {
+					return false;
+				}
+			} else if (!level.equals(innerLevel)) {
+				return false;
+			}
+		}
+		return outerLevels.length == innerLevels.length;
+	}
+
+	/**
+	 * 按本地路由将消息交给所有匹配的监听器，单个监听器的异常不影响其他监听器
+	 * 
+	 * @return 是否有匹配的监听器
+	 */
+	public boolean route(String topic, MqttMessage message) {
+		if (router.isEmpty()) {
+			return false;
+		}
+		boolean[] matched = new boolean[1];
+		router.match(topic, info -> {
+			matched[0] = true;
+			try {
+				info.getListener().messageArrived(topic, message);
+			} catch (Exception e) {
+				logger.error("Error routing MQTT message for topic: {} to subscription: {}", topic, info.getTopic(), e);
+			}
+		});
+		if (!matched[0]) {
+			logger.debug("No local route for MQTT message on topic: {}", topic);
+		}
+		return matched[0];
+	}
+
 	/**
 	 * 立即订阅
 	 */
@@ -68,6 +236,9 @@ public class SubscriptionManager {
 			logger.info("Resubscribing to {} topics after reconnection", subscriptionMap.size());
 
 			for (SubscriptionInfo info : subscriptionMap.values()) {
+				if (isRouted(info)) {
+					continue;
+				}
 				try {
 					clientFactory.getClient().subscribe(info.getTopic(), info.getQos(), info.getListener());
 					logger.debug("Resubscribed to topic: {} with QoS: {}", info.getTopic(), info.getQos());
@@ -79,6 +250,10 @@ public class SubscriptionManager {
 				}
 			}
 
+			if (!brokerSubscriptions.isEmpty()) {
+				resubscribeBrokerFilters();
+			}
+
 			logger.info("Resubscribe completed successfully");
 		} catch (Exception e) {
 			logger.error("Error during resubscribe", e);
@@ -87,14 +262,50 @@ public class SubscriptionManager {
 		}
 	}
 
+	/**
+	 * 重新订阅本地路由使用的 Broker 过滤器，多个过滤器合并为一次订阅请求
+	 */
+	private void resubscribeBrokerFilters() {
+		List<Map.Entry<String, Integer>> entries = new ArrayList<>(brokerSubscriptions.entrySet());
+		logger.info("Resubscribing to {} broker filters for {} local routes", entries.size(), router.size());
+
+		for (int start = 0; start < entries.size(); start += SUBSCRIBE_BATCH_SIZE) {
+			int end = Math.min(entries.size(), start + SUBSCRIBE_BATCH_SIZE);
+			String[] filters = new String[end - start];
+			int[] qos = new int[end - start];
+			for (int i = start; i < end; i++) {
+				filters[i - start] = entries.get(i).getKey();
+				qos[i - start] = entries.get(i).getValue();
+			}
+			try {
+				clientFactory.getClient().subscribe(filters, qos);
+			} catch (Exception e) {
+				logger.error("Failed to resubscribe to {} broker filters", filters.length, e);
+			}
+		}
+	}
+
 	/**
 	 * 取消订阅
 	 */
 	public void unsubscribe(String topic, int qos) {
-		String key = generateKey(topic, qos);
-		subscriptionMap.remove(key);
+		unsubscribe(topic, qos, null);
+	}
+
+	/**
+	 * 取消共享订阅
+	 */
+	public void unsubscribe(String topic, int qos, String group) {
+		String key = generateKey(SubscriptionInfo.toSubscriptionTopic(topic, group), qos);
+		SubscriptionInfo removed = subscriptionMap.remove(key);
+
+		if (removed != null && isRouted(removed)) {
+			router.remove(topic, removed);
+			unsubscribeBrokerFilterIfUnused(brokerFilterOf(removed));
+			return;
+		}
 
-		if (clientFactory.isConnected()) {
+		if (clientFactory.isSubscriberConnected()) {
 			try {
 				clientFactory.getClient().unsubscribe(topic);
 			} catch (MqttException e) {
@@ -103,6 +314,41 @@ public class SubscriptionManager {
 		}
 	}
 
+	/**
+	 * 没有订阅再使用该 Broker 过滤器时向 Broker 取消订阅
+	 */
+	private void unsubscribeBrokerFilterIfUnused(String brokerFilter) {
+		for (SubscriptionInfo info : subscriptionMap.values()) {
+			if (isRouted(info) && brokerFilter.equals(brokerFilterOf(info))) {
+				return;
+			}
+		}
+		brokerSubscriptions.remove(brokerFilter);
+
+		if (clientFactory.isSubscriberConnected()) {
+			try {
+				clientFactory.getClient().unsubscribe(brokerFilter);
+			} catch (MqttException e) {
+				logger.error("Failed to unsubscribe from broker filter: {}", brokerFilter, e);
+			}
+		}
+	}
+
+	/**
+	 * 获取经本地路由分发的订阅在 Broker 上订阅的过滤器及其 QoS
+	 */
+	public Map<String, Integer> getBrokerSubscriptions() {
+		return Collections.unmodifiableMap(brokerSubscriptions);
+	}
+
+	public boolean isLocalRouting() {
+		return localRouting;
+	}
+
+	public boolean isManualAcks() {
+		return manualAcks;
+	}
+
 	/**
 	 * 获取所有订阅信息
 	 */
@@ -124,11 +370,24 @@ public class SubscriptionManager {
 		private final String topic;
 		private final int qos;
 		private final IMqttMessageListener listener;
+		private final String group;
 
 		public SubscriptionInfo(String topic, int qos, IMqttMessageListener listener) {
+			this(topic, qos, listener, null);
+		}
+
+		public SubscriptionInfo(String topic, int qos, IMqttMessageListener listener, String group) {
 			this.topic = topic;
 			this.qos = qos;
 			this.listener = listener;
+			this.group = group == null || group.isEmpty() ? null : group;
+		}
+
+		/**
+		 * 生成向 Broker 订阅时使用的主题，共享订阅为 $share/{group}/{topic}
+		 */
+		static String toSubscriptionTopic(String topic, String group) {
+			return group == null || group.isEmpty() ? topic : "$share/" + group + "/" + topic;
 		}
 
 		public String getTopic() {
@@ -142,6 +401,21 @@ public class SubscriptionManager {
 		public IMqttMessageListener getListener() {
 			return listener;
 		}
+
+		/**
+		 * 共享订阅组名，非共享订阅返回 null
+		 */
+		public String getGroup() {
+			return group;
+		}
+
+		public boolean isShared() {
+			return group != null;
+		}
+
+		public String getSubscriptionTopic() {
+			return toSubscriptionTopic(topic, group);
+		}
 	}
 
 	public MqttClientFactory getClientFactory() {
@@ -0,0 +1,68 @@
+package cn.alotus.mqtt.core;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 固定主题的预备发布器，由 {@link MqttTemplate#prepare(String, int, boolean)} 创建
+ * <p>
+ * 主题和 QoS 在创建时校验一次，之后的同步发布在连接正常时直接发送，不创建发布上下文和重试回调，只在发送失败时进入常规重试流程。
+ * Paho 会在投递完成前持有消息对象，因此每次发布仍需分配一个 MqttMessage。实例不可变且线程安全，适合保存为字段长期复用
+ * 
+ * @author alotuser
+ * @since 2026/10/16
+ */
+public final class TopicPublisher {
+
+	private final MqttTemplate template;
+	private final String topic;
+	private final int qos;
+	private final boolean retained;
+
+	TopicPublisher(MqttTemplate template, String topic, int qos, boolean retained) {
+		this.template = template;
+		this.topic = topic;
+		this.qos = qos;
+		this.retained = retained;
+	}
+
+	/**
+	 * 同步发布消息
+	 * 
+	 * @param payload 消息负载，发布期间不应修改
+	 */
+	public void publish(byte[] payload) {
+		template.publishPrepared(topic, payload, qos, retained);
+	}
+
+	/**
+	 * 同步发布字符串消息
+	 * 
+	 * @param payload 字符串消息负载
+	 */
+	public void publish(String payload) {
+		template.publishPrepared(topic, payload.getBytes(StandardCharsets.UTF_8), qos, retained);
+	}
+
+	/**
+	 * 异步发布消息
+	 * 
+	 * @param payload 消息负载
+	 * @return 在 Broker 确认后完成的 Future
+	 */
+	public CompletableFuture<Void> publishAsync(byte[] payload) {
+		return template.publishAsync(topic, payload, qos, retained);
+	}
+
+	public String getTopic() {
+		return topic;
+	}
+
+	public int getQos() {
+		return qos;
+	}
+
+	public boolean isRetained() {
+		return retained;
+	}
+}
@@ -0,0 +1,169 @@
+package cn.alotus.mqtt.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * 主题前缀树，按层级保存订阅过滤器，支持 + 和 # 通配符，匹配耗时只与主题层级数有关，与过滤器数量无关
+ * <p>
+ * 匹配过程不加锁，可与增删并发执行；增删操作串行执行。按 MQTT 规范，以 $ 开头的主题不会被首层通配符匹配
+ * 
+ * @author alotuser
+ * @since 2026/10/16
+ */
+public class TopicTrie<T> {
+
+	private final Node<T> root = new Node<>();
+	private volatile int size;
+
+	/**
+	 * 添加过滤器及其对应的值
+	 */
+	public synchronized void add(String filter, T value) {
+		Node<T> node = root;
+		for (String level : filter.split("/", -1)) {
+			node = node.getOrCreateChild(level);
+		}
+		node.values.add(value);
+		size++;
+	}
+
+	/**
+	 * 移除过滤器下的指定值，并清理不再使用的节点
+	 * 
+	 * @return 是否移除成功
+	 */
+	public synchronized boolean remove(String filter, T value) {
+		String[] levels = filter.split("/", -1);
+		List<Node<T>> path = new ArrayList<>(levels.length + 1);
+		Node<T> node = root;
+		path.add(node);
+		for (String level : levels) {
+			node = node.getChild(level);
+			if (node == null) {
+				return false;
+			}
+			path.add(node);
+		}
+		if (!node.values.remove(value)) {
+			return false;
+		}
+		size--;
+
+		for (int i = levels.length; i > 0 && path.get(i).isEmpty(); i--) {
+			path.get(i - 1).removeChild(levels[i - 1]);
+		}
+		return true;
+	}
+
+	/**
+	 * 对与主题匹配的每个值执行回调，同一个值在多个匹配的过滤器下时会被多次回调
+	 */
+	public void match(String topic, Consumer<? super T> visitor) {
+		match(root, topic, 0, !topic.startsWith("$"), visitor);
+	}
+
+	/**
+	 * 获取与主题匹配的所有值
+	 */
+	public List<T> match(String topic) {
+		List<T> result = new ArrayList<>();
+		match(topic, result::add);
+		return result;
+	}
+
+	/**
+	 * 从 from 位置的层级开始匹配，from 为 -1 表示主题的所有层级已匹配完
+	 */
+	private void match(Node<T> node, String topic, int from, boolean wildcardAllowed, Consumer<? super T> visitor) {
+		Node<T> multi = node.multi;
+		if (from < 0) {
+			node.values.forEach(visitor);
+			// "a/#" 同时匹配父级 "a"
+			if (multi != null) {
+				multi.values.forEach(visitor);
+			}
+			return;
+		}
+
+		if (multi != null && wildcardAllowed) {
+			multi.values.forEach(visitor);
+		}
+
+		int end = topic.indexOf('/', from);
+		String level = end < 0 ? topic.substring(from) : topic.substring(from, end);
+		int next = end < 0 ? -1 : end + 1;
+
+		Node<T> child = node.children.get(level);
+		if (child != null) {
+			match(child, topic, next, true, visitor);
+		}
+		Node<T> single = node.single;
+		if (single != null && wildcardAllowed) {
+			match(single, topic, next, true, visitor);
+		}
+	}
+
+	/**
+	 * 值的总数
+	 */
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * 树节点，通配符层级单独保存以免匹配时查表
+	 */
+	private static class Node<T> {
+		private final Map<String, Node<T>> children = new ConcurrentHashMap<>();
+		private final List<T> values = new CopyOnWriteArrayList<>();
+		private volatile Node<T> single;
+		private volatile Node<T> multi;
+
+		Node<T> getChild(String level) {
+			if ("+".equals(level)) {
+				return single;
+			} else if ("#".equals(level)) {
+				return multi;
+			}
+			return children.get(level);
+		}
+
+		Node<T> getOrCreateChild(String level) {
+			if ("+".equals(level)) {
+				if (single == null) {
+					single = new Node<>();
+				}
+				return single;
+			} else if ("#".equals(level)) {
+				if (multi == null) {
+					multi = new Node<>();
+				}
+				return multi;
+			}
+			return children.computeIfAbsent(level, k -> new Node<>());
+		}
+
+		void removeChild(String level) {
+			if ("+".equals(level)) {
+				single = null;
+			} else if ("#".equals(level)) {
+				multi = null;
+			} else {
+				children.remove(level);
+			}
+		}
+
+		boolean isEmpty() {
+			return values.isEmpty() && children.isEmpty() && single == null && multi == null;
+		}
+	}
+}
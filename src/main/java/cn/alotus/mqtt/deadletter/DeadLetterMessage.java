@@ -0,0 +1,64 @@
+package cn.alotus.mqtt.deadletter;
+
+import org.eclipse.paho.client.mqttv3.MqttMessage;
+
+/**
+ * 死信消息，记录重试耗尽的消息及其失败信息
+ * 
+ * @author alotuser
+ * @since 2026/10/16
+ */
+public class DeadLetterMessage {
+
+	private final String listenerName;
+	private final String topic;
+	private final MqttMessage message;
+	private final int attempts;
+	private final String error;
+	private final long timestamp;
+
+	public DeadLetterMessage(String listenerName, String topic, MqttMessage message, int attempts, String error, long timestamp) {
+		this.listenerName = listenerName;
+		this.topic = topic;
+		this.message = message;
+		this.attempts = attempts;
+		this.error = error;
+		this.timestamp = timestamp;
+	}
+
+	/**
+	 * 处理失败的监听方法名称，格式为 beanName.methodName
+	 */
+	public String getListenerName() {
+		return listenerName;
+	}
+
+	public String getTopic() {
+		return topic;
+	}
+
+	public MqttMessage getMessage() {
+		return message;
+	}
+
+	/**
+	 * 已执行的次数
+	 */
+	public int getAttempts() {
+		return attempts;
+	}
+
+	/**
+	 * 最后一次失败的异常描述
+	 */
+	public String getError() {
+		return error;
+	}
+
+	/**
+	 * 进入死信的时间
+	 */
+	public long getTimestamp() {
+		return timestamp;
+	}
+}
@@ -0,0 +1,31 @@
+package cn.alotus.mqtt.deadletter;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * 死信接收器，保存重试耗尽的消息
+ * 
+ * @author alotuser
+ * @since 2026/10/16
+ */
+public interface DeadLetterSink {
+
+	/**
+	 * 保存一条死信
+	 * 
+	 * @throws Exception 保存失败
+	 */
+	void send(DeadLetterMessage message) throws Exception;
+
+	/**
+	 * 按速率将重放开始前保存的死信依次交给 target，交付成功的死信从接收器中移除；target 抛出异常时该死信保留，稍后重新交付
+	 * 
+	 * @param messagesPerSecond 重放速率（条/秒）
+	 * @return 重放完成时以重放条数完成的 Future
+	 * @throws UnsupportedOperationException 接收器不支持重放
+	 */
+	default CompletableFuture<Long> replay(double messagesPerSecond, Consumer<DeadLetterMessage> target) {
+		throw new UnsupportedOperationException(getClass().getSimpleName() + " does not support replay");
+	}
+}
@@ -0,0 +1,215 @@
+package cn.alotus.mqtt.deadletter;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import org.eclipse.paho.client.mqttv3.MqttMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import cn.alotus.mqtt.config.MqttProperties;
+import cn.alotus.mqtt.retry.RetryTemplate;
+import cn.alotus.mqtt.store.JournalRecord;
+import cn.alotus.mqtt.store.MappedSegmentJournal;
+
+/**
+ * 基于本地磁盘日志的死信接收器，死信按写入顺序追加保存，重放时按速率取出
+ * <p>
+ * 重放只处理重放开始前写入的死信，重放中再次失败的消息作为新的死信追加到日志末尾，不会在同一次重放中循环。
+ * 死信交付成功后才从日志中移除，交付被拒绝或失败时留在原位，下一个重放周期再次交付
+ * 
+ * @author alotuser
+ * @since 2026/10/16
+ */
+public class JournalDeadLetterSink implements DeadLetterSink {
+
+	private static final Logger logger = LoggerFactory.getLogger(JournalDeadLetterSink.class);
+
+	/**
+	 * 重放调度周期（毫秒）
+	 */
+	private static final long REPLAY_TICK_MS = 100;
+
+	/**
+	 * 保存的异常描述最大字节数
+	 */
+	private static final int MAX_ERROR_BYTES = 1024;
+
+	private final MappedSegmentJournal journal;
+	private final AtomicLong storedCount = new AtomicLong();
+	private final AtomicReference<CompletableFuture<Long>> replaying = new AtomicReference<>();
+
+	public JournalDeadLetterSink(MqttProperties.DeadLetter config) {
+		try {
+			this.journal = new MappedSegmentJournal(new File(config.getDirectory()), config.getSegmentSize(), config.getMaxSize(), config.getMaxAge());
+		} catch (IOException e) {
+			throw new IllegalStateException("Failed to open MQTT dead letter journal at " + config.getDirectory(), e);
+		}
+	}
+
+	@Override
+	public void send(DeadLetterMessage letter) throws Exception {
+		MqttMessage message = letter.getMessage();
+		byte[] name = letter.getListenerName().getBytes(StandardCharsets.UTF_8);
+		byte[] topic = letter.getTopic().getBytes(StandardCharsets.UTF_8);
+		byte[] error = truncate(letter.getError() == null ? new byte[0] : letter.getError().getBytes(StandardCharsets.UTF_8));
+		byte[] payload = message.getPayload();
+
+		ByteBuffer record = ByteBuffer.allocate(2 + name.length + 2 + topic.length + 2 + 4 + 2 + error.length + payload.length);
+		record.putShort((short) name.length);
+		record.put(name);
+		record.putShort((short) topic.length);
+		record.put(topic);
+		record.put((byte) message.getQos());
+		record.put((byte) (message.isRetained() ? 1 : 0));
+		record.putInt(letter.getAttempts());
+		record.putShort((short) error.length);
+		record.put(error);
+		record.put(payload);
+
+		if (!journal.append(record.array(), 0, record.capacity(), letter.getTimestamp())) {
+			throw new IOException("Dead letter too large for journal segment, topic: " + letter.getTopic() + ", size: " + payload.length);
+		}
+		journal.flush();
+		storedCount.incrementAndGet();
+	}
+
+	private static byte[] truncate(byte[] error) {
+		if (error.length <= MAX_ERROR_BYTES) {
+			return error;
+		}
+		byte[] truncated = new byte[MAX_ERROR_BYTES];
+		System.arraycopy(error, 0, truncated, 0, MAX_ERROR_BYTES);
+		return truncated;
+	}
+
+	@Override
+	public CompletableFuture<Long> replay(double messagesPerSecond, Consumer<DeadLetterMessage> target) {
+		CompletableFuture<Long> result = new CompletableFuture<>();
+		if (!replaying.compareAndSet(null, result)) {
+			result.completeExceptionally(new IllegalStateException("Dead letter replay already in progress"));
+			return result;
+		}
+
+		long cutoff = System.currentTimeMillis();
+		int budget = (int) Math.max(1, messagesPerSecond * REPLAY_TICK_MS / 1000);
+		AtomicLong replayed = new AtomicLong();
+		AtomicReference<ScheduledFuture<?>> task = new AtomicReference<>();
+		logger.info("Start replaying MQTT dead letters at {} messages/s, pending bytes: {}", messagesPerSecond, journal.getPendingBytes());
+
+		task.set(RetryTemplate.getScheduler().scheduleWithFixedDelay(() -> {
+			try {
+				for (int i = 0; i < budget; i++) {
+					JournalRecord record = journal.peek();
+					if (record == null || record.getTimestamp() > cutoff) {
+						journal.flush();
+						finishReplay(result, replayed.get(), task.get());
+						return;
+					}
+					DeadLetterMessage letter = decode(record);
+					try {
+						target.accept(letter);
+					} catch (RuntimeException e) {
+						// 交付失败时死信保留在日志中，结束本周期，下一周期重新交付
+						if (e instanceof RejectedExecutionException) {
+							logger.debug("MQTT dead letter replay paused, listener executor is full, topic: {}", letter.getTopic());
+						} else {
+							logger.warn("Error replaying MQTT dead letter for topic: {}, will retry", letter.getTopic(), e);
+						}
+						return;
+					}
+					// 交付成功后才从日志中移除
+					journal.commit();
+					replayed.incrementAndGet();
+				}
+			} catch (Throwable e) {
+				replaying.compareAndSet(result, null);
+				cancel(task.get());
+				result.completeExceptionally(e);
+			}
+		}, 0, REPLAY_TICK_MS, TimeUnit.MILLISECONDS));
+		return result;
+	}
+
+	private void finishReplay(CompletableFuture<Long> result, long replayed, ScheduledFuture<?> task) {
+		cancel(task);
+		replaying.compareAndSet(result, null);
+		logger.info("MQTT dead letter replay completed, replayed: {}", replayed);
+		result.complete(replayed);
+	}
+
+	private static void cancel(ScheduledFuture<?> task) {
+		if (task != null) {
+			task.cancel(false);
+		}
+	}
+
+	private static DeadLetterMessage decode(JournalRecord record) {
+		ByteBuffer buffer = ByteBuffer.wrap(record.getData());
+		String name = readString(buffer);
+		String topic = readString(buffer);
+		int qos = buffer.get();
+		boolean retained = buffer.get() != 0;
+		int attempts = buffer.getInt();
+		String error = readString(buffer);
+		byte[] payload = new byte[buffer.remaining()];
+		buffer.get(payload);
+
+		MqttMessage message = new MqttMessage(payload);
+		message.setQos(qos);
+		message.setRetained(retained);
+		return new DeadLetterMessage(name, topic, message, attempts, error, record.getTimestamp());
+	}
+
+	private static String readString(ByteBuffer buffer) {
+		byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * 是否存在未重放的死信
+	 */
+	public boolean hasPending() {
+		return !journal.isEmpty();
+	}
+
+	/**
+	 * 未重放的死信字节数
+	 */
+	public long getPendingBytes() {
+		return journal.getPendingBytes();
+	}
+
+	public long getStoredCount() {
+		return storedCount.get();
+	}
+
+	/**
+	 * 超过大小上限或保留时间而丢弃的死信数
+	 */
+	public long getDiscardedCount() {
+		return journal.getDroppedRecords();
+	}
+
+	public void destroy() {
+		CompletableFuture<Long> current = replaying.getAndSet(null);
+		if (current != null) {
+			current.cancel(false);
+		}
+		try {
+			journal.close();
+		} catch (IOException e) {
+			logger.error("Error closing MQTT dead letter journal", e);
+		}
+	}
+}
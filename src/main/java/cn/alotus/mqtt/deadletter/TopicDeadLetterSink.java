@@ -0,0 +1,34 @@
+package cn.alotus.mqtt.deadletter;
+
+import cn.alotus.mqtt.core.MqttTemplate;
+
+/**
+ * 发布到死信主题的死信接收器，死信主题由模板中的 {topic} 占位符替换为原主题生成，消息负载保持不变
+ * <p>
+ * 死信保存在 Broker 上，需要重放时由死信主题的订阅方自行处理，本接收器不支持 {@link #replay}
+ * 
+ * @author alotuser
+ * @since 2026/10/16
+ */
+public class TopicDeadLetterSink implements DeadLetterSink {
+
+	private static final String TOPIC_PLACEHOLDER = "{topic}";
+
+	private final MqttTemplate mqttTemplate;
+	private final String topicTemplate;
+
+	public TopicDeadLetterSink(MqttTemplate mqttTemplate, String topicTemplate) {
+		this.mqttTemplate = mqttTemplate;
+		this.topicTemplate = topicTemplate;
+	}
+
+	@Override
+	public void send(DeadLetterMessage letter) throws Exception {
+		String topic = topicTemplate.replace(TOPIC_PLACEHOLDER, letter.getTopic());
+		mqttTemplate.publish(topic, letter.getMessage().getPayload(), Math.max(1, letter.getMessage().getQos()), false);
+	}
+
+	public String getTopicTemplate() {
+		return topicTemplate;
+	}
+}
@@ -0,0 +1,216 @@
+package cn.alotus.mqtt.dedup;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 基于时间窗口的消息去重缓存，只保存 64 位消息标识
+ * <p>
+ * 缓存分为多个分段以降低锁竞争，每个分段由当前和上一代两张开放寻址的 long 哈希表组成。 每经过一个时间窗口或当前代写满时进行轮换：上一代被清空后作为新的当前代，
+ * 因此在容量允许时标识至少保留一个窗口，内存占用固定为 {@code maxEntries} 对应的两代数组大小，与消息数量无关
+ * 
+ * @author alotuser
+ * @since 2026/10/16
+ */
+public class DeduplicationCache {
+
+	/**
+	 * 空槽位标记，标识恰好为 0 时替换为 {@link #ZERO_KEY}
+	 */
+	private static final long EMPTY = 0L;
+	private static final long ZERO_KEY = 0x9E3779B97F4A7C15L;
+
+	private final Stripe[] stripes;
+	private final long windowNanos;
+	private final LongAdder acceptedCount = new LongAdder();
+	private final LongAdder duplicateCount = new LongAdder();
+
+	/**
+	 * @param maxEntries 每代最多保存的标识数
+	 * @param windowMs   时间窗口（毫秒）
+	 */
+	public DeduplicationCache(int maxEntries, long windowMs) {
+		int stripeCount = Integer.highestOneBit(Math.max(1, Math.min(64, Runtime.getRuntime().availableProcessors() * 2)));
+		int perStripe = Math.max(16, maxEntries / stripeCount);
+		this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMs);
+		this.stripes = new Stripe[stripeCount];
+		for (int i = 0; i < stripeCount; i++) {
+			stripes[i] = new Stripe(perStripe);
+		}
+	}
+
+	/**
+	 * 记录消息标识
+	 * 
+	 * @return 标识首次出现时返回 true，窗口内重复出现时返回 false
+	 */
+	public boolean markIfAbsent(long id) {
+		long key = id == EMPTY ? ZERO_KEY : id;
+		long hash = mix(key);
+		Stripe stripe = stripes[(int) (hash >>> 32) & (stripes.length - 1)];
+		boolean absent = stripe.markIfAbsent(key, (int) hash, System.nanoTime(), windowNanos);
+		if (absent) {
+			acceptedCount.increment();
+		} else {
+			duplicateCount.increment();
+		}
+		return absent;
+	}
+
+	/**
+	 * 移除消息标识，消息处理失败时调用，使 Broker 重发的同一消息能够再次处理
+	 * 
+	 * @return 标识存在并已移除时返回 true
+	 */
+	public boolean remove(long id) {
+		long key = id == EMPTY ? ZERO_KEY : id;
+		long hash = mix(key);
+		Stripe stripe = stripes[(int) (hash >>> 32) & (stripes.length - 1)];
+		return stripe.remove(key, (int) hash);
+	}
+
+	/**
+	 * 64 位哈希扰动（MurmurHash3 fmix64），高位选择分段，低位定位槽位
+	 */
+	private static long mix(long key) {
+		key ^= key >>> 33;
+		key *= 0xff51afd7ed558ccdL;
+		key ^= key >>> 33;
+		key *= 0xc4ceb93fe1a85d53L;
+		key ^= key >>> 33;
+		return key;
+	}
+
+	/**
+	 * 首次出现的消息数
+	 */
+	public long getAcceptedCount() {
+		return acceptedCount.sum();
+	}
+
+	/**
+	 * 被过滤的重复消息数
+	 */
+	public long getDuplicateCount() {
+		return duplicateCount.sum();
+	}
+
+	/**
+	 * 分段，两代哈希表的负载因子不超过 0.5
+	 */
+	private static final class Stripe {
+		private final int maxSize;
+		private final int mask;
+		private long[] current;
+		private long[] previous;
+		private int size;
+		private long generationStart;
+
+		Stripe(int maxSize) {
+			this.maxSize = maxSize;
+			int capacity = Integer.highestOneBit(maxSize * 2 - 1) << 1;
+			this.mask = capacity - 1;
+			this.current = new long[capacity];
+			this.previous = new long[capacity];
+			this.generationStart = System.nanoTime();
+		}
+
+		synchronized boolean markIfAbsent(long key, int hash, long now, long windowNanos) {
+			long elapsed = now - generationStart;
+			if (elapsed >= windowNanos || size >= maxSize) {
+				rotate(now);
+				// 超过两个窗口未访问时上一代也已过期
+				if (elapsed >= 2 * windowNanos) {
+					rotate(now);
+				}
+			}
+			if (contains(previous, key, hash)) {
+				// 上一代中命中的标识写入当前代，持续重复的消息不会因轮换而过期
+				insert(key, hash);
+				return false;
+			}
+			return insert(key, hash);
+		}
+
+		synchronized boolean remove(long key, int hash) {
+			boolean removed = delete(previous, key, hash);
+			if (delete(current, key, hash)) {
+				size--;
+				removed = true;
+			}
+			return removed;
+		}
+
+		/**
+		 * 线性探测表中的删除：删除后将同一探测链上的后续标识前移，不留墓碑，查找仍可在空槽位处结束
+		 */
+		private boolean delete(long[] table, long key, int hash) {
+			int i = hash & mask;
+			for (;; i = (i + 1) & mask) {
+				long slot = table[i];
+				if (slot == EMPTY) {
+					return false;
+				}
+				if (slot == key) {
+					break;
+				}
+			}
+			for (int j = (i + 1) & mask;; j = (j + 1) & mask) {
+				long slot = table[j];
+				if (slot == EMPTY) {
+					break;
+				}
+				int home = (int) mix(slot) & mask;
+				// 槽位 j 上的标识的起始位置不在 (i, j] 区间内时，移到空出的槽位 i 上
+				boolean reachable = i <= j ? (home > i && home <= j) : (home > i || home <= j);
+				if (!reachable) {
+					table[i] = slot;
+					i = j;
+				}
+			}
+			table[i] = EMPTY;
+			return true;
+		}
+
+		private void rotate(long now) {
+			long[] cleared = previous;
+			Arrays.fill(cleared, EMPTY);
+			previous = current;
+			current = cleared;
+			size = 0;
+			generationStart = now;
+		}
+
+		private boolean contains(long[] table, long key, int hash) {
+			for (int i = hash & mask;; i = (i + 1) & mask) {
+				long slot = table[i];
+				if (slot == key) {
+					return true;
+				}
+				if (slot == EMPTY) {
+					return false;
+				}
+			}
+		}
+
+		/**
+		 * 写入当前代
+		 * 
+		 * @return 当前代中原本不存在该标识时返回 true
+		 */
+		private boolean insert(long key, int hash) {
+			for (int i = hash & mask;; i = (i + 1) & mask) {
+				long slot = current[i];
+				if (slot == key) {
+					return false;
+				}
+				if (slot == EMPTY) {
+					current[i] = key;
+					size++;
+					return true;
+				}
+			}
+		}
+	}
+}
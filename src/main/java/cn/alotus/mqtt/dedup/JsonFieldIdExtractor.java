@@ -0,0 +1,82 @@
+package cn.alotus.mqtt.dedup;
+
+import java.nio.charset.StandardCharsets;
+
+import org.eclipse.paho.client.mqttv3.MqttMessage;
+
+/**
+ * 以 JSON 负载中指定字段的值作为消息标识，直接在字节上查找字段，不解析整个 JSON
+ * <p>
+ * 取负载中第一个同名字段的字符串或数字值；找不到字段时退回主题和负载的哈希，避免不同消息被误判为重复
+ * 
+ * @author alotuser
+ * @since 2026/10/16
+ */
+public class JsonFieldIdExtractor implements MqttMessageIdExtractor {
+
+	private final byte[] key;
+
+	/**
+	 * @param field 字段名，如 "messageId"
+	 */
+	public JsonFieldIdExtractor(String field) {
+		this.key = ("\"" + field + "\"").getBytes(StandardCharsets.UTF_8);
+	}
+
+	@Override
+	public long extractId(String topic, MqttMessage message) {
+		byte[] payload = message.getPayload();
+		for (int from = 0; (from = indexOf(payload, from)) >= 0; from++) {
+			int i = skipWhitespace(payload, from + key.length);
+			if (i >= payload.length || payload[i] != ':') {
+				continue;
+			}
+			i = skipWhitespace(payload, i + 1);
+			if (i >= payload.length) {
+				break;
+			}
+
+			int start = i;
+			int end;
+			if (payload[i] == '"') {
+				start = ++i;
+				while (i < payload.length && payload[i] != '"') {
+					i += payload[i] == '\\' ? 2 : 1;
+				}
+				end = Math.min(i, payload.length);
+			} else {
+				while (i < payload.length && payload[i] != ',' && payload[i] != '}' && payload[i] != ']' && !isWhitespace(payload[i])) {
+					i++;
+				}
+				end = i;
+			}
+			if (end > start) {
+				return PayloadHashIdExtractor.hash(payload, start, end - start);
+			}
+		}
+		return PayloadHashIdExtractor.INSTANCE.extractId(topic, message);
+	}
+
+	private int indexOf(byte[] payload, int from) {
+		outer: for (int i = from; i <= payload.length - key.length; i++) {
+			for (int j = 0; j < key.length; j++) {
+				if (payload[i + j] != key[j]) {
+					continue outer;
+				}
+			}
+			return i;
+		}
+		return -1;
+	}
+
+	private static int skipWhitespace(byte[] payload, int i) {
+		while (i < payload.length && isWhitespace(payload[i])) {
+			i++;
+		}
+		return i;
+	}
+
+	private static boolean isWhitespace(byte b) {
+		return b == ' ' || b == '\t' || b == '\r' || b == '\n';
+	}
+}
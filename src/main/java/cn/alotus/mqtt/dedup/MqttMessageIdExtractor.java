@@ -0,0 +1,18 @@
+package cn.alotus.mqtt.dedup;
+
+import org.eclipse.paho.client.mqttv3.MqttMessage;
+
+/**
+ * 消息标识提取器，为去重提取 64 位消息标识，相同消息应返回相同的值
+ * 
+ * @author alotuser
+ * @since 2026/10/16
+ */
+@FunctionalInterface
+public interface MqttMessageIdExtractor {
+
+	/**
+	 * 提取消息标识
+	 */
+	long extractId(String topic, MqttMessage message);
+}
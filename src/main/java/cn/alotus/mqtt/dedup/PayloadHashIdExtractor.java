@@ -0,0 +1,45 @@
+package cn.alotus.mqtt.dedup;
+
+import org.eclipse.paho.client.mqttv3.MqttMessage;
+
+/**
+ * 以主题和负载的 64 位哈希作为消息标识，适用于负载本身不含业务 ID 的消息
+ * <p>
+ * 不同主题上的相同负载视为不同消息；同一主题上内容完全相同的合法消息也会被视为重复
+ * 
+ * @author alotuser
+ * @since 2026/10/16
+ */
+public class PayloadHashIdExtractor implements MqttMessageIdExtractor {
+
+	public static final PayloadHashIdExtractor INSTANCE = new PayloadHashIdExtractor();
+
+	private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+	private static final long FNV_PRIME = 0x100000001b3L;
+
+	@Override
+	public long extractId(String topic, MqttMessage message) {
+		long hash = FNV_OFFSET;
+		for (int i = 0; i < topic.length(); i++) {
+			hash = (hash ^ topic.charAt(i)) * FNV_PRIME;
+		}
+		hash = (hash ^ '\0') * FNV_PRIME;
+		byte[] payload = message.getPayload();
+		return hash(payload, 0, payload.length, hash);
+	}
+
+	/**
+	 * FNV-1a 64 位哈希
+	 */
+	static long hash(byte[] bytes, int offset, int length, long seed) {
+		long hash = seed;
+		for (int i = offset; i < offset + length; i++) {
+			hash = (hash ^ (bytes[i] & 0xFF)) * FNV_PRIME;
+		}
+		return hash;
+	}
+
+	static long hash(byte[] bytes, int offset, int length) {
+		return hash(bytes, offset, length, FNV_OFFSET);
+	}
+}
@@ -0,0 +1,141 @@
+package cn.alotus.mqtt.index;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 编译期生成的监听器索引，记录每个类中使用 @MqttTopic 注解的方法
+ * <p>
+ * 索引文件由 {@link MqttListenerIndexProcessor} 生成，每行一个方法，格式为 类名#方法名(参数类型,...)。
+ * 类路径中存在索引时只检查索引中列出的类，未使用注解处理器编译的模块中的监听方法不会被发现，可通过 emqx.mqtt.listener-index=false 关闭
+ * 
+ * @author alotuser
+ * @since 2026/10/16
+ */
+public class MqttListenerIndex {
+
+	private static final Logger logger = LoggerFactory.getLogger(MqttListenerIndex.class);
+
+	/**
+	 * 索引文件位置
+	 */
+	public static final String LOCATION = "META-INF/mqtt-listeners.index";
+
+	private final Map<String, List<MethodEntry>> entries;
+
+	MqttListenerIndex(Map<String, List<MethodEntry>> entries) {
+		this.entries = entries;
+	}
+
+	/**
+	 * 加载类路径中的所有索引文件
+	 * 
+	 * @return 索引，类路径中不存在索引文件时返回 null
+	 */
+	public static MqttListenerIndex load(ClassLoader classLoader) {
+		Map<String, List<MethodEntry>> entries = new HashMap<>();
+		boolean found = false;
+		try {
+			Enumeration<URL> urls = classLoader != null ? classLoader.getResources(LOCATION) : ClassLoader.getSystemResources(LOCATION);
+			while (urls.hasMoreElements()) {
+				URL url = urls.nextElement();
+				found = true;
+				try (BufferedReader reader = new BufferedReader(new InputStreamReader(url.openStream(), StandardCharsets.UTF_8))) {
+					String line;
+					while ((line = reader.readLine()) != null) {
+						MethodEntry entry = parse(line.trim());
+						if (entry != null) {
+							entries.computeIfAbsent(entry.className, k -> new ArrayList<>()).add(entry);
+						}
+					}
+				}
+			}
+		} catch (IOException e) {
+			logger.warn("Failed to load MQTT listener index, falling back to annotation scanning", e);
+			return null;
+		}
+		if (!found) {
+			return null;
+		}
+		logger.info("Loaded MQTT listener index with {} classes", entries.size());
+		return new MqttListenerIndex(entries);
+	}
+
+	/**
+	 * 解析一行索引，空行和格式错误的行返回 null
+	 */
+	static MethodEntry parse(String line) {
+		int hash = line.indexOf('#');
+		int open = line.indexOf('(', hash + 1);
+		if (hash <= 0 || open < 0 || !line.endsWith(")")) {
+			return null;
+		}
+		String parameters = line.substring(open + 1, line.length() - 1);
+		String[] parameterTypes = parameters.isEmpty() ? new String[0] : parameters.split(",");
+		return new MethodEntry(line.substring(0, hash), line.substring(hash + 1, open), parameterTypes);
+	}
+
+	/**
+	 * 格式化一行索引
+	 */
+	static String format(String className, String methodName, List<String> parameterTypes) {
+		return className + '#' + methodName + '(' + String.join(",", parameterTypes) + ')';
+	}
+
+	/**
+	 * 获取类中声明的监听方法，不包含父类中的方法
+	 */
+	public List<MethodEntry> getMethods(String className) {
+		List<MethodEntry> methods = entries.get(className);
+		return methods != null ? methods : Collections.<MethodEntry>emptyList();
+	}
+
+	/**
+	 * 索引中的类数
+	 */
+	public int size() {
+		return entries.size();
+	}
+
+	/**
+	 * 索引中的一个方法
+	 */
+	public static class MethodEntry {
+		private final String className;
+		private final String methodName;
+		private final String[] parameterTypes;
+
+		MethodEntry(String className, String methodName, String[] parameterTypes) {
+			this.className = className;
+			this.methodName = methodName;
+			this.parameterTypes = parameterTypes;
+		}
+
+		public String getClassName() {
+			return className;
+		}
+
+		public String getMethodName() {
+			return methodName;
+		}
+
+		/**
+		 * 擦除泛型后的参数类型名称，数组为 byte[] 形式，内部类使用 $ 分隔
+		 */
+		public String[] getParameterTypes() {
+			return parameterTypes;
+		}
+	}
+}
@@ -0,0 +1,124 @@
+package cn.alotus.mqtt.index;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * 生成监听器索引的注解处理器，启动时按索引直接定位 @MqttTopic 方法，不再逐个反射检查 Bean 的类
+ * <p>
+ * 处理器没有在 META-INF/services 中注册，需要在编译参数中显式启用，例如 maven-compiler-plugin 的
+ * annotationProcessors 配置 cn.alotus.mqtt.index.MqttListenerIndexProcessor。增量编译时保留上次索引中仍然存在的类
+ * 
+ * @author alotuser
+ * @since 2026/10/16
+ */
+@SupportedAnnotationTypes("cn.alotus.mqtt.annotation.MqttTopic")
+public class MqttListenerIndexProcessor extends AbstractProcessor {
+
+	private final Set<String> entries = new TreeSet<>();
+	private final Set<String> processedClasses = new HashSet<>();
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+		for (TypeElement annotation : annotations) {
+			for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+				if (element.getKind() == ElementKind.METHOD) {
+					addMethod((ExecutableElement) element);
+				}
+			}
+		}
+		if (roundEnv.processingOver()) {
+			writeIndex();
+		}
+		return false;
+	}
+
+	private void addMethod(ExecutableElement method) {
+		TypeElement type = (TypeElement) method.getEnclosingElement();
+		String className = processingEnv.getElementUtils().getBinaryName(type).toString();
+		List<String> parameterTypes = new ArrayList<>();
+		for (VariableElement parameter : method.getParameters()) {
+			parameterTypes.add(typeName(processingEnv.getTypeUtils().erasure(parameter.asType())));
+		}
+		entries.add(MqttListenerIndex.format(className, method.getSimpleName().toString(), parameterTypes));
+		processedClasses.add(className);
+	}
+
+	/**
+	 * 与运行时 Class.getTypeName 一致的类型名称
+	 */
+	private String typeName(TypeMirror type) {
+		if (type.getKind() == TypeKind.ARRAY) {
+			return typeName(((ArrayType) type).getComponentType()) + "[]";
+		}
+		if (type.getKind() == TypeKind.DECLARED) {
+			return processingEnv.getElementUtils().getBinaryName((TypeElement) processingEnv.getTypeUtils().asElement(type)).toString();
+		}
+		return type.toString();
+	}
+
+	private void writeIndex() {
+		mergePreviousIndex();
+		try {
+			FileObject file = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", MqttListenerIndex.LOCATION);
+			try (Writer writer = new OutputStreamWriter(file.openOutputStream(), StandardCharsets.UTF_8)) {
+				for (String entry : entries) {
+					writer.write(entry);
+					writer.write('\n');
+				}
+			}
+		} catch (IOException e) {
+			processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Failed to write MQTT listener index: " + e);
+		}
+	}
+
+	/**
+	 * 增量编译时只处理了部分源文件，保留上次索引中未重新编译且仍然存在的类
+	 */
+	private void mergePreviousIndex() {
+		try {
+			FileObject file = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", MqttListenerIndex.LOCATION);
+			try (BufferedReader reader = new BufferedReader(new InputStreamReader(file.openInputStream(), StandardCharsets.UTF_8))) {
+				String line;
+				while ((line = reader.readLine()) != null) {
+					MqttListenerIndex.MethodEntry entry = MqttListenerIndex.parse(line.trim());
+					if (entry != null && !processedClasses.contains(entry.getClassName()) && processingEnv.getElementUtils().getTypeElement(entry.getClassName().replace('$', '.')) != null) {
+						entries.add(line.trim());
+					}
+				}
+			}
+		} catch (IOException | IllegalArgumentException e) {
+			// 首次编译时没有上次的索引
+		}
+	}
+}
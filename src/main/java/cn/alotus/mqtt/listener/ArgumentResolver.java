@@ -0,0 +1,24 @@
+package cn.alotus.mqtt.listener;
+
+import org.eclipse.paho.client.mqttv3.MqttMessage;
+
+import cn.alotus.mqtt.core.Acknowledgment;
+
+/**
+ * 监听方法参数解析器，注册时按参数类型确定，消息到达时直接从主题和消息中取值
+ * 
+ * @author alotuser
+ * @since 2026/10/16
+ */
+@FunctionalInterface
+public interface ArgumentResolver {
+
+	Object resolve(String topic, MqttMessage message) throws Exception;
+
+	/**
+	 * 解析手动确认的消息，默认忽略确认句柄
+	 */
+	default Object resolve(String topic, MqttMessage message, Acknowledgment acknowledgment) throws Exception {
+		return resolve(topic, message);
+	}
+}
@@ -0,0 +1,94 @@
+package cn.alotus.mqtt.listener;
+
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 限制并发任务数的执行器，用于没有任务队列的虚拟线程分发
+ * <p>
+ * 每个任务执行期间占用一个许可，许可耗尽时按 {@link InboundOverflowHandler} 的策略处理新任务：在提交线程上执行、阻塞等待许可或丢弃消息
+ * 
+ * @author alotuser
+ * @since 2026/10/16
+ */
+public class BoundedDispatchExecutor extends AbstractExecutorService {
+
+	private final ExecutorService delegate;
+	private final Semaphore permits;
+	private final int maxConcurrency;
+	private final InboundOverflowHandler overflowHandler;
+
+	/**
+	 * @param delegate        实际执行任务的执行器
+	 * @param maxConcurrency  同时执行的最大任务数
+	 * @param overflowHandler 许可耗尽时的处理器
+	 */
+	public BoundedDispatchExecutor(ExecutorService delegate, int maxConcurrency, InboundOverflowHandler overflowHandler) {
+		this.delegate = delegate;
+		this.maxConcurrency = Math.max(1, maxConcurrency);
+		this.permits = new Semaphore(this.maxConcurrency);
+		this.overflowHandler = overflowHandler;
+	}
+
+	@Override
+	public void execute(Runnable command) {
+		if (delegate.isShutdown()) {
+			throw new RejectedExecutionException("MQTT dispatch executor has been shut down");
+		}
+		if (!permits.tryAcquire() && !overflowHandler.awaitPermit(command, permits)) {
+			return;
+		}
+		try {
+			delegate.execute(() -> {
+				try {
+					command.run();
+				} finally {
+					permits.release();
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			permits.release();
+			throw e;
+		}
+	}
+
+	/**
+	 * 正在执行的任务数
+	 */
+	public int getActiveCount() {
+		return maxConcurrency - permits.availablePermits();
+	}
+
+	public int getMaxConcurrency() {
+		return maxConcurrency;
+	}
+
+	@Override
+	public void shutdown() {
+		delegate.shutdown();
+	}
+
+	@Override
+	public List<Runnable> shutdownNow() {
+		return delegate.shutdownNow();
+	}
+
+	@Override
+	public boolean isShutdown() {
+		return delegate.isShutdown();
+	}
+
+	@Override
+	public boolean isTerminated() {
+		return delegate.isTerminated();
+	}
+
+	@Override
+	public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+		return delegate.awaitTermination(timeout, unit);
+	}
+}
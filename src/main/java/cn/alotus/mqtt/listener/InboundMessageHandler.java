@@ -0,0 +1,20 @@
+package cn.alotus.mqtt.listener;
+
+import org.eclipse.paho.client.mqttv3.MqttMessage;
+
+import cn.alotus.mqtt.core.Acknowledgment;
+
+/**
+ * 入站消息处理函数，在分发线程上处理一条消息
+ * 
+ * @author alotuser
+ * @since 2026/10/16
+ */
+@FunctionalInterface
+public interface InboundMessageHandler {
+
+	/**
+	 * @param acknowledgment 消息的确认句柄，自动确认的监听方法为 {@link Acknowledgment#NOOP}
+	 */
+	void handle(String topic, MqttMessage message, Acknowledgment acknowledgment);
+}
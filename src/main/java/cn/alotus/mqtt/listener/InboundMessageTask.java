@@ -0,0 +1,60 @@
+package cn.alotus.mqtt.listener;
+
+import org.eclipse.paho.client.mqttv3.MqttMessage;
+
+import cn.alotus.mqtt.core.Acknowledgment;
+
+/**
+ * 提交到分发线程池的单条入站消息任务
+ * <p>
+ * 保留监听方法名称、主题和消息，分发队列已满时溢出策略可以据此丢弃或写入磁盘后再恢复执行。
+ * 手动确认的消息同时携带确认句柄，被丢弃或写入磁盘时立即确认，避免占用 Broker 的在途窗口
+ * 
+ * @author alotuser
+ * @since 2026/10/16
+ */
+public final class InboundMessageTask implements Runnable {
+
+	private final String listenerName;
+	private final String topic;
+	private final MqttMessage message;
+	private final InboundMessageHandler handler;
+	private final Acknowledgment acknowledgment;
+
+	public InboundMessageTask(String listenerName, String topic, MqttMessage message, InboundMessageHandler handler) {
+		this(listenerName, topic, message, handler, Acknowledgment.NOOP);
+	}
+
+	public InboundMessageTask(String listenerName, String topic, MqttMessage message, InboundMessageHandler handler, Acknowledgment acknowledgment) {
+		this.listenerName = listenerName;
+		this.topic = topic;
+		this.message = message;
+		this.handler = handler;
+		this.acknowledgment = acknowledgment;
+	}
+
+	@Override
+	public void run() {
+		handler.handle(topic, message, acknowledgment);
+	}
+
+	public String getListenerName() {
+		return listenerName;
+	}
+
+	public String getTopic() {
+		return topic;
+	}
+
+	public MqttMessage getMessage() {
+		return message;
+	}
+
+	public InboundMessageHandler getHandler() {
+		return handler;
+	}
+
+	public Acknowledgment getAcknowledgment() {
+		return acknowledgment;
+	}
+}
@@ -0,0 +1,178 @@
+package cn.alotus.mqtt.listener;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import cn.alotus.mqtt.config.MqttProperties.Executor.OverflowPolicy;
+
+/**
+ * 分发队列溢出处理器，按配置的策略处理队列已满时提交的任务
+ * <p>
+ * 只有 {@link InboundMessageTask} 会被丢弃或写入磁盘，批处理刷新等其他任务在非 CALLER_RUNS 策略下一律阻塞等待队列空位；
+ * 定时器线程提交的 {@link TimerHandoff} 总是直接拒绝
+ * 
+ * @author alotuser
+ * @since 2026/10/16
+ */
+public class InboundOverflowHandler implements RejectedExecutionHandler {
+
+	private static final Logger logger = LoggerFactory.getLogger(InboundOverflowHandler.class);
+
+	private final OverflowPolicy policy;
+	private final InboundSpillBuffer spillBuffer;
+	private final AtomicLong droppedCount = new AtomicLong();
+	private final LongAdder spilledCount = new LongAdder();
+	private final LongAdder blockedCount = new LongAdder();
+
+	/**
+	 * @param policy      溢出策略
+	 * @param spillBuffer SPILL 策略使用的磁盘缓冲区，其他策略可为 null
+	 */
+	public InboundOverflowHandler(OverflowPolicy policy, InboundSpillBuffer spillBuffer) {
+		this.policy = policy;
+		this.spillBuffer = spillBuffer;
+	}
+
+	@Override
+	public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
+		if (executor.isShutdown()) {
+			throw new RejectedExecutionException("MQTT dispatch executor has been shut down");
+		}
+		if (r instanceof TimerHandoff) {
+			// 定时器线程提交的任务不在定时器上执行也不阻塞，由提交方稍后重新提交
+			throw new RejectedExecutionException("MQTT dispatch queue is full");
+		}
+		if (policy == OverflowPolicy.CALLER_RUNS) {
+			r.run();
+			return;
+		}
+		if (!(r instanceof InboundMessageTask)) {
+			block(r, executor);
+			return;
+		}
+
+		InboundMessageTask task = (InboundMessageTask) r;
+		switch (policy) {
+		case DROP_NEWEST:
+			drop(task);
+			break;
+		case DROP_OLDEST:
+			dropOldest(task, executor);
+			break;
+		case SPILL:
+			if (spillBuffer != null && spillBuffer.offer(task)) {
+				spilledCount.increment();
+				// 消息已写入磁盘，恢复执行时不再持有确认句柄
+				task.getAcknowledgment().acknowledge();
+			} else {
+				// 写入磁盘失败时退回阻塞，避免丢失消息
+				block(r, executor);
+			}
+			break;
+		case BLOCK:
+		default:
+			block(r, executor);
+			break;
+		}
+	}
+
+	/**
+	 * 处理 {@link BoundedDispatchExecutor} 许可耗尽时提交的任务，该执行器没有队列，只支持 CALLER_RUNS、BLOCK 和 DROP_NEWEST 策略
+	 * 
+	 * @param r       提交的任务
+	 * @param permits 并发许可
+	 * @return 已获得许可、调用方应继续提交时返回 true；任务已在当前线程执行或已丢弃时返回 false
+	 */
+	boolean awaitPermit(Runnable r, Semaphore permits) {
+		if (r instanceof TimerHandoff) {
+			throw new RejectedExecutionException("MQTT dispatch concurrency limit reached");
+		}
+		if (policy == OverflowPolicy.CALLER_RUNS) {
+			r.run();
+			return false;
+		}
+		if (policy == OverflowPolicy.DROP_NEWEST && r instanceof InboundMessageTask) {
+			drop((InboundMessageTask) r);
+			return false;
+		}
+		blockedCount.increment();
+		try {
+			permits.acquire();
+			return true;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RejectedExecutionException("Interrupted while waiting for MQTT dispatch capacity", e);
+		}
+	}
+
+	/**
+	 * 阻塞提交线程直到队列有空位
+	 */
+	private void block(Runnable r, ThreadPoolExecutor executor) {
+		blockedCount.increment();
+		try {
+			executor.getQueue().put(r);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RejectedExecutionException("Interrupted while waiting for MQTT dispatch queue capacity", e);
+		}
+	}
+
+	/**
+	 * 移除队列中最旧的一条消息后放入新消息，队列中没有可丢弃的消息或仍然放不下时丢弃新消息
+	 */
+	private void dropOldest(InboundMessageTask task, ThreadPoolExecutor executor) {
+		BlockingQueue<Runnable> queue = executor.getQueue();
+		for (Runnable queued : queue) {
+			if (queued instanceof InboundMessageTask && queue.remove(queued)) {
+				drop((InboundMessageTask) queued);
+				break;
+			}
+		}
+		if (!queue.offer(task)) {
+			drop(task);
+		}
+	}
+
+	private void drop(InboundMessageTask task) {
+		// 丢弃的消息同样确认，否则会一直占用 Broker 的在途窗口
+		task.getAcknowledgment().acknowledge();
+		long dropped = droppedCount.incrementAndGet();
+		if ((dropped & 1023) == 1) {
+			logger.warn("MQTT dispatch queue full, dropped message for topic: {}, listener: {}, total dropped: {}", task.getTopic(), task.getListenerName(), dropped);
+		}
+	}
+
+	public OverflowPolicy getPolicy() {
+		return policy;
+	}
+
+	/**
+	 * 被丢弃的消息数
+	 */
+	public long getDroppedCount() {
+		return droppedCount.get();
+	}
+
+	/**
+	 * 写入磁盘的消息数
+	 */
+	public long getSpilledCount() {
+		return spilledCount.sum();
+	}
+
+	/**
+	 * 提交线程因队列已满而阻塞的次数
+	 */
+	public long getBlockedCount() {
+		return blockedCount.sum();
+	}
+}
@@ -0,0 +1,202 @@
+package cn.alotus.mqtt.listener;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.paho.client.mqttv3.MqttMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import cn.alotus.mqtt.config.MqttProperties;
+import cn.alotus.mqtt.store.JournalRecord;
+import cn.alotus.mqtt.store.MappedSegmentJournal;
+
+/**
+ * 入站消息磁盘缓冲区，分发队列已满时将消息写入磁盘日志，队列出现空位后按写入顺序取回执行
+ * <p>
+ * 记录中保存监听方法名称，取回时交给注册的同名监听方法。磁盘中的消息与实时消息之间不保证顺序，
+ * 重启后残留的消息在 {@link #start()} 之后继续恢复，没有对应监听方法的消息会被丢弃
+ * 
+ * @author alotuser
+ * @since 2026/10/16
+ */
+public class InboundSpillBuffer {
+
+	private static final Logger logger = LoggerFactory.getLogger(InboundSpillBuffer.class);
+
+	/**
+	 * 恢复调度周期（毫秒）
+	 */
+	private static final long DRAIN_TICK_MS = 50;
+
+	private final MappedSegmentJournal journal;
+	private final ScheduledExecutorService drainExecutor;
+	private final Map<String, Target> targets = new ConcurrentHashMap<>();
+	private final AtomicLong restoredCount = new AtomicLong();
+	private final AtomicLong discardedCount = new AtomicLong();
+	private volatile boolean started;
+
+	public InboundSpillBuffer(MqttProperties.Executor config) {
+		try {
+			this.journal = new MappedSegmentJournal(new File(config.getSpillDirectory()), config.getSpillSegmentSize(), config.getSpillMaxSize(), 0);
+		} catch (IOException e) {
+			throw new IllegalStateException("Failed to open MQTT inbound spill buffer at " + config.getSpillDirectory(), e);
+		}
+		this.drainExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, "mqtt-inbound-spill-drain");
+			t.setDaemon(true);
+			return t;
+		});
+	}
+
+	/**
+	 * 注册监听方法，取回的消息提交到 executor 后由 handler 处理
+	 */
+	public void register(String listenerName, ThreadPoolExecutor executor, InboundMessageHandler handler) {
+		targets.put(listenerName, new Target(executor, handler));
+	}
+
+	/**
+	 * 开始恢复磁盘中的消息，应在所有监听方法注册完成后调用
+	 */
+	public synchronized void start() {
+		if (started || drainExecutor.isShutdown()) {
+			return;
+		}
+		started = true;
+		if (!journal.isEmpty()) {
+			logger.info("Restoring MQTT inbound spill buffer, pending bytes: {}", journal.getPendingBytes());
+		}
+		drainExecutor.scheduleWithFixedDelay(this::drain, DRAIN_TICK_MS, DRAIN_TICK_MS, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * 写入一条消息
+	 * 
+	 * @return 是否写入成功，消息超过单个段大小或写入失败时返回 false
+	 */
+	public boolean offer(InboundMessageTask task) {
+		MqttMessage message = task.getMessage();
+		byte[] name = task.getListenerName().getBytes(StandardCharsets.UTF_8);
+		byte[] topic = task.getTopic().getBytes(StandardCharsets.UTF_8);
+		byte[] payload = message.getPayload();
+		ByteBuffer record = ByteBuffer.allocate(2 + name.length + 2 + topic.length + 2 + 4 + payload.length);
+		record.putShort((short) name.length);
+		record.put(name);
+		record.putShort((short) topic.length);
+		record.put(topic);
+		record.put((byte) message.getQos());
+		record.put((byte) (message.isRetained() ? 1 : 0));
+		record.putInt(message.getId());
+		record.put(payload);
+
+		try {
+			return journal.append(record.array());
+		} catch (Exception e) {
+			logger.error("Failed to spill inbound MQTT message for topic: {}", task.getTopic(), e);
+			return false;
+		}
+	}
+
+	/**
+	 * 按写入顺序取回消息，目标队列已满时等待下一个周期
+	 */
+	private void drain() {
+		try {
+			JournalRecord record;
+			while ((record = journal.peek()) != null) {
+				ByteBuffer buffer = ByteBuffer.wrap(record.getData());
+				String name = readString(buffer);
+				Target target = targets.get(name);
+				if (target == null) {
+					logger.warn("Discarding spilled MQTT message for unknown listener: {}", name);
+					journal.commit();
+					discardedCount.incrementAndGet();
+					continue;
+				}
+				if (target.executor.getQueue().remainingCapacity() == 0 || target.executor.isShutdown()) {
+					return;
+				}
+
+				String topic = readString(buffer);
+				int qos = buffer.get();
+				boolean retained = buffer.get() != 0;
+				int id = buffer.getInt();
+				byte[] payload = new byte[buffer.remaining()];
+				buffer.get(payload);
+				MqttMessage message = new MqttMessage(payload);
+				message.setQos(qos);
+				message.setRetained(retained);
+				message.setId(id);
+
+				target.executor.execute(new InboundMessageTask(name, topic, message, target.handler));
+				journal.commit();
+				restoredCount.incrementAndGet();
+			}
+			journal.flush();
+		} catch (Exception e) {
+			logger.error("Error restoring MQTT inbound spill buffer", e);
+		}
+	}
+
+	private static String readString(ByteBuffer buffer) {
+		byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * 积压数据字节数
+	 */
+	public long getPendingBytes() {
+		return journal.getPendingBytes();
+	}
+
+	public long getRestoredCount() {
+		return restoredCount.get();
+	}
+
+	/**
+	 * 因没有对应监听方法、超过大小上限而丢弃的消息数
+	 */
+	public long getDiscardedCount() {
+		return discardedCount.get() + journal.getDroppedRecords();
+	}
+
+	public void close() {
+		drainExecutor.shutdown();
+		try {
+			if (!drainExecutor.awaitTermination(3, TimeUnit.SECONDS)) {
+				drainExecutor.shutdownNow();
+			}
+		} catch (InterruptedException e) {
+			drainExecutor.shutdownNow();
+			Thread.currentThread().interrupt();
+		}
+
+		try {
+			journal.close();
+		} catch (IOException e) {
+			logger.error("Error closing MQTT inbound spill buffer", e);
+		}
+	}
+
+	private static class Target {
+		private final ThreadPoolExecutor executor;
+		private final InboundMessageHandler handler;
+
+		Target(ThreadPoolExecutor executor, InboundMessageHandler handler) {
+			this.executor = executor;
+			this.handler = handler;
+		}
+	}
+}
@@ -0,0 +1,263 @@
+package cn.alotus.mqtt.listener;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.paho.client.mqttv3.MqttMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import cn.alotus.mqtt.core.Acknowledgment;
+import cn.alotus.mqtt.deadletter.DeadLetterMessage;
+import cn.alotus.mqtt.deadletter.DeadLetterSink;
+import cn.alotus.mqtt.retry.RetryContext;
+import cn.alotus.mqtt.retry.RetryPolicy;
+import cn.alotus.mqtt.retry.RetryTemplate;
+
+/**
+ * 监听方法失败处理器，按重试策略重新执行失败的消息，重试耗尽后交给死信接收器
+ * <p>
+ * 退避等待由共享重试定时器完成，到期后消息不阻塞地转交到监听方法的 Executor 执行，分发线程和 Paho 回调线程在等待期间不被占用，
+ * Executor 已满时稍后重新转交，定时器线程不执行监听方法。
+ * 重试的消息与后续消息之间不保证顺序
+ * 
+ * @author alotuser
+ * @since 2026/10/16
+ */
+public class ListenerRetryHandler {
+
+	private static final Logger logger = LoggerFactory.getLogger(ListenerRetryHandler.class);
+
+	private final RetryPolicy retryPolicy;
+	private final DeadLetterSink deadLetterSink;
+	private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+	private final AtomicLong retriedCount = new AtomicLong();
+	private final AtomicLong deadLetterCount = new AtomicLong();
+	private final AtomicLong lostCount = new AtomicLong();
+	private volatile double replayRate = 100;
+
+	/**
+	 * @param retryPolicy    消费重试策略，为 null 时不重试
+	 * @param deadLetterSink 死信接收器，为 null 时重试耗尽的消息只记录日志
+	 */
+	public ListenerRetryHandler(RetryPolicy retryPolicy, DeadLetterSink deadLetterSink) {
+		this.retryPolicy = retryPolicy;
+		this.deadLetterSink = deadLetterSink;
+	}
+
+	/**
+	 * 登记监听方法，重试和死信重放时通过名称找到调用器和 Executor
+	 * 
+	 * @param executor 重试时使用的 Executor，为 null 时使用公共线程池
+	 */
+	public void register(String listenerName, MethodListenerInvoker invoker, Executor executor) {
+		register(listenerName, invoker, executor, false);
+	}
+
+	/**
+	 * 登记监听方法
+	 * 
+	 * @param executor           重试时使用的 Executor，为 null 时使用公共线程池
+	 * @param methodAcknowledges 方法是否通过 Acknowledgment 参数自行确认，为 true 时重试成功后不由框架确认
+	 */
+	public void register(String listenerName, MethodListenerInvoker invoker, Executor executor, boolean methodAcknowledges) {
+		endpoints.put(listenerName, new Endpoint(invoker, executor != null ? executor : ForkJoinPool.commonPool(), methodAcknowledges));
+	}
+
+	/**
+	 * 处理监听方法的一次失败，消息首次执行失败时调用
+	 */
+	public void onFailure(String listenerName, String topic, MqttMessage message, Exception error) {
+		onFailure(listenerName, topic, message, error, Acknowledgment.NOOP);
+	}
+
+	/**
+	 * 处理手动确认消息的一次失败，重试成功或转入死信后确认
+	 */
+	public void onFailure(String listenerName, String topic, MqttMessage message, Exception error, Acknowledgment acknowledgment) {
+		Endpoint endpoint = endpoints.get(listenerName);
+		if (endpoint == null) {
+			deadLetter(listenerName, topic, message, 1, error, acknowledgment);
+			return;
+		}
+		scheduleRetry(endpoint, listenerName, topic, message, 1, System.currentTimeMillis(), error, acknowledgment);
+	}
+
+	/**
+	 * 按重试策略安排下一次执行，不能重试时转入死信
+	 */
+	private void scheduleRetry(Endpoint endpoint, String listenerName, String topic, MqttMessage message, int attemptCount, long firstAttemptTime, Exception error, Acknowledgment acknowledgment) {
+		RetryContext context = new RetryContext(attemptCount, firstAttemptTime, error, topic);
+		if (retryPolicy == null || !retryPolicy.canRetry(context)) {
+			deadLetter(listenerName, topic, message, attemptCount, error, acknowledgment);
+			return;
+		}
+
+		long waitTime = retryPolicy.getNextRetryInterval(context);
+		retryPolicy.beforeRetry(context);
+		retriedCount.incrementAndGet();
+
+		Runnable shutdown = () -> deadLetter(listenerName, topic, message, attemptCount, error, acknowledgment);
+		try {
+			// 定时器只负责转交，Executor 已满时稍后重新提交，不在定时器线程上执行监听方法或等待队列空位
+			RetryTemplate.getScheduler().schedule(() -> TimerHandoff.submit(endpoint.executor, () -> attempt(endpoint, listenerName, topic, message, attemptCount + 1, firstAttemptTime, acknowledgment), shutdown), waitTime, TimeUnit.MILLISECONDS);
+		} catch (RejectedExecutionException rejected) {
+			shutdown.run();
+		}
+	}
+
+	/**
+	 * 重新执行监听方法，方法返回 CompletionStage 时以其结果判断成功与否；原消息的确认句柄传给方法的 Acknowledgment 参数
+	 */
+	private void attempt(Endpoint endpoint, String listenerName, String topic, MqttMessage message, int attemptCount, long firstAttemptTime, Acknowledgment acknowledgment) {
+		Object result;
+		try {
+			result = endpoint.invoker.invoke(topic, message, acknowledgment);
+		} catch (Exception e) {
+			attemptFailed(endpoint, listenerName, topic, message, attemptCount, firstAttemptTime, e, acknowledgment);
+			return;
+		}
+		if (result instanceof CompletionStage) {
+			((CompletionStage<?>) result).whenComplete((value, error) -> {
+				if (error == null) {
+					acknowledgeIfNeeded(endpoint, acknowledgment);
+				} else {
+					attemptFailed(endpoint, listenerName, topic, message, attemptCount, firstAttemptTime, toException(error), acknowledgment);
+				}
+			});
+		} else {
+			acknowledgeIfNeeded(endpoint, acknowledgment);
+		}
+	}
+
+	/**
+	 * 重试成功后确认，自行确认的方法由方法决定何时确认
+	 */
+	private static void acknowledgeIfNeeded(Endpoint endpoint, Acknowledgment acknowledgment) {
+		if (!endpoint.methodAcknowledges) {
+			acknowledgment.acknowledge();
+		}
+	}
+
+	private void attemptFailed(Endpoint endpoint, String listenerName, String topic, MqttMessage message, int attemptCount, long firstAttemptTime, Exception error, Acknowledgment acknowledgment) {
+		logger.error("Retry attempt {} failed for MQTT message on topic: {}", attemptCount, topic, error);
+		scheduleRetry(endpoint, listenerName, topic, message, attemptCount, firstAttemptTime, error, acknowledgment);
+	}
+
+	/**
+	 * 取出异步失败的原始异常
+	 */
+	static Exception toException(Throwable error) {
+		Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+		return cause instanceof Exception ? (Exception) cause : new IllegalStateException(cause);
+	}
+
+	/**
+	 * 将重试耗尽的消息交给死信接收器，之后确认消息
+	 */
+	private void deadLetter(String listenerName, String topic, MqttMessage message, int attempts, Exception error, Acknowledgment acknowledgment) {
+		try {
+			deadLetter(listenerName, topic, message, attempts, error);
+		} finally {
+			acknowledgment.acknowledge();
+		}
+	}
+
+	private void deadLetter(String listenerName, String topic, MqttMessage message, int attempts, Exception error) {
+		if (deadLetterSink == null) {
+			lostCount.incrementAndGet();
+			logger.warn("Message processing failed for topic: {} after {} attempts, listener: {}, payload size: {}", topic, attempts, listenerName, message.getPayload().length);
+			return;
+		}
+		try {
+			deadLetterSink.send(new DeadLetterMessage(listenerName, topic, message, attempts, String.valueOf(error), System.currentTimeMillis()));
+			deadLetterCount.incrementAndGet();
+			logger.warn("Message for topic: {} moved to dead letter after {} attempts, listener: {}", topic, attempts, listenerName);
+		} catch (Exception e) {
+			lostCount.incrementAndGet();
+			logger.error("Failed to store dead letter for topic: {}, listener: {}", topic, listenerName, e);
+		}
+	}
+
+	/**
+	 * 设置 {@link #replayDeadLetters()} 使用的重放速率（条/秒）
+	 */
+	public void setReplayRate(double replayRate) {
+		this.replayRate = replayRate;
+	}
+
+	/**
+	 * 以配置的速率重放死信
+	 * 
+	 * @return 重放完成时以重放条数完成的 Future
+	 */
+	public CompletableFuture<Long> replayDeadLetters() {
+		return replayDeadLetters(replayRate);
+	}
+
+	/**
+	 * 以指定速率重放死信，交还给原监听方法执行，再次失败的消息重新进入重试流程
+	 * 
+	 * @return 重放完成时以重放条数完成的 Future
+	 */
+	public CompletableFuture<Long> replayDeadLetters(double messagesPerSecond) {
+		if (deadLetterSink == null) {
+			throw new IllegalStateException("No MQTT dead letter sink configured");
+		}
+		return deadLetterSink.replay(messagesPerSecond, letter -> {
+			Endpoint endpoint = endpoints.get(letter.getListenerName());
+			if (endpoint == null) {
+				logger.warn("Discarding dead letter for unknown listener: {}, topic: {}", letter.getListenerName(), letter.getTopic());
+				lostCount.incrementAndGet();
+				return;
+			}
+			// 重放在定时器线程上进行，Executor 已满时抛出 RejectedExecutionException，死信保留到下一轮重放
+			TimerHandoff.execute(endpoint.executor, () -> attempt(endpoint, letter.getListenerName(), letter.getTopic(), letter.getMessage(), 1, System.currentTimeMillis(), Acknowledgment.NOOP));
+		});
+	}
+
+	public DeadLetterSink getDeadLetterSink() {
+		return deadLetterSink;
+	}
+
+	/**
+	 * 安排的重试次数
+	 */
+	public long getRetriedCount() {
+		return retriedCount.get();
+	}
+
+	/**
+	 * 进入死信的消息数
+	 */
+	public long getDeadLetterCount() {
+		return deadLetterCount.get();
+	}
+
+	/**
+	 * 未配置死信接收器或保存失败而丢失的消息数
+	 */
+	public long getLostCount() {
+		return lostCount.get();
+	}
+
+	private static class Endpoint {
+		private final MethodListenerInvoker invoker;
+		private final Executor executor;
+		private final boolean methodAcknowledges;
+
+		Endpoint(MethodListenerInvoker invoker, Executor executor, boolean methodAcknowledges) {
+			this.invoker = invoker;
+			this.executor = executor;
+			this.methodAcknowledges = methodAcknowledges;
+		}
+	}
+}
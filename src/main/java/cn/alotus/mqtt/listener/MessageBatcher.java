@@ -0,0 +1,194 @@
+package cn.alotus.mqtt.listener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+import org.eclipse.paho.client.mqttv3.MqttMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import cn.alotus.mqtt.codec.MqttPayloadCodecs;
+import cn.alotus.mqtt.core.Acknowledgment;
+import cn.alotus.mqtt.core.MqttMessageContext;
+import cn.alotus.mqtt.retry.RetryTemplate;
+
+/**
+ * 消息批处理缓冲区，累积到指定条数或等待超时后将一批消息交给处理函数
+ * <p>
+ * 消息写入无锁队列，同一时刻只有一个批次在处理，批次之间保持到达顺序。积压超过 {@link #MAX_PENDING_BATCHES} 个批次时， 写入线程短暂等待以形成背压。
+ * 超时刷新由共享定时器触发，但批处理函数不会在定时器线程上执行：在调用线程上执行的 Executor 改由共享工作线程池执行超时批次
+ * 
+ * @author alotuser
+ * @since 2026/10/16
+ */
+public class MessageBatcher {
+
+	private static final Logger logger = LoggerFactory.getLogger(MessageBatcher.class);
+
+	/**
+	 * 允许积压的最大批次数
+	 */
+	public static final int MAX_PENDING_BATCHES = 8;
+
+	private final String name;
+	private final int batchSize;
+	private final long timeoutNanos;
+	private final Executor executor;
+	private final Consumer<List<MqttMessageContext>> handler;
+	private final MqttPayloadCodecs payloadCodecs;
+	private final Queue<MqttMessageContext> queue = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger size = new AtomicInteger();
+	private final AtomicBoolean flushing = new AtomicBoolean();
+	private final ScheduledFuture<?> timeoutTask;
+	private volatile long batchStart;
+	private volatile boolean closed;
+
+	/**
+	 * @param name      批处理名称，用于日志
+	 * @param batchSize 每批最大条数
+	 * @param timeoutMs 批次从第一条消息起的最长等待时间（毫秒）
+	 * @param executor  执行处理函数的 Executor
+	 * @param handler   批处理函数
+	 */
+	public MessageBatcher(String name, int batchSize, long timeoutMs, Executor executor, Consumer<List<MqttMessageContext>> handler) {
+		this(name, batchSize, timeoutMs, executor, null, handler);
+	}
+
+	/**
+	 * @param payloadCodecs 消息上下文使用的负载编解码器，可为 null
+	 */
+	public MessageBatcher(String name, int batchSize, long timeoutMs, Executor executor, MqttPayloadCodecs payloadCodecs, Consumer<List<MqttMessageContext>> handler) {
+		this.payloadCodecs = payloadCodecs;
+		this.name = name;
+		this.batchSize = batchSize;
+		this.timeoutNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, timeoutMs));
+		this.executor = executor;
+		this.handler = handler;
+
+		long tick = Math.max(10, timeoutMs / 4);
+		this.timeoutTask = RetryTemplate.getScheduler().scheduleWithFixedDelay(this::flushIfDue, tick, tick, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * 写入一条消息，攒满一批时触发处理
+	 */
+	public void offer(String topic, MqttMessage message) {
+		offer(topic, message, Acknowledgment.NOOP);
+	}
+
+	/**
+	 * 写入一条手动确认的消息，确认句柄随消息上下文交给批处理函数
+	 */
+	public void offer(String topic, MqttMessage message, Acknowledgment acknowledgment) {
+		while (size.get() >= batchSize * MAX_PENDING_BATCHES && !closed) {
+			LockSupport.parkNanos(1_000_000L);
+		}
+
+		queue.offer(new MqttMessageContext(topic, message, acknowledgment, payloadCodecs));
+		int current = size.incrementAndGet();
+		if (current == 1) {
+			batchStart = System.nanoTime();
+		}
+		if (current >= batchSize) {
+			scheduleFlush();
+		}
+	}
+
+	/**
+	 * 在共享定时器线程上检查超时，只负责不阻塞地转交刷新任务，Executor 已满时稍后重新转交
+	 */
+	private void flushIfDue() {
+		if (size.get() > 0 && System.nanoTime() - batchStart >= timeoutNanos && flushing.compareAndSet(false, true)) {
+			TimerHandoff.submit(executor, this::flush, () -> {
+				flushing.set(false);
+				logger.warn("MQTT batch executor for {} has been shut down, {} messages left for close", name, size.get());
+			});
+		}
+	}
+
+	private void scheduleFlush() {
+		if (flushing.compareAndSet(false, true)) {
+			try {
+				executor.execute(this::flush);
+			} catch (Exception e) {
+				flushing.set(false);
+				logger.error("Failed to schedule MQTT batch for {}", name, e);
+			}
+		}
+	}
+
+	/**
+	 * 处理队列中的消息，每批最多 batchSize 条，剩余消息满一批时继续处理
+	 */
+	private void flush() {
+		try {
+			do {
+				List<MqttMessageContext> batch = drain();
+				if (batch.isEmpty()) {
+					break;
+				}
+				try {
+					handler.accept(batch);
+				} catch (Exception e) {
+					logger.error("Error handling MQTT batch of {} messages for {}", batch.size(), name, e);
+				}
+			} while (size.get() >= batchSize);
+		} finally {
+			flushing.set(false);
+		}
+
+		// 处理期间攒满的批次在释放标志后补充调度
+		if (size.get() >= batchSize) {
+			scheduleFlush();
+		}
+	}
+
+	private List<MqttMessageContext> drain() {
+		List<MqttMessageContext> batch = new ArrayList<>(Math.min(batchSize, Math.max(1, size.get())));
+		MqttMessageContext context;
+		while (batch.size() < batchSize && (context = queue.poll()) != null) {
+			batch.add(context);
+		}
+		if (size.addAndGet(-batch.size()) > 0) {
+			batchStart = System.nanoTime();
+		}
+		return batch;
+	}
+
+	/**
+	 * 停止超时检查并同步处理剩余消息
+	 */
+	public void close() {
+		closed = true;
+		timeoutTask.cancel(false);
+		while (!flushing.compareAndSet(false, true)) {
+			LockSupport.parkNanos(1_000_000L);
+		}
+		try {
+			List<MqttMessageContext> batch;
+			while (!(batch = drain()).isEmpty()) {
+				handler.accept(batch);
+			}
+		} catch (Exception e) {
+			logger.error("Error flushing MQTT batch for {} on close", name, e);
+		} finally {
+			flushing.set(false);
+		}
+	}
+
+	/**
+	 * 当前等待处理的消息数
+	 */
+	public int getPendingCount() {
+		return size.get();
+	}
+}
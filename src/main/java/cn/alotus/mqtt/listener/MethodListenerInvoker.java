@@ -0,0 +1,112 @@
+package cn.alotus.mqtt.listener;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+
+import org.eclipse.paho.client.mqttv3.MqttMessage;
+
+import cn.alotus.mqtt.core.Acknowledgment;
+
+/**
+ * 预编译的监听方法调用器
+ * <p>
+ * 注册时将目标方法转换为绑定了 Bean 的 MethodHandle，并统一适配为 Object 参数和返回值的签名，消息到达时按参数个数选择
+ * invokeExact 调用，不再进行反射查找、访问检查和参数数组分配。参数个数超过 {@link #MAX_EXACT_ARITY} 时使用展开参数数组的调用方式
+ * 
+ * @author alotuser
+ * @since 2026/10/16
+ */
+public final class MethodListenerInvoker {
+
+	/**
+	 * 使用 invokeExact 直接调用的最大参数个数
+	 */
+	public static final int MAX_EXACT_ARITY = 4;
+
+	private final MethodHandle handle;
+	private final ArgumentResolver[] resolvers;
+	private final Method method;
+
+	public MethodListenerInvoker(Object bean, Method method, ArgumentResolver[] resolvers) {
+		this.method = method;
+		this.resolvers = resolvers.clone();
+		try {
+			method.setAccessible(true);
+			MethodHandle bound = MethodHandles.lookup().unreflect(method).bindTo(bean);
+			if (resolvers.length <= MAX_EXACT_ARITY) {
+				this.handle = bound.asType(MethodType.genericMethodType(resolvers.length));
+			} else {
+				this.handle = bound.asType(MethodType.genericMethodType(resolvers.length)).asSpreader(Object[].class, resolvers.length);
+			}
+		} catch (IllegalAccessException e) {
+			throw new IllegalStateException("Cannot access listener method " + method, e);
+		}
+	}
+
+	/**
+	 * 解析参数并调用目标方法
+	 * 
+	 * @return 目标方法的返回值
+	 * @throws Exception 目标方法抛出的异常原样抛出
+	 */
+	public Object invoke(String topic, MqttMessage message) throws Exception {
+		return invoke(topic, message, Acknowledgment.NOOP);
+	}
+
+	/**
+	 * 解析参数并调用目标方法，确认句柄传给 Acknowledgment 类型的参数
+	 * 
+	 * @return 目标方法的返回值
+	 * @throws Exception 目标方法抛出的异常原样抛出
+	 */
+	public Object invoke(String topic, MqttMessage message, Acknowledgment acknowledgment) throws Exception {
+		try {
+			switch (resolvers.length) {
+			case 0:
+				return (Object) handle.invokeExact();
+			case 1:
+				return (Object) handle.invokeExact(resolvers[0].resolve(topic, message, acknowledgment));
+			case 2:
+				return (Object) handle.invokeExact(resolvers[0].resolve(topic, message, acknowledgment), resolvers[1].resolve(topic, message, acknowledgment));
+			case 3:
+				return (Object) handle.invokeExact(resolvers[0].resolve(topic, message, acknowledgment), resolvers[1].resolve(topic, message, acknowledgment), resolvers[2].resolve(topic, message, acknowledgment));
+			case 4:
+				return (Object) handle.invokeExact(resolvers[0].resolve(topic, message, acknowledgment), resolvers[1].resolve(topic, message, acknowledgment), resolvers[2].resolve(topic, message, acknowledgment), resolvers[3].resolve(topic, message, acknowledgment));
+			default:
+				Object[] args = new Object[resolvers.length];
+				for (int i = 0; i < args.length; i++) {
+					args[i] = resolvers[i].resolve(topic, message, acknowledgment);
+				}
+				return (Object) handle.invokeExact(args);
+			}
+		} catch (Exception | Error e) {
+			throw e;
+		} catch (Throwable t) {
+			throw new IllegalStateException("Listener method " + method.getName() + " failed", t);
+		}
+	}
+
+	/**
+	 * 以已解析好的参数调用单参数的目标方法，用于批处理等由调用方自行组装参数的场景
+	 * 
+	 * @throws Exception 目标方法抛出的异常原样抛出
+	 */
+	public Object invokeWithArgument(Object argument) throws Exception {
+		if (resolvers.length != 1) {
+			throw new IllegalStateException("Listener method " + method.getName() + " does not take exactly one parameter");
+		}
+		try {
+			return (Object) handle.invokeExact(argument);
+		} catch (Exception | Error e) {
+			throw e;
+		} catch (Throwable t) {
+			throw new IllegalStateException("Listener method " + method.getName() + " failed", t);
+		}
+	}
+
+	public Method getMethod() {
+		return method;
+	}
+}
@@ -0,0 +1,163 @@
+package cn.alotus.mqtt.listener;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.MethodIntrospector;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.util.ClassUtils;
+
+import cn.alotus.mqtt.annotation.MqttTopic;
+import cn.alotus.mqtt.index.MqttListenerIndex;
+
+/**
+ * 在 Bean 初始化完成后查找 @MqttTopic 方法，不主动创建 Bean，延迟初始化的 Bean 在首次使用时才被检查
+ * <p>
+ * 每个类只检查一次，结果按类缓存，不含监听方法的类同样缓存，同一类的多个 Bean 不重复反射。
+ * 类路径中存在 {@link MqttListenerIndex} 时按索引直接定位方法，不再遍历类的方法。
+ * 容器启动完成前发现的方法先暂存，由 {@link MqttMessageListenerProcessor} 统一注册，之后发现的方法立即注册
+ * 
+ * @author alotuser
+ * @since 2026/10/16
+ */
+public class MqttListenerAnnotationBeanPostProcessor implements BeanPostProcessor, BeanFactoryAware, Ordered {
+
+	private static final Logger logger = LoggerFactory.getLogger(MqttListenerAnnotationBeanPostProcessor.class);
+
+	private final MqttListenerIndex index;
+	private final Map<Class<?>, Map<Method, MqttTopic>> metadataCache = new ConcurrentHashMap<>(256);
+	private final List<MqttListenerEndpoint> pending = new ArrayList<>();
+	private Consumer<MqttListenerEndpoint> registrar;
+	private BeanFactory beanFactory;
+
+	public MqttListenerAnnotationBeanPostProcessor() {
+		this(true);
+	}
+
+	/**
+	 * @param useIndex 是否使用类路径中的监听器索引
+	 */
+	public MqttListenerAnnotationBeanPostProcessor(boolean useIndex) {
+		this.index = useIndex ? MqttListenerIndex.load(ClassUtils.getDefaultClassLoader()) : null;
+	}
+
+	@Override
+	public void setBeanFactory(BeanFactory beanFactory) {
+		this.beanFactory = beanFactory;
+	}
+
+	@Override
+	public int getOrder() {
+		// 在代理创建之后执行，拿到最终暴露的 Bean
+		return Ordered.LOWEST_PRECEDENCE;
+	}
+
+	@Override
+	public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+		Class<?> targetClass = AopProxyUtils.ultimateTargetClass(bean);
+		Map<Method, MqttTopic> methods = metadataCache.computeIfAbsent(targetClass, this::findListenerMethods);
+		if (methods.isEmpty()) {
+			return bean;
+		}
+		if (beanFactory != null && beanFactory.containsBean(beanName) && !beanFactory.isSingleton(beanName)) {
+			logger.warn("Ignoring @MqttTopic methods on non-singleton bean: {}", beanName);
+			return bean;
+		}
+
+		for (Map.Entry<Method, MqttTopic> entry : methods.entrySet()) {
+			Method method = AopUtils.selectInvocableMethod(entry.getKey(), bean.getClass());
+			register(new MqttListenerEndpoint(bean, beanName, method, entry.getValue()));
+		}
+		return bean;
+	}
+
+	/**
+	 * 查找类中的监听方法
+	 */
+	private Map<Method, MqttTopic> findListenerMethods(Class<?> targetClass) {
+		if (index != null) {
+			return findIndexedMethods(targetClass);
+		}
+		if (!AnnotationUtils.isCandidateClass(targetClass, MqttTopic.class)) {
+			return Collections.emptyMap();
+		}
+		Map<Method, MqttTopic> methods = MethodIntrospector.selectMethods(targetClass, (MethodIntrospector.MetadataLookup<MqttTopic>) method -> AnnotatedElementUtils.findMergedAnnotation(method, MqttTopic.class));
+		return methods.isEmpty() ? Collections.emptyMap() : methods;
+	}
+
+	/**
+	 * 按索引定位类及其父类中的监听方法
+	 */
+	private Map<Method, MqttTopic> findIndexedMethods(Class<?> targetClass) {
+		Map<Method, MqttTopic> methods = null;
+		for (Class<?> current = targetClass; current != null && current != Object.class; current = current.getSuperclass()) {
+			for (MqttListenerIndex.MethodEntry entry : index.getMethods(current.getName())) {
+				try {
+					String[] typeNames = entry.getParameterTypes();
+					Class<?>[] parameterTypes = new Class<?>[typeNames.length];
+					for (int i = 0; i < typeNames.length; i++) {
+						parameterTypes[i] = ClassUtils.forName(typeNames[i], current.getClassLoader());
+					}
+					Method method = current.getDeclaredMethod(entry.getMethodName(), parameterTypes);
+					MqttTopic annotation = AnnotatedElementUtils.findMergedAnnotation(method, MqttTopic.class);
+					if (annotation != null) {
+						if (methods == null) {
+							methods = new LinkedHashMap<>();
+						}
+						methods.put(method, annotation);
+					}
+				} catch (ClassNotFoundException | NoSuchMethodException | LinkageError e) {
+					logger.warn("Stale MQTT listener index entry: {}#{}", entry.getClassName(), entry.getMethodName(), e);
+				}
+			}
+		}
+		return methods != null ? methods : Collections.emptyMap();
+	}
+
+	private synchronized void register(MqttListenerEndpoint endpoint) {
+		if (registrar == null) {
+			pending.add(endpoint);
+		} else {
+			registrar.accept(endpoint);
+		}
+	}
+
+	/**
+	 * 交出暂存的监听方法，之后发现的监听方法直接交给 registrar
+	 * 
+	 * @return 暂存的监听方法数
+	 */
+	public synchronized int drainTo(Consumer<MqttListenerEndpoint> registrar) {
+		int count = pending.size();
+		for (MqttListenerEndpoint endpoint : pending) {
+			registrar.accept(endpoint);
+		}
+		pending.clear();
+		this.registrar = registrar;
+		logger.debug("Inspected {} classes for MQTT listeners, index: {}", metadataCache.size(), index != null);
+		return count;
+	}
+
+	/**
+	 * 是否使用了监听器索引
+	 */
+	public boolean isIndexed() {
+		return index != null;
+	}
+}
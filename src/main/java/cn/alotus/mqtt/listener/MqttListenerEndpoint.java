@@ -0,0 +1,42 @@
+package cn.alotus.mqtt.listener;
+
+import java.lang.reflect.Method;
+
+import cn.alotus.mqtt.annotation.MqttTopic;
+
+/**
+ * 发现的监听方法，包含所属 Bean、可调用的方法和注解
+ * 
+ * @author alotuser
+ * @since 2026/10/16
+ */
+public class MqttListenerEndpoint {
+
+	private final Object bean;
+	private final String beanName;
+	private final Method method;
+	private final MqttTopic annotation;
+
+	public MqttListenerEndpoint(Object bean, String beanName, Method method, MqttTopic annotation) {
+		this.bean = bean;
+		this.beanName = beanName;
+		this.method = method;
+		this.annotation = annotation;
+	}
+
+	public Object getBean() {
+		return bean;
+	}
+
+	public String getBeanName() {
+		return beanName;
+	}
+
+	public Method getMethod() {
+		return method;
+	}
+
+	public MqttTopic getAnnotation() {
+		return annotation;
+	}
+}
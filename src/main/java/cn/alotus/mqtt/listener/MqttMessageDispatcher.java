@@ -0,0 +1,232 @@
+package cn.alotus.mqtt.listener;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.BeanFactory;
+
+import cn.alotus.mqtt.annotation.MqttTopic;
+import cn.alotus.mqtt.config.MqttProperties;
+import cn.alotus.mqtt.config.MqttProperties.Executor.OverflowPolicy;
+import cn.alotus.mqtt.support.VirtualThreads;
+
+/**
+ * 消息分发器，将监听方法的执行从 Paho 回调线程转移到有界线程池，回调线程只负责入队
+ * <p>
+ * 队列已满时默认由回调线程直接执行（CallerRunsPolicy），对 Broker 形成背压而不是丢弃消息，也可以配置为阻塞回调线程、丢弃最旧或最新的消息、
+ * 或写入磁盘后再恢复，见 {@link OverflowPolicy}。 每个监听方法可以通过 {@link MqttTopic#concurrency()}
+ * 使用独立线程池，或通过 {@link MqttTopic#executor()} 指定容器中的 Executor。
+ * 在 JDK 21 及以上启用虚拟线程时，全局分发改为每条消息一个虚拟线程，同时执行的消息数不超过最大线程数与队列容量之和，超出时按溢出策略处理
+ * 
+ * @author alotuser
+ * @since 2026/10/16
+ */
+public class MqttMessageDispatcher {
+
+	private static final Logger logger = LoggerFactory.getLogger(MqttMessageDispatcher.class);
+
+	/**
+	 * 在调用线程上直接执行
+	 */
+	private static final Executor DIRECT = Runnable::run;
+
+	private final MqttProperties.Executor config;
+	private final ExecutorService sharedExecutor;
+	private final List<ThreadPoolExecutor> ownedExecutors = new CopyOnWriteArrayList<>();
+	private final List<StripedExecutor> stripedExecutors = new CopyOnWriteArrayList<>();
+	private final InboundSpillBuffer spillBuffer;
+	private final InboundOverflowHandler overflowHandler;
+	private final InboundOverflowHandler orderedOverflowHandler;
+
+	public MqttMessageDispatcher(MqttProperties.Executor config) {
+		this.config = config;
+		OverflowPolicy policy = config.getOverflowPolicy();
+		if (config.isEnabled() && config.isVirtualThreads() && (policy == OverflowPolicy.DROP_OLDEST || policy == OverflowPolicy.SPILL)) {
+			// 虚拟线程分发没有等待队列，无法丢弃最旧的消息或从磁盘恢复
+			throw new IllegalStateException(MqttProperties.PREFIX + ".executor.overflow-policy=" + policy + " is not supported with " + MqttProperties.PREFIX + ".executor.virtual-threads=true, use CALLER_RUNS, BLOCK or DROP_NEWEST");
+		}
+		this.spillBuffer = policy == OverflowPolicy.SPILL ? new InboundSpillBuffer(config) : null;
+		this.overflowHandler = new InboundOverflowHandler(policy, spillBuffer);
+		// 顺序通道不能在回调线程上执行或经磁盘绕行，这两种策略改为阻塞
+		this.orderedOverflowHandler = policy == OverflowPolicy.CALLER_RUNS || policy == OverflowPolicy.SPILL ? new InboundOverflowHandler(OverflowPolicy.BLOCK, null) : new InboundOverflowHandler(policy, null);
+		this.sharedExecutor = config.isEnabled() ? createSharedExecutor() : null;
+	}
+
+	private ExecutorService createSharedExecutor() {
+		if (config.isVirtualThreads()) {
+			if (VirtualThreads.isSupported()) {
+				// 并发上限与线程池的在途消息上限一致：最大线程数加队列容量
+				int maxConcurrency = config.getMaxPoolSize() + config.getQueueCapacity();
+				logger.info("MQTT message dispatch uses virtual threads, max concurrency: {}", maxConcurrency);
+				return new BoundedDispatchExecutor(VirtualThreads.newVirtualThreadPerTaskExecutor("mqtt-dispatch"), maxConcurrency, overflowHandler);
+			}
+			logger.warn("Virtual threads require JDK 21 or later, falling back to platform thread pool for MQTT dispatch");
+		}
+		return createExecutor("mqtt-dispatch", config.getCorePoolSize(), config.getMaxPoolSize());
+	}
+
+	/**
+	 * 按注解配置确定监听方法使用的 Executor
+	 * 
+	 * @param annotation  方法上的主题注解
+	 * @param name        监听方法名称，用于命名独立线程池的线程
+	 * @param beanFactory 用于查找指定名称的 Executor
+	 */
+	public Executor resolveExecutor(MqttTopic annotation, String name, BeanFactory beanFactory) {
+		if (!annotation.executor().isEmpty()) {
+			return beanFactory.getBean(annotation.executor(), Executor.class);
+		}
+		if (annotation.concurrency() == 0) {
+			return DIRECT;
+		}
+		if (annotation.concurrency() > 0) {
+			ThreadPoolExecutor executor = createExecutor("mqtt-dispatch-" + name, annotation.concurrency(), annotation.concurrency());
+			ownedExecutors.add(executor);
+			return executor;
+		}
+		return sharedExecutor != null ? sharedExecutor : DIRECT;
+	}
+
+	/**
+	 * 为按顺序键分发的监听方法创建分段执行器
+	 * 
+	 * @param name  监听方法名称，用于命名通道线程
+	 * @param lanes 通道数，0 表示使用 CPU 核数
+	 */
+	public StripedExecutor createStripedExecutor(String name, int lanes) {
+		int laneCount = lanes > 0 ? lanes : Runtime.getRuntime().availableProcessors();
+		StripedExecutor executor = new StripedExecutor("mqtt-dispatch-" + name, laneCount, config.getQueueCapacity(), orderedOverflowHandler);
+		stripedExecutors.add(executor);
+		return executor;
+	}
+
+	private ThreadPoolExecutor createExecutor(String prefix, int coreSize, int maxSize) {
+		AtomicInteger counter = new AtomicInteger();
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(coreSize, Math.max(coreSize, maxSize), config.getKeepAlive(), TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(Math.max(1, config.getQueueCapacity())), r -> {
+			Thread t = new Thread(r, prefix + "-" + counter.incrementAndGet());
+			t.setDaemon(true);
+			return t;
+		}, overflowHandler);
+		return executor;
+	}
+
+	/**
+	 * 登记监听方法使用的 Executor 和处理函数，SPILL 策略下写入磁盘的消息据此恢复执行
+	 */
+	public void registerListener(String name, Executor executor, InboundMessageHandler handler) {
+		if (spillBuffer != null && executor instanceof ThreadPoolExecutor) {
+			spillBuffer.register(name, (ThreadPoolExecutor) executor, handler);
+		}
+	}
+
+	/**
+	 * 所有监听方法登记完成后调用，开始恢复磁盘中的消息
+	 */
+	public void start() {
+		if (spillBuffer != null) {
+			spillBuffer.start();
+		}
+	}
+
+	/**
+	 * 所有分发队列中等待执行的消息数，不包括虚拟线程和容器中指定的 Executor
+	 */
+	public int getQueueDepth() {
+		int depth = sharedExecutor instanceof ThreadPoolExecutor ? ((ThreadPoolExecutor) sharedExecutor).getQueue().size() : 0;
+		for (ThreadPoolExecutor executor : ownedExecutors) {
+			depth += executor.getQueue().size();
+		}
+		for (StripedExecutor executor : stripedExecutors) {
+			depth += executor.getQueueDepth();
+		}
+		return depth;
+	}
+
+	/**
+	 * 因队列已满被丢弃的消息数
+	 */
+	public long getDroppedCount() {
+		return overflowHandler.getDroppedCount() + orderedOverflowHandler.getDroppedCount();
+	}
+
+	/**
+	 * 因队列已满写入磁盘的消息数
+	 */
+	public long getSpilledCount() {
+		return overflowHandler.getSpilledCount();
+	}
+
+	/**
+	 * 回调线程因队列已满而阻塞的次数
+	 */
+	public long getBlockedCount() {
+		return overflowHandler.getBlockedCount() + orderedOverflowHandler.getBlockedCount();
+	}
+
+	/**
+	 * 磁盘中待恢复的数据字节数，未启用 SPILL 策略时为 0
+	 */
+	public long getSpillPendingBytes() {
+		return spillBuffer != null ? spillBuffer.getPendingBytes() : 0;
+	}
+
+	/**
+	 * 判断 Executor 是否在调用线程上直接执行任务
+	 */
+	public static boolean isDirect(Executor executor) {
+		return executor == DIRECT;
+	}
+
+	/**
+	 * 全局分发线程池，未启用时返回 null
+	 */
+	public ExecutorService getSharedExecutor() {
+		return sharedExecutor;
+	}
+
+	@PreDestroy
+	public void destroy() {
+		if (sharedExecutor != null) {
+			shutdown(sharedExecutor);
+		}
+		for (ThreadPoolExecutor executor : ownedExecutors) {
+			shutdown(executor);
+		}
+		for (StripedExecutor executor : stripedExecutors) {
+			executor.shutdown();
+			try {
+				if (!executor.awaitTermination(3, TimeUnit.SECONDS)) {
+					executor.shutdownNow();
+				}
+			} catch (InterruptedException e) {
+				executor.shutdownNow();
+				Thread.currentThread().interrupt();
+			}
+		}
+		if (spillBuffer != null) {
+			spillBuffer.close();
+		}
+	}
+
+	private void shutdown(ExecutorService executor) {
+		executor.shutdown();
+		try {
+			if (!executor.awaitTermination(3, TimeUnit.SECONDS)) {
+				logger.warn("MQTT dispatch executor did not terminate in time, {} tasks dropped", executor.shutdownNow().size());
+			}
+		} catch (InterruptedException e) {
+			executor.shutdownNow();
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -1,12 +1,22 @@
 package cn.alotus.mqtt.listener;
 
-import java.io.IOException;
 import java.lang.reflect.Method;
-import java.nio.charset.StandardCharsets;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import javax.annotation.PreDestroy;
 
 import org.eclipse.paho.client.mqttv3.IMqttMessageListener;
 import org.eclipse.paho.client.mqttv3.MqttMessage;
@@ -15,18 +25,23 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.SmartInitializingSingleton;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
-import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
-import org.springframework.core.type.classreading.MetadataReader;
-import org.springframework.core.type.classreading.MetadataReaderFactory;
-import org.springframework.core.type.filter.AnnotationTypeFilter;
 import org.springframework.stereotype.Component;
 
+import cn.alotus.mqtt.annotation.AckMode;
 import cn.alotus.mqtt.annotation.MqttTopic;
+import cn.alotus.mqtt.codec.MqttPayloadCodec;
+import cn.alotus.mqtt.codec.MqttPayloadCodecs;
+import cn.alotus.mqtt.compress.CompressionPolicy;
+import cn.alotus.mqtt.config.MqttProperties;
+import cn.alotus.mqtt.core.Acknowledgment;
+import cn.alotus.mqtt.core.MqttAckTracker;
 import cn.alotus.mqtt.core.MqttMessageContext;
 import cn.alotus.mqtt.core.SubscriptionManager;
+import cn.alotus.mqtt.dedup.DeduplicationCache;
+import cn.alotus.mqtt.dedup.MqttMessageIdExtractor;
 
 /**
- * MQTT 消息监听器处理器，负责扫描 Spring 容器中的 Bean，查找使用 @MqttTopic 注解的方法， 并为这些方法注册 MQTT 主题订阅和消息监听器
+ * MQTT 消息监听器处理器，为 {@link MqttListenerAnnotationBeanPostProcessor} 发现的 @MqttTopic 方法注册 MQTT 主题订阅和消息监听器
  * 
  * @author alotuser
  * @since 2025/5/10
@@ -39,6 +54,15 @@ public class MqttMessageListenerProcessor implements ApplicationContextAware, Sm
 
 	private final SubscriptionManager subscriptionManager;
 	private ApplicationContext applicationContext;
+	private MqttPayloadCodecs payloadCodecs;
+	private CompressionPolicy compressionPolicy;
+	private MqttMessageDispatcher dispatcher;
+	private ListenerRetryHandler retryHandler;
+	private MqttListenerAnnotationBeanPostProcessor annotationBeanPostProcessor;
+	private MqttProperties.Deduplication deduplication = new MqttProperties.Deduplication();
+	private final Map<String, DeduplicationCache> deduplicationCaches = new ConcurrentHashMap<>();
+	private final Map<String, MqttMessageIdExtractor> idExtractors = new ConcurrentHashMap<>();
+	private final List<MessageBatcher> batchers = new CopyOnWriteArrayList<>();
 	
 	public MqttMessageListenerProcessor(SubscriptionManager subscriptionManager) {
 	      this.subscriptionManager = subscriptionManager;
@@ -46,6 +70,57 @@ public class MqttMessageListenerProcessor implements ApplicationContextAware, Sm
 	  
 
 
+	/**
+	 * 设置负载编解码器，用于将消息负载转换为监听方法的对象参数
+	 */
+	public void setPayloadCodecs(MqttPayloadCodecs payloadCodecs) {
+		this.payloadCodecs = payloadCodecs;
+	}
+
+	/**
+	 * 设置压缩策略，设置后命中压缩规则的主题上接收到的压缩帧会在交给监听方法前解压
+	 */
+	public void setCompressionPolicy(CompressionPolicy compressionPolicy) {
+		this.compressionPolicy = compressionPolicy;
+	}
+
+	/**
+	 * 设置消息分发器，设置后监听方法在分发线程池中执行，未设置时在 Paho 回调线程上执行
+	 */
+	public void setDispatcher(MqttMessageDispatcher dispatcher) {
+		this.dispatcher = dispatcher;
+	}
+
+	/**
+	 * 设置失败处理器，设置后监听方法失败的消息按策略重试并在重试耗尽后转入死信
+	 */
+	public void setRetryHandler(ListenerRetryHandler retryHandler) {
+		this.retryHandler = retryHandler;
+	}
+
+	/**
+	 * 设置监听方法后处理器，未设置时在容器启动完成后检查已创建的单例 Bean
+	 */
+	public void setAnnotationBeanPostProcessor(MqttListenerAnnotationBeanPostProcessor annotationBeanPostProcessor) {
+		this.annotationBeanPostProcessor = annotationBeanPostProcessor;
+	}
+
+	/**
+	 * 设置去重缓存的时间窗口和容量
+	 */
+	public void setDeduplication(MqttProperties.Deduplication deduplication) {
+		this.deduplication = deduplication;
+	}
+
+	/**
+	 * 获取监听方法的去重缓存，未开启去重时返回 null
+	 * 
+	 * @param listenerName 监听方法名称，格式为 beanName.methodName
+	 */
+	public DeduplicationCache getDeduplicationCache(String listenerName) {
+		return deduplicationCaches.get(listenerName);
+	}
+
 	@Override
 	public void setApplicationContext(ApplicationContext applicationContext) {
 		this.applicationContext = applicationContext;
@@ -53,194 +128,417 @@ public class MqttMessageListenerProcessor implements ApplicationContextAware, Sm
 
 	@Override
 	public void afterSingletonsInstantiated() {
-		// 方法1: 获取所有 Bean 名称，然后逐个检查
-		scanAllBeansForMqttTopics();
-
-		// 方法2: 使用 Spring 的注解扫描（备选方案）
-		// scanWithAnnotationFilter();
+		if (annotationBeanPostProcessor == null) {
+			// 未注册后处理器时（如通过组件扫描创建处理器）检查已创建的单例 Bean，不触发延迟初始化
+			annotationBeanPostProcessor = new MqttListenerAnnotationBeanPostProcessor();
+			applicationContext.getBeansOfType(Object.class, false, false).forEach((beanName, bean) -> annotationBeanPostProcessor.postProcessAfterInitialization(bean, beanName));
+		}
+		int topicCount = annotationBeanPostProcessor.drainTo(this::registerEndpoint);
+		logger.info("Found {} MQTT topics, listener index: {}", topicCount, annotationBeanPostProcessor.isIndexed());
+		if (dispatcher != null) {
+			dispatcher.start();
+		}
 	}
 
 	/**
-	 * 方法2: 使用 Spring 的注解扫描器（备选方案）
+	 * 注册后处理器发现的监听方法
 	 */
-	@SuppressWarnings("unused")
-	private void scanWithAnnotationFilter() {
-		// 获取所有包含 @MqttTopic 注解的 Bean
-		Map<String, Object> beansWithMqttTopic = applicationContext.getBeansWithAnnotation(MqttTopic.class);
-
-		// 但是 @MqttTopic 是方法级别的注解，所以我们需要另一种方式
-		// 使用 ClassPathScanningCandidateComponentProvider 扫描所有类
-		ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider(false);
-
-		scanner.addIncludeFilter(new AnnotationTypeFilter(MqttTopic.class, false) {
-			@Override
-			public boolean match(MetadataReader metadataReader, MetadataReaderFactory metadataReaderFactory) throws IOException {
-				return super.match(metadataReader, metadataReaderFactory);
-			}
-		});
+	private void registerEndpoint(MqttListenerEndpoint endpoint) {
+		registerMqttTopicSubscription(endpoint.getAnnotation(), endpoint.getBean(), endpoint.getMethod(), endpoint.getBeanName());
 	}
-
-	 /**
-     * 扫描所有 Spring 管理的 Bean
-     */
-    private void scanAllBeansForMqttTopics() {
-        String[] beanNames = applicationContext.getBeanDefinitionNames();
-        int topicCount = 0;
-        
-        for (String beanName : beanNames) {
-            Object bean = null;
-            try {
-                bean = applicationContext.getBean(beanName);
-            } catch (Exception e) {
-                logger.debug("Could not get bean: {}", beanName, e);
-                continue;
-            }
-            
-            if (isSpringInternalBean(beanName)) {
-                continue;
-            }
-            
-            topicCount += processBeanForMqttTopics(bean, beanName);
-        }
-        
-        logger.info("Scanned {} beans, found {} MQTT topics", beanNames.length, topicCount);
-    }
-    
-    /**
-     * 处理单个 Bean 的 MQTT 主题注解
-     */
-    private int processBeanForMqttTopics(Object bean, String beanName) {
-        Class<?> beanClass = getBeanClass(bean);
-        if (beanClass == null) {
-            return 0;
-        }
-        
-        Method[] methods = getAllDeclaredMethods(beanClass);
-        int topicCount = 0;
-        
-        for (Method method : methods) {
-            if (method.isAnnotationPresent(MqttTopic.class)) {
-                MqttTopic annotation = method.getAnnotation(MqttTopic.class);
-                registerMqttTopicSubscription(annotation, bean, method, beanName);
-                topicCount++;
-            }
-        }
-        
-        return topicCount;
-    }
     
     /**
      * 注册 MQTT 主题订阅
      */
     private void registerMqttTopicSubscription(MqttTopic annotation, Object bean, 
                                              Method method, String beanName) {
-        String topic = annotation.value();
+        // 主题中的 {name} 占位符按单层通配符订阅
+        TopicTemplate template = TopicTemplate.parse(annotation.value());
+        String topic = template.getFilter();
         int qos = annotation.qos();
         
+        if (annotation.batchSize() > 0) {
+            registerBatchSubscription(annotation, bean, method, beanName, topic);
+            return;
+        }
+        
         // 验证方法参数
         validateMethodParameters(method, topic);
         
         // 创建消息监听器
-        IMqttMessageListener listener = createMessageListener(bean, method, topic);
+        MethodListenerInvoker invoker = new MethodListenerInvoker(bean, method, createArgumentResolvers(method, topic));
+        String name = beanName + "." + method.getName();
+        boolean manualAck = isManualAck(annotation, method, name);
+        // 声明了 Acknowledgment 参数的方法自行确认，其余方法处理完成后由框架确认
+        boolean methodAcknowledges = Arrays.asList(method.getParameterTypes()).contains(Acknowledgment.class);
+        InboundMessageHandler handler = (topicName, mqttMessage, acknowledgment) -> handleMessage(invoker, name, topic, topicName, mqttMessage, acknowledgment, methodAcknowledges);
+        IMqttMessageListener listener;
+        if (!annotation.orderKey().isEmpty() || !annotation.keyExtractor().isEmpty()) {
+            listener = createOrderedMessageListener(handler, annotation, template, name, manualAck);
+            registerRetry(name, invoker, null, methodAcknowledges);
+        } else {
+            Executor executor = dispatcher != null ? dispatcher.resolveExecutor(annotation, name, applicationContext) : null;
+            listener = createMessageListener(handler, executor, name, manualAck);
+            registerRetry(name, invoker, executor, methodAcknowledges);
+        }
         
         // 使用订阅管理器注册订阅
-        subscriptionManager.registerSubscription(topic, qos, listener);
+        subscriptionManager.registerSubscription(topic, qos, deduplicateIfNeeded(listener, annotation, name), annotation.group());
         
-        logger.info("Registered MQTT listener for topic: {} with QoS: {}, method: {}.{}", topic, qos, bean.getClass().getSimpleName(), method.getName());
+        logger.info("Registered MQTT listener for topic: {} with QoS: {}, group: {}, ack mode: {}, method: {}.{}", topic, qos, annotation.group(), annotation.ackMode(), bean.getClass().getSimpleName(), method.getName());
+    }
+
+    /**
+     * 校验确认方式，返回是否手动确认
+     */
+    private boolean isManualAck(MqttTopic annotation, Method method, String name) {
+        if (annotation.ackMode() != AckMode.MANUAL) {
+            if (Arrays.asList(method.getParameterTypes()).contains(Acknowledgment.class)) {
+                throw new IllegalArgumentException(String.format("Acknowledgment parameter in method %s requires ackMode MANUAL", name));
+            }
+            return false;
+        }
+        if (!subscriptionManager.isManualAcks()) {
+            throw new IllegalStateException(String.format("ackMode MANUAL of %s requires %s.subscription.manual-acks=true", name, MqttProperties.PREFIX));
+        }
+        return true;
+    }
+
+    /**
+     * 手动确认时推迟回调线程上正在分发的消息的确认
+     */
+    private static Acknowledgment acknowledgmentFor(boolean manualAck) {
+        return manualAck ? MqttAckTracker.retainCurrent() : Acknowledgment.NOOP;
     }
     
     /**
-     * 创建消息监听器
+     * 注册批处理订阅，消息先进入批处理缓冲区，攒满或超时后一次性交给监听方法
      */
-    private IMqttMessageListener createMessageListener(Object bean, Method method, String topic) {
-        return (topicName, mqttMessage) -> {
+    private void registerBatchSubscription(MqttTopic annotation, Object bean, Method method, String beanName, String topic) {
+        String name = beanName + "." + method.getName();
+        boolean manualAck = isManualAck(annotation, method, name);
+        ArgumentResolver elementResolver = createBatchElementResolver(method, topic);
+        Function<List<MqttMessageContext>, List<?>> converter = createBatchConverter(elementResolver, topic, name);
+        // 单条调用时以只含一条消息的批次调用方法，用于失败消息的逐条重试；解码失败直接抛给重试处理器，不会以空批次调用方法
+        MethodListenerInvoker invoker = new MethodListenerInvoker(bean, method, new ArgumentResolver[] { (topicName, message) -> Collections.singletonList(elementResolver != null ? elementResolver.resolve(topicName, message) : new MqttMessageContext(topicName, message, Acknowledgment.NOOP, payloadCodecs)) });
+        Executor executor = dispatcher != null ? dispatcher.resolveExecutor(annotation, name, applicationContext) : null;
+        registerRetry(name, invoker, executor, false);
+
+        MessageBatcher batcher = new MessageBatcher(name, annotation.batchSize(), annotation.batchTimeoutMs(), executor != null ? executor : Runnable::run, payloadCodecs, batch -> handleBatch(invoker, converter, name, topic, batch));
+        batchers.add(batcher);
+
+        IMqttMessageListener listener = (topicName, mqttMessage) -> {
+            Acknowledgment acknowledgment = acknowledgmentFor(manualAck);
             try {
-                invokeMethodWithMessage(bean, method, topicName, mqttMessage);
+                batcher.offer(topicName, decompressIfNeeded(topicName, mqttMessage), acknowledgment);
             } catch (Exception e) {
                 logger.error("Error handling MQTT message for topic: {}", topic, e);
-                handleMessageProcessingError(e, topic, mqttMessage);
+                handleMessageProcessingError(e, name, topicName, mqttMessage, acknowledgment);
+            }
+        };
+        subscriptionManager.registerSubscription(topic, annotation.qos(), deduplicateIfNeeded(listener, annotation, name), annotation.group());
+
+        logger.info("Registered MQTT batch listener for topic: {} with QoS: {}, group: {}, batch size: {}, timeout: {}ms, method: {}.{}", topic, annotation.qos(), annotation.group(), annotation.batchSize(), annotation.batchTimeoutMs(), bean.getClass().getSimpleName(), method.getName());
+    }
+
+    /**
+     * 开启去重时在监听器前增加去重过滤，重复消息在回调线程上直接丢弃，不进入分发队列
+     * <p>
+     * 标识在分发前记录，处理期间到达的重发同样被过滤；处理失败时移除标识，Broker 重发的同一消息可以再次处理
+     */
+    private IMqttMessageListener deduplicateIfNeeded(IMqttMessageListener listener, MqttTopic annotation, String name) {
+        if (!annotation.deduplicate()) {
+            return listener;
+        }
+        if (annotation.idExtractor().isEmpty()) {
+            // 内容相同的合法消息不应被默认过滤，按负载哈希去重需显式注册 PayloadHashIdExtractor
+            throw new IllegalArgumentException(String.format("deduplicate = true of %s requires an idExtractor, register a JsonFieldIdExtractor or PayloadHashIdExtractor bean", name));
+        }
+        MqttMessageIdExtractor extractor = applicationContext.getBean(annotation.idExtractor(), MqttMessageIdExtractor.class);
+        DeduplicationCache cache = new DeduplicationCache(deduplication.getMaxEntries(), deduplication.getWindow());
+        deduplicationCaches.put(name, cache);
+        idExtractors.put(name, extractor);
+
+        return (topicName, mqttMessage) -> {
+            if (cache.markIfAbsent(extractor.extractId(topicName, mqttMessage))) {
+                listener.messageArrived(topicName, mqttMessage);
+            } else {
+                logger.debug("Skipped duplicate MQTT message for topic: {}, listener: {}, dup flag: {}", topicName, name, mqttMessage.isDuplicate());
             }
         };
     }
+
+    /**
+     * 处理失败时移除消息标识，标识按解压前的原始消息计算，与记录时一致
+     */
+    private void forgetDuplicate(String name, String topic, MqttMessage message) {
+        DeduplicationCache cache = deduplicationCaches.get(name);
+        if (cache == null) {
+            return;
+        }
+        try {
+            cache.remove(idExtractors.get(name).extractId(topic, CompressionPolicy.originalOf(message)));
+        } catch (RuntimeException e) {
+            logger.warn("Failed to remove deduplication id for topic: {}, listener: {}", topic, name, e);
+        }
+    }
+
+    /**
+     * 根据 List 参数的元素类型创建单条消息的解析器，元素为 MqttMessageContext 时返回 null
+     */
+    private ArgumentResolver createBatchElementResolver(Method method, String topic) {
+        Type[] genericTypes = method.getGenericParameterTypes();
+        if (genericTypes.length != 1 || method.getParameterTypes()[0] != List.class || !(genericTypes[0] instanceof ParameterizedType)) {
+            throw new IllegalArgumentException(String.format("Batch listener method %s for topic %s must have exactly one List<T> parameter", method.getName(), topic));
+        }
+
+        Type elementType = ((ParameterizedType) genericTypes[0]).getActualTypeArguments()[0];
+        if (elementType == MqttMessageContext.class) {
+            return null;
+        }
+        ArgumentResolver resolver = elementType instanceof Class ? getArgumentResolver((Class<?>) elementType) : null;
+        return resolver != null ? resolver : createPayloadResolver(elementType, method, topic);
+    }
+
+    /**
+     * 创建批次转换函数，元素为 MqttMessageContext 时直接传递批次
+     * 
+     * @param elementResolver 单条消息的解析器，为 null 时元素即消息上下文
+     */
+    private Function<List<MqttMessageContext>, List<?>> createBatchConverter(ArgumentResolver elementResolver, String topic, String name) {
+        if (elementResolver == null) {
+            return batch -> batch;
+        }
+        return batch -> {
+            List<Object> elements = new ArrayList<>(batch.size());
+            for (MqttMessageContext context : batch) {
+                try {
+                    elements.add(elementResolver.resolve(context.getTopic(), context.getMessage()));
+                } catch (Exception e) {
+                    // 单条消息解码失败不影响同批次的其他消息，该消息单独进入失败处理，随批次一起确认
+                    logger.error("Error resolving MQTT message in batch for topic: {}", topic, e);
+                    handleMessageProcessingError(e, name, context.getTopic(), context.getMessage(), Acknowledgment.NOOP);
+                }
+            }
+            return elements;
+        };
+    }
+
+    /**
+     * 调用批处理监听方法处理一批消息
+     */
+    private void handleBatch(MethodListenerInvoker invoker, Function<List<MqttMessageContext>, List<?>> converter, String name, String topic, List<MqttMessageContext> batch) {
+        List<?> elements = converter.apply(batch);
+        if (elements.isEmpty()) {
+            acknowledgeAll(batch);
+            return;
+        }
+        Object result;
+        try {
+            result = invoker.invokeWithArgument(elements);
+        } catch (Exception e) {
+            handleBatchError(e, name, topic, batch);
+            return;
+        }
+        whenComplete(result, () -> acknowledgeAll(batch), e -> handleBatchError(e, name, topic, batch));
+    }
+
+    private void handleBatchError(Exception error, String name, String topic, List<MqttMessageContext> batch) {
+        logger.error("Error handling MQTT batch of {} messages for topic: {}", batch.size(), topic, error);
+        for (MqttMessageContext context : batch) {
+            handleMessageProcessingError(error, name, context.getTopic(), context.getMessage(), context.getAcknowledgment());
+        }
+    }
+
+    private static void acknowledgeAll(List<MqttMessageContext> batch) {
+        for (MqttMessageContext context : batch) {
+            context.getAcknowledgment().acknowledge();
+        }
+    }
+
+    /**
+     * 监听方法返回 CompletionStage 时在其完成后执行回调，否则立即执行成功回调
+     */
+    private static void whenComplete(Object result, Runnable onSuccess, Consumer<Exception> onFailure) {
+        if (result instanceof CompletionStage) {
+            ((CompletionStage<?>) result).whenComplete((value, error) -> {
+                if (error == null) {
+                    onSuccess.run();
+                } else {
+                    onFailure.accept(ListenerRetryHandler.toException(error));
+                }
+            });
+        } else {
+            onSuccess.run();
+        }
+    }
+
+    /**
+     * 关闭时处理批处理缓冲区中剩余的消息
+     */
+    @PreDestroy
+    public void destroy() {
+        for (MessageBatcher batcher : batchers) {
+            batcher.close();
+        }
+        batchers.clear();
+    }
+
+    /**
+     * 登记监听方法的重试入口，在调用线程上直接执行的监听方法改用公共线程池重试，避免占用重试定时器
+     */
+    private void registerRetry(String name, MethodListenerInvoker invoker, Executor executor, boolean methodAcknowledges) {
+        if (retryHandler != null) {
+            retryHandler.register(name, invoker, MqttMessageDispatcher.isDirect(executor) ? null : executor, methodAcknowledges);
+        }
+    }
+
+    /**
+     * 创建消息监听器
+     */
+    private IMqttMessageListener createMessageListener(InboundMessageHandler handler, Executor executor, String name, boolean manualAck) {
+        if (executor == null) {
+            return (topicName, mqttMessage) -> handler.handle(topicName, mqttMessage, acknowledgmentFor(manualAck));
+        }
+        dispatcher.registerListener(name, executor, handler);
+        // Paho 回调线程只负责入队，监听方法在分发线程中执行
+        return (topicName, mqttMessage) -> executor.execute(new InboundMessageTask(name, topicName, mqttMessage, handler, acknowledgmentFor(manualAck)));
+    }
+
+    /**
+     * 创建按顺序键分发的消息监听器，相同键的消息进入同一通道按顺序执行
+     */
+    private IMqttMessageListener createOrderedMessageListener(InboundMessageHandler handler, MqttTopic annotation, TopicTemplate template, String name, boolean manualAck) {
+        if (dispatcher == null) {
+            logger.warn("No MQTT message dispatcher configured, ordered listener {} will run on the callback thread", name);
+            return createMessageListener(handler, null, name, manualAck);
+        }
+
+        StripedExecutor executor = dispatcher.createStripedExecutor(name, annotation.lanes());
+        if (!annotation.keyExtractor().isEmpty()) {
+            MqttOrderKeyExtractor extractor = applicationContext.getBean(annotation.keyExtractor(), MqttOrderKeyExtractor.class);
+            return (topicName, mqttMessage) -> executor.execute(Objects.hashCode(extractor.extractKey(topicName, mqttMessage)), new InboundMessageTask(name, topicName, mqttMessage, handler, acknowledgmentFor(manualAck)));
+        }
+
+        int level = template.indexOf(annotation.orderKey());
+        if (level < 0) {
+            throw new IllegalArgumentException(String.format("Order key {%s} not found in topic %s", annotation.orderKey(), annotation.value()));
+        }
+        return (topicName, mqttMessage) -> executor.execute(TopicTemplate.hashLevel(topicName, level), new InboundMessageTask(name, topicName, mqttMessage, handler, acknowledgmentFor(manualAck)));
+    }
+
+    /**
+     * 调用监听方法处理一条消息，方法正常返回或返回的 CompletionStage 完成后确认
+     * 
+     * @param methodAcknowledges 方法是否通过 Acknowledgment 参数自行确认
+     */
+    private void handleMessage(MethodListenerInvoker invoker, String name, String topic, String topicName, MqttMessage mqttMessage, Acknowledgment acknowledgment, boolean methodAcknowledges) {
+        MqttMessage message = mqttMessage;
+        Object result;
+        try {
+            message = decompressIfNeeded(topicName, mqttMessage);
+            result = invoker.invoke(topicName, message, acknowledgment);
+        } catch (Exception e) {
+            logger.error("Error handling MQTT message for topic: {}", topic, e);
+            handleMessageProcessingError(e, name, topicName, message, acknowledgment);
+            return;
+        }
+
+        MqttMessage handled = message;
+        whenComplete(result, () -> {
+            if (!methodAcknowledges) {
+                acknowledgment.acknowledge();
+            }
+        }, e -> {
+            logger.error("Error handling MQTT message for topic: {}", topic, e);
+            handleMessageProcessingError(e, name, topicName, handled, acknowledgment);
+        });
+    }
     
     /**
-     * 调用目标方法处理消息
+     * 按压缩策略解压压缩帧，返回的新消息保留原消息的所有标志
      */
-    private void invokeMethodWithMessage(Object bean, Method method, 
-                                       String topicName, MqttMessage mqttMessage) 
-        throws Exception {
-        
+    private MqttMessage decompressIfNeeded(String topic, MqttMessage mqttMessage) throws Exception {
+        CompressionPolicy policy = this.compressionPolicy;
+        return policy == null ? mqttMessage : policy.decompressIfNeeded(topic, mqttMessage);
+    }
+
+    /**
+     * 注册时为每个参数确定解析器，对象参数同时确定泛型类型和编解码器，消息到达时不再按类型判断
+     */
+    private ArgumentResolver[] createArgumentResolvers(Method method, String topic) {
         Class<?>[] parameterTypes = method.getParameterTypes();
-        Object[] args = new Object[parameterTypes.length];
-        
+        Type[] genericTypes = method.getGenericParameterTypes();
+        ArgumentResolver[] resolvers = new ArgumentResolver[parameterTypes.length];
+        boolean hasPayloadObject = false;
+
         for (int i = 0; i < parameterTypes.length; i++) {
-            args[i] = getArgumentValue(parameterTypes[i], topicName, mqttMessage);
+            ArgumentResolver resolver = getArgumentResolver(parameterTypes[i]);
+            if (resolver == null) {
+                if (hasPayloadObject) {
+                    throw new IllegalArgumentException(String.format("Only one payload object parameter is allowed in method %s for topic %s", method.getName(), topic));
+                }
+                resolver = createPayloadResolver(genericTypes[i], method, topic);
+                hasPayloadObject = true;
+            }
+            resolvers[i] = resolver;
         }
-        
-        method.setAccessible(true);
-        method.invoke(bean, args);
+
+        return resolvers;
+    }
+
+    /**
+     * 创建对象负载参数的解析器
+     */
+    private ArgumentResolver createPayloadResolver(Type type, Method method, String topic) {
+        MqttPayloadCodec codec = payloadCodecs == null ? null : payloadCodecs.getCodec(type);
+        if (codec == null) {
+            throw new IllegalArgumentException(String.format("No MQTT payload codec found for parameter type %s in method %s for topic %s", type.getTypeName(), method.getName(), topic));
+        }
+        return (topicName, message) -> {
+            byte[] payload = message.getPayload();
+            return codec.decode(payload, 0, payload.length, type);
+        };
     }
     
     /**
-     * 根据参数类型获取参数值
+     * 根据参数类型获取参数解析器
      */
-    private Object getArgumentValue(Class<?> paramType, String topic, MqttMessage message) {
+    private ArgumentResolver getArgumentResolver(Class<?> paramType) {
         if (paramType == String.class) {
-            return topic;
+            return (topic, message) -> topic;
         } else if (paramType == byte[].class) {
-            return message.getPayload();
+            return (topic, message) -> message.getPayload();
         } else if (paramType == MqttMessage.class) {
-            return message;
+            return (topic, message) -> message;
         } else if (paramType == MqttMessageContext.class) {
-            return new MqttMessageContext(topic, message);
+            return new ArgumentResolver() {
+                @Override
+                public Object resolve(String topic, MqttMessage message) {
+                    return new MqttMessageContext(topic, message, Acknowledgment.NOOP, payloadCodecs);
+                }
+
+                @Override
+                public Object resolve(String topic, MqttMessage message, Acknowledgment acknowledgment) {
+                    return new MqttMessageContext(topic, message, acknowledgment, payloadCodecs);
+                }
+            };
+        } else if (paramType == Acknowledgment.class) {
+            return new ArgumentResolver() {
+                @Override
+                public Object resolve(String topic, MqttMessage message) {
+                    return Acknowledgment.NOOP;
+                }
+
+                @Override
+                public Object resolve(String topic, MqttMessage message, Acknowledgment acknowledgment) {
+                    return acknowledgment;
+                }
+            };
         }
         return null;
     }
 	
-	/**
-	 * 获取 Bean 的真实类（处理代理类的情况）
-	 */
-	private Class<?> getBeanClass(Object bean) {
-		Class<?> beanClass = bean.getClass();
-
-		// 处理 Spring AOP 代理
-		if (org.springframework.aop.support.AopUtils.isAopProxy(bean)) {
-			beanClass = org.springframework.aop.support.AopUtils.getTargetClass(bean);
-		}
-
-		// 处理 CGLIB 代理
-		if (beanClass.getName().contains("$$")) {
-			Class<?> superClass = beanClass.getSuperclass();
-			if (superClass != null && !superClass.getName().equals("java.lang.Object")) {
-				beanClass = superClass;
-			}
-		}
-
-		return beanClass;
-	}
-
-	/**
-	 * 获取类中所有声明的方法（包括继承的方法）
-	 */
-	private Method[] getAllDeclaredMethods(Class<?> clazz) {
-		List<Method> methods = new ArrayList<>();
-		Class<?> currentClass = clazz;
-
-		while (currentClass != null && currentClass != Object.class) {
-			methods.addAll(Arrays.asList(currentClass.getDeclaredMethods()));
-			currentClass = currentClass.getSuperclass();
-		}
-
-		return methods.toArray(new Method[0]);
-	}
-
-	/**
-	 * 判断是否是 Spring 内部 Bean
-	 */
-	private boolean isSpringInternalBean(String beanName) {
-		return beanName.startsWith("org.springframework.") || beanName.startsWith("spring.") || beanName.contains(".") && (beanName.endsWith(".MqttMessageListenerProcessor") || beanName.endsWith(".MqttAutoConfiguration") || beanName.endsWith(".MqttTemplate") || beanName.endsWith(".MqttClientFactory"));
-	}
-
 //	/**
 //	 * 订阅主题
 //	 */
@@ -270,13 +568,13 @@ public class MqttMessageListenerProcessor implements ApplicationContextAware, Sm
 		Class<?>[] parameterTypes = method.getParameterTypes();
 
 		for (Class<?> paramType : parameterTypes) {
-			if (!isSupportedParameterType(paramType)) {
-				throw new IllegalArgumentException(String.format("Unsupported parameter type %s in method %s for topic %s. " + "Supported types: String, byte[], MqttMessage", paramType.getSimpleName(), method.getName(), topic));
+			if (!isSupportedParameterType(paramType) && payloadCodecs == null) {
+				throw new IllegalArgumentException(String.format("Unsupported parameter type %s in method %s for topic %s. " + "Supported types: String, byte[], MqttMessage, MqttMessageContext, Acknowledgment", paramType.getSimpleName(), method.getName(), topic));
 			}
 		}
 
-		if (parameterTypes.length > 3) {
-			throw new IllegalArgumentException(String.format("Too many parameters in method %s for topic %s. " + "Maximum 3 parameters supported: payload, topic, message", method.getName(), topic));
+		if (parameterTypes.length > 4) {
+			throw new IllegalArgumentException(String.format("Too many parameters in method %s for topic %s. " + "Maximum 4 parameters supported: payload, topic, message, Acknowledgment", method.getName(), topic));
 		}
 	}
 
@@ -284,19 +582,19 @@ public class MqttMessageListenerProcessor implements ApplicationContextAware, Sm
 	 * 检查参数类型是否支持
 	 */
 	private boolean isSupportedParameterType(Class<?> paramType) {
-		return paramType == String.class || paramType == byte[].class || paramType == MqttMessage.class || paramType == MqttMessageContext.class; // 新增上下文类型
+		return paramType == String.class || paramType == byte[].class || paramType == MqttMessage.class || paramType == MqttMessageContext.class || paramType == Acknowledgment.class; // 新增上下文类型
 	}
 
 	/**
-	 * 处理消息处理过程中的错误
+	 * 处理消息处理过程中的错误，先移除去重标识，再在配置了失败处理器时交给其重试或转入死信，否则只记录日志；手动确认的消息在处理结束后确认
 	 */
-	private void handleMessageProcessingError(Exception error, String topic, MqttMessage message) {
-		// 这里可以添加错误处理逻辑，比如重试、记录日志、发送到死信队列等
-		logger.warn("Message processing failed for topic: {}, message: {}", topic, new String(message.getPayload(), StandardCharsets.UTF_8));
-
-		// 可以根据错误类型采取不同的处理策略
-		if (error instanceof RuntimeException) {
-			// 对于运行时异常，可能需要进行特殊处理
+	private void handleMessageProcessingError(Exception error, String name, String topic, MqttMessage message, Acknowledgment acknowledgment) {
+		forgetDuplicate(name, topic, message);
+		if (retryHandler != null) {
+			retryHandler.onFailure(name, topic, message, error, acknowledgment);
+			return;
 		}
+		logger.warn("Message processing failed for topic: {}, listener: {}, payload size: {}", topic, name, message.getPayload().length);
+		acknowledgment.acknowledge();
 	}
-}
\ No newline at end of file
+}
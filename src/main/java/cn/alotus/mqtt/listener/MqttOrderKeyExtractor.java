@@ -0,0 +1,20 @@
+package cn.alotus.mqtt.listener;
+
+import org.eclipse.paho.client.mqttv3.MqttMessage;
+
+/**
+ * 顺序键提取器，相同键的消息由同一个处理通道按到达顺序执行
+ * 
+ * @author alotuser
+ * @since 2026/10/16
+ */
+@FunctionalInterface
+public interface MqttOrderKeyExtractor {
+
+	/**
+	 * 提取消息的顺序键
+	 * 
+	 * @return 顺序键，返回 null 时消息进入固定的通道
+	 */
+	Object extractKey(String topic, MqttMessage message);
+}
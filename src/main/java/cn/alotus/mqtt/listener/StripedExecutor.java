@@ -0,0 +1,96 @@
+package cn.alotus.mqtt.listener;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 分段执行器，由 N 个单线程通道组成，按键的哈希选择通道
+ * <p>
+ * 相同键的任务总是进入同一通道并按提交顺序执行，不同键的任务在多个通道间并行。 通道队列已满时默认由提交线程阻塞等待，而不是在提交线程上直接执行，以免打乱同一通道内的顺序；
+ * 也可以指定其他不改变通道内顺序的溢出处理器，如丢弃消息
+ * 
+ * @author alotuser
+ * @since 2026/10/16
+ */
+public class StripedExecutor {
+
+	private final ThreadPoolExecutor[] lanes;
+
+	public StripedExecutor(String name, int laneCount, int queueCapacity) {
+		this(name, laneCount, queueCapacity, (r, executor) -> {
+			if (executor.isShutdown()) {
+				throw new RejectedExecutionException("Striped executor " + name + " has been shut down");
+			}
+			try {
+				executor.getQueue().put(r);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new RejectedExecutionException("Interrupted while waiting for lane capacity", e);
+			}
+		});
+	}
+
+	/**
+	 * @param overflowHandler 通道队列已满时的处理器，不应在提交线程上直接执行任务
+	 */
+	public StripedExecutor(String name, int laneCount, int queueCapacity, RejectedExecutionHandler overflowHandler) {
+		this.lanes = new ThreadPoolExecutor[Math.max(1, laneCount)];
+		for (int i = 0; i < lanes.length; i++) {
+			String threadName = name + "-lane-" + i;
+			lanes[i] = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), r -> {
+				Thread t = new Thread(r, threadName);
+				t.setDaemon(true);
+				return t;
+			}, overflowHandler);
+		}
+	}
+
+	/**
+	 * 按哈希值选择通道执行任务
+	 */
+	public void execute(int hash, Runnable task) {
+		// 扰动高位，避免哈希值低位分布不均
+		int h = hash ^ (hash >>> 16);
+		lanes[(h & Integer.MAX_VALUE) % lanes.length].execute(task);
+	}
+
+	public int getLaneCount() {
+		return lanes.length;
+	}
+
+	/**
+	 * 所有通道中等待执行的任务数
+	 */
+	public int getQueueDepth() {
+		int depth = 0;
+		for (ThreadPoolExecutor lane : lanes) {
+			depth += lane.getQueue().size();
+		}
+		return depth;
+	}
+
+	public void shutdown() {
+		for (ThreadPoolExecutor lane : lanes) {
+			lane.shutdown();
+		}
+	}
+
+	public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		for (ThreadPoolExecutor lane : lanes) {
+			if (!lane.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	public void shutdownNow() {
+		for (ThreadPoolExecutor lane : lanes) {
+			lane.shutdownNow();
+		}
+	}
+}
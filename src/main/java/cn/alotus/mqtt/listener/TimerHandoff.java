@@ -0,0 +1,86 @@
+package cn.alotus.mqtt.listener;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import cn.alotus.mqtt.retry.RetryTemplate;
+
+/**
+ * 从共享定时器线程提交到监听方法 Executor 的任务
+ * <p>
+ * 分发队列或并发许可已满时 {@link InboundOverflowHandler} 直接拒绝此类任务，既不在提交线程上执行也不阻塞，由提交方稍后重新提交。
+ * 无法判断是否会阻塞的 Executor（如容器中指定的 Executor）先转交共享工作线程池再提交，定时器线程因此不会被监听方法或队列等待占用
+ * 
+ * @author alotuser
+ * @since 2026/10/16
+ */
+final class TimerHandoff implements Runnable {
+
+	/**
+	 * Executor 已满时重新提交的间隔（毫秒）
+	 */
+	static final long RESUBMIT_DELAY_MS = 50;
+
+	private final Runnable task;
+
+	private TimerHandoff(Runnable task) {
+		this.task = task;
+	}
+
+	@Override
+	public void run() {
+		task.run();
+	}
+
+	/**
+	 * 不阻塞地提交任务
+	 * 
+	 * @throws RejectedExecutionException Executor 已满或已关闭
+	 */
+	static void execute(Executor executor, Runnable task) {
+		if (isNonBlocking(executor)) {
+			executor.execute(new TimerHandoff(task));
+		} else {
+			RetryTemplate.getWorkerExecutor().execute(() -> executor.execute(task));
+		}
+	}
+
+	/**
+	 * 不阻塞地提交任务，Executor 已满时由定时器稍后重新提交
+	 * 
+	 * @param onShutdown Executor 已关闭、任务无法执行时的处理
+	 */
+	static void submit(Executor executor, Runnable task, Runnable onShutdown) {
+		try {
+			execute(executor, task);
+		} catch (RejectedExecutionException e) {
+			if (isShutdown(executor)) {
+				onShutdown.run();
+				return;
+			}
+			try {
+				RetryTemplate.getScheduler().schedule(() -> submit(executor, task, onShutdown), RESUBMIT_DELAY_MS, TimeUnit.MILLISECONDS);
+			} catch (RejectedExecutionException shutdown) {
+				onShutdown.run();
+			}
+		}
+	}
+
+	/**
+	 * 队列已满时拒绝 TimerHandoff 而不是执行或阻塞的 Executor
+	 */
+	private static boolean isNonBlocking(Executor executor) {
+		if (executor instanceof ThreadPoolExecutor) {
+			return ((ThreadPoolExecutor) executor).getRejectedExecutionHandler() instanceof InboundOverflowHandler;
+		}
+		return executor instanceof BoundedDispatchExecutor || executor instanceof ForkJoinPool;
+	}
+
+	private static boolean isShutdown(Executor executor) {
+		return executor instanceof ExecutorService && ((ExecutorService) executor).isShutdown();
+	}
+}
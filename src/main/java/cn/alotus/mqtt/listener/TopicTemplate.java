@@ -0,0 +1,112 @@
+package cn.alotus.mqtt.listener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 带占位符的主题模板，如 {@code devices/{deviceId}/telemetry}
+ * <p>
+ * 占位符所在的层级订阅时替换为单层通配符 {@code +}，消息到达时可按层级位置直接从主题中读取对应的值或计算哈希，不需要拆分字符串
+ * 
+ * @author alotuser
+ * @since 2026/10/16
+ */
+public final class TopicTemplate {
+
+	private final String template;
+	private final String filter;
+	private final List<String> variables;
+
+	private TopicTemplate(String template, String filter, List<String> variables) {
+		this.template = template;
+		this.filter = filter;
+		this.variables = variables;
+	}
+
+	/**
+	 * 解析主题模板，只有完整占据一个层级的 {@code {name}} 才被识别为占位符
+	 */
+	public static TopicTemplate parse(String template) {
+		String[] levels = template.split("/", -1);
+		List<String> variables = new ArrayList<>(levels.length);
+		StringBuilder filter = new StringBuilder(template.length());
+
+		for (int i = 0; i < levels.length; i++) {
+			String level = levels[i];
+			if (i > 0) {
+				filter.append('/');
+			}
+			if (level.length() > 2 && level.charAt(0) == '{' && level.charAt(level.length() - 1) == '}') {
+				variables.add(level.substring(1, level.length() - 1));
+				filter.append('+');
+			} else {
+				variables.add(null);
+				filter.append(level);
+			}
+		}
+
+		return new TopicTemplate(template, filter.toString(), Collections.unmodifiableList(variables));
+	}
+
+	/**
+	 * 用于订阅的主题过滤器
+	 */
+	public String getFilter() {
+		return filter;
+	}
+
+	public String getTemplate() {
+		return template;
+	}
+
+	/**
+	 * 占位符所在的层级序号，不存在时返回 -1
+	 */
+	public int indexOf(String variable) {
+		return variables.indexOf(variable);
+	}
+
+	/**
+	 * 读取主题指定层级的值
+	 */
+	public static String extract(String topic, int level) {
+		int start = levelStart(topic, level);
+		if (start < 0) {
+			return null;
+		}
+		int end = topic.indexOf('/', start);
+		return topic.substring(start, end < 0 ? topic.length() : end);
+	}
+
+	/**
+	 * 计算主题指定层级的哈希值，结果与该层级字符串的 {@link String#hashCode()} 一致，计算过程不分配对象
+	 */
+	public static int hashLevel(String topic, int level) {
+		int start = levelStart(topic, level);
+		if (start < 0) {
+			return 0;
+		}
+		int hash = 0;
+		for (int i = start, n = topic.length(); i < n; i++) {
+			char c = topic.charAt(i);
+			if (c == '/') {
+				break;
+			}
+			hash = 31 * hash + c;
+		}
+		return hash;
+	}
+
+	private static int levelStart(String topic, int level) {
+		int start = 0;
+		for (int i = 0; i < level; i++) {
+			start = topic.indexOf('/', start);
+			if (start < 0) {
+				return -1;
+			}
+			start++;
+		}
+		return start;
+	}
+}
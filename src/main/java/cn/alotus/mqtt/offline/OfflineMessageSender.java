@@ -0,0 +1,27 @@
+package cn.alotus.mqtt.offline;
+
+/**
+ * 离线缓冲消息发送器，由缓冲区在连接恢复后调用，将积压消息直接发往 Broker
+ * 
+ * @author alotuser
+ * @since 2026/10/16
+ */
+public interface OfflineMessageSender {
+
+	/**
+	 * 发送一条积压消息，失败时抛出异常，消息保留在缓冲区中
+	 */
+	void send(String topic, byte[] payload, int qos, boolean retained) throws Exception;
+
+	/**
+	 * 当前是否可以发送
+	 */
+	boolean isConnected();
+
+	/**
+	 * 发送指定主题所使用的连接是否可用，多连接时按主题分片判断
+	 */
+	default boolean isConnected(String topic) {
+		return isConnected();
+	}
+}
@@ -0,0 +1,287 @@
+package cn.alotus.mqtt.offline;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PreDestroy;
+
+import org.eclipse.paho.client.mqttv3.MqttException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import cn.alotus.mqtt.config.MqttProperties;
+import cn.alotus.mqtt.core.MqttConnectionListener;
+import cn.alotus.mqtt.store.JournalRecord;
+import cn.alotus.mqtt.store.MappedSegmentJournal;
+
+/**
+ * 离线发布缓冲区，在客户端断开期间将发布的消息写入磁盘日志，连接恢复后按配置的速率补发
+ * <p>
+ * 补发期间新的消息仍直接发送，积压消息与实时消息之间不保证顺序。
+ * 发送失败时消息保留在缓冲区中，按指数退避暂停补发后重试；只有无效主题等无法发送的消息才会被丢弃
+ * 
+ * @author alotuser
+ * @since 2026/10/16
+ */
+public class OfflinePublishBuffer implements MqttConnectionListener {
+
+	private static final Logger logger = LoggerFactory.getLogger(OfflinePublishBuffer.class);
+
+	/**
+	 * 补发调度周期（毫秒）
+	 */
+	private static final long DRAIN_TICK_MS = 100;
+
+	/**
+	 * 发送失败后暂停补发的最长时间（毫秒）
+	 */
+	private static final long MAX_BACKOFF_MS = 30_000;
+
+	private final MqttProperties.OfflineBuffer config;
+	private final MappedSegmentJournal journal;
+	private final ScheduledExecutorService drainExecutor;
+	private final AtomicLong bufferedCount = new AtomicLong();
+	private final AtomicLong drainedCount = new AtomicLong();
+	private final AtomicLong discardedCount = new AtomicLong();
+	private volatile OfflineMessageSender sender;
+	private ScheduledFuture<?> drainTask;
+	private int consecutiveFailures;
+	private long resumeAt;
+
+	public OfflinePublishBuffer(MqttProperties.OfflineBuffer config) {
+		this.config = config;
+		try {
+			this.journal = new MappedSegmentJournal(new File(config.getDirectory()), config.getSegmentSize(), config.getMaxSize(), config.getMaxAge());
+		} catch (IOException e) {
+			throw new IllegalStateException("Failed to open MQTT offline buffer at " + config.getDirectory(), e);
+		}
+		this.drainExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, "mqtt-offline-drain");
+			t.setDaemon(true);
+			return t;
+		});
+	}
+
+	/**
+	 * 设置补发使用的发送器
+	 */
+	public void setSender(OfflineMessageSender sender) {
+		this.sender = sender;
+		if (sender != null && sender.isConnected() && !journal.isEmpty()) {
+			startDrain();
+		}
+	}
+
+	/**
+	 * 缓存一条消息
+	 * 
+	 * @return 是否缓存成功，消息超过单个段大小或写入失败时返回 false
+	 */
+	public boolean offer(String topic, byte[] payload, int qos, boolean retained) {
+		byte[] topicBytes = topic.getBytes(StandardCharsets.UTF_8);
+		ByteBuffer record = ByteBuffer.allocate(2 + topicBytes.length + 2 + payload.length);
+		record.putShort((short) topicBytes.length);
+		record.put(topicBytes);
+		record.put((byte) qos);
+		record.put((byte) (retained ? 1 : 0));
+		record.put(payload);
+
+		try {
+			if (journal.append(record.array())) {
+				bufferedCount.incrementAndGet();
+				logger.debug("Buffered offline message for topic: {}", topic);
+				return true;
+			}
+			logger.warn("Message too large for offline buffer, topic: {}, size: {}", topic, payload.length);
+		} catch (Exception e) {
+			logger.error("Failed to buffer offline message for topic: {}", topic, e);
+		}
+		return false;
+	}
+
+	@Override
+	public void onConnected(boolean reconnect, String serverURI) {
+		startDrain();
+	}
+
+	@Override
+	public void onDisconnected(Throwable cause) {
+		stopDrain();
+	}
+
+	/**
+	 * 开始按速率补发积压消息
+	 */
+	public synchronized void startDrain() {
+		if (sender == null || drainExecutor.isShutdown()) {
+			return;
+		}
+		consecutiveFailures = 0;
+		resumeAt = 0;
+		if (drainTask != null) {
+			return;
+		}
+		logger.info("Start draining MQTT offline buffer, pending bytes: {}", journal.getPendingBytes());
+		drainTask = drainExecutor.scheduleWithFixedDelay(this::drainBatch, 0, DRAIN_TICK_MS, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * 停止补发
+	 */
+	public synchronized void stopDrain() {
+		if (drainTask != null) {
+			drainTask.cancel(false);
+			drainTask = null;
+		}
+	}
+
+	/**
+	 * 发送一个调度周期内允许的消息数量，异常不会向外抛出，以免取消定时任务
+	 */
+	private void drainBatch() {
+		try {
+			synchronized (this) {
+				if (resumeAt != 0 && System.nanoTime() - resumeAt < 0) {
+					return;
+				}
+			}
+			doDrainBatch();
+		} catch (Throwable e) {
+			logger.error("Unexpected error draining MQTT offline buffer", e);
+			backOff();
+		}
+	}
+
+	private void doDrainBatch() {
+		OfflineMessageSender currentSender = sender;
+		int budget = (int) Math.max(1, config.getDrainRate() * DRAIN_TICK_MS / 1000);
+
+		for (int i = 0; i < budget; i++) {
+			JournalRecord record = journal.peek();
+			if (record == null) {
+				journal.flush();
+				logger.info("MQTT offline buffer drained, total sent: {}", drainedCount.get());
+				stopDrain();
+				return;
+			}
+
+			ByteBuffer buffer = ByteBuffer.wrap(record.getData());
+			byte[] topicBytes = new byte[buffer.getShort() & 0xFFFF];
+			buffer.get(topicBytes);
+			String topic = new String(topicBytes, StandardCharsets.UTF_8);
+			int qos = buffer.get();
+			boolean retained = buffer.get() != 0;
+			byte[] payload = new byte[buffer.remaining()];
+			buffer.get(payload);
+
+			if (!currentSender.isConnected(topic)) {
+				// 连接池中该主题所在的连接尚未恢复，保持顺序在下个周期再检查，不计入退避以便连接恢复后立即补发
+				logger.debug("Connection for offline topic: {} is down, waiting for reconnect", topic);
+				return;
+			}
+			try {
+				currentSender.send(topic, payload, qos, retained);
+			} catch (Exception e) {
+				if (currentSender.isConnected(topic) && isPermanentFailure(e)) {
+					// 消息本身无法发送，丢弃以免阻塞后续消息
+					logger.error("Discarding undeliverable offline message for topic: {}", topic, e);
+					journal.commit();
+					discardedCount.incrementAndGet();
+					continue;
+				}
+				// 连接断开、在途窗口已满、超时、熔断或限流等暂时性失败，保留消息稍后重试
+				long delay = backOff();
+				logger.warn("Failed to send offline message for topic: {}, pausing drain for {} ms: {}", topic, delay, e.toString());
+				return;
+			}
+			journal.commit();
+			drainedCount.incrementAndGet();
+			synchronized (this) {
+				consecutiveFailures = 0;
+			}
+		}
+	}
+
+	/**
+	 * 按连续失败次数指数退避，暂停补发
+	 * 
+	 * @return 暂停时长（毫秒）
+	 */
+	private synchronized long backOff() {
+		consecutiveFailures++;
+		long delay = Math.min(MAX_BACKOFF_MS, DRAIN_TICK_MS << Math.min(consecutiveFailures, 16));
+		resumeAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delay);
+		return delay;
+	}
+
+	/**
+	 * 是否为重试也无法成功的失败，例如主题不合法或消息格式无效
+	 */
+	static boolean isPermanentFailure(Throwable e) {
+		for (Throwable cause = e; cause != null; cause = cause.getCause() == cause ? null : cause.getCause()) {
+			if (cause instanceof IllegalArgumentException) {
+				return true;
+			}
+			if (cause instanceof MqttException) {
+				return ((MqttException) cause).getReasonCode() == MqttException.REASON_CODE_INVALID_MESSAGE;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * 是否存在积压消息
+	 */
+	public boolean hasPending() {
+		return !journal.isEmpty();
+	}
+
+	/**
+	 * 积压数据字节数
+	 */
+	public long getPendingBytes() {
+		return journal.getPendingBytes();
+	}
+
+	public long getBufferedCount() {
+		return bufferedCount.get();
+	}
+
+	public long getDrainedCount() {
+		return drainedCount.get();
+	}
+
+	/**
+	 * 因无法发送、超过大小上限或保留时间而丢弃的消息数
+	 */
+	public long getDiscardedCount() {
+		return discardedCount.get() + journal.getDroppedRecords();
+	}
+
+	@PreDestroy
+	public void destroy() {
+		stopDrain();
+		drainExecutor.shutdown();
+		try {
+			if (!drainExecutor.awaitTermination(3, TimeUnit.SECONDS)) {
+				drainExecutor.shutdownNow();
+			}
+		} catch (InterruptedException e) {
+			drainExecutor.shutdownNow();
+			Thread.currentThread().interrupt();
+		}
+
+		try {
+			journal.close();
+		} catch (IOException e) {
+			logger.error("Error closing MQTT offline buffer", e);
+		}
+	}
+}
@@ -0,0 +1,229 @@
+package cn.alotus.mqtt.ratelimit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import cn.alotus.mqtt.config.MqttProperties;
+import cn.alotus.mqtt.config.MqttProperties.RateLimit.RateLimitMode;
+import cn.alotus.mqtt.retry.RetryTemplate;
+
+/**
+ * 发布限流器，按主题过滤器匹配限流规则，每条规则持有消息数和字节数两个令牌桶
+ * <p>
+ * 规则按配置顺序匹配，命中第一条规则；未配置规则时全局速率对所有主题生效。令牌桶为无锁实现，各规则之间互不竞争。
+ * 延迟发送的消息由 {@link RetryTemplate} 的共享定时器调度，不额外占用线程
+ * 
+ * @author alotuser
+ * @since 2026/10/16
+ */
+public class PublishRateLimiter {
+
+	private static final Logger logger = LoggerFactory.getLogger(PublishRateLimiter.class);
+
+	/**
+	 * 主题匹配结果缓存上限，超过后清空重建
+	 */
+	private static final int MAX_CACHED_TOPICS = 10000;
+
+	private static final Limit UNLIMITED = new Limit(null, null, null);
+
+	private final RateLimitMode mode;
+	private final long maxWaitNanos;
+	private final int maxQueued;
+	private final List<Limit> limits = new ArrayList<>();
+	private final Map<String, Limit> topicCache = new ConcurrentHashMap<>();
+	private final AtomicInteger queued = new AtomicInteger();
+	private final AtomicLong delayedCount = new AtomicLong();
+	private final AtomicLong rejectedCount = new AtomicLong();
+
+	public PublishRateLimiter(MqttProperties.RateLimit config) {
+		this.mode = config.getMode();
+		this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(config.getMaxWait());
+		this.maxQueued = config.getMaxQueued();
+
+		long burstNanos = TimeUnit.MILLISECONDS.toNanos(config.getBurstDuration());
+		for (MqttProperties.RateLimitRule rule : config.getRules()) {
+			org.eclipse.paho.client.mqttv3.MqttTopic.validate(rule.getTopic(), true);
+			limits.add(new Limit(rule.getTopic(), createBucket(rule.getMessagesPerSecond(), burstNanos), createBucket(rule.getBytesPerSecond(), burstNanos)));
+		}
+		if (limits.isEmpty()) {
+			limits.add(new Limit("#", createBucket(config.getMessagesPerSecond(), burstNanos), createBucket(config.getBytesPerSecond(), burstNanos)));
+		}
+	}
+
+	private static TokenBucket createBucket(double rate, long burstNanos) {
+		return rate > 0 ? new TokenBucket(rate, burstNanos) : null;
+	}
+
+	/**
+	 * 为一条消息预留令牌
+	 * <p>
+	 * 快速失败模式下令牌不足立即抛出异常；其他模式预留令牌并返回需要等待的时间，等待时间超过上限时归还令牌并抛出异常
+	 * 
+	 * @param topic 主题
+	 * @param bytes 消息负载字节数
+	 * @return 需要等待的纳秒数，0 表示可以立即发送
+	 * @throws RateLimitExceededException 超出限流配额
+	 */
+	public long reserve(String topic, int bytes) {
+		Limit limit = resolve(topic);
+		if (limit == UNLIMITED) {
+			return 0;
+		}
+
+		long now = System.nanoTime();
+		if (mode == RateLimitMode.FAIL_FAST) {
+			if (limit.messages != null && !limit.messages.tryAcquire(1, now)) {
+				throw reject(topic, "message rate");
+			}
+			if (limit.bytes != null && !limit.bytes.tryAcquire(bytes, now)) {
+				if (limit.messages != null) {
+					limit.messages.refund(1);
+				}
+				throw reject(topic, "byte rate");
+			}
+			return 0;
+		}
+
+		long wait = 0;
+		if (limit.messages != null) {
+			wait = limit.messages.reserve(1, now);
+		}
+		if (limit.bytes != null) {
+			wait = Math.max(wait, limit.bytes.reserve(bytes, now));
+		}
+		if (wait > maxWaitNanos) {
+			refund(limit, bytes);
+			throw reject(topic, "max wait");
+		}
+		return wait;
+	}
+
+	/**
+	 * 延迟执行发布任务，延迟队列已满时归还令牌并抛出异常
+	 */
+	public void enqueue(String topic, int bytes, long delayNanos, Runnable task) {
+		if (queued.incrementAndGet() > maxQueued) {
+			queued.decrementAndGet();
+			refund(resolve(topic), bytes);
+			throw reject(topic, "queue capacity");
+		}
+
+		try {
+			RetryTemplate.getScheduler().schedule(() -> {
+				queued.decrementAndGet();
+				task.run();
+			}, delayNanos, TimeUnit.NANOSECONDS);
+			delayedCount.incrementAndGet();
+		} catch (RejectedExecutionException e) {
+			queued.decrementAndGet();
+			refund(resolve(topic), bytes);
+			throw new RateLimitExceededException("Rate limit scheduler rejected message for topic: " + topic, e);
+		}
+	}
+
+	/**
+	 * 阻塞等待指定的纳秒数
+	 * 
+	 * @throws RateLimitExceededException 等待期间线程被中断
+	 */
+	public void await(long nanos) {
+		delayedCount.incrementAndGet();
+		long deadline = System.nanoTime() + nanos;
+		long remaining = nanos;
+		while (remaining > 0) {
+			LockSupport.parkNanos(this, remaining);
+			if (Thread.interrupted()) {
+				Thread.currentThread().interrupt();
+				throw new RateLimitExceededException("Interrupted while waiting for rate limit permit");
+			}
+			remaining = deadline - System.nanoTime();
+		}
+	}
+
+	private void refund(Limit limit, int bytes) {
+		if (limit.messages != null) {
+			limit.messages.refund(1);
+		}
+		if (limit.bytes != null) {
+			limit.bytes.refund(bytes);
+		}
+	}
+
+	private RateLimitExceededException reject(String topic, String reason) {
+		rejectedCount.incrementAndGet();
+		logger.debug("Publish rate limit exceeded ({}) for topic: {}", reason, topic);
+		return new RateLimitExceededException("Publish rate limit exceeded (" + reason + ") for topic: " + topic);
+	}
+
+	/**
+	 * 查找主题对应的限流规则
+	 */
+	private Limit resolve(String topic) {
+		Limit limit = topicCache.get(topic);
+		if (limit != null) {
+			return limit;
+		}
+
+		limit = UNLIMITED;
+		for (Limit candidate : limits) {
+			if (org.eclipse.paho.client.mqttv3.MqttTopic.isMatched(candidate.filter, topic)) {
+				limit = candidate.messages == null && candidate.bytes == null ? UNLIMITED : candidate;
+				break;
+			}
+		}
+
+		if (topicCache.size() >= MAX_CACHED_TOPICS) {
+			topicCache.clear();
+		}
+		topicCache.put(topic, limit);
+		return limit;
+	}
+
+	public RateLimitMode getMode() {
+		return mode;
+	}
+
+	/**
+	 * 当前等待延迟发送的消息数
+	 */
+	public int getQueuedCount() {
+		return queued.get();
+	}
+
+	/**
+	 * 被延迟（阻塞或排队）的消息总数
+	 */
+	public long getDelayedCount() {
+		return delayedCount.get();
+	}
+
+	/**
+	 * 被拒绝的消息总数
+	 */
+	public long getRejectedCount() {
+		return rejectedCount.get();
+	}
+
+	private static class Limit {
+		private final String filter;
+		private final TokenBucket messages;
+		private final TokenBucket bytes;
+
+		Limit(String filter, TokenBucket messages, TokenBucket bytes) {
+			this.filter = filter;
+			this.messages = messages;
+			this.bytes = bytes;
+		}
+	}
+}
@@ -0,0 +1,23 @@
+package cn.alotus.mqtt.ratelimit;
+
+/**
+ * 发布限流异常，快速失败模式下无可用令牌、等待时间超过上限或延迟队列已满时抛出
+ * 
+ * @author alotuser
+ * @since 2026/10/16
+ */
+public class RateLimitExceededException extends RuntimeException {
+
+	/**
+	 * 
+	 */
+	private static final long serialVersionUID = 1L;
+
+	public RateLimitExceededException(String message) {
+		super(message);
+	}
+
+	public RateLimitExceededException(String message, Throwable cause) {
+		super(message, cause);
+	}
+}
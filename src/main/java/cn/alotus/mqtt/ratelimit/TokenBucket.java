@@ -0,0 +1,75 @@
+package cn.alotus.mqtt.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 无锁令牌桶，基于 GCRA（通用信元速率算法）实现
+ * <p>
+ * 桶状态只有一个理论到达时间（TAT），获取令牌通过一次 CAS 推进 TAT 完成，不使用锁。 单次请求超过桶容量时在桶满时放行，并按实际数量记入欠账，使长期速率仍然受限
+ * 
+ * @author alotuser
+ * @since 2026/10/16
+ */
+public class TokenBucket {
+
+	private final double nanosPerPermit;
+	private final long capacityNanos;
+	private final AtomicLong theoreticalArrival;
+
+	/**
+	 * @param permitsPerSecond 每秒产生的令牌数
+	 * @param burstNanos       桶容量对应的时长（纳秒），即允许以该时长的配额进行突发
+	 */
+	public TokenBucket(double permitsPerSecond, long burstNanos) {
+		if (permitsPerSecond <= 0) {
+			throw new IllegalArgumentException("permitsPerSecond must be positive");
+		}
+		this.nanosPerPermit = 1_000_000_000d / permitsPerSecond;
+		this.capacityNanos = Math.max(0, burstNanos);
+		this.theoreticalArrival = new AtomicLong(System.nanoTime() - capacityNanos);
+	}
+
+	/**
+	 * 预留令牌，无论是否需要等待都会扣减
+	 * 
+	 * @return 调用方需要等待的纳秒数，0 表示可以立即发送
+	 */
+	public long reserve(long permits, long now) {
+		long cost = cost(permits);
+		while (true) {
+			long tat = theoreticalArrival.get();
+			long base = tat - now > 0 ? tat : now;
+			if (theoreticalArrival.compareAndSet(tat, base + cost)) {
+				return Math.max(0, base + Math.min(cost, capacityNanos) - capacityNanos - now);
+			}
+		}
+	}
+
+	/**
+	 * 尝试立即获取令牌，令牌不足时不扣减
+	 */
+	public boolean tryAcquire(long permits, long now) {
+		long cost = cost(permits);
+		while (true) {
+			long tat = theoreticalArrival.get();
+			long base = tat - now > 0 ? tat : now;
+			if (base + Math.min(cost, capacityNanos) - capacityNanos - now > 0) {
+				return false;
+			}
+			if (theoreticalArrival.compareAndSet(tat, base + cost)) {
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * 归还已预留的令牌
+	 */
+	public void refund(long permits) {
+		theoreticalArrival.addAndGet(-cost(permits));
+	}
+
+	private long cost(long permits) {
+		return (long) (permits * nanosPerPermit);
+	}
+}
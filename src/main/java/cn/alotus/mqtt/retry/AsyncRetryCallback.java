@@ -0,0 +1,25 @@
+package cn.alotus.mqtt.retry;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 异步重试回调接口，定义了需要重试的非阻塞操作
+ * 
+ * @author alotuser
+ * @since 2026/10/16
+ */
+@FunctionalInterface
+public interface AsyncRetryCallback<T> {
+
+	/**
+	 * 发起一次操作，返回的 Future 异常完成即视为本次尝试失败
+	 */
+	CompletableFuture<T> doWithRetryAsync();
+
+	/**
+	 * 获取上下文数据
+	 */
+	default Object getContextData() {
+		return null;
+	}
+}
@@ -8,7 +8,7 @@ package cn.alotus.mqtt.retry;
  */
 public enum RetryPolicyType {
 
-	CONNECT("connect"), PUBLISH("publish");
+	CONNECT("connect"), PUBLISH("publish"), CONSUME("consume");
 
 	private final String name;
 
@@ -31,6 +31,10 @@ public enum RetryPolicyType {
 	public boolean isPublish() {
 		return this == PUBLISH;
 	}
+
+	public boolean isConsume() {
+		return this == CONSUME;
+	}
 	
 	/**
 	 * 根据名称获取枚举值
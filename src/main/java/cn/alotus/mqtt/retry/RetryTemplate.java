@@ -1,6 +1,14 @@
 package cn.alotus.mqtt.retry;
 
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -53,9 +61,153 @@ public class RetryTemplate {
 	}
 
 	/**
-	 * 异步执行带重试的操作
+	 * 异步执行带重试的操作，每次尝试在共享的工作线程池上执行，退避等待由共享定时器完成，阻塞的回调不会占用定时器线程
 	 */
 	public static <T> CompletableFuture<T> executeAsync(RetryPolicy retryPolicy, RetryCallback<T> retryCallback) {
-		return CompletableFuture.supplyAsync(() -> execute(retryPolicy, retryCallback));
+		return executeAsync(retryPolicy, retryCallback, getWorkerExecutor(), getScheduler());
+	}
+
+	/**
+	 * 异步执行带重试的操作，每次尝试和退避等待都在指定调度器上完成
+	 */
+	public static <T> CompletableFuture<T> executeAsync(RetryPolicy retryPolicy, RetryCallback<T> retryCallback, ScheduledExecutorService scheduler) {
+		return executeAsync(retryPolicy, retryCallback, scheduler, scheduler);
+	}
+
+	/**
+	 * 异步执行带重试的操作，每次尝试在 worker 上执行，退避等待由 scheduler 完成
+	 */
+	public static <T> CompletableFuture<T> executeAsync(RetryPolicy retryPolicy, RetryCallback<T> retryCallback, Executor worker, ScheduledExecutorService scheduler) {
+		return executeAsync(retryPolicy, new AsyncRetryCallback<T>() {
+			@Override
+			public CompletableFuture<T> doWithRetryAsync() {
+				CompletableFuture<T> future = new CompletableFuture<>();
+				worker.execute(() -> {
+					try {
+						future.complete(retryCallback.doWithRetry());
+					} catch (Throwable e) {
+						future.completeExceptionally(e);
+					}
+				});
+				return future;
+			}
+
+			@Override
+			public Object getContextData() {
+				return retryCallback.getContextData();
+			}
+		}, scheduler);
+	}
+
+	/**
+	 * 异步执行带重试的非阻塞操作，退避等待由共享定时器完成
+	 */
+	public static <T> CompletableFuture<T> executeAsync(RetryPolicy retryPolicy, AsyncRetryCallback<T> retryCallback) {
+		return executeAsync(retryPolicy, retryCallback, getScheduler());
+	}
+
+	/**
+	 * 异步执行带重试的非阻塞操作，退避等待由指定调度器完成
+	 * <p>
+	 * 所有尝试失败后，返回的 Future 以 {@link RetryExhaustedException} 异常完成
+	 */
+	public static <T> CompletableFuture<T> executeAsync(RetryPolicy retryPolicy, AsyncRetryCallback<T> retryCallback, ScheduledExecutorService scheduler) {
+		CompletableFuture<T> result = new CompletableFuture<>();
+		attemptAsync(retryPolicy, retryCallback, scheduler, 1, System.currentTimeMillis(), result);
+		return result;
+	}
+
+	/**
+	 * 发起一次异步尝试，失败且允许重试时在调度器上安排下一次尝试
+	 */
+	private static <T> void attemptAsync(RetryPolicy retryPolicy, AsyncRetryCallback<T> retryCallback, ScheduledExecutorService scheduler, int attemptCount, long firstAttemptTime, CompletableFuture<T> result) {
+		CompletableFuture<T> attempt;
+		try {
+			attempt = retryCallback.doWithRetryAsync();
+		} catch (Throwable e) {
+			attempt = new CompletableFuture<>();
+			attempt.completeExceptionally(e);
+		}
+
+		attempt.whenComplete((value, ex) -> {
+			if (ex == null) {
+				result.complete(value);
+				return;
+			}
+
+			Exception e = unwrap(ex);
+			RetryContext context = new RetryContext(attemptCount, firstAttemptTime, e, retryCallback.getContextData());
+
+			if (!retryPolicy.canRetry(context)) {
+				logger.error("Operation failed after {} attempts", attemptCount, e);
+				result.completeExceptionally(new RetryExhaustedException("Retry exhausted after " + attemptCount + " attempts", e));
+				return;
+			}
+
+			long waitTime = retryPolicy.getNextRetryInterval(context);
+			retryPolicy.beforeRetry(context);
+
+			try {
+				scheduler.schedule(() -> attemptAsync(retryPolicy, retryCallback, scheduler, attemptCount + 1, firstAttemptTime, result), waitTime, TimeUnit.MILLISECONDS);
+			} catch (Exception rejected) {
+				result.completeExceptionally(new RetryExhaustedException("Retry scheduler rejected attempt " + (attemptCount + 1), rejected));
+			}
+		});
+	}
+
+	/**
+	 * 解包 CompletableFuture 回调中的异常
+	 */
+	private static Exception unwrap(Throwable ex) {
+		Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+		return cause instanceof Exception ? (Exception) cause : new RuntimeException(cause);
+	}
+
+	/**
+	 * 获取共享的重试调度器
+	 */
+	public static ScheduledExecutorService getScheduler() {
+		return SchedulerHolder.SCHEDULER;
+	}
+
+	/**
+	 * 获取执行阻塞重试回调的共享工作线程池，线程按需创建，空闲 60 秒后回收
+	 */
+	public static ExecutorService getWorkerExecutor() {
+		return WorkerHolder.WORKER;
+	}
+
+	/**
+	 * 共享调度器延迟初始化，线程数取 CPU 核数且不少于 2，所有线程均为守护线程
+	 */
+	private static class SchedulerHolder {
+		private static final ScheduledExecutorService SCHEDULER = createScheduler();
+
+		private static ScheduledExecutorService createScheduler() {
+			AtomicInteger counter = new AtomicInteger();
+			ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(Math.max(2, Runtime.getRuntime().availableProcessors()), r -> {
+				Thread t = new Thread(r, "mqtt-retry-timer-" + counter.incrementAndGet());
+				t.setDaemon(true);
+				return t;
+			});
+			executor.setRemoveOnCancelPolicy(true);
+			return executor;
+		}
+	}
+
+	/**
+	 * 共享工作线程池延迟初始化，所有线程均为守护线程
+	 */
+	private static class WorkerHolder {
+		private static final ExecutorService WORKER = createWorker();
+
+		private static ExecutorService createWorker() {
+			AtomicInteger counter = new AtomicInteger();
+			return Executors.newCachedThreadPool(r -> {
+				Thread t = new Thread(r, "mqtt-retry-worker-" + counter.incrementAndGet());
+				t.setDaemon(true);
+				return t;
+			});
+		}
 	}
 }
@@ -0,0 +1,27 @@
+package cn.alotus.mqtt.store;
+
+/**
+ * 日志记录，包含记录数据及其写入时间
+ * 
+ * @author alotuser
+ * @since 2026/10/16
+ */
+public class JournalRecord {
+
+	private final byte[] data;
+	private final long timestamp;
+
+	public JournalRecord(byte[] data, long timestamp) {
+		this.data = data;
+		this.timestamp = timestamp;
+	}
+
+	// getters
+	public byte[] getData() {
+		return data;
+	}
+
+	public long getTimestamp() {
+		return timestamp;
+	}
+}
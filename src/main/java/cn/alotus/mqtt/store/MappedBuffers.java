@@ -0,0 +1,53 @@
+package cn.alotus.mqtt.store;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.MappedByteBuffer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 内存映射缓冲区工具类，用于在关闭文件时尽早释放映射，避免依赖 GC 回收
+ * 
+ * @author alotuser
+ * @since 2026/10/16
+ */
+final class MappedBuffers {
+
+	private static final Logger logger = LoggerFactory.getLogger(MappedBuffers.class);
+
+	private MappedBuffers() {
+	}
+
+	/**
+	 * 释放内存映射，失败时忽略并交由 GC 回收。释放后不得再访问该缓冲区
+	 */
+	static void unmap(MappedByteBuffer buffer) {
+		if (buffer == null || !buffer.isDirect()) {
+			return;
+		}
+		try {
+			// JDK 9+
+			Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+			Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", java.nio.ByteBuffer.class);
+			Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+			theUnsafe.setAccessible(true);
+			invokeCleaner.invoke(theUnsafe.get(null), buffer);
+		} catch (NoSuchMethodException e) {
+			try {
+				// JDK 8
+				Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+				cleanerMethod.setAccessible(true);
+				Object cleaner = cleanerMethod.invoke(buffer);
+				if (cleaner != null) {
+					cleaner.getClass().getMethod("clean").invoke(cleaner);
+				}
+			} catch (Exception ex) {
+				logger.debug("Unable to unmap buffer, leaving it to GC", ex);
+			}
+		} catch (Exception e) {
+			logger.debug("Unable to unmap buffer, leaving it to GC", e);
+		}
+	}
+}
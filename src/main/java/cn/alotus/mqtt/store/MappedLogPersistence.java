@@ -0,0 +1,512 @@
+package cn.alotus.mqtt.store;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+import org.eclipse.paho.client.mqttv3.MqttClientPersistence;
+import org.eclipse.paho.client.mqttv3.MqttPersistable;
+import org.eclipse.paho.client.mqttv3.MqttPersistenceException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 基于内存映射日志的 Paho 持久化实现，用于在进程重启后保留 QoS 1/2 在途消息
+ * <p>
+ * 所有写入和删除都以记录形式追加到单个内存映射日志文件中，内存中保留完整索引以便快速读取；
+ * 刷盘（fsync）由后台线程按固定间隔批量执行，日志中失效数据超过一半且达到阈值时执行压缩重写。
+ * 进程崩溃时已写入映射区的数据由操作系统落盘，只有操作系统崩溃才可能丢失最后一个刷盘间隔内的数据
+ * 
+ * @author alotuser
+ * @since 2026/10/16
+ */
+public class MappedLogPersistence implements MqttClientPersistence {
+
+	private static final Logger logger = LoggerFactory.getLogger(MappedLogPersistence.class);
+
+	private static final String LOG_FILE = "data.log";
+	private static final String COMPACT_FILE = "data.log.compact";
+	private static final String LOCK_FILE = ".lck";
+
+	private static final byte TYPE_PUT = 1;
+	private static final byte TYPE_REMOVE = 2;
+
+	/**
+	 * 记录头：体长度 int + CRC32 int
+	 */
+	private static final int RECORD_HEADER_SIZE = 8;
+
+	private final File baseDirectory;
+	private final long syncInterval;
+	private final int initialSize;
+	private final long compactThreshold;
+
+	private final Map<String, Entry> index = new HashMap<>();
+	private final CRC32 crc = new CRC32();
+	private byte[] scratch = new byte[1024];
+
+	private File directory;
+	private RandomAccessFile logFile;
+	private MappedByteBuffer log;
+	private int writePosition;
+	private long liveBytes;
+	private boolean dirty;
+	private RandomAccessFile lockFile;
+	private FileLock lock;
+	private ScheduledExecutorService syncExecutor;
+
+	/**
+	 * @param baseDirectory    持久化根目录，每个客户端在其下使用独立子目录
+	 * @param syncInterval     刷盘间隔（毫秒），小于等于 0 表示每次写入后立即刷盘
+	 * @param initialSize      日志文件初始大小（字节）
+	 * @param compactThreshold 触发压缩的日志大小阈值（字节）
+	 */
+	public MappedLogPersistence(String baseDirectory, long syncInterval, int initialSize, long compactThreshold) {
+		this.baseDirectory = new File(baseDirectory);
+		this.syncInterval = syncInterval;
+		this.initialSize = Math.max(initialSize, 4096);
+		this.compactThreshold = compactThreshold;
+	}
+
+	@Override
+	public synchronized void open(String clientId, String serverURI) throws MqttPersistenceException {
+		if (log != null) {
+			return;
+		}
+
+		directory = new File(baseDirectory, sanitize(clientId + "-" + serverURI));
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			throw new MqttPersistenceException(new IOException("Cannot create persistence directory: " + directory));
+		}
+
+		try {
+			lockFile = new RandomAccessFile(new File(directory, LOCK_FILE), "rw");
+			try {
+				lock = lockFile.getChannel().tryLock();
+			} catch (OverlappingFileLockException e) {
+				lock = null;
+			}
+			if (lock == null) {
+				lockFile.close();
+				throw new MqttPersistenceException(MqttPersistenceException.REASON_CODE_PERSISTENCE_IN_USE);
+			}
+
+			// 上次压缩未完成时，原日志仍然完整，丢弃半成品即可
+			Files.deleteIfExists(new File(directory, COMPACT_FILE).toPath());
+
+			mapLog(initialSize);
+			replay();
+		} catch (IOException e) {
+			throw new MqttPersistenceException(e);
+		}
+
+		if (syncInterval > 0) {
+			syncExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+				Thread t = new Thread(r, "mqtt-persistence-sync");
+				t.setDaemon(true);
+				return t;
+			});
+			syncExecutor.scheduleWithFixedDelay(this::sync, syncInterval, syncInterval, TimeUnit.MILLISECONDS);
+		}
+
+		logger.info("Opened MQTT persistence {} with {} entries", directory, index.size());
+	}
+
+	@Override
+	public void close() throws MqttPersistenceException {
+		ScheduledExecutorService executor;
+		synchronized (this) {
+			executor = syncExecutor;
+			syncExecutor = null;
+		}
+		if (executor != null) {
+			executor.shutdown();
+		}
+
+		synchronized (this) {
+			if (log == null) {
+				return;
+			}
+			try {
+				log.force();
+				unmapLog();
+				if (lock != null) {
+					lock.release();
+				}
+				lockFile.close();
+			} catch (IOException e) {
+				throw new MqttPersistenceException(e);
+			} finally {
+				index.clear();
+				log = null;
+			}
+		}
+	}
+
+	@Override
+	public synchronized void put(String key, MqttPersistable persistable) throws MqttPersistenceException {
+		checkOpen();
+		byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+		int headerLength = persistable.getHeaderLength();
+		byte[] payloadBytes = persistable.getPayloadBytes();
+		int payloadLength = payloadBytes == null ? 0 : persistable.getPayloadLength();
+
+		int bodyLength = 1 + 2 + keyBytes.length + 4 + headerLength + 4 + payloadLength;
+		ByteBuffer body = scratch(bodyLength);
+		body.put(TYPE_PUT);
+		body.putShort((short) keyBytes.length);
+		body.put(keyBytes);
+		body.putInt(headerLength);
+		body.put(persistable.getHeaderBytes(), persistable.getHeaderOffset(), headerLength);
+		body.putInt(payloadLength);
+		if (payloadLength > 0) {
+			body.put(payloadBytes, persistable.getPayloadOffset(), payloadLength);
+		}
+
+		Entry entry = new Entry(copy(persistable.getHeaderBytes(), persistable.getHeaderOffset(), headerLength),
+				copy(payloadBytes, persistable.getPayloadOffset(), payloadLength), RECORD_HEADER_SIZE + bodyLength);
+		appendRecord(bodyLength);
+
+		Entry previous = index.put(key, entry);
+		if (previous != null) {
+			liveBytes -= previous.recordSize;
+		}
+		liveBytes += entry.recordSize;
+	}
+
+	@Override
+	public synchronized MqttPersistable get(String key) throws MqttPersistenceException {
+		checkOpen();
+		return index.get(key);
+	}
+
+	@Override
+	public synchronized void remove(String key) throws MqttPersistenceException {
+		checkOpen();
+		Entry previous = index.remove(key);
+		if (previous == null) {
+			return;
+		}
+		liveBytes -= previous.recordSize;
+
+		byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+		int bodyLength = 1 + 2 + keyBytes.length;
+		ByteBuffer body = scratch(bodyLength);
+		body.put(TYPE_REMOVE);
+		body.putShort((short) keyBytes.length);
+		body.put(keyBytes);
+		appendRecord(bodyLength);
+
+		if (writePosition >= compactThreshold && liveBytes * 2 < writePosition) {
+			compact();
+		}
+	}
+
+	@Override
+	public synchronized Enumeration<String> keys() throws MqttPersistenceException {
+		checkOpen();
+		return Collections.enumeration(new ArrayList<>(index.keySet()));
+	}
+
+	@Override
+	public synchronized void clear() throws MqttPersistenceException {
+		checkOpen();
+		index.clear();
+		liveBytes = 0;
+		try {
+			unmapLog();
+			new File(directory, LOG_FILE).delete();
+			mapLog(initialSize);
+			writePosition = 0;
+			dirty = false;
+		} catch (IOException e) {
+			throw new MqttPersistenceException(e);
+		}
+	}
+
+	@Override
+	public synchronized boolean containsKey(String key) throws MqttPersistenceException {
+		checkOpen();
+		return index.containsKey(key);
+	}
+
+	/**
+	 * 将映射区中尚未落盘的数据刷写到磁盘
+	 */
+	public synchronized void sync() {
+		if (log != null && dirty) {
+			log.force();
+			dirty = false;
+		}
+	}
+
+	/**
+	 * 将 scratch 中已准备好的记录体追加到日志
+	 */
+	private void appendRecord(int bodyLength) throws MqttPersistenceException {
+		int recordSize = RECORD_HEADER_SIZE + bodyLength;
+		try {
+			if (writePosition + recordSize > log.capacity()) {
+				if (liveBytes * 2 < writePosition) {
+					compact();
+				}
+				if (writePosition + recordSize > log.capacity()) {
+					long capacity = log.capacity();
+					while (writePosition + recordSize > capacity) {
+						capacity *= 2;
+					}
+					if (capacity > Integer.MAX_VALUE) {
+						throw new MqttPersistenceException(new IOException("Persistence log exceeds maximum size"));
+					}
+					unmapLog();
+					mapLog((int) capacity);
+				}
+			}
+		} catch (IOException e) {
+			throw new MqttPersistenceException(e);
+		}
+
+		crc.reset();
+		crc.update(scratch, 0, bodyLength);
+
+		int position = writePosition;
+		log.putInt(position + 4, (int) crc.getValue());
+		ByteBuffer target = log.duplicate();
+		target.position(position + RECORD_HEADER_SIZE);
+		target.put(scratch, 0, bodyLength);
+		log.putInt(position, bodyLength);
+		writePosition = position + recordSize;
+
+		dirty = true;
+		if (syncInterval <= 0) {
+			sync();
+		}
+	}
+
+	/**
+	 * 重放日志重建索引，遇到不完整或校验失败的记录时截断
+	 */
+	private void replay() {
+		int position = 0;
+		int capacity = log.capacity();
+		while (position + RECORD_HEADER_SIZE <= capacity) {
+			int bodyLength = log.getInt(position);
+			if (bodyLength <= 0 || position + RECORD_HEADER_SIZE + bodyLength > capacity) {
+				break;
+			}
+			ByteBuffer body = log.duplicate();
+			body.position(position + RECORD_HEADER_SIZE);
+			body.limit(position + RECORD_HEADER_SIZE + bodyLength);
+			crc.reset();
+			crc.update(body.duplicate());
+			if ((int) crc.getValue() != log.getInt(position + 4)) {
+				logger.warn("Truncating corrupted MQTT persistence record at offset {} in {}", position, directory);
+				break;
+			}
+
+			byte type = body.get();
+			byte[] keyBytes = new byte[body.getShort() & 0xFFFF];
+			body.get(keyBytes);
+			String key = new String(keyBytes, StandardCharsets.UTF_8);
+			int recordSize = RECORD_HEADER_SIZE + bodyLength;
+
+			if (type == TYPE_PUT) {
+				byte[] header = new byte[body.getInt()];
+				body.get(header);
+				byte[] payload = new byte[body.getInt()];
+				body.get(payload);
+				Entry previous = index.put(key, new Entry(header, payload, recordSize));
+				if (previous != null) {
+					liveBytes -= previous.recordSize;
+				}
+				liveBytes += recordSize;
+			} else {
+				Entry previous = index.remove(key);
+				if (previous != null) {
+					liveBytes -= previous.recordSize;
+				}
+			}
+			position += recordSize;
+		}
+
+		writePosition = position;
+		// 清除截断位置之后的残留数据，避免与后续写入混淆
+		for (int i = position; i < Math.min(capacity, position + RECORD_HEADER_SIZE); i++) {
+			log.put(i, (byte) 0);
+		}
+	}
+
+	/**
+	 * 只保留有效条目重写日志
+	 */
+	private void compact() throws MqttPersistenceException {
+		File compactFile = new File(directory, COMPACT_FILE);
+		long start = System.nanoTime();
+		int before = writePosition;
+		try {
+			int capacity = Math.max(initialSize, (int) Math.min(Integer.MAX_VALUE, liveBytes * 2));
+			try (RandomAccessFile raf = new RandomAccessFile(compactFile, "rw")) {
+				raf.setLength(capacity);
+				MappedByteBuffer target = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+				int position = 0;
+				// 压缩可能发生在追加记录的过程中，此时 scratch 中保存着待写入的记录体，不能复用
+				ByteBuffer body = ByteBuffer.allocate(1024);
+				for (Map.Entry<String, Entry> e : index.entrySet()) {
+					byte[] keyBytes = e.getKey().getBytes(StandardCharsets.UTF_8);
+					Entry entry = e.getValue();
+					int bodyLength = 1 + 2 + keyBytes.length + 4 + entry.header.length + 4 + entry.payload.length;
+					if (body.capacity() < bodyLength) {
+						body = ByteBuffer.allocate(Math.max(bodyLength, body.capacity() * 2));
+					}
+					body.clear();
+					body.put(TYPE_PUT);
+					body.putShort((short) keyBytes.length);
+					body.put(keyBytes);
+					body.putInt(entry.header.length);
+					body.put(entry.header);
+					body.putInt(entry.payload.length);
+					body.put(entry.payload);
+
+					crc.reset();
+					crc.update(body.array(), 0, bodyLength);
+					target.putInt(position + 4, (int) crc.getValue());
+					ByteBuffer dst = target.duplicate();
+					dst.position(position + RECORD_HEADER_SIZE);
+					dst.put(body.array(), 0, bodyLength);
+					target.putInt(position, bodyLength);
+					position += RECORD_HEADER_SIZE + bodyLength;
+				}
+				target.force();
+				MappedBuffers.unmap(target);
+				writePosition = position;
+			}
+
+			unmapLog();
+			Files.move(compactFile.toPath(), new File(directory, LOG_FILE).toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			int newWritePosition = writePosition;
+			mapLog(capacity);
+			writePosition = newWritePosition;
+			liveBytes = newWritePosition;
+			dirty = false;
+		} catch (IOException e) {
+			throw new MqttPersistenceException(e);
+		}
+		logger.debug("Compacted MQTT persistence {} from {} to {} bytes in {} us", directory, before, writePosition, TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+	}
+
+	private void mapLog(int minCapacity) throws IOException {
+		logFile = new RandomAccessFile(new File(directory, LOG_FILE), "rw");
+		if (logFile.length() < minCapacity) {
+			logFile.setLength(minCapacity);
+		}
+		log = logFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, logFile.length());
+	}
+
+	private void unmapLog() throws IOException {
+		if (log != null) {
+			log.force();
+			MappedBuffers.unmap(log);
+		}
+		if (logFile != null) {
+			logFile.close();
+			logFile = null;
+		}
+	}
+
+	private ByteBuffer scratch(int size) {
+		if (scratch.length < size) {
+			scratch = new byte[Math.max(size, scratch.length * 2)];
+		}
+		return ByteBuffer.wrap(scratch, 0, size);
+	}
+
+	private void checkOpen() throws MqttPersistenceException {
+		if (log == null) {
+			throw new MqttPersistenceException();
+		}
+	}
+
+	private static byte[] copy(byte[] source, int offset, int length) {
+		byte[] target = new byte[length];
+		if (length > 0) {
+			System.arraycopy(source, offset, target, 0, length);
+		}
+		return target;
+	}
+
+	/**
+	 * 去除客户端 ID 和服务器地址中不适合作为目录名的字符
+	 */
+	private static String sanitize(String name) {
+		StringBuilder sb = new StringBuilder(name.length());
+		for (int i = 0; i < name.length(); i++) {
+			char c = name.charAt(i);
+			if (Character.isLetterOrDigit(c) || c == '-' || c == '_' || c == '.') {
+				sb.append(c);
+			}
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * 索引条目，同时作为 get 返回的持久化对象
+	 */
+	private static class Entry implements MqttPersistable {
+		private final byte[] header;
+		private final byte[] payload;
+		private final int recordSize;
+
+		Entry(byte[] header, byte[] payload, int recordSize) {
+			this.header = header;
+			this.payload = payload;
+			this.recordSize = recordSize;
+		}
+
+		@Override
+		public byte[] getHeaderBytes() {
+			return header;
+		}
+
+		@Override
+		public int getHeaderLength() {
+			return header.length;
+		}
+
+		@Override
+		public int getHeaderOffset() {
+			return 0;
+		}
+
+		@Override
+		public byte[] getPayloadBytes() {
+			return payload;
+		}
+
+		@Override
+		public int getPayloadLength() {
+			return payload.length;
+		}
+
+		@Override
+		public int getPayloadOffset() {
+			return 0;
+		}
+	}
+}
@@ -0,0 +1,416 @@
+package cn.alotus.mqtt.store;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 基于内存映射文件的追加写分段日志，按写入顺序保存变长记录，并持久化读取位置
+ * <p>
+ * 日志由若干固定大小的段文件组成，写满后滚动到新段；已完全读取的段会被删除。
+ * 总大小超过上限时丢弃最旧的段，读取时跳过超过最大保留时间的记录。
+ * 每条记录格式为 [长度 int][时间戳 long][CRC32 int][数据]，长度最后写入，作为记录完整的标记
+ * 
+ * @author alotuser
+ * @since 2026/10/16
+ */
+public class MappedSegmentJournal implements Closeable {
+
+	private static final Logger logger = LoggerFactory.getLogger(MappedSegmentJournal.class);
+
+	/**
+	 * 记录头长度：长度 + 时间戳 + CRC32
+	 */
+	public static final int RECORD_HEADER_SIZE = 4 + 8 + 4;
+
+	private static final String SEGMENT_SUFFIX = ".seg";
+	private static final String CURSOR_FILE = "cursor.idx";
+	private static final int CURSOR_SIZE = 8 + 4;
+
+	private final File directory;
+	private final int segmentSize;
+	private final long maxSize;
+	private final long maxAge;
+
+	private final TreeMap<Long, Segment> segments = new TreeMap<>();
+	private final CRC32 crc = new CRC32();
+	private Segment writeSegment;
+	private final MappedByteBuffer cursorBuffer;
+	private final RandomAccessFile cursorFile;
+	private long readSegmentId;
+	private int readPosition;
+	private int peekedLength = -1;
+	private long peekedSegmentId;
+	private int peekedPosition;
+	private boolean peekEvicted = false;
+	private long droppedRecords = 0;
+	private boolean closed = false;
+
+	/**
+	 * @param directory   日志目录
+	 * @param segmentSize 单个段文件大小（字节）
+	 * @param maxSize     日志总大小上限（字节），超过时丢弃最旧的段
+	 * @param maxAge      记录最大保留时间（毫秒），小于等于 0 表示不限制
+	 */
+	public MappedSegmentJournal(File directory, int segmentSize, long maxSize, long maxAge) throws IOException {
+		if (segmentSize <= RECORD_HEADER_SIZE) {
+			throw new IllegalArgumentException("Journal segment size too small: " + segmentSize);
+		}
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			throw new IOException("Cannot create journal directory: " + directory);
+		}
+
+		this.directory = directory;
+		this.segmentSize = segmentSize;
+		this.maxSize = Math.max(maxSize, segmentSize);
+		this.maxAge = maxAge;
+
+		File[] files = directory.listFiles((dir, name) -> name.endsWith(SEGMENT_SUFFIX));
+		if (files != null) {
+			for (File file : files) {
+				String name = file.getName();
+				try {
+					long id = Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+					segments.put(id, Segment.open(id, file, file.length()));
+				} catch (NumberFormatException e) {
+					logger.warn("Ignoring unexpected file in journal directory: {}", file);
+				}
+			}
+		}
+		if (segments.isEmpty()) {
+			segments.put(0L, Segment.open(0L, segmentFile(0L), segmentSize));
+		}
+		writeSegment = segments.lastEntry().getValue();
+
+		cursorFile = new RandomAccessFile(new File(directory, CURSOR_FILE), "rw");
+		boolean newCursor = cursorFile.length() < CURSOR_SIZE;
+		cursorFile.setLength(CURSOR_SIZE);
+		cursorBuffer = cursorFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, CURSOR_SIZE);
+
+		readSegmentId = newCursor ? segments.firstKey() : cursorBuffer.getLong(0);
+		readPosition = newCursor ? 0 : cursorBuffer.getInt(8);
+		Segment readSegment = segments.get(readSegmentId);
+		if (readSegment == null) {
+			readSegmentId = segments.firstKey();
+			readPosition = 0;
+		} else if (readPosition > readSegment.writePosition) {
+			readPosition = readSegment.writePosition;
+		}
+		saveCursor();
+
+		logger.info("Opened journal {} with {} segments", directory, segments.size());
+	}
+
+	/**
+	 * 追加一条记录
+	 * 
+	 * @return 记录过大无法放入单个段时返回 false
+	 */
+	public synchronized boolean append(byte[] data) throws IOException {
+		return append(data, 0, data.length, System.currentTimeMillis());
+	}
+
+	/**
+	 * 追加一条记录
+	 * 
+	 * @return 记录过大无法放入单个段时返回 false
+	 */
+	public synchronized boolean append(byte[] data, int offset, int length, long timestamp) throws IOException {
+		ensureOpen();
+		if (length <= 0) {
+			throw new IllegalArgumentException("Journal record must not be empty");
+		}
+		int recordSize = RECORD_HEADER_SIZE + length;
+		if (recordSize > segmentSize) {
+			return false;
+		}
+		if (writeSegment.writePosition + recordSize > writeSegment.buffer.capacity()) {
+			roll();
+		}
+
+		crc.reset();
+		crc.update(data, offset, length);
+
+		MappedByteBuffer buffer = writeSegment.buffer;
+		int position = writeSegment.writePosition;
+		buffer.putLong(position + 4, timestamp);
+		buffer.putInt(position + 12, (int) crc.getValue());
+		ByteBuffer target = buffer.duplicate();
+		target.position(position + RECORD_HEADER_SIZE);
+		target.put(data, offset, length);
+		buffer.putInt(position, length);
+		writeSegment.writePosition = position + recordSize;
+		return true;
+	}
+
+	/**
+	 * 查看下一条未读记录但不移动读取位置，需调用 {@link #commit()} 确认消费
+	 * 
+	 * @return 下一条记录，没有时返回 null
+	 */
+	public synchronized JournalRecord peek() {
+		ensureOpen();
+		long now = System.currentTimeMillis();
+		while (true) {
+			Segment segment = segments.get(readSegmentId);
+			if (readPosition < segment.writePosition) {
+				MappedByteBuffer buffer = segment.buffer;
+				int length = buffer.getInt(readPosition);
+				long timestamp = buffer.getLong(readPosition + 4);
+
+				if (maxAge > 0 && now - timestamp > maxAge) {
+					readPosition += RECORD_HEADER_SIZE + length;
+					droppedRecords++;
+					saveCursor();
+					continue;
+				}
+
+				byte[] data = new byte[length];
+				ByteBuffer source = buffer.duplicate();
+				source.position(readPosition + RECORD_HEADER_SIZE);
+				source.get(data);
+				peekedLength = length;
+				peekedSegmentId = readSegmentId;
+				peekedPosition = readPosition;
+				peekEvicted = false;
+				return new JournalRecord(data, timestamp);
+			}
+
+			if (segment == writeSegment) {
+				return null;
+			}
+
+			// 当前段已读完，删除后切换到下一段
+			Long next = segments.higherKey(readSegmentId);
+			deleteSegment(segments.remove(readSegmentId));
+			readSegmentId = next;
+			readPosition = 0;
+			saveCursor();
+		}
+	}
+
+	/**
+	 * 确认消费上一次 {@link #peek()} 返回的记录
+	 * <p>
+	 * 查看之后记录所在的段因超过大小上限被丢弃时，读取位置已移到下一段，此时忽略本次确认
+	 */
+	public synchronized void commit() {
+		if (peekedLength < 0) {
+			if (peekEvicted) {
+				peekEvicted = false;
+				return;
+			}
+			throw new IllegalStateException("No peeked record to commit");
+		}
+		int length = peekedLength;
+		peekedLength = -1;
+		if (peekedSegmentId != readSegmentId || peekedPosition != readPosition) {
+			return;
+		}
+		readPosition += RECORD_HEADER_SIZE + length;
+		saveCursor();
+	}
+
+	/**
+	 * 读取并消费下一条记录
+	 * 
+	 * @return 下一条记录，没有时返回 null
+	 */
+	public synchronized JournalRecord poll() {
+		JournalRecord record = peek();
+		if (record != null) {
+			commit();
+		}
+		return record;
+	}
+
+	/**
+	 * 是否没有未读记录（不考虑过期）
+	 */
+	public synchronized boolean isEmpty() {
+		return segments.get(readSegmentId) == writeSegment && readPosition >= writeSegment.writePosition;
+	}
+
+	/**
+	 * 未读数据占用的字节数（含记录头）
+	 */
+	public synchronized long getPendingBytes() {
+		long pending = 0;
+		for (Segment segment : segments.tailMap(readSegmentId, true).values()) {
+			pending += segment.id == readSegmentId ? segment.writePosition - readPosition : segment.writePosition;
+		}
+		return pending;
+	}
+
+	/**
+	 * 因超过大小上限或保留时间而丢弃的未读记录数
+	 */
+	public synchronized long getDroppedRecords() {
+		return droppedRecords;
+	}
+
+	public File getDirectory() {
+		return directory;
+	}
+
+	/**
+	 * 将已写入的数据和读取位置刷写到磁盘
+	 */
+	public synchronized void flush() {
+		if (closed) {
+			return;
+		}
+		writeSegment.buffer.force();
+		cursorBuffer.force();
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		flush();
+		closed = true;
+		for (Segment segment : segments.values()) {
+			segment.close();
+		}
+		segments.clear();
+		MappedBuffers.unmap(cursorBuffer);
+		cursorFile.close();
+	}
+
+	/**
+	 * 滚动到新的段，并在总大小超限时丢弃最旧的段
+	 */
+	private void roll() throws IOException {
+		writeSegment.buffer.force();
+		long id = writeSegment.id + 1;
+		writeSegment = Segment.open(id, segmentFile(id), segmentSize);
+		segments.put(id, writeSegment);
+
+		while (segments.size() > 1 && (long) segments.size() * segmentSize > maxSize) {
+			Map.Entry<Long, Segment> oldest = segments.pollFirstEntry();
+			Segment segment = oldest.getValue();
+			if (segment.id == readSegmentId) {
+				droppedRecords += countRecords(segment, readPosition);
+				readSegmentId = segments.firstKey();
+				readPosition = 0;
+				saveCursor();
+				// 已查看但未确认的记录随段一起丢弃，之后的 commit() 不能再移动读取位置
+				if (peekedLength >= 0) {
+					peekedLength = -1;
+					peekEvicted = true;
+				}
+			} else if (segment.id > readSegmentId) {
+				droppedRecords += countRecords(segment, 0);
+			}
+			logger.warn("Journal {} exceeded max size {} bytes, dropping oldest segment {}", directory, maxSize, segment.id);
+			deleteSegment(segment);
+		}
+	}
+
+	private int countRecords(Segment segment, int from) {
+		int count = 0;
+		int position = from;
+		while (position < segment.writePosition) {
+			position += RECORD_HEADER_SIZE + segment.buffer.getInt(position);
+			count++;
+		}
+		return count;
+	}
+
+	private void deleteSegment(Segment segment) {
+		try {
+			segment.close();
+		} catch (IOException e) {
+			logger.warn("Failed to close journal segment {}", segment.file, e);
+		}
+		if (!segment.file.delete()) {
+			logger.warn("Failed to delete journal segment {}", segment.file);
+		}
+	}
+
+	private void saveCursor() {
+		cursorBuffer.putLong(0, readSegmentId);
+		cursorBuffer.putInt(8, readPosition);
+	}
+
+	private File segmentFile(long id) {
+		return new File(directory, String.format("%020d%s", id, SEGMENT_SUFFIX));
+	}
+
+	private void ensureOpen() {
+		if (closed) {
+			throw new IllegalStateException("Journal is closed: " + directory);
+		}
+	}
+
+	/**
+	 * 日志段
+	 */
+	private static class Segment {
+		private final long id;
+		private final File file;
+		private final RandomAccessFile raf;
+		private final MappedByteBuffer buffer;
+		private int writePosition;
+
+		private Segment(long id, File file, RandomAccessFile raf, MappedByteBuffer buffer) {
+			this.id = id;
+			this.file = file;
+			this.raf = raf;
+			this.buffer = buffer;
+		}
+
+		static Segment open(long id, File file, long size) throws IOException {
+			RandomAccessFile raf = new RandomAccessFile(file, "rw");
+			if (raf.length() < size) {
+				raf.setLength(size);
+			}
+			MappedByteBuffer buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, raf.length());
+			Segment segment = new Segment(id, file, raf, buffer);
+			segment.writePosition = segment.recover();
+			return segment;
+		}
+
+		/**
+		 * 扫描段内容，返回最后一条完整记录之后的位置
+		 */
+		private int recover() {
+			CRC32 checksum = new CRC32();
+			int position = 0;
+			int capacity = buffer.capacity();
+			while (position + RECORD_HEADER_SIZE <= capacity) {
+				int length = buffer.getInt(position);
+				if (length <= 0 || position + RECORD_HEADER_SIZE + length > capacity) {
+					break;
+				}
+				ByteBuffer data = buffer.duplicate();
+				data.position(position + RECORD_HEADER_SIZE);
+				data.limit(position + RECORD_HEADER_SIZE + length);
+				checksum.reset();
+				checksum.update(data);
+				if ((int) checksum.getValue() != buffer.getInt(position + 12)) {
+					break;
+				}
+				position += RECORD_HEADER_SIZE + length;
+			}
+			return position;
+		}
+
+		void close() throws IOException {
+			MappedBuffers.unmap(buffer);
+			raf.close();
+		}
+	}
+}
@@ -0,0 +1,34 @@
+package cn.alotus.mqtt.support;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * 虚拟线程支持
+ * <p>
+ * 该实现用于 JDK 21 以下的运行环境，始终返回不支持。JDK 21 及以上通过多版本 JAR 加载 META-INF/versions/21 下的同名实现
+ * 
+ * @author alotuser
+ * @since 2026/10/16
+ */
+public final class VirtualThreads {
+
+	private VirtualThreads() {
+	}
+
+	/**
+	 * 当前运行环境是否支持虚拟线程
+	 */
+	public static boolean isSupported() {
+		return false;
+	}
+
+	/**
+	 * 创建每个任务一个虚拟线程的执行器
+	 * 
+	 * @param namePrefix 线程名前缀
+	 * @throws UnsupportedOperationException 当前运行环境不支持虚拟线程
+	 */
+	public static ExecutorService newVirtualThreadPerTaskExecutor(String namePrefix) {
+		throw new UnsupportedOperationException("Virtual threads require JDK 21 or later");
+	}
+}
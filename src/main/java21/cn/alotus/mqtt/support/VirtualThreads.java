@@ -0,0 +1,32 @@
+package cn.alotus.mqtt.support;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 虚拟线程支持，JDK 21 及以上版本的实现
+ * 
+ * @author alotuser
+ * @since 2026/10/16
+ */
+public final class VirtualThreads {
+
+	private VirtualThreads() {
+	}
+
+	/**
+	 * 当前运行环境是否支持虚拟线程
+	 */
+	public static boolean isSupported() {
+		return true;
+	}
+
+	/**
+	 * 创建每个任务一个虚拟线程的执行器
+	 * 
+	 * @param namePrefix 线程名前缀
+	 */
+	public static ExecutorService newVirtualThreadPerTaskExecutor(String namePrefix) {
+		return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(namePrefix + "-", 0).factory());
+	}
+}
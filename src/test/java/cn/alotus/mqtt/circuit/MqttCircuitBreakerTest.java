@@ -0,0 +1,90 @@
+package cn.alotus.mqtt.circuit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import org.junit.jupiter.api.Test;
+
+import cn.alotus.mqtt.config.MqttProperties;
+
+/**
+ * @author alotuser
+ * @since 2026/10/16
+ */
+class MqttCircuitBreakerTest {
+
+	private static MqttCircuitBreaker breaker(long openDuration) {
+		MqttProperties.CircuitBreaker config = new MqttProperties.CircuitBreaker();
+		config.setFailureRateThreshold(50);
+		config.setMinimumCalls(4);
+		config.setWindowDuration(60_000);
+		config.setOpenDuration(openDuration);
+		return new MqttCircuitBreaker(config);
+	}
+
+	@Test
+	void opensWhenFailureRateReachesThreshold() {
+		MqttCircuitBreaker breaker = breaker(60_000);
+		for (int i = 0; i < 2; i++) {
+			breaker.onSuccess(breaker.tryAcquirePermission());
+		}
+		breaker.onError(breaker.tryAcquirePermission(), new RuntimeException());
+		assertEquals(CircuitState.CLOSED, breaker.getState());
+		breaker.onError(breaker.tryAcquirePermission(), new RuntimeException());
+		assertEquals(CircuitState.OPEN, breaker.getState());
+
+		assertEquals(MqttCircuitBreaker.REJECTED, breaker.tryAcquirePermission());
+		assertEquals(1, breaker.getRejectedCount());
+	}
+
+	@Test
+	void onlyTheProbeClosesHalfOpenBreaker() throws InterruptedException {
+		MqttCircuitBreaker breaker = breaker(10);
+		long inFlight = breaker.tryAcquirePermission();
+		breaker.onDisconnected(new RuntimeException("lost"));
+		Thread.sleep(20);
+
+		long probe = breaker.tryAcquirePermission();
+		assertNotEquals(MqttCircuitBreaker.REJECTED, probe);
+		assertEquals(CircuitState.HALF_OPEN, breaker.getState());
+		assertEquals(MqttCircuitBreaker.REJECTED, breaker.tryAcquirePermission());
+
+		// 熔断前放行的请求在半开期间成功，不能关闭熔断器
+		breaker.onSuccess(inFlight);
+		assertEquals(CircuitState.HALF_OPEN, breaker.getState());
+		breaker.onError(inFlight, new RuntimeException());
+		assertEquals(CircuitState.HALF_OPEN, breaker.getState());
+
+		breaker.onSuccess(probe);
+		assertEquals(CircuitState.CLOSED, breaker.getState());
+	}
+
+	@Test
+	void failedProbeReopens() throws InterruptedException {
+		MqttCircuitBreaker breaker = breaker(10);
+		breaker.onConnectFailed(new RuntimeException("refused"));
+		Thread.sleep(20);
+
+		long probe = breaker.tryAcquirePermission();
+		breaker.onError(probe, new RuntimeException());
+		assertEquals(CircuitState.OPEN, breaker.getState());
+		// 旧探测的结果不再生效
+		breaker.onSuccess(probe);
+		assertEquals(CircuitState.OPEN, breaker.getState());
+	}
+
+	@Test
+	void staleFailuresDoNotCountAfterReconnect() {
+		MqttCircuitBreaker breaker = breaker(60_000);
+		long before = breaker.tryAcquirePermission();
+		breaker.onDisconnected(null);
+		breaker.onConnected(true, "tcp://localhost:1883");
+		assertEquals(CircuitState.CLOSED, breaker.getState());
+		assertNotEquals(MqttCircuitBreaker.REJECTED, breaker.tryAcquireIfClosed());
+
+		for (int i = 0; i < 10; i++) {
+			breaker.onError(before, new RuntimeException());
+		}
+		assertEquals(CircuitState.CLOSED, breaker.getState());
+	}
+}
@@ -0,0 +1,77 @@
+package cn.alotus.mqtt.compress;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.zip.DataFormatException;
+
+import org.eclipse.paho.client.mqttv3.MqttMessage;
+import org.junit.jupiter.api.Test;
+
+import cn.alotus.mqtt.config.MqttProperties;
+
+/**
+ * @author alotuser
+ * @since 2026/10/16
+ */
+class CompressionPolicyTest {
+
+	private final PayloadCompressor compressor = new PayloadCompressor(2);
+
+	private CompressionPolicy policy(String filter) {
+		MqttProperties.CompressionRule rule = new MqttProperties.CompressionRule();
+		rule.setTopic(filter);
+		MqttProperties.Compression config = new MqttProperties.Compression();
+		config.setMinSize(16);
+		config.setRules(Collections.singletonList(rule));
+		return new CompressionPolicy(config, compressor);
+	}
+
+	private static byte[] compressible() {
+		byte[] payload = new byte[1024];
+		Arrays.fill(payload, (byte) 'a');
+		return payload;
+	}
+
+	@Test
+	void decompressedMessageKeepsFlags() throws DataFormatException {
+		CompressionPolicy policy = policy("telemetry/#");
+		byte[] payload = compressible();
+		MqttMessage received = new RedeliveredMessage(policy.compressIfNeeded("telemetry/a", payload));
+		received.setQos(1);
+		received.setRetained(true);
+		received.setId(42);
+
+		MqttMessage message = policy.decompressIfNeeded("telemetry/a", received);
+		assertArrayEquals(payload, message.getPayload());
+		assertEquals(1, message.getQos());
+		assertTrue(message.isRetained());
+		assertTrue(message.isDuplicate());
+		assertEquals(42, message.getId());
+	}
+
+	@Test
+	void leavesTopicsWithoutRuleUntouched() throws DataFormatException {
+		CompressionPolicy policy = policy("telemetry/#");
+		byte[] frame = policy.compressIfNeeded("telemetry/a", compressible());
+		assertTrue(PayloadCompressor.isCompressed(frame));
+
+		// 其他主题上恰好以魔数开头的二进制负载不被当作压缩帧
+		MqttMessage received = new MqttMessage(frame);
+		assertSame(received, policy.decompressIfNeeded("binary/a", received));
+		assertFalse(policy.matches("binary/a"));
+		assertSame(frame, policy.compressIfNeeded("binary/a", frame));
+	}
+
+	private static class RedeliveredMessage extends MqttMessage {
+		RedeliveredMessage(byte[] payload) {
+			super(payload);
+			setDuplicate(true);
+		}
+	}
+}
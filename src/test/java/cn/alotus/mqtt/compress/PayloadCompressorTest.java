@@ -0,0 +1,66 @@
+package cn.alotus.mqtt.compress;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.DataFormatException;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author alotuser
+ * @since 2026/10/16
+ */
+class PayloadCompressorTest {
+
+	private final PayloadCompressor compressor = new PayloadCompressor(2);
+
+	@Test
+	void roundTripsCompressiblePayload() throws DataFormatException {
+		StringBuilder json = new StringBuilder();
+		for (int i = 0; i < 200; i++) {
+			json.append("{\"sensor\":\"temperature\",\"value\":").append(i % 7).append("},");
+		}
+		byte[] payload = json.toString().getBytes(StandardCharsets.UTF_8);
+
+		for (int round = 0; round < 5; round++) {
+			byte[] compressed = compressor.compress(payload, 6);
+			assertTrue(PayloadCompressor.isCompressed(compressed));
+			assertTrue(compressed.length < payload.length);
+			assertArrayEquals(payload, compressor.decompress(compressed));
+		}
+	}
+
+	@Test
+	void keepsIncompressiblePayload() throws DataFormatException {
+		byte[] payload = new byte[256];
+		new Random(1).nextBytes(payload);
+		payload[0] = 1;
+
+		byte[] result = compressor.compress(payload, 6);
+		assertSame(payload, result);
+		assertFalse(PayloadCompressor.isCompressed(result));
+		assertSame(payload, compressor.decompress(result));
+	}
+
+	@Test
+	void roundTripsEmptyPayload() throws DataFormatException {
+		byte[] compressed = compressor.compress(new byte[0], 6);
+		assertArrayEquals(new byte[0], compressor.decompress(compressed));
+	}
+
+	@Test
+	void rejectsTruncatedFrame() {
+		byte[] payload = new byte[4096];
+		Arrays.fill(payload, (byte) 'x');
+		byte[] compressed = compressor.compress(payload, 6);
+		byte[] truncated = Arrays.copyOf(compressed, compressed.length / 2);
+		assertThrows(DataFormatException.class, () -> compressor.decompress(truncated));
+	}
+}
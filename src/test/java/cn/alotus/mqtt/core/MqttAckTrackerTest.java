@@ -0,0 +1,95 @@
+package cn.alotus.mqtt.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.eclipse.paho.client.mqttv3.IMqttClient;
+import org.eclipse.paho.client.mqttv3.MqttMessage;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author alotuser
+ * @since 2026/10/16
+ */
+class MqttAckTrackerTest {
+
+	private final List<Integer> acked = new CopyOnWriteArrayList<>();
+	private final AtomicInteger epoch = new AtomicInteger();
+
+	private final IMqttClient client = (IMqttClient) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { IMqttClient.class }, (proxy, method, args) -> {
+		if ("messageArrivedComplete".equals(method.getName())) {
+			acked.add((Integer) args[0]);
+			return null;
+		}
+		throw new UnsupportedOperationException(method.getName());
+	});
+
+	private static MqttMessage message(int id, int qos) {
+		MqttMessage message = new MqttMessage(new byte[] { 1 });
+		message.setId(id);
+		message.setQos(qos);
+		return message;
+	}
+
+	@Test
+	void acknowledgesAfterListenerReturns() throws Exception {
+		MqttAckTracker.deliver(client, epoch, "t", message(1, 1), (topic, message) -> assertTrue(acked.isEmpty()));
+		assertEquals(1, acked.size());
+		assertEquals(1, acked.get(0));
+	}
+
+	@Test
+	void doesNotAcknowledgeQos0OrFailedDelivery() throws Exception {
+		MqttAckTracker.deliver(client, epoch, "t", message(0, 0), (topic, message) -> {
+		});
+		assertThrows(IllegalStateException.class, () -> MqttAckTracker.deliver(client, epoch, "t", message(2, 1), (topic, message) -> {
+			throw new IllegalStateException("boom");
+		}));
+		assertTrue(acked.isEmpty());
+	}
+
+	@Test
+	void retainedAcknowledgmentDefersUntilAllHandlesComplete() throws Exception {
+		AtomicReference<Acknowledgment> first = new AtomicReference<>();
+		AtomicReference<Acknowledgment> second = new AtomicReference<>();
+		MqttAckTracker.deliver(client, epoch, "t", message(3, 2), (topic, message) -> {
+			first.set(MqttAckTracker.retainCurrent());
+			second.set(MqttAckTracker.retainCurrent());
+		});
+		assertTrue(acked.isEmpty());
+
+		first.get().acknowledge();
+		first.get().acknowledge();
+		assertTrue(acked.isEmpty());
+		second.get().acknowledge();
+		assertEquals(1, acked.size());
+	}
+
+	@Test
+	void skipsAcknowledgmentAfterConnectionEpochChanges() throws Exception {
+		AtomicReference<Acknowledgment> handle = new AtomicReference<>();
+		MqttAckTracker.deliver(client, epoch, "t", message(4, 1), (topic, message) -> handle.set(MqttAckTracker.retainCurrent()));
+
+		// 连接断开后消息 ID 可能已被新消息复用，不能再确认
+		epoch.incrementAndGet();
+		handle.get().acknowledge();
+		assertTrue(acked.isEmpty());
+
+		MqttAckTracker.deliver(client, epoch, "t", message(4, 1), (topic, message) -> {
+		});
+		assertEquals(1, acked.size());
+	}
+
+	@Test
+	void retainOutsideDeliveryIsNoop() {
+		assertSame(Acknowledgment.NOOP, MqttAckTracker.retainCurrent());
+	}
+}
@@ -0,0 +1,32 @@
+package cn.alotus.mqtt.core;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author alotuser
+ * @since 2026/10/16
+ */
+class MqttClockTest {
+
+	@Test
+	void coarseClockStaysOnUntilLastInitializerIsDestroyed() throws InterruptedException {
+		MqttClockInitializer first = new MqttClockInitializer();
+		MqttClockInitializer second = new MqttClockInitializer();
+		assertTrue(MqttClock.isCoarse());
+
+		long before = System.currentTimeMillis();
+		Thread.sleep(20);
+		assertTrue(MqttClock.currentTimeMillis() > before);
+
+		first.destroy();
+		// 重复销毁不会多次释放
+		first.destroy();
+		assertTrue(MqttClock.isCoarse());
+
+		second.destroy();
+		assertFalse(MqttClock.isCoarse());
+	}
+}
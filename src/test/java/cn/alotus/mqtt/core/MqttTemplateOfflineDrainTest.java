@@ -0,0 +1,144 @@
+package cn.alotus.mqtt.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.paho.client.mqttv3.MqttClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import cn.alotus.mqtt.circuit.CircuitState;
+import cn.alotus.mqtt.circuit.MqttCircuitBreaker;
+import cn.alotus.mqtt.config.MqttProperties;
+import cn.alotus.mqtt.config.MqttProperties.RateLimit.RateLimitMode;
+import cn.alotus.mqtt.offline.OfflinePublishBuffer;
+import cn.alotus.mqtt.ratelimit.PublishRateLimiter;
+
+/**
+ * @author alotuser
+ * @since 2026/10/16
+ */
+class MqttTemplateOfflineDrainTest {
+
+	@TempDir
+	File directory;
+
+	private final MqttProperties properties = new MqttProperties();
+	private final AtomicInteger clientLookups = new AtomicInteger();
+	private final Set<String> disconnectedTopics = ConcurrentHashMap.newKeySet();
+	private OfflinePublishBuffer buffer;
+
+	/**
+	 * 除 disconnectedTopics 中的主题外报告已连接，模拟连接池中单条连接断开；获取客户端时只计数，不真正发送
+	 */
+	private final MqttClientFactory clientFactory = new MqttClientFactory() {
+		@Override
+		public MqttClient getClient() {
+			clientLookups.incrementAndGet();
+			return null;
+		}
+
+		@Override
+		public boolean isConnected() {
+			return true;
+		}
+
+		@Override
+		public boolean isConnected(String topic) {
+			return !disconnectedTopics.contains(topic);
+		}
+
+		@Override
+		public MqttProperties getProperties() {
+			return properties;
+		}
+	};
+
+	@AfterEach
+	void destroy() {
+		if (buffer != null) {
+			buffer.destroy();
+		}
+	}
+
+	private MqttTemplate templateWithBufferedMessages(int count) {
+		MqttProperties.OfflineBuffer config = new MqttProperties.OfflineBuffer();
+		config.setDirectory(directory.getPath());
+		config.setSegmentSize(4096);
+		config.setDrainRate(1000);
+		buffer = new OfflinePublishBuffer(config);
+		for (int i = 0; i < count; i++) {
+			buffer.offer("t/" + i, new byte[] { (byte) i }, 1, false);
+		}
+		return new MqttTemplate(clientFactory, properties);
+	}
+
+	@Test
+	void openBreakerPausesDrain() throws InterruptedException {
+		MqttTemplate template = templateWithBufferedMessages(3);
+		MqttProperties.CircuitBreaker breakerConfig = new MqttProperties.CircuitBreaker();
+		breakerConfig.setOpenDuration(60_000);
+		MqttCircuitBreaker breaker = new MqttCircuitBreaker(breakerConfig);
+		breaker.onDisconnected(null);
+		template.setCircuitBreaker(breaker);
+
+		template.setOfflineBuffer(buffer);
+		Thread.sleep(300);
+
+		assertEquals(0, clientLookups.get());
+		assertTrue(buffer.hasPending());
+		assertEquals(0, buffer.getDiscardedCount());
+		assertTrue(breaker.getRejectedCount() > 0);
+	}
+
+	@Test
+	void drainRespectsRateLimit() throws InterruptedException {
+		MqttTemplate template = templateWithBufferedMessages(10);
+		MqttProperties.RateLimit rateLimit = new MqttProperties.RateLimit();
+		rateLimit.setMode(RateLimitMode.FAIL_FAST);
+		rateLimit.setMessagesPerSecond(1);
+		rateLimit.setBurstDuration(1000);
+		PublishRateLimiter limiter = new PublishRateLimiter(rateLimit);
+		template.setRateLimiter(limiter);
+
+		template.setOfflineBuffer(buffer);
+		Thread.sleep(300);
+
+		// 突发额度只有一条，其余消息被限流后退避，不会发往客户端
+		assertEquals(1, clientLookups.get());
+		assertTrue(limiter.getRejectedCount() > 0);
+		assertTrue(buffer.hasPending());
+	}
+
+	@Test
+	void disconnectedShardDoesNotTripBreaker() throws InterruptedException {
+		MqttTemplate template = templateWithBufferedMessages(3);
+		disconnectedTopics.add("t/0");
+		MqttProperties.CircuitBreaker breakerConfig = new MqttProperties.CircuitBreaker();
+		breakerConfig.setMinimumCalls(1);
+		MqttCircuitBreaker breaker = new MqttCircuitBreaker(breakerConfig);
+		template.setCircuitBreaker(breaker);
+
+		template.setOfflineBuffer(buffer);
+		Thread.sleep(300);
+
+		// 队首主题所在连接未恢复，补发等待而不是记为发布失败
+		assertEquals(0, clientLookups.get());
+		assertEquals(CircuitState.CLOSED, breaker.getState());
+		assertTrue(buffer.hasPending());
+
+		// 连接恢复后不需要新的连接事件，下一个补发周期即继续发送
+		disconnectedTopics.clear();
+		long deadline = System.currentTimeMillis() + 5_000;
+		while (clientLookups.get() == 0 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(20);
+		}
+		assertTrue(clientLookups.get() > 0);
+	}
+}
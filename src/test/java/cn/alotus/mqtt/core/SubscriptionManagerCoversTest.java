@@ -0,0 +1,50 @@
+package cn.alotus.mqtt.core;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author alotuser
+ * @since 2026/10/16
+ */
+class SubscriptionManagerCoversTest {
+
+	@Test
+	void exactFilterCoversOnlyItself() {
+		assertTrue(SubscriptionManager.covers("a/b", "a/b"));
+		assertFalse(SubscriptionManager.covers("a/b", "a/c"));
+		assertFalse(SubscriptionManager.covers("a/b", "a/b/c"));
+		assertFalse(SubscriptionManager.covers("a/b", "a/+"));
+	}
+
+	@Test
+	void singleLevelWildcard() {
+		assertTrue(SubscriptionManager.covers("a/+", "a/b"));
+		assertTrue(SubscriptionManager.covers("a/+", "a/+"));
+		assertTrue(SubscriptionManager.covers("+/+", "a/+"));
+		assertFalse(SubscriptionManager.covers("a/+", "a/#"));
+		assertFalse(SubscriptionManager.covers("a/+", "a/b/c"));
+		assertFalse(SubscriptionManager.covers("a/+", "a"));
+	}
+
+	@Test
+	void multiLevelWildcard() {
+		assertTrue(SubscriptionManager.covers("a/#", "a/b/c"));
+		assertTrue(SubscriptionManager.covers("a/#", "a/+/c"));
+		assertTrue(SubscriptionManager.covers("a/#", "a/#"));
+		assertTrue(SubscriptionManager.covers("a/#", "a"));
+		assertTrue(SubscriptionManager.covers("#", "a/b"));
+		assertFalse(SubscriptionManager.covers("a/b/#", "a/#"));
+		assertFalse(SubscriptionManager.covers("a/#", "b/c"));
+	}
+
+	@Test
+	void firstLevelWildcardsDoNotCoverDollarTopics() {
+		assertFalse(SubscriptionManager.covers("#", "$SYS/broker"));
+		assertFalse(SubscriptionManager.covers("+/broker", "$SYS/broker"));
+		assertTrue(SubscriptionManager.covers("$SYS/#", "$SYS/broker"));
+		assertTrue(SubscriptionManager.covers("$SYS/+", "$SYS/broker"));
+	}
+}
@@ -0,0 +1,102 @@
+package cn.alotus.mqtt.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author alotuser
+ * @since 2026/10/16
+ */
+class TopicTrieTest {
+
+	private static List<String> sorted(List<String> values) {
+		Collections.sort(values);
+		return values;
+	}
+
+	@Test
+	void matchesExactAndWildcardFilters() {
+		TopicTrie<String> trie = new TopicTrie<>();
+		trie.add("a/b/c", "exact");
+		trie.add("a/+/c", "single");
+		trie.add("a/#", "multi");
+		trie.add("#", "all");
+		trie.add("b/+", "other");
+
+		assertEquals(Arrays.asList("all", "exact", "multi", "single"), sorted(trie.match("a/b/c")));
+		assertEquals(Arrays.asList("all", "multi", "single"), sorted(trie.match("a/x/c")));
+		assertEquals(Arrays.asList("all", "multi"), sorted(trie.match("a/b/c/d")));
+		assertEquals(Arrays.asList("all", "other"), sorted(trie.match("b/1")));
+		assertEquals(Collections.singletonList("all"), trie.match("b/1/2"));
+	}
+
+	@Test
+	void multiLevelWildcardMatchesParent() {
+		TopicTrie<String> trie = new TopicTrie<>();
+		trie.add("a/#", "multi");
+		trie.add("a/b/#", "nested");
+
+		assertEquals(Collections.singletonList("multi"), trie.match("a"));
+		assertEquals(Arrays.asList("multi", "nested"), sorted(trie.match("a/b")));
+		assertTrue(trie.match("b").isEmpty());
+	}
+
+	@Test
+	void singleLevelWildcardMatchesEmptyLevel() {
+		TopicTrie<String> trie = new TopicTrie<>();
+		trie.add("a/+/c", "single");
+		trie.add("+", "top");
+
+		assertEquals(Collections.singletonList("single"), trie.match("a//c"));
+		assertEquals(Collections.singletonList("top"), trie.match("a"));
+		assertTrue(trie.match("a/b").isEmpty());
+	}
+
+	@Test
+	void dollarTopicsAreNotMatchedByFirstLevelWildcards() {
+		TopicTrie<String> trie = new TopicTrie<>();
+		trie.add("#", "all");
+		trie.add("+/monitor/#", "single");
+		trie.add("$SYS/#", "sys");
+		trie.add("$SYS/+/clients", "sysClients");
+
+		assertEquals(Collections.singletonList("sys"), trie.match("$SYS/monitor/x"));
+		assertEquals(Arrays.asList("sys", "sysClients"), sorted(trie.match("$SYS/broker/clients")));
+		assertEquals(Arrays.asList("all", "single"), sorted(trie.match("app/monitor/x")));
+	}
+
+	@Test
+	void removePrunesEmptyNodes() {
+		TopicTrie<String> trie = new TopicTrie<>();
+		trie.add("a/+/c", "one");
+		trie.add("a/+/c", "two");
+		trie.add("a/#", "three");
+		assertEquals(3, trie.size());
+
+		assertTrue(trie.remove("a/+/c", "one"));
+		assertFalse(trie.remove("a/+/c", "one"));
+		assertFalse(trie.remove("x/y", "one"));
+		assertEquals(Arrays.asList("three", "two"), sorted(trie.match("a/b/c")));
+
+		assertTrue(trie.remove("a/+/c", "two"));
+		assertTrue(trie.remove("a/#", "three"));
+		assertTrue(trie.isEmpty());
+		assertTrue(trie.match("a/b/c").isEmpty());
+	}
+
+	@Test
+	void visitsValueOncePerMatchingFilter() {
+		TopicTrie<String> trie = new TopicTrie<>();
+		trie.add("a/b", "listener");
+		trie.add("a/+", "listener");
+
+		assertEquals(Arrays.asList("listener", "listener"), trie.match("a/b"));
+	}
+}
@@ -0,0 +1,86 @@
+package cn.alotus.mqtt.deadletter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.paho.client.mqttv3.MqttMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import cn.alotus.mqtt.config.MqttProperties;
+
+/**
+ * @author alotuser
+ * @since 2026/10/16
+ */
+class JournalDeadLetterSinkTest {
+
+	@TempDir
+	File directory;
+
+	private JournalDeadLetterSink sink;
+
+	@BeforeEach
+	void setUp() {
+		MqttProperties.DeadLetter config = new MqttProperties.DeadLetter();
+		config.setDirectory(directory.getPath());
+		config.setSegmentSize(64 * 1024);
+		sink = new JournalDeadLetterSink(config);
+	}
+
+	@AfterEach
+	void tearDown() {
+		sink.destroy();
+	}
+
+	private static DeadLetterMessage letter(String topic) {
+		return new DeadLetterMessage("bean.handle", topic, new MqttMessage(topic.getBytes()), 3, "failed", System.currentTimeMillis() - 1);
+	}
+
+	@Test
+	void rejectedHandOffKeepsLetterForNextTick() throws Exception {
+		sink.send(letter("t/1"));
+		sink.send(letter("t/2"));
+		sink.send(letter("t/3"));
+
+		List<String> delivered = new CopyOnWriteArrayList<>();
+		AtomicInteger rejections = new AtomicInteger();
+		long replayed = sink.replay(1000, letter -> {
+			// 第二条死信前两次交付被拒绝
+			if (letter.getTopic().equals("t/2") && rejections.getAndIncrement() < 2) {
+				throw new RejectedExecutionException("full");
+			}
+			delivered.add(letter.getTopic());
+		}).get(5, TimeUnit.SECONDS);
+
+		assertEquals(3, replayed);
+		assertEquals(3, delivered.size());
+		assertEquals("t/1", delivered.get(0));
+		assertEquals("t/2", delivered.get(1));
+		assertEquals("t/3", delivered.get(2));
+		assertFalse(sink.hasPending());
+	}
+
+	@Test
+	void failedHandOffIsRetriedNotDropped() throws Exception {
+		sink.send(letter("t/1"));
+		AtomicInteger attempts = new AtomicInteger();
+		long replayed = sink.replay(1000, letter -> {
+			if (attempts.incrementAndGet() == 1) {
+				throw new IllegalStateException("listener unavailable");
+			}
+		}).get(5, TimeUnit.SECONDS);
+
+		assertEquals(1, replayed);
+		assertEquals(2, attempts.get());
+	}
+}
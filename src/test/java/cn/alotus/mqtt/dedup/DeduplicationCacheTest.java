@@ -0,0 +1,76 @@
+package cn.alotus.mqtt.dedup;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author alotuser
+ * @since 2026/10/16
+ */
+class DeduplicationCacheTest {
+
+	@Test
+	void rejectsDuplicatesWithinWindow() {
+		DeduplicationCache cache = new DeduplicationCache(1000, 60_000);
+		assertTrue(cache.markIfAbsent(42));
+		assertFalse(cache.markIfAbsent(42));
+		assertTrue(cache.markIfAbsent(43));
+		assertTrue(cache.markIfAbsent(0));
+		assertFalse(cache.markIfAbsent(0));
+		assertEquals(3, cache.getAcceptedCount());
+		assertEquals(2, cache.getDuplicateCount());
+	}
+
+	@Test
+	void identifierSurvivesOneRotationAndExpiresAfterTwo() throws InterruptedException {
+		DeduplicationCache cache = new DeduplicationCache(1000, 500);
+		assertTrue(cache.markIfAbsent(7));
+
+		// 一个窗口后轮换，标识仍在上一代中
+		Thread.sleep(600);
+		assertFalse(cache.markIfAbsent(7));
+
+		// 超过两个窗口未出现后过期
+		Thread.sleep(1100);
+		assertTrue(cache.markIfAbsent(7));
+	}
+
+	@Test
+	void rotatesWhenGenerationIsFull() {
+		DeduplicationCache cache = new DeduplicationCache(16, 60_000);
+		assertTrue(cache.markIfAbsent(-1));
+		// 写满多代后最早的标识被淘汰，内存占用不随消息数增长
+		for (long id = 1; id <= 100_000; id++) {
+			cache.markIfAbsent(id);
+		}
+		assertTrue(cache.markIfAbsent(-1));
+	}
+
+	@Test
+	void removedIdentifierIsAcceptedAgain() {
+		DeduplicationCache cache = new DeduplicationCache(1000, 60_000);
+		assertTrue(cache.markIfAbsent(42));
+		assertTrue(cache.remove(42));
+		assertFalse(cache.remove(42));
+		assertTrue(cache.markIfAbsent(42));
+		assertFalse(cache.markIfAbsent(42));
+	}
+
+	@Test
+	void removeKeepsOtherIdentifiersOnTheProbeChain() {
+		DeduplicationCache cache = new DeduplicationCache(2000, 60_000);
+		for (long id = 1; id <= 1000; id++) {
+			assertTrue(cache.markIfAbsent(id));
+		}
+		for (long id = 1; id <= 1000; id += 2) {
+			assertTrue(cache.remove(id));
+		}
+		// 删除后前移的标识仍然能被找到
+		for (long id = 1; id <= 1000; id++) {
+			assertEquals(id % 2 == 1, cache.markIfAbsent(id), "id " + id);
+		}
+	}
+}
@@ -0,0 +1,99 @@
+package cn.alotus.mqtt.listener;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import cn.alotus.mqtt.config.MqttProperties;
+import cn.alotus.mqtt.config.MqttProperties.Executor.OverflowPolicy;
+
+/**
+ * @author alotuser
+ * @since 2026/10/16
+ */
+class BoundedDispatchExecutorTest {
+
+	private final ExecutorService delegate = Executors.newCachedThreadPool();
+	private final CountDownLatch release = new CountDownLatch(1);
+
+	@AfterEach
+	void tearDown() {
+		release.countDown();
+		delegate.shutdownNow();
+	}
+
+	private Runnable blocking(CountDownLatch started) {
+		return () -> {
+			started.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		};
+	}
+
+	@Test
+	void callerRunsWhenPermitsExhausted() throws InterruptedException {
+		BoundedDispatchExecutor executor = new BoundedDispatchExecutor(delegate, 1, new InboundOverflowHandler(OverflowPolicy.CALLER_RUNS, null));
+		CountDownLatch started = new CountDownLatch(1);
+		executor.execute(blocking(started));
+		assertTrue(started.await(1, TimeUnit.SECONDS));
+		assertEquals(1, executor.getActiveCount());
+
+		AtomicReference<Thread> ranOn = new AtomicReference<>();
+		executor.execute(() -> ranOn.set(Thread.currentThread()));
+		assertSame(Thread.currentThread(), ranOn.get());
+	}
+
+	@Test
+	void blockWaitsForRunningTask() throws InterruptedException {
+		InboundOverflowHandler handler = new InboundOverflowHandler(OverflowPolicy.BLOCK, null);
+		BoundedDispatchExecutor executor = new BoundedDispatchExecutor(delegate, 1, handler);
+		CountDownLatch started = new CountDownLatch(1);
+		executor.execute(blocking(started));
+		assertTrue(started.await(1, TimeUnit.SECONDS));
+
+		CountDownLatch second = new CountDownLatch(1);
+		Thread submitter = new Thread(() -> executor.execute(second::countDown));
+		submitter.start();
+		// 第一个任务完成前，第二个任务不能开始
+		assertFalse(second.await(100, TimeUnit.MILLISECONDS));
+		release.countDown();
+		assertTrue(second.await(1, TimeUnit.SECONDS));
+		submitter.join(1000);
+		assertEquals(1, handler.getBlockedCount());
+	}
+
+	@Test
+	void permitIsReleasedAfterTaskFails() throws InterruptedException {
+		BoundedDispatchExecutor executor = new BoundedDispatchExecutor(delegate, 1, new InboundOverflowHandler(OverflowPolicy.BLOCK, null));
+		executor.execute(() -> {
+			throw new IllegalStateException("listener failed");
+		});
+		CountDownLatch done = new CountDownLatch(1);
+		executor.execute(done::countDown);
+		assertTrue(done.await(1, TimeUnit.SECONDS));
+	}
+
+	@Test
+	void virtualThreadsRejectQueueBasedPolicies() {
+		MqttProperties.Executor config = new MqttProperties.Executor();
+		config.setVirtualThreads(true);
+		config.setOverflowPolicy(OverflowPolicy.SPILL);
+		assertThrows(IllegalStateException.class, () -> new MqttMessageDispatcher(config));
+		config.setOverflowPolicy(OverflowPolicy.DROP_OLDEST);
+		assertThrows(IllegalStateException.class, () -> new MqttMessageDispatcher(config));
+	}
+}
@@ -0,0 +1,118 @@
+package cn.alotus.mqtt.listener;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.paho.client.mqttv3.MqttMessage;
+import org.junit.jupiter.api.Test;
+
+import cn.alotus.mqtt.core.Acknowledgment;
+import cn.alotus.mqtt.deadletter.DeadLetterMessage;
+import cn.alotus.mqtt.retry.RetryContext;
+import cn.alotus.mqtt.retry.RetryPolicy;
+
+/**
+ * @author alotuser
+ * @since 2026/10/16
+ */
+class ListenerRetryHandlerTest {
+
+	/**
+	 * 最多执行 3 次，每次间隔 10 毫秒
+	 */
+	private static final RetryPolicy THREE_ATTEMPTS = new RetryPolicy() {
+		@Override
+		public boolean canRetry(RetryContext context) {
+			return context.getAttemptCount() < 3;
+		}
+
+		@Override
+		public long getNextRetryInterval(RetryContext context) {
+			return 10;
+		}
+	};
+
+	public static class BatchListener {
+		final List<List<String>> calls = new CopyOnWriteArrayList<>();
+
+		public void handle(List<String> batch) {
+			calls.add(batch);
+		}
+	}
+
+	@Test
+	void undecodableBatchElementEndsInDeadLetterWithoutEmptyBatchCalls() throws Exception {
+		BatchListener listener = new BatchListener();
+		// 与批处理方法的单条重试相同：解码失败直接抛出
+		ArgumentResolver decodeFailure = (topic, message) -> {
+			throw new IllegalArgumentException("cannot decode");
+		};
+		MethodListenerInvoker invoker = new MethodListenerInvoker(listener, BatchListener.class.getMethod("handle", List.class), new ArgumentResolver[] { (topic, message) -> Collections.singletonList(decodeFailure.resolve(topic, message)) });
+
+		BlockingQueue<DeadLetterMessage> deadLetters = new LinkedBlockingQueue<>();
+		ListenerRetryHandler handler = new ListenerRetryHandler(THREE_ATTEMPTS, deadLetters::add);
+		handler.register("bean.handle", invoker, null);
+		handler.onFailure("bean.handle", "t/1", new MqttMessage(new byte[] { 1 }), new IllegalArgumentException("cannot decode"));
+
+		DeadLetterMessage letter = deadLetters.poll(2, TimeUnit.SECONDS);
+		assertEquals(3, letter.getAttempts());
+		assertTrue(listener.calls.isEmpty());
+		assertEquals(2, handler.getRetriedCount());
+	}
+
+	public static class ManualAckListener {
+		final AtomicInteger calls = new AtomicInteger();
+		final BlockingQueue<Acknowledgment> received = new LinkedBlockingQueue<>();
+
+		public void handle(String payload, Acknowledgment acknowledgment) {
+			if (calls.incrementAndGet() == 1) {
+				throw new IllegalStateException("first attempt fails");
+			}
+			// 故意不确认，交给调用方决定
+			received.add(acknowledgment);
+		}
+	}
+
+	@Test
+	void manualAckListenerReceivesOriginalHandleOnRetryAndIsNotAutoAcked() throws Exception {
+		ManualAckListener listener = new ManualAckListener();
+		ArgumentResolver payload = (topic, message) -> new String(message.getPayload());
+		ArgumentResolver ack = new ArgumentResolver() {
+			@Override
+			public Object resolve(String topic, MqttMessage message) {
+				return Acknowledgment.NOOP;
+			}
+
+			@Override
+			public Object resolve(String topic, MqttMessage message, Acknowledgment acknowledgment) {
+				return acknowledgment;
+			}
+		};
+		MethodListenerInvoker invoker = new MethodListenerInvoker(listener, ManualAckListener.class.getMethod("handle", String.class, Acknowledgment.class), new ArgumentResolver[] { payload, ack });
+
+		ListenerRetryHandler handler = new ListenerRetryHandler(THREE_ATTEMPTS, null);
+		handler.register("bean.handle", invoker, null, true);
+		AtomicInteger acknowledged = new AtomicInteger();
+		Acknowledgment original = acknowledged::incrementAndGet;
+		MqttMessage message = new MqttMessage("x".getBytes());
+		try {
+			invoker.invoke("t/1", message, original);
+		} catch (IllegalStateException e) {
+			handler.onFailure("bean.handle", "t/1", message, e, original);
+		}
+
+		Acknowledgment retried = listener.received.poll(2, TimeUnit.SECONDS);
+		assertSame(original, retried);
+		Thread.sleep(50);
+		assertEquals(0, acknowledged.get());
+	}
+}
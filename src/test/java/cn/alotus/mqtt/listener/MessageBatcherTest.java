@@ -0,0 +1,80 @@
+package cn.alotus.mqtt.listener;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.eclipse.paho.client.mqttv3.MqttMessage;
+import org.junit.jupiter.api.Test;
+
+import cn.alotus.mqtt.config.MqttProperties.Executor.OverflowPolicy;
+import cn.alotus.mqtt.core.MqttMessageContext;
+
+/**
+ * @author alotuser
+ * @since 2026/10/16
+ */
+class MessageBatcherTest {
+
+	@Test
+	void fullBatchRunsOnCallerForDirectExecutor() {
+		AtomicReference<Thread> ranOn = new AtomicReference<>();
+		MessageBatcher batcher = new MessageBatcher("test", 2, 60_000, Runnable::run, batch -> ranOn.set(Thread.currentThread()));
+		batcher.offer("t", new MqttMessage(new byte[] { 1 }));
+		batcher.offer("t", new MqttMessage(new byte[] { 2 }));
+		assertEquals(Thread.currentThread(), ranOn.get());
+		batcher.close();
+	}
+
+	@Test
+	void timeoutFlushDoesNotRunOnSharedTimer() throws InterruptedException {
+		CountDownLatch flushed = new CountDownLatch(1);
+		AtomicReference<String> threadName = new AtomicReference<>();
+		MessageBatcher batcher = new MessageBatcher("test", 100, 20, Runnable::run, batch -> {
+			threadName.set(Thread.currentThread().getName());
+			flushed.countDown();
+		});
+		batcher.offer("t", new MqttMessage(new byte[] { 1 }));
+		assertTrue(flushed.await(2, TimeUnit.SECONDS));
+		assertFalse(threadName.get().startsWith("mqtt-retry-timer"), threadName.get());
+		batcher.close();
+	}
+
+	@Test
+	void timeoutFlushWaitsForFullDispatchQueueWithoutBlockingTimer() throws InterruptedException {
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1), new InboundOverflowHandler(OverflowPolicy.BLOCK, null));
+		CountDownLatch release = new CountDownLatch(1);
+		executor.execute(() -> {
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		executor.execute(() -> {
+		});
+
+		CountDownLatch flushed = new CountDownLatch(1);
+		AtomicReference<List<MqttMessageContext>> batch = new AtomicReference<>();
+		MessageBatcher batcher = new MessageBatcher("test", 100, 20, executor, b -> {
+			batch.set(b);
+			flushed.countDown();
+		});
+		batcher.offer("t", new MqttMessage(new byte[] { 1 }));
+		assertFalse(flushed.await(200, TimeUnit.MILLISECONDS));
+
+		// 队列腾出空位后超时批次被重新转交
+		release.countDown();
+		assertTrue(flushed.await(2, TimeUnit.SECONDS));
+		assertEquals(1, batch.get().size());
+		batcher.close();
+		executor.shutdown();
+	}
+}
@@ -0,0 +1,173 @@
+package cn.alotus.mqtt.listener;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.Method;
+
+import org.eclipse.paho.client.mqttv3.MqttMessage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import cn.alotus.mqtt.core.Acknowledgment;
+
+/**
+ * 预编译调用器的参数传递、异常透传，以及与逐条反射调用的耗时对比
+ * <p>
+ * 耗时对比默认不运行，使用 {@code mvn test -Dtest=MethodListenerInvokerTest -Dmqtt.benchmark=true} 执行
+ * 
+ * @author alotuser
+ * @since 2026/10/16
+ */
+class MethodListenerInvokerTest {
+
+	private static final ArgumentResolver TOPIC = (topic, message) -> topic;
+	private static final ArgumentResolver PAYLOAD = (topic, message) -> message.getPayload();
+	private static final ArgumentResolver MESSAGE = (topic, message) -> message;
+
+	private final Listener listener = new Listener();
+
+	private static Method method(String name) {
+		for (Method method : Listener.class.getDeclaredMethods()) {
+			if (method.getName().equals(name)) {
+				return method;
+			}
+		}
+		throw new IllegalArgumentException(name);
+	}
+
+	@Test
+	void passesResolvedArguments() throws Exception {
+		MethodListenerInvoker invoker = new MethodListenerInvoker(listener, method("onMessage"), new ArgumentResolver[] { TOPIC, PAYLOAD });
+		MqttMessage message = new MqttMessage(new byte[] { 1, 2 });
+
+		assertEquals(2, invoker.invoke("a/b", message));
+		assertEquals("a/b", listener.lastTopic);
+	}
+
+	@Test
+	void spreadsArgumentsBeyondExactArity() throws Exception {
+		ArgumentResolver[] resolvers = { TOPIC, TOPIC, TOPIC, TOPIC, TOPIC };
+		MethodListenerInvoker invoker = new MethodListenerInvoker(listener, method("onFive"), resolvers);
+
+		assertEquals("ttttt", invoker.invoke("t", new MqttMessage()));
+	}
+
+	@Test
+	void passesAcknowledgment() throws Exception {
+		ArgumentResolver ack = new ArgumentResolver() {
+			@Override
+			public Object resolve(String topic, MqttMessage message) {
+				return Acknowledgment.NOOP;
+			}
+
+			@Override
+			public Object resolve(String topic, MqttMessage message, Acknowledgment acknowledgment) {
+				return acknowledgment;
+			}
+		};
+		MethodListenerInvoker invoker = new MethodListenerInvoker(listener, method("onAck"), new ArgumentResolver[] { ack });
+		Acknowledgment acknowledgment = () -> {
+		};
+
+		invoker.invoke("t", new MqttMessage(), acknowledgment);
+		assertSame(acknowledgment, listener.lastAcknowledgment);
+	}
+
+	@Test
+	void rethrowsListenerExceptionUnwrapped() {
+		MethodListenerInvoker invoker = new MethodListenerInvoker(listener, method("onFailure"), new ArgumentResolver[] { TOPIC });
+
+		IllegalStateException e = assertThrows(IllegalStateException.class, () -> invoker.invoke("t", new MqttMessage()));
+		assertEquals("t", e.getMessage());
+	}
+
+	/**
+	 * 对比预编译调用器与原先每条消息的反射调用：逐条获取参数类型、按类型判断取值、分配参数数组后 Method.invoke
+	 */
+	@Test
+	@EnabledIfSystemProperty(named = "mqtt.benchmark", matches = "true")
+	void compareWithReflectiveInvocation() throws Exception {
+		Method method = method("onListener");
+		MethodListenerInvoker invoker = new MethodListenerInvoker(listener, method, new ArgumentResolver[] { TOPIC, MESSAGE, PAYLOAD });
+		MqttMessage message = new MqttMessage(new byte[] { 1, 2, 3 });
+		int iterations = 2_000_000;
+
+		for (int round = 0; round < 5; round++) {
+			runInvoker(invoker, message, iterations);
+			runReflective(method, message, iterations);
+		}
+
+		long invokerNanos = Long.MAX_VALUE;
+		long reflectiveNanos = Long.MAX_VALUE;
+		for (int round = 0; round < 5; round++) {
+			invokerNanos = Math.min(invokerNanos, runInvoker(invoker, message, iterations));
+			reflectiveNanos = Math.min(reflectiveNanos, runReflective(method, message, iterations));
+		}
+
+		System.out.printf("MethodHandle invoker: %.1f ns/op, reflective invoke: %.1f ns/op%n", (double) invokerNanos / iterations, (double) reflectiveNanos / iterations);
+		assertTrue(listener.count > 0);
+	}
+
+	private long runInvoker(MethodListenerInvoker invoker, MqttMessage message, int iterations) throws Exception {
+		long start = System.nanoTime();
+		for (int i = 0; i < iterations; i++) {
+			invoker.invoke("a/b", message);
+		}
+		return System.nanoTime() - start;
+	}
+
+	private long runReflective(Method method, MqttMessage message, int iterations) throws Exception {
+		long start = System.nanoTime();
+		for (int i = 0; i < iterations; i++) {
+			Class<?>[] parameterTypes = method.getParameterTypes();
+			Object[] args = new Object[parameterTypes.length];
+			for (int j = 0; j < parameterTypes.length; j++) {
+				args[j] = reflectiveArgument(parameterTypes[j], "a/b", message);
+			}
+			method.setAccessible(true);
+			method.invoke(listener, args);
+		}
+		return System.nanoTime() - start;
+	}
+
+	private static Object reflectiveArgument(Class<?> type, String topic, MqttMessage message) {
+		if (type == String.class) {
+			return topic;
+		} else if (type == byte[].class) {
+			return message.getPayload();
+		} else if (type == MqttMessage.class) {
+			return message;
+		}
+		return null;
+	}
+
+	static class Listener {
+		String lastTopic;
+		Acknowledgment lastAcknowledgment;
+		long count;
+
+		int onMessage(String topic, byte[] payload) {
+			lastTopic = topic;
+			return payload.length;
+		}
+
+		String onFive(String a, String b, String c, String d, String e) {
+			return a + b + c + d + e;
+		}
+
+		void onAck(Acknowledgment acknowledgment) {
+			lastAcknowledgment = acknowledgment;
+		}
+
+		void onFailure(String topic) {
+			throw new IllegalStateException(topic);
+		}
+
+		void onListener(String topic, MqttMessage message, byte[] payload) {
+			count += payload.length;
+		}
+	}
+}
@@ -0,0 +1,198 @@
+package cn.alotus.mqtt.listener;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.eclipse.paho.client.mqttv3.MqttMessage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.cglib.proxy.Enhancer;
+import org.springframework.cglib.proxy.NoOp;
+
+import cn.alotus.mqtt.annotation.MqttTopic;
+import cn.alotus.mqtt.index.MqttListenerIndex;
+
+/**
+ * 反射检查和索引两种方式发现监听方法的结果，以及大量 Bean 时两种方式的耗时对比
+ * <p>
+ * 耗时对比默认不运行，使用 {@code mvn test -Dtest=MqttListenerAnnotationBeanPostProcessorTest -Dmqtt.benchmark=true} 执行
+ * 
+ * @author alotuser
+ * @since 2026/10/16
+ */
+class MqttListenerAnnotationBeanPostProcessorTest {
+
+	@TempDir
+	File directory;
+
+	/**
+	 * 使用写入临时目录的索引创建后处理器，索引通过线程上下文类加载器加载
+	 */
+	private MqttListenerAnnotationBeanPostProcessor indexedProcessor(String... lines) throws IOException {
+		File index = new File(directory, MqttListenerIndex.LOCATION);
+		index.getParentFile().mkdirs();
+		Files.write(index.toPath(), Arrays.asList(lines), StandardCharsets.UTF_8);
+
+		Thread thread = Thread.currentThread();
+		ClassLoader original = thread.getContextClassLoader();
+		try (URLClassLoader classLoader = new URLClassLoader(new URL[] { directory.toURI().toURL() }, original)) {
+			thread.setContextClassLoader(classLoader);
+			return new MqttListenerAnnotationBeanPostProcessor(true);
+		} finally {
+			thread.setContextClassLoader(original);
+		}
+	}
+
+	private static Set<String> discover(MqttListenerAnnotationBeanPostProcessor processor, Object... beans) {
+		for (int i = 0; i < beans.length; i++) {
+			processor.postProcessAfterInitialization(beans[i], "bean" + i);
+		}
+		Set<String> methods = new TreeSet<>();
+		processor.drainTo(endpoint -> methods.add(endpoint.getBeanName() + "." + endpoint.getMethod().getName()));
+		return methods;
+	}
+
+	@Test
+	void reflectiveScanFindsAnnotatedMethods() {
+		MqttListenerAnnotationBeanPostProcessor processor = new MqttListenerAnnotationBeanPostProcessor(false);
+
+		assertFalse(processor.isIndexed());
+		assertEquals(new TreeSet<>(Arrays.asList("bean0.onTemperature", "bean0.onHumidity", "bean2.onTemperature", "bean2.onHumidity")),
+				discover(processor, new SensorListener(), new PlainService(), new SensorListener()));
+	}
+
+	@Test
+	void indexLocatesListedMethodsOnly() throws IOException {
+		MqttListenerAnnotationBeanPostProcessor processor = indexedProcessor(
+				SensorListener.class.getName() + "#onTemperature(java.lang.String,byte[])");
+
+		assertTrue(processor.isIndexed());
+		assertEquals(new TreeSet<>(Arrays.asList("bean0.onTemperature")), discover(processor, new SensorListener(), new PlainService()));
+	}
+
+	@Test
+	void indexResolvesInheritedMethods() throws IOException {
+		MqttListenerAnnotationBeanPostProcessor processor = indexedProcessor(
+				SensorListener.class.getName() + "#onTemperature(java.lang.String,byte[])",
+				SensorListener.class.getName() + "#onHumidity(org.eclipse.paho.client.mqttv3.MqttMessage)");
+
+		assertEquals(new TreeSet<>(Arrays.asList("bean0.onHumidity", "bean0.onTemperature")), discover(processor, new SensorListener() {
+		}));
+	}
+
+	@Test
+	void staleIndexEntryIsSkipped() throws IOException {
+		MqttListenerAnnotationBeanPostProcessor processor = indexedProcessor(
+				SensorListener.class.getName() + "#removed(java.lang.String)",
+				SensorListener.class.getName() + "#onTemperature(java.lang.String,byte[])");
+
+		assertEquals(new TreeSet<>(Arrays.asList("bean0.onTemperature")), discover(processor, new SensorListener()));
+	}
+
+	/**
+	 * 模拟大量 Bean 的应用：每个 Bean 为不同的类，其中十分之一含监听方法，对比两种方式处理全部 Bean 的耗时
+	 */
+	@Test
+	@EnabledIfSystemProperty(named = "mqtt.benchmark", matches = "true")
+	void compareIndexWithReflectiveScan() throws IOException {
+		int beanCount = 5000;
+		List<Object> beans = new ArrayList<>(beanCount);
+		for (int i = 0; i < beanCount; i++) {
+			beans.add(subclass(i % 10 == 0 ? SensorListener.class : PlainService.class));
+		}
+		String[] indexLines = { SensorListener.class.getName() + "#onTemperature(java.lang.String,byte[])",
+				SensorListener.class.getName() + "#onHumidity(org.eclipse.paho.client.mqttv3.MqttMessage)" };
+
+		for (int round = 0; round < 3; round++) {
+			scan(new MqttListenerAnnotationBeanPostProcessor(false), beans);
+			scan(indexedProcessor(indexLines), beans);
+		}
+
+		long reflectiveNanos = Long.MAX_VALUE;
+		long indexedNanos = Long.MAX_VALUE;
+		int reflectiveFound = 0;
+		int indexedFound = 0;
+		for (int round = 0; round < 5; round++) {
+			MqttListenerAnnotationBeanPostProcessor reflective = new MqttListenerAnnotationBeanPostProcessor(false);
+			long start = System.nanoTime();
+			reflectiveFound = scan(reflective, beans);
+			reflectiveNanos = Math.min(reflectiveNanos, System.nanoTime() - start);
+
+			MqttListenerAnnotationBeanPostProcessor indexed = indexedProcessor(indexLines);
+			start = System.nanoTime();
+			indexedFound = scan(indexed, beans);
+			indexedNanos = Math.min(indexedNanos, System.nanoTime() - start);
+		}
+
+		System.out.printf("%d beans, %d listener methods: reflective scan %.2f ms, index %.2f ms%n", beanCount, reflectiveFound, reflectiveNanos / 1e6, indexedNanos / 1e6);
+		assertEquals(reflectiveFound, indexedFound);
+	}
+
+	private static int scan(MqttListenerAnnotationBeanPostProcessor processor, List<Object> beans) {
+		for (int i = 0; i < beans.size(); i++) {
+			processor.postProcessAfterInitialization(beans.get(i), "bean" + i);
+		}
+		return processor.drainTo(endpoint -> {
+		});
+	}
+
+	/**
+	 * 生成一个新的子类实例，使每个 Bean 的类各不相同，按类缓存不会命中
+	 */
+	private static Object subclass(Class<?> type) {
+		Enhancer enhancer = new Enhancer();
+		enhancer.setSuperclass(type);
+		enhancer.setCallback(NoOp.INSTANCE);
+		enhancer.setUseCache(false);
+		return enhancer.create();
+	}
+
+	public static class SensorListener {
+
+		@MqttTopic("sensors/+/temperature")
+		public void onTemperature(String topic, byte[] payload) {
+		}
+
+		@MqttTopic("sensors/+/humidity")
+		public void onHumidity(MqttMessage message) {
+		}
+
+		public void refresh() {
+		}
+
+		public String describe() {
+			return "sensor";
+		}
+	}
+
+	public static class PlainService {
+
+		public void start() {
+		}
+
+		public void stop() {
+		}
+
+		public int size() {
+			return 0;
+		}
+
+		public String describe() {
+			return "plain";
+		}
+	}
+}
@@ -0,0 +1,92 @@
+package cn.alotus.mqtt.listener;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import cn.alotus.mqtt.config.MqttProperties.Executor.OverflowPolicy;
+
+/**
+ * @author alotuser
+ * @since 2026/10/16
+ */
+class TimerHandoffTest {
+
+	private final CountDownLatch release = new CountDownLatch(1);
+	private ThreadPoolExecutor executor;
+
+	@AfterEach
+	void tearDown() {
+		release.countDown();
+		executor.shutdownNow();
+	}
+
+	/**
+	 * 单线程、队列容量 1，工作线程被占用且队列已满
+	 */
+	private void saturate(OverflowPolicy policy) throws InterruptedException {
+		executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1), new InboundOverflowHandler(policy, null));
+		CountDownLatch started = new CountDownLatch(1);
+		executor.execute(() -> {
+			started.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		assertTrue(started.await(1, TimeUnit.SECONDS));
+		executor.execute(() -> {
+		});
+	}
+
+	@Test
+	void fullQueueRejectsInsteadOfRunningOnCaller() throws InterruptedException {
+		saturate(OverflowPolicy.CALLER_RUNS);
+		AtomicReference<Thread> ranOn = new AtomicReference<>();
+		assertThrows(RejectedExecutionException.class, () -> TimerHandoff.execute(executor, () -> ranOn.set(Thread.currentThread())));
+		assertNull(ranOn.get());
+	}
+
+	@Test
+	void submitResubmitsOnceCapacityIsAvailable() throws InterruptedException {
+		saturate(OverflowPolicy.BLOCK);
+		CountDownLatch done = new CountDownLatch(1);
+		AtomicReference<Thread> ranOn = new AtomicReference<>();
+		long start = System.nanoTime();
+		TimerHandoff.submit(executor, () -> {
+			ranOn.set(Thread.currentThread());
+			done.countDown();
+		}, () -> {
+		});
+		// BLOCK 策略下也不阻塞提交线程
+		assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(500));
+		assertFalse(done.await(100, TimeUnit.MILLISECONDS));
+
+		release.countDown();
+		assertTrue(done.await(2, TimeUnit.SECONDS));
+		assertNotSame(Thread.currentThread(), ranOn.get());
+	}
+
+	@Test
+	void submitReportsShutdownExecutor() throws InterruptedException {
+		saturate(OverflowPolicy.BLOCK);
+		executor.shutdownNow();
+		CountDownLatch shutdown = new CountDownLatch(1);
+		TimerHandoff.submit(executor, () -> {
+		}, shutdown::countDown);
+		assertTrue(shutdown.await(1, TimeUnit.SECONDS));
+	}
+}
@@ -0,0 +1,131 @@
+package cn.alotus.mqtt.offline;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.paho.client.mqttv3.MqttException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import cn.alotus.mqtt.circuit.CircuitBreakerOpenException;
+import cn.alotus.mqtt.config.MqttProperties;
+
+/**
+ * @author alotuser
+ * @since 2026/10/16
+ */
+class OfflinePublishBufferTest {
+
+	@TempDir
+	File directory;
+
+	private OfflinePublishBuffer buffer;
+
+	private OfflinePublishBuffer createBuffer() {
+		MqttProperties.OfflineBuffer config = new MqttProperties.OfflineBuffer();
+		config.setDirectory(directory.getPath());
+		config.setSegmentSize(4096);
+		config.setMaxSize(1 << 20);
+		config.setDrainRate(1000);
+		buffer = new OfflinePublishBuffer(config);
+		return buffer;
+	}
+
+	@AfterEach
+	void destroy() {
+		if (buffer != null) {
+			buffer.destroy();
+		}
+	}
+
+	private static void awaitDrained(OfflinePublishBuffer buffer) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 10_000;
+		while (buffer.hasPending() && System.currentTimeMillis() < deadline) {
+			Thread.sleep(20);
+		}
+	}
+
+	@Test
+	void transientFailuresKeepMessagesForRetry() throws InterruptedException {
+		OfflinePublishBuffer buffer = createBuffer();
+		buffer.offer("a", new byte[] { 1 }, 1, false);
+		buffer.offer("b", new byte[] { 2 }, 1, false);
+
+		List<String> sent = new CopyOnWriteArrayList<>();
+		AtomicInteger calls = new AtomicInteger();
+		buffer.setSender(new Sender(sent) {
+			@Override
+			public void send(String topic, byte[] payload, int qos, boolean retained) throws Exception {
+				int call = calls.incrementAndGet();
+				if (call == 1) {
+					throw new MqttException(MqttException.REASON_CODE_MAX_INFLIGHT);
+				} else if (call == 2) {
+					throw new CircuitBreakerOpenException("open");
+				}
+				super.send(topic, payload, qos, retained);
+			}
+		});
+
+		awaitDrained(buffer);
+		assertEquals(Arrays.asList("a", "b"), sent);
+		assertEquals(2, buffer.getDrainedCount());
+		assertEquals(0, buffer.getDiscardedCount());
+	}
+
+	@Test
+	void permanentFailureDiscardsOnlyThatMessage() throws InterruptedException {
+		OfflinePublishBuffer buffer = createBuffer();
+		buffer.offer("bad/#", new byte[] { 1 }, 1, false);
+		buffer.offer("good", new byte[] { 2 }, 1, false);
+
+		List<String> sent = new CopyOnWriteArrayList<>();
+		buffer.setSender(new Sender(sent) {
+			@Override
+			public void send(String topic, byte[] payload, int qos, boolean retained) throws Exception {
+				if (topic.contains("#")) {
+					throw new IllegalArgumentException("Invalid topic: " + topic);
+				}
+				super.send(topic, payload, qos, retained);
+			}
+		});
+
+		awaitDrained(buffer);
+		assertEquals(Arrays.asList("good"), sent);
+		assertEquals(1, buffer.getDiscardedCount());
+	}
+
+	@Test
+	void classifiesFailures() {
+		assertTrue(OfflinePublishBuffer.isPermanentFailure(new IllegalArgumentException()));
+		assertTrue(OfflinePublishBuffer.isPermanentFailure(new RuntimeException(new MqttException(MqttException.REASON_CODE_INVALID_MESSAGE))));
+		assertFalse(OfflinePublishBuffer.isPermanentFailure(new MqttException(MqttException.REASON_CODE_MAX_INFLIGHT)));
+		assertFalse(OfflinePublishBuffer.isPermanentFailure(new MqttException(MqttException.REASON_CODE_CLIENT_TIMEOUT)));
+		assertFalse(OfflinePublishBuffer.isPermanentFailure(new CircuitBreakerOpenException("open")));
+	}
+
+	private static class Sender implements OfflineMessageSender {
+		private final List<String> sent;
+
+		Sender(List<String> sent) {
+			this.sent = sent;
+		}
+
+		@Override
+		public void send(String topic, byte[] payload, int qos, boolean retained) throws Exception {
+			sent.add(topic);
+		}
+
+		@Override
+		public boolean isConnected() {
+			return true;
+		}
+	}
+}
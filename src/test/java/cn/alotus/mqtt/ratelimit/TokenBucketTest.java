@@ -0,0 +1,68 @@
+package cn.alotus.mqtt.ratelimit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author alotuser
+ * @since 2026/10/16
+ */
+class TokenBucketTest {
+
+	private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+	@Test
+	void burstIsAvailableImmediately() {
+		TokenBucket bucket = new TokenBucket(1000, 10 * MS);
+		long now = System.nanoTime();
+		for (int i = 0; i < 10; i++) {
+			assertEquals(0, bucket.reserve(1, now));
+		}
+		assertEquals(MS, bucket.reserve(1, now));
+	}
+
+	@Test
+	void reservationsArePacedAtTheConfiguredRate() {
+		TokenBucket bucket = new TokenBucket(1000, 0);
+		long now = System.nanoTime();
+		assertEquals(0, bucket.reserve(1, now));
+		assertEquals(MS, bucket.reserve(1, now));
+		assertEquals(2 * MS, bucket.reserve(1, now));
+		// 时间推进后等待相应缩短
+		assertEquals(MS, bucket.reserve(1, now + 2 * MS));
+	}
+
+	@Test
+	void tryAcquireDoesNotConsumeWhenRejected() {
+		TokenBucket bucket = new TokenBucket(1000, 2 * MS);
+		long now = System.nanoTime();
+		assertTrue(bucket.tryAcquire(2, now));
+		assertFalse(bucket.tryAcquire(1, now));
+		assertFalse(bucket.tryAcquire(1, now));
+		assertTrue(bucket.tryAcquire(1, now + MS));
+	}
+
+	@Test
+	void oversizedRequestPassesWhenFullAndIsRepaid() {
+		TokenBucket bucket = new TokenBucket(1000, 5 * MS);
+		long now = System.nanoTime();
+		assertEquals(0, bucket.reserve(20, now));
+		// 超出容量的 15 个令牌记为欠账，下一个令牌需等待欠账和自身的时长
+		assertEquals(16 * MS, bucket.reserve(1, now));
+	}
+
+	@Test
+	void refundReturnsReservedPermits() {
+		TokenBucket bucket = new TokenBucket(1000, 0);
+		long now = System.nanoTime();
+		bucket.reserve(1, now);
+		assertEquals(MS, bucket.reserve(1, now));
+		bucket.refund(1);
+		assertEquals(MS, bucket.reserve(1, now));
+	}
+}
@@ -0,0 +1,61 @@
+package cn.alotus.mqtt.retry;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author alotuser
+ * @since 2026/10/16
+ */
+class RetryTemplateTest {
+
+	private static RetryPolicy maxAttempts(int attempts) {
+		return new RetryPolicy() {
+			@Override
+			public boolean canRetry(RetryContext context) {
+				return context.getAttemptCount() < attempts;
+			}
+
+			@Override
+			public long getNextRetryInterval(RetryContext context) {
+				return 10;
+			}
+		};
+	}
+
+	@Test
+	void blockingCallbackRunsOffTheSharedTimer() throws Exception {
+		List<String> threads = new CopyOnWriteArrayList<>();
+		String result = RetryTemplate.executeAsync(maxAttempts(3), () -> {
+			threads.add(Thread.currentThread().getName());
+			if (threads.size() < 3) {
+				throw new IllegalStateException("not yet");
+			}
+			return "done";
+		}).get(5, TimeUnit.SECONDS);
+
+		assertEquals("done", result);
+		assertEquals(3, threads.size());
+		for (String thread : threads) {
+			assertTrue(thread.startsWith("mqtt-retry-worker-"), thread);
+		}
+	}
+
+	@Test
+	void exhaustedRetriesCompleteExceptionally() {
+		ExecutionException e = assertThrows(ExecutionException.class, () -> RetryTemplate.executeAsync(maxAttempts(2), () -> {
+			throw new IllegalStateException("always");
+		}).get(5, TimeUnit.SECONDS));
+		assertInstanceOf(RetryExhaustedException.class, e.getCause());
+		assertInstanceOf(IllegalStateException.class, e.getCause().getCause());
+	}
+}
@@ -0,0 +1,202 @@
+package cn.alotus.mqtt.store;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.eclipse.paho.client.mqttv3.MqttPersistable;
+import org.eclipse.paho.client.mqttv3.MqttPersistenceException;
+import org.eclipse.paho.client.mqttv3.internal.MqttPersistentData;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * @author alotuser
+ * @since 2026/10/16
+ */
+class MappedLogPersistenceTest {
+
+	private static final String CLIENT_ID = "client";
+	private static final String SERVER_URI = "tcp://localhost:1883";
+
+	@TempDir
+	File directory;
+
+	private MappedLogPersistence persistence;
+
+	@AfterEach
+	void close() throws MqttPersistenceException {
+		if (persistence != null) {
+			persistence.close();
+		}
+	}
+
+	private MappedLogPersistence open(long compactThreshold) throws MqttPersistenceException {
+		MappedLogPersistence opened = new MappedLogPersistence(directory.getPath(), 0, 4096, compactThreshold);
+		opened.open(CLIENT_ID, SERVER_URI);
+		return opened;
+	}
+
+	private MappedLogPersistence reopen() throws MqttPersistenceException {
+		persistence.close();
+		persistence = open(Long.MAX_VALUE);
+		return persistence;
+	}
+
+	private File logFile() {
+		return new File(new File(directory, "client-tcplocalhost1883"), "data.log");
+	}
+
+	private static MqttPersistable data(String key, String header, String payload) {
+		byte[] headerBytes = header.getBytes(StandardCharsets.UTF_8);
+		byte[] payloadBytes = payload.getBytes(StandardCharsets.UTF_8);
+		return new MqttPersistentData(key, headerBytes, 0, headerBytes.length, payloadBytes, 0, payloadBytes.length);
+	}
+
+	/**
+	 * 与日志中 PUT 记录的布局一致：记录头 8 字节，记录体为类型、键长度、键、头长度、头、负载长度、负载
+	 */
+	private static int putRecordSize(String key, String header, String payload) {
+		return 8 + 1 + 2 + key.length() + 4 + header.length() + 4 + payload.length();
+	}
+
+	private static Set<String> keys(MappedLogPersistence persistence) throws MqttPersistenceException {
+		return new TreeSet<>(Collections.list(persistence.keys()));
+	}
+
+	private static void assertEntry(MappedLogPersistence persistence, String key, String header, String payload) throws MqttPersistenceException {
+		MqttPersistable entry = persistence.get(key);
+		assertArrayEquals(header.getBytes(StandardCharsets.UTF_8), entry.getHeaderBytes());
+		assertArrayEquals(payload.getBytes(StandardCharsets.UTF_8), entry.getPayloadBytes());
+	}
+
+	@Test
+	void entriesSurviveReopen() throws MqttPersistenceException {
+		persistence = open(Long.MAX_VALUE);
+		persistence.put("s-1", data("s-1", "h1", "p1"));
+		persistence.put("s-2", data("s-2", "h2", "p2"));
+		persistence.put("s-3", data("s-3", "h3", ""));
+		persistence.put("s-1", data("s-1", "h1b", "p1b"));
+		persistence.remove("s-2");
+
+		reopen();
+		assertEquals(new TreeSet<>(Arrays.asList("s-1", "s-3")), keys(persistence));
+		assertEntry(persistence, "s-1", "h1b", "p1b");
+		assertEntry(persistence, "s-3", "h3", "");
+		assertFalse(persistence.containsKey("s-2"));
+		assertNull(persistence.get("s-2"));
+
+		// 重放后继续追加，再次重启仍能读到
+		persistence.put("s-4", data("s-4", "h4", "p4"));
+		reopen();
+		assertEntry(persistence, "s-4", "h4", "p4");
+		assertEquals(3, keys(persistence).size());
+	}
+
+	@Test
+	void replayStopsAtCorruptedTail() throws Exception {
+		persistence = open(Long.MAX_VALUE);
+		persistence.put("s-1", data("s-1", "h1", "p1"));
+		persistence.put("s-2", data("s-2", "h2", "p2"));
+		persistence.put("s-3", data("s-3", "h3", "p3"));
+		persistence.close();
+
+		// 修改最后一条记录的负载，校验和不再匹配
+		int offset = putRecordSize("s-1", "h1", "p1") + putRecordSize("s-2", "h2", "p2");
+		try (RandomAccessFile raf = new RandomAccessFile(logFile(), "rw")) {
+			raf.seek(offset + putRecordSize("s-3", "h3", "p3") - 1);
+			raf.write('x');
+		}
+
+		persistence = open(Long.MAX_VALUE);
+		assertEquals(new TreeSet<>(Arrays.asList("s-1", "s-2")), keys(persistence));
+
+		// 截断位置之后的写入覆盖损坏的记录，重启后不会与残留数据混淆
+		persistence.put("s-5", data("s-5", "h5", "p5"));
+		reopen();
+		assertEquals(new TreeSet<>(Arrays.asList("s-1", "s-2", "s-5")), keys(persistence));
+		assertEntry(persistence, "s-5", "h5", "p5");
+	}
+
+	@Test
+	void replayStopsAtTruncatedTail() throws Exception {
+		persistence = open(Long.MAX_VALUE);
+		persistence.put("s-1", data("s-1", "h1", "p1"));
+		persistence.put("s-2", data("s-2", "h2", "payload-2"));
+		persistence.close();
+
+		// 模拟写到一半时断电，最后一条记录只有一部分落盘
+		try (RandomAccessFile raf = new RandomAccessFile(logFile(), "rw")) {
+			raf.setLength(putRecordSize("s-1", "h1", "p1") + 12);
+		}
+
+		persistence = open(Long.MAX_VALUE);
+		assertEquals(Collections.singleton("s-1"), keys(persistence));
+		assertEntry(persistence, "s-1", "h1", "p1");
+	}
+
+	@Test
+	void compactionKeepsExactlyLiveKeys() throws Exception {
+		persistence = open(0);
+		for (int i = 0; i < 20; i++) {
+			persistence.put("key-" + i, data("key-" + i, "header-" + i, "payload-" + i));
+		}
+		for (int i = 0; i < 16; i++) {
+			persistence.remove("key-" + i);
+		}
+		persistence.put("key-17", data("key-17", "header-17b", "payload-17b"));
+
+		Set<String> live = new TreeSet<>(Arrays.asList("key-16", "key-17", "key-18", "key-19"));
+		assertEquals(live, keys(persistence));
+
+		reopen();
+		assertEquals(live, keys(persistence));
+		assertEntry(persistence, "key-16", "header-16", "payload-16");
+		assertEntry(persistence, "key-17", "header-17b", "payload-17b");
+
+		// 已删除的键不再出现在日志中，说明日志已被重写而不只是追加了删除记录
+		String content = new String(Files.readAllBytes(logFile().toPath()), StandardCharsets.ISO_8859_1);
+		assertFalse(content.contains("payload-3"));
+		assertFalse(new File(logFile().getParentFile(), "data.log.compact").exists());
+	}
+
+	@Test
+	void secondOpenFailsOnLock() throws MqttPersistenceException {
+		persistence = open(Long.MAX_VALUE);
+		persistence.put("s-1", data("s-1", "h1", "p1"));
+
+		MappedLogPersistence second = new MappedLogPersistence(directory.getPath(), 0, 4096, Long.MAX_VALUE);
+		MqttPersistenceException e = assertThrows(MqttPersistenceException.class, () -> second.open(CLIENT_ID, SERVER_URI));
+		assertEquals(MqttPersistenceException.REASON_CODE_PERSISTENCE_IN_USE, e.getReasonCode());
+
+		// 第一个实例关闭后锁被释放
+		persistence.close();
+		persistence = second;
+		second.open(CLIENT_ID, SERVER_URI);
+		assertTrue(second.containsKey("s-1"));
+	}
+
+	@Test
+	void clearRemovesEverything() throws MqttPersistenceException {
+		persistence = open(Long.MAX_VALUE);
+		persistence.put("s-1", data("s-1", "h1", "p1"));
+		persistence.clear();
+		assertTrue(keys(persistence).isEmpty());
+
+		reopen();
+		assertTrue(keys(persistence).isEmpty());
+	}
+}
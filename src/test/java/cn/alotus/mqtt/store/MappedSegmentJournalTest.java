@@ -0,0 +1,169 @@
+package cn.alotus.mqtt.store;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * @author alotuser
+ * @since 2026/10/16
+ */
+class MappedSegmentJournalTest {
+
+	/**
+	 * 每段只能放下一条 {@link #record(int)} 生成的记录
+	 */
+	private static final int SEGMENT_SIZE = 64;
+
+	@TempDir
+	File directory;
+
+	private static byte[] record(int i) {
+		return String.format("record-%013d", i).getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static void assertRecord(int expected, JournalRecord record) {
+		assertNotNull(record);
+		assertArrayEquals(record(expected), record.getData());
+	}
+
+	private int segmentFiles() {
+		return directory.listFiles((dir, name) -> name.endsWith(".seg")).length;
+	}
+
+	@Test
+	void restartResumesFromCommittedPosition() throws IOException {
+		try (MappedSegmentJournal journal = new MappedSegmentJournal(directory, 4096, 1 << 20, 0)) {
+			journal.append(record(1));
+			journal.append(record(2));
+			journal.append(record(3));
+			assertRecord(1, journal.poll());
+			// 未确认的记录在重启后重新读取
+			journal.peek();
+		}
+
+		try (MappedSegmentJournal journal = new MappedSegmentJournal(directory, 4096, 1 << 20, 0)) {
+			assertRecord(2, journal.poll());
+			assertRecord(3, journal.poll());
+			assertNull(journal.poll());
+			assertTrue(journal.isEmpty());
+		}
+	}
+
+	@Test
+	void rollsAcrossSegmentsAndDeletesConsumedSegments() throws IOException {
+		try (MappedSegmentJournal journal = new MappedSegmentJournal(directory, SEGMENT_SIZE, 1 << 20, 0)) {
+			for (int i = 0; i < 10; i++) {
+				assertTrue(journal.append(record(i)));
+			}
+			assertEquals(10, segmentFiles());
+
+			for (int i = 0; i < 10; i++) {
+				assertRecord(i, journal.poll());
+			}
+			assertNull(journal.poll());
+			assertEquals(1, segmentFiles());
+			assertEquals(0, journal.getPendingBytes());
+		}
+	}
+
+	@Test
+	void rejectsRecordLargerThanSegment() throws IOException {
+		try (MappedSegmentJournal journal = new MappedSegmentJournal(directory, SEGMENT_SIZE, 1 << 20, 0)) {
+			assertFalse(journal.append(new byte[SEGMENT_SIZE]));
+			assertTrue(journal.isEmpty());
+		}
+	}
+
+	@Test
+	void evictsOldestSegmentsWhenOverMaxSize() throws IOException {
+		try (MappedSegmentJournal journal = new MappedSegmentJournal(directory, SEGMENT_SIZE, 3 * SEGMENT_SIZE, 0)) {
+			for (int i = 0; i < 10; i++) {
+				journal.append(record(i));
+			}
+			assertEquals(3, segmentFiles());
+			assertEquals(7, journal.getDroppedRecords());
+
+			for (int i = 7; i < 10; i++) {
+				assertRecord(i, journal.poll());
+			}
+			assertNull(journal.poll());
+		}
+	}
+
+	@Test
+	void commitIsIgnoredWhenPeekedSegmentIsEvicted() throws IOException {
+		try (MappedSegmentJournal journal = new MappedSegmentJournal(directory, SEGMENT_SIZE, 3 * SEGMENT_SIZE, 0)) {
+			journal.append(record(0));
+			assertRecord(0, journal.peek());
+
+			// 发送期间写入导致正在读取的段被丢弃
+			for (int i = 1; i < 4; i++) {
+				journal.append(record(i));
+			}
+			assertEquals(1, journal.getDroppedRecords());
+			journal.commit();
+
+			for (int i = 1; i < 4; i++) {
+				assertRecord(i, journal.poll());
+			}
+			assertNull(journal.poll());
+			assertThrows(IllegalStateException.class, journal::commit);
+		}
+	}
+
+	@Test
+	void commitAfterPeekSurvivesRoll() throws IOException {
+		try (MappedSegmentJournal journal = new MappedSegmentJournal(directory, SEGMENT_SIZE, 1 << 20, 0)) {
+			journal.append(record(0));
+			assertRecord(0, journal.peek());
+
+			// 滚动到新段但不丢弃，查看的记录仍然有效
+			journal.append(record(1));
+			journal.commit();
+			assertRecord(1, journal.poll());
+			assertNull(journal.poll());
+			assertEquals(0, journal.getDroppedRecords());
+		}
+	}
+
+	@Test
+	void evictionSurvivesRestart() throws IOException {
+		try (MappedSegmentJournal journal = new MappedSegmentJournal(directory, SEGMENT_SIZE, 3 * SEGMENT_SIZE, 0)) {
+			for (int i = 0; i < 5; i++) {
+				journal.append(record(i));
+			}
+		}
+		try (MappedSegmentJournal journal = new MappedSegmentJournal(directory, SEGMENT_SIZE, 3 * SEGMENT_SIZE, 0)) {
+			assertRecord(2, journal.poll());
+			journal.append(record(5));
+			assertRecord(3, journal.poll());
+			assertRecord(4, journal.poll());
+			assertRecord(5, journal.poll());
+			assertNull(journal.poll());
+		}
+	}
+
+	@Test
+	void skipsExpiredRecords() throws IOException {
+		try (MappedSegmentJournal journal = new MappedSegmentJournal(directory, 4096, 1 << 20, 60_000)) {
+			byte[] old = record(1);
+			journal.append(old, 0, old.length, System.currentTimeMillis() - 120_000);
+			journal.append(record(2));
+
+			assertRecord(2, journal.poll());
+			assertEquals(1, journal.getDroppedRecords());
+		}
+	}
+}